@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2010 Alena Laskavaia 
+ * Copyright (c) 2009, 2014 Alena Laskavaia 
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -19,6 +19,7 @@ import org.eclipse.cdt.codan.core.cxx.model.AbstractIndexAstChecker;
 import org.eclipse.cdt.codan.core.model.ICheckerWithPreferences;
 import org.eclipse.cdt.codan.core.model.IProblem;
 import org.eclipse.cdt.codan.core.model.IProblemWorkingCopy;
+import org.eclipse.cdt.codan.core.model.IThreadSafeChecker;
 import org.eclipse.cdt.core.dom.ast.ASTVisitor;
 import org.eclipse.cdt.core.dom.ast.IASTDeclaration;
 import org.eclipse.cdt.core.dom.ast.IASTFunctionDefinition;
@@ -31,7 +32,7 @@ import org.eclipse.cdt.core.dom.ast.cpp.ICPPASTQualifiedName;
  * This is style checker for function name code style. Pattern parameter is
  * regular expression defining the style.
  */
-public class NamingConventionFunctionChecker extends AbstractIndexAstChecker implements ICheckerWithPreferences {
+public class NamingConventionFunctionChecker extends AbstractIndexAstChecker implements ICheckerWithPreferences, IThreadSafeChecker {
 	private static final String ER_ID = "org.eclipse.cdt.codan.internal.checkers.NamingConventionFunctionChecker"; //$NON-NLS-1$
 	public static final String PARAM_KEY = "pattern"; //$NON-NLS-1$
 	public static final String PARAM_METHODS = "macro"; //$NON-NLS-1$
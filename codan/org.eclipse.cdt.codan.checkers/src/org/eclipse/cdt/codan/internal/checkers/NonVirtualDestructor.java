@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2012 Alena Laskavaia 
+ * Copyright (c) 2009, 2014 Alena Laskavaia 
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -42,9 +42,8 @@ public class NonVirtualDestructor extends AbstractIndexAstChecker {
 	private static HashSet<ICPPClassType> checkedClassTypes = new HashSet<ICPPClassType>();
 
 	@Override
-	public void processAst(IASTTranslationUnit ast) {
-		// Traverse the AST using the visitor pattern.
-		ast.accept(new OnEachClass());
+	protected ASTVisitor createVisitor(IASTTranslationUnit ast) {
+		return new OnEachClass();
 	}
 
 	private static ICPPMethod getDestructor(ICPPClassType classType, IASTNode point) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2010 Alena Laskavaia 
+ * Copyright (c) 2009, 2014 Alena Laskavaia 
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,7 @@ package org.eclipse.cdt.codan.internal.checkers;
 
 import org.eclipse.cdt.codan.core.cxx.model.AbstractIndexAstChecker;
 import org.eclipse.cdt.codan.core.model.IProblemWorkingCopy;
+import org.eclipse.cdt.codan.core.model.IThreadSafeChecker;
 import org.eclipse.cdt.core.dom.ast.ASTNodeProperty;
 import org.eclipse.cdt.core.dom.ast.ASTVisitor;
 import org.eclipse.cdt.core.dom.ast.IASTBinaryExpression;
@@ -31,14 +32,13 @@ import org.eclipse.cdt.core.dom.ast.IASTUnaryExpression;
  * @author Alena
  * 
  */
-public class SuggestedParenthesisChecker extends AbstractIndexAstChecker {
+public class SuggestedParenthesisChecker extends AbstractIndexAstChecker implements IThreadSafeChecker {
 	public static final String ER_ID = "org.eclipse.cdt.codan.internal.checkers.SuggestedParenthesisProblem"; //$NON-NLS-1$
 	public static final String PARAM_NOT = "paramNot"; //$NON-NLS-1$
 
 	@Override
-	public void processAst(IASTTranslationUnit ast) {
-		// traverse the ast using the visitor pattern.
-		ast.accept(new ExpressionVisitor());
+	protected ASTVisitor createVisitor(IASTTranslationUnit ast) {
+		return new ExpressionVisitor();
 	}
 
 	class ExpressionVisitor extends ASTVisitor {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 Meisam Fathi and others 
+ * Copyright (c) 2010, 2014 Meisam Fathi and others 
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,6 +13,7 @@ package org.eclipse.cdt.codan.internal.checkers.fs;
 import java.util.Iterator;
 
 import org.eclipse.cdt.codan.core.cxx.model.AbstractIndexAstChecker;
+import org.eclipse.cdt.codan.core.model.IThreadSafeChecker;
 import org.eclipse.cdt.core.dom.ast.ASTVisitor;
 import org.eclipse.cdt.core.dom.ast.IASTExpression;
 import org.eclipse.cdt.core.dom.ast.IASTFunctionCallExpression;
@@ -66,7 +67,7 @@ import org.eclipse.cdt.core.dom.ast.IType;
  * @author Meisam Fathi
  * 
  */
-public class ScanfFormatStringSecurityChecker extends AbstractIndexAstChecker {
+public class ScanfFormatStringSecurityChecker extends AbstractIndexAstChecker implements IThreadSafeChecker {
 	private static final String ER_ID = "org.eclipse.cdt.codan.internal.checkers.ScanfFormatStringSecurityProblem"; //$NON-NLS-1$
 	private final static VulnerableFunction[] VULNERABLE_FUNCTIONS = {//
 	// list of all format string vulnerable functions
@@ -79,8 +80,8 @@ public class ScanfFormatStringSecurityChecker extends AbstractIndexAstChecker {
 	};
 
 	@Override
-	public void processAst(IASTTranslationUnit ast) {
-		ast.accept(new FormatStringVisitor());
+	protected ASTVisitor createVisitor(IASTTranslationUnit ast) {
+		return new FormatStringVisitor();
 	}
 
 	private static final class VulnerableFunction {
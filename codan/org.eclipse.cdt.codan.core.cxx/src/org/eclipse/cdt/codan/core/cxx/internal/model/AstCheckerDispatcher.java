@@ -0,0 +1,557 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.codan.core.cxx.internal.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.cdt.codan.core.cxx.Activator;
+import org.eclipse.cdt.codan.internal.core.CheckersTimeStats;
+import org.eclipse.cdt.core.dom.ast.ASTVisitor;
+import org.eclipse.cdt.core.dom.ast.IASTArrayModifier;
+import org.eclipse.cdt.core.dom.ast.IASTAttribute;
+import org.eclipse.cdt.core.dom.ast.IASTAttributeSpecifier;
+import org.eclipse.cdt.core.dom.ast.IASTDeclSpecifier;
+import org.eclipse.cdt.core.dom.ast.IASTDeclaration;
+import org.eclipse.cdt.core.dom.ast.IASTDeclarator;
+import org.eclipse.cdt.core.dom.ast.IASTEnumerationSpecifier.IASTEnumerator;
+import org.eclipse.cdt.core.dom.ast.IASTExpression;
+import org.eclipse.cdt.core.dom.ast.IASTInitializer;
+import org.eclipse.cdt.core.dom.ast.IASTName;
+import org.eclipse.cdt.core.dom.ast.IASTNode;
+import org.eclipse.cdt.core.dom.ast.IASTParameterDeclaration;
+import org.eclipse.cdt.core.dom.ast.IASTPointerOperator;
+import org.eclipse.cdt.core.dom.ast.IASTProblem;
+import org.eclipse.cdt.core.dom.ast.IASTStatement;
+import org.eclipse.cdt.core.dom.ast.IASTToken;
+import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+import org.eclipse.cdt.core.dom.ast.IASTTypeId;
+import org.eclipse.cdt.core.dom.ast.c.ICASTDesignator;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPASTCompositeTypeSpecifier.ICPPASTBaseSpecifier;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPASTCapture;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPASTNamespaceDefinition;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPASTTemplateParameter;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+/**
+ * Runs the visitors of several checkers during a single traversal of an AST. Each node
+ * is passed to the visitors that asked for nodes of its kind, the result of each visitor
+ * is honored for that visitor only. The time spent in the visitors is attributed to
+ * the individual checkers.
+ * <p>
+ * All visitors of a dispatcher have to agree on the way the AST is traversed, i.e. on
+ * inactive nodes and implicit names, see {@link #canAdd(ASTVisitor)}.
+ */
+public class AstCheckerDispatcher extends ASTVisitor {
+	private static final int TRANSLATION_UNIT = 0;
+	private static final int NAME = 1;
+	private static final int DECLARATION = 2;
+	private static final int INITIALIZER = 3;
+	private static final int PARAMETER_DECLARATION = 4;
+	private static final int DECLARATOR = 5;
+	private static final int DECL_SPECIFIER = 6;
+	private static final int ARRAY_MODIFIER = 7;
+	private static final int POINTER_OPERATOR = 8;
+	private static final int ATTRIBUTE = 9;
+	private static final int ATTRIBUTE_SPECIFIER = 10;
+	private static final int TOKEN = 11;
+	private static final int EXPRESSION = 12;
+	private static final int STATEMENT = 13;
+	private static final int TYPE_ID = 14;
+	private static final int ENUMERATOR = 15;
+	private static final int PROBLEM = 16;
+	private static final int BASE_SPECIFIER = 17;
+	private static final int NAMESPACE = 18;
+	private static final int TEMPLATE_PARAMETER = 19;
+	private static final int CAPTURE = 20;
+	private static final int DESIGNATOR = 21;
+	private static final int KIND_COUNT = 22;
+
+	private static class Client {
+		final ASTVisitor visitor;
+		final String id;
+		long elapsed;
+		/** The node for which the visitor asked to skip the children. */
+		IASTNode skipped;
+		boolean done;
+
+		Client(ASTVisitor visitor, String id, long elapsed) {
+			this.visitor = visitor;
+			this.id = id;
+			this.elapsed = elapsed;
+		}
+	}
+
+	private final List<Client> clients = new ArrayList<Client>();
+	@SuppressWarnings("unchecked")
+	private final List<Client>[] clientsByKind = new List[KIND_COUNT];
+	/** Number of clients that are neither done nor skipping a subtree. */
+	private int active;
+	private int done;
+
+	/**
+	 * Checks whether the given visitor can be run together with other visitors. Visitors that
+	 * are interested in ambiguous nodes need a traversal of their own.
+	 */
+	public static boolean canShareTraversal(ASTVisitor visitor) {
+		return visitor != null && !visitor.shouldVisitAmbiguousNodes;
+	}
+
+	/**
+	 * Checks whether the given visitor can be run by this dispatcher.
+	 */
+	public boolean canAdd(ASTVisitor visitor) {
+		if (!canShareTraversal(visitor))
+			return false;
+		if (clients.isEmpty())
+			return true;
+		return visitor.includeInactiveNodes == includeInactiveNodes
+				&& visitor.shouldVisitImplicitNames == shouldVisitImplicitNames
+				&& visitor.shouldVisitImplicitNameAlternates == shouldVisitImplicitNameAlternates;
+	}
+
+	/**
+	 * Adds the visitor of a checker.
+	 *
+	 * @param visitor the visitor, {@link #canAdd(ASTVisitor)} must be {@code true} for it.
+	 * @param id the id under which the time spent in the visitor is recorded.
+	 * @param elapsed time in nanoseconds already spent for the checker, e.g. for creating
+	 *     the visitor.
+	 */
+	public void add(ASTVisitor visitor, String id, long elapsed) {
+		if (clients.isEmpty()) {
+			includeInactiveNodes = visitor.includeInactiveNodes;
+			shouldVisitImplicitNames = visitor.shouldVisitImplicitNames;
+			shouldVisitImplicitNameAlternates = visitor.shouldVisitImplicitNameAlternates;
+		}
+		Client client = new Client(visitor, id, elapsed);
+		clients.add(client);
+		boolean[] kinds = {
+				visitor.shouldVisitTranslationUnit,
+				visitor.shouldVisitNames,
+				visitor.shouldVisitDeclarations,
+				visitor.shouldVisitInitializers,
+				visitor.shouldVisitParameterDeclarations,
+				visitor.shouldVisitDeclarators,
+				visitor.shouldVisitDeclSpecifiers,
+				visitor.shouldVisitArrayModifiers,
+				visitor.shouldVisitPointerOperators,
+				visitor.shouldVisitAttributes,
+				visitor.shouldVisitAttributes,
+				visitor.shouldVisitTokens,
+				visitor.shouldVisitExpressions,
+				visitor.shouldVisitStatements,
+				visitor.shouldVisitTypeIds,
+				visitor.shouldVisitEnumerators,
+				visitor.shouldVisitProblems,
+				visitor.shouldVisitBaseSpecifiers,
+				visitor.shouldVisitNamespaces,
+				visitor.shouldVisitTemplateParameters,
+				visitor.shouldVisitCaptures,
+				visitor.shouldVisitDesignators,
+		};
+		for (int kind = 0; kind < KIND_COUNT; kind++) {
+			if (kinds[kind]) {
+				if (clientsByKind[kind] == null)
+					clientsByKind[kind] = new ArrayList<Client>();
+				clientsByKind[kind].add(client);
+			}
+		}
+		shouldVisitTranslationUnit |= visitor.shouldVisitTranslationUnit;
+		shouldVisitNames |= visitor.shouldVisitNames;
+		shouldVisitDeclarations |= visitor.shouldVisitDeclarations;
+		shouldVisitInitializers |= visitor.shouldVisitInitializers;
+		shouldVisitParameterDeclarations |= visitor.shouldVisitParameterDeclarations;
+		shouldVisitDeclarators |= visitor.shouldVisitDeclarators;
+		shouldVisitDeclSpecifiers |= visitor.shouldVisitDeclSpecifiers;
+		shouldVisitArrayModifiers |= visitor.shouldVisitArrayModifiers;
+		shouldVisitPointerOperators |= visitor.shouldVisitPointerOperators;
+		shouldVisitAttributes |= visitor.shouldVisitAttributes;
+		shouldVisitTokens |= visitor.shouldVisitTokens;
+		shouldVisitExpressions |= visitor.shouldVisitExpressions;
+		shouldVisitStatements |= visitor.shouldVisitStatements;
+		shouldVisitTypeIds |= visitor.shouldVisitTypeIds;
+		shouldVisitEnumerators |= visitor.shouldVisitEnumerators;
+		shouldVisitProblems |= visitor.shouldVisitProblems;
+		shouldVisitBaseSpecifiers |= visitor.shouldVisitBaseSpecifiers;
+		shouldVisitNamespaces |= visitor.shouldVisitNamespaces;
+		shouldVisitTemplateParameters |= visitor.shouldVisitTemplateParameters;
+		shouldVisitCaptures |= visitor.shouldVisitCaptures;
+		shouldVisitDesignators |= visitor.shouldVisitDesignators;
+	}
+
+	public boolean isEmpty() {
+		return clients.isEmpty();
+	}
+
+	/**
+	 * Traverses the AST once for all visitors and records the time spent in each of them
+	 * with {@link CheckersTimeStats}.
+	 */
+	public void run(IASTTranslationUnit ast) {
+		active = clients.size();
+		done = 0;
+		try {
+			ast.accept(this);
+		} finally {
+			CheckersTimeStats stats = CheckersTimeStats.getInstance();
+			for (Client client : clients) {
+				stats.checkerElapsed(client.id, client.elapsed);
+			}
+		}
+	}
+
+	private int dispatchVisit(int kind, IASTNode node) {
+		List<Client> list = clientsByKind[kind];
+		if (list == null)
+			return PROCESS_CONTINUE;
+		for (Client client : list) {
+			if (client.done || client.skipped != null)
+				continue;
+			int result = invoke(client, kind, node, true);
+			if (result == PROCESS_SKIP) {
+				client.skipped = node;
+				active--;
+			} else if (result == PROCESS_ABORT) {
+				finish(client);
+			}
+		}
+		if (active > 0)
+			return PROCESS_CONTINUE;
+		if (done == clients.size())
+			return PROCESS_ABORT;
+		// None of the visitors is interested in the children, leave(node) won't be called.
+		for (Client client : list) {
+			if (client.skipped == node) {
+				client.skipped = null;
+				active++;
+			}
+		}
+		return PROCESS_SKIP;
+	}
+
+	private int dispatchLeave(int kind, IASTNode node) {
+		List<Client> list = clientsByKind[kind];
+		if (list == null)
+			return PROCESS_CONTINUE;
+		for (Client client : list) {
+			if (client.done)
+				continue;
+			if (client.skipped != null) {
+				if (client.skipped == node) {
+					client.skipped = null;
+					active++;
+				}
+				continue;
+			}
+			if (invoke(client, kind, node, false) == PROCESS_ABORT)
+				finish(client);
+		}
+		return done == clients.size() ? PROCESS_ABORT : PROCESS_CONTINUE;
+	}
+
+	private void finish(Client client) {
+		client.done = true;
+		active--;
+		done++;
+	}
+
+	private int invoke(Client client, int kind, IASTNode node, boolean visit) {
+		long start = System.nanoTime();
+		try {
+			return visit ? visit(client.visitor, kind, node) : leave(client.visitor, kind, node);
+		} catch (OperationCanceledException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			// Stop the failing checker only, as if it had been run on its own.
+			Activator.log(e);
+			return PROCESS_ABORT;
+		} finally {
+			client.elapsed += System.nanoTime() - start;
+		}
+	}
+
+	private static int visit(ASTVisitor visitor, int kind, IASTNode node) {
+		switch (kind) {
+		case TRANSLATION_UNIT: return visitor.visit((IASTTranslationUnit) node);
+		case NAME: return visitor.visit((IASTName) node);
+		case DECLARATION: return visitor.visit((IASTDeclaration) node);
+		case INITIALIZER: return visitor.visit((IASTInitializer) node);
+		case PARAMETER_DECLARATION: return visitor.visit((IASTParameterDeclaration) node);
+		case DECLARATOR: return visitor.visit((IASTDeclarator) node);
+		case DECL_SPECIFIER: return visitor.visit((IASTDeclSpecifier) node);
+		case ARRAY_MODIFIER: return visitor.visit((IASTArrayModifier) node);
+		case POINTER_OPERATOR: return visitor.visit((IASTPointerOperator) node);
+		case ATTRIBUTE: return visitor.visit((IASTAttribute) node);
+		case ATTRIBUTE_SPECIFIER: return visitor.visit((IASTAttributeSpecifier) node);
+		case TOKEN: return visitor.visit((IASTToken) node);
+		case EXPRESSION: return visitor.visit((IASTExpression) node);
+		case STATEMENT: return visitor.visit((IASTStatement) node);
+		case TYPE_ID: return visitor.visit((IASTTypeId) node);
+		case ENUMERATOR: return visitor.visit((IASTEnumerator) node);
+		case PROBLEM: return visitor.visit((IASTProblem) node);
+		case BASE_SPECIFIER: return visitor.visit((ICPPASTBaseSpecifier) node);
+		case NAMESPACE: return visitor.visit((ICPPASTNamespaceDefinition) node);
+		case TEMPLATE_PARAMETER: return visitor.visit((ICPPASTTemplateParameter) node);
+		case CAPTURE: return visitor.visit((ICPPASTCapture) node);
+		case DESIGNATOR: return visitor.visit((ICASTDesignator) node);
+		}
+		return PROCESS_CONTINUE;
+	}
+
+	private static int leave(ASTVisitor visitor, int kind, IASTNode node) {
+		switch (kind) {
+		case TRANSLATION_UNIT: return visitor.leave((IASTTranslationUnit) node);
+		case NAME: return visitor.leave((IASTName) node);
+		case DECLARATION: return visitor.leave((IASTDeclaration) node);
+		case INITIALIZER: return visitor.leave((IASTInitializer) node);
+		case PARAMETER_DECLARATION: return visitor.leave((IASTParameterDeclaration) node);
+		case DECLARATOR: return visitor.leave((IASTDeclarator) node);
+		case DECL_SPECIFIER: return visitor.leave((IASTDeclSpecifier) node);
+		case ARRAY_MODIFIER: return visitor.leave((IASTArrayModifier) node);
+		case POINTER_OPERATOR: return visitor.leave((IASTPointerOperator) node);
+		case ATTRIBUTE: return visitor.leave((IASTAttribute) node);
+		case ATTRIBUTE_SPECIFIER: return visitor.leave((IASTAttributeSpecifier) node);
+		case TOKEN: return visitor.leave((IASTToken) node);
+		case EXPRESSION: return visitor.leave((IASTExpression) node);
+		case STATEMENT: return visitor.leave((IASTStatement) node);
+		case TYPE_ID: return visitor.leave((IASTTypeId) node);
+		case ENUMERATOR: return visitor.leave((IASTEnumerator) node);
+		case PROBLEM: return visitor.leave((IASTProblem) node);
+		case BASE_SPECIFIER: return visitor.leave((ICPPASTBaseSpecifier) node);
+		case NAMESPACE: return visitor.leave((ICPPASTNamespaceDefinition) node);
+		case TEMPLATE_PARAMETER: return visitor.leave((ICPPASTTemplateParameter) node);
+		case CAPTURE: return visitor.leave((ICPPASTCapture) node);
+		case DESIGNATOR: return visitor.leave((ICASTDesignator) node);
+		}
+		return PROCESS_CONTINUE;
+	}
+
+	@Override
+	public int visit(IASTTranslationUnit tu) {
+		return dispatchVisit(TRANSLATION_UNIT, tu);
+	}
+
+	@Override
+	public int visit(IASTName name) {
+		return dispatchVisit(NAME, name);
+	}
+
+	@Override
+	public int visit(IASTDeclaration declaration) {
+		return dispatchVisit(DECLARATION, declaration);
+	}
+
+	@Override
+	public int visit(IASTInitializer initializer) {
+		return dispatchVisit(INITIALIZER, initializer);
+	}
+
+	@Override
+	public int visit(IASTParameterDeclaration parameterDeclaration) {
+		return dispatchVisit(PARAMETER_DECLARATION, parameterDeclaration);
+	}
+
+	@Override
+	public int visit(IASTDeclarator declarator) {
+		return dispatchVisit(DECLARATOR, declarator);
+	}
+
+	@Override
+	public int visit(IASTDeclSpecifier declSpec) {
+		return dispatchVisit(DECL_SPECIFIER, declSpec);
+	}
+
+	@Override
+	public int visit(IASTArrayModifier arrayModifier) {
+		return dispatchVisit(ARRAY_MODIFIER, arrayModifier);
+	}
+
+	@Override
+	public int visit(IASTPointerOperator ptrOperator) {
+		return dispatchVisit(POINTER_OPERATOR, ptrOperator);
+	}
+
+	@Override
+	public int visit(IASTAttribute attribute) {
+		return dispatchVisit(ATTRIBUTE, attribute);
+	}
+
+	@Override
+	public int visit(IASTAttributeSpecifier specifier) {
+		return dispatchVisit(ATTRIBUTE_SPECIFIER, specifier);
+	}
+
+	@Override
+	public int visit(IASTToken token) {
+		return dispatchVisit(TOKEN, token);
+	}
+
+	@Override
+	public int visit(IASTExpression expression) {
+		return dispatchVisit(EXPRESSION, expression);
+	}
+
+	@Override
+	public int visit(IASTStatement statement) {
+		return dispatchVisit(STATEMENT, statement);
+	}
+
+	@Override
+	public int visit(IASTTypeId typeId) {
+		return dispatchVisit(TYPE_ID, typeId);
+	}
+
+	@Override
+	public int visit(IASTEnumerator enumerator) {
+		return dispatchVisit(ENUMERATOR, enumerator);
+	}
+
+	@Override
+	public int visit(IASTProblem problem) {
+		return dispatchVisit(PROBLEM, problem);
+	}
+
+	@Override
+	public int visit(ICPPASTBaseSpecifier baseSpecifier) {
+		return dispatchVisit(BASE_SPECIFIER, baseSpecifier);
+	}
+
+	@Override
+	public int visit(ICPPASTNamespaceDefinition namespaceDefinition) {
+		return dispatchVisit(NAMESPACE, namespaceDefinition);
+	}
+
+	@Override
+	public int visit(ICPPASTTemplateParameter templateParameter) {
+		return dispatchVisit(TEMPLATE_PARAMETER, templateParameter);
+	}
+
+	@Override
+	public int visit(ICPPASTCapture capture) {
+		return dispatchVisit(CAPTURE, capture);
+	}
+
+	@Override
+	public int visit(ICASTDesignator designator) {
+		return dispatchVisit(DESIGNATOR, designator);
+	}
+
+	@Override
+	public int leave(IASTTranslationUnit tu) {
+		return dispatchLeave(TRANSLATION_UNIT, tu);
+	}
+
+	@Override
+	public int leave(IASTName name) {
+		return dispatchLeave(NAME, name);
+	}
+
+	@Override
+	public int leave(IASTDeclaration declaration) {
+		return dispatchLeave(DECLARATION, declaration);
+	}
+
+	@Override
+	public int leave(IASTInitializer initializer) {
+		return dispatchLeave(INITIALIZER, initializer);
+	}
+
+	@Override
+	public int leave(IASTParameterDeclaration parameterDeclaration) {
+		return dispatchLeave(PARAMETER_DECLARATION, parameterDeclaration);
+	}
+
+	@Override
+	public int leave(IASTDeclarator declarator) {
+		return dispatchLeave(DECLARATOR, declarator);
+	}
+
+	@Override
+	public int leave(IASTDeclSpecifier declSpec) {
+		return dispatchLeave(DECL_SPECIFIER, declSpec);
+	}
+
+	@Override
+	public int leave(IASTArrayModifier arrayModifier) {
+		return dispatchLeave(ARRAY_MODIFIER, arrayModifier);
+	}
+
+	@Override
+	public int leave(IASTPointerOperator ptrOperator) {
+		return dispatchLeave(POINTER_OPERATOR, ptrOperator);
+	}
+
+	@Override
+	public int leave(IASTAttribute attribute) {
+		return dispatchLeave(ATTRIBUTE, attribute);
+	}
+
+	@Override
+	public int leave(IASTAttributeSpecifier specifier) {
+		return dispatchLeave(ATTRIBUTE_SPECIFIER, specifier);
+	}
+
+	@Override
+	public int leave(IASTToken token) {
+		return dispatchLeave(TOKEN, token);
+	}
+
+	@Override
+	public int leave(IASTExpression expression) {
+		return dispatchLeave(EXPRESSION, expression);
+	}
+
+	@Override
+	public int leave(IASTStatement statement) {
+		return dispatchLeave(STATEMENT, statement);
+	}
+
+	@Override
+	public int leave(IASTTypeId typeId) {
+		return dispatchLeave(TYPE_ID, typeId);
+	}
+
+	@Override
+	public int leave(IASTEnumerator enumerator) {
+		return dispatchLeave(ENUMERATOR, enumerator);
+	}
+
+	@Override
+	public int leave(IASTProblem problem) {
+		return dispatchLeave(PROBLEM, problem);
+	}
+
+	@Override
+	public int leave(ICPPASTBaseSpecifier baseSpecifier) {
+		return dispatchLeave(BASE_SPECIFIER, baseSpecifier);
+	}
+
+	@Override
+	public int leave(ICPPASTNamespaceDefinition namespaceDefinition) {
+		return dispatchLeave(NAMESPACE, namespaceDefinition);
+	}
+
+	@Override
+	public int leave(ICPPASTTemplateParameter templateParameter) {
+		return dispatchLeave(TEMPLATE_PARAMETER, templateParameter);
+	}
+
+	@Override
+	public int leave(ICPPASTCapture capture) {
+		return dispatchLeave(CAPTURE, capture);
+	}
+
+	@Override
+	public int leave(ICASTDesignator designator) {
+		return dispatchLeave(DESIGNATOR, designator);
+	}
+}
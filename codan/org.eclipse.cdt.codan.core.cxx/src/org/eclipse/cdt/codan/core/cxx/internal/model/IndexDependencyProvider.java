@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.codan.core.cxx.internal.model;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.cdt.codan.core.cxx.Activator;
+import org.eclipse.cdt.codan.internal.core.IAnalysisDependencyProvider;
+import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.cdt.core.index.IIndex;
+import org.eclipse.cdt.core.index.IIndexFile;
+import org.eclipse.cdt.core.index.IIndexInclude;
+import org.eclipse.cdt.core.index.IndexLocationFactory;
+import org.eclipse.cdt.core.model.CoreModel;
+import org.eclipse.cdt.core.model.ICElement;
+import org.eclipse.cdt.core.model.ITranslationUnit;
+import org.eclipse.cdt.core.parser.IExtendedScannerInfo;
+import org.eclipse.cdt.core.parser.IScannerInfo;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Adds the headers included by a translation unit, as recorded in the index, and the build
+ * configuration of the translation unit to the inputs of its analysis. The index-based AST takes
+ * the contents of headers from the index, therefore the contents hashes of the headers in the
+ * index are used. Files that are not translation units are rejected.
+ */
+public class IndexDependencyProvider implements IAnalysisDependencyProvider {
+	private static final Charset UTF_8 = Charset.forName("UTF-8"); //$NON-NLS-1$
+
+	@Override
+	public boolean addDependencies(IFile file, MessageDigest digest) {
+		ICElement celement = CoreModel.getDefault().create(file);
+		if (!(celement instanceof ITranslationUnit))
+			return false;
+		addScannerInfo(digest, ((ITranslationUnit) celement).getScannerInfo(true));
+		try {
+			IIndex index = CCorePlugin.getIndexManager().getIndex(celement.getCProject());
+			index.acquireReadLock();
+			try {
+				// Checkers don't run while the index is not fully initialized.
+				if (!index.isFullyInitialized())
+					return false;
+				IIndexFile[] indexFiles = index.getFiles(IndexLocationFactory.getWorkspaceIFL(file));
+				if (indexFiles.length == 0)
+					return false;
+				for (IIndexFile indexFile : indexFiles) {
+					update(digest, indexFile.getLinkageID());
+					update(digest, indexFile.getContentsHash());
+					for (IIndexInclude include : index.findIncludes(indexFile, IIndex.DEPTH_INFINITE)) {
+						digest.update(include.getFullName().getBytes(UTF_8));
+						IIndexFile includedFile = include.isResolved() ? index.resolveInclude(include) : null;
+						update(digest, includedFile == null ? 0 : includedFile.getContentsHash());
+					}
+				}
+				return true;
+			} finally {
+				index.releaseReadLock();
+			}
+		} catch (CoreException e) {
+			Activator.log(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return false;
+	}
+
+	/**
+	 * Adds the macros and include paths of the build configuration, they determine the AST
+	 * of the translation unit as much as the headers do.
+	 */
+	private static void addScannerInfo(MessageDigest digest, IScannerInfo info) {
+		if (info == null)
+			return;
+		Map<String, String> macros = info.getDefinedSymbols();
+		if (macros != null) {
+			for (Map.Entry<String, String> macro : new TreeMap<String, String>(macros).entrySet()) {
+				update(digest, macro.getKey());
+				update(digest, macro.getValue());
+			}
+		}
+		update(digest, info.getIncludePaths());
+		if (info instanceof IExtendedScannerInfo) {
+			IExtendedScannerInfo extendedInfo = (IExtendedScannerInfo) info;
+			update(digest, extendedInfo.getLocalIncludePath());
+			update(digest, extendedInfo.getMacroFiles());
+			update(digest, extendedInfo.getIncludeFiles());
+		}
+	}
+
+	private static void update(MessageDigest digest, String[] values) {
+		if (values != null) {
+			for (String value : values) {
+				update(digest, value);
+			}
+		}
+		digest.update((byte) 0);
+	}
+
+	private static void update(MessageDigest digest, String value) {
+		if (value != null)
+			digest.update(value.getBytes(UTF_8));
+		digest.update((byte) 0);
+	}
+
+	private static void update(MessageDigest digest, long value) {
+		for (int i = 0; i < 8; i++) {
+			digest.update((byte) (value >>> (8 * i)));
+		}
+	}
+}
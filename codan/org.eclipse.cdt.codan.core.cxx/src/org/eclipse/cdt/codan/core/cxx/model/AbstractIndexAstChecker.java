@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2012 Alena Laskavaia 
+ * Copyright (c) 2009, 2014 Alena Laskavaia 
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,11 +13,14 @@ package org.eclipse.cdt.codan.core.cxx.model;
 
 import org.eclipse.cdt.codan.core.cxx.Activator;
 import org.eclipse.cdt.codan.core.model.AbstractCheckerWithProblemPreferences;
+import org.eclipse.cdt.codan.core.model.ICheckerGroup;
 import org.eclipse.cdt.codan.core.model.ICheckerInvocationContext;
+import org.eclipse.cdt.codan.core.model.IGroupableChecker;
 import org.eclipse.cdt.codan.core.model.IProblem;
 import org.eclipse.cdt.codan.core.model.IProblemLocation;
 import org.eclipse.cdt.codan.core.model.IProblemLocationFactory;
 import org.eclipse.cdt.codan.core.model.IRunnableInEditorChecker;
+import org.eclipse.cdt.core.dom.ast.ASTVisitor;
 import org.eclipse.cdt.core.dom.ast.IASTFileLocation;
 import org.eclipse.cdt.core.dom.ast.IASTImageLocation;
 import org.eclipse.cdt.core.dom.ast.IASTMacroExpansionLocation;
@@ -41,11 +44,48 @@ import org.eclipse.core.runtime.OperationCanceledException;
  * Clients may extend this class.
  */
 public abstract class AbstractIndexAstChecker extends AbstractCheckerWithProblemPreferences
-		implements ICAstChecker, IRunnableInEditorChecker {
-	private CxxModelsCache modelCache;
+		implements ICAstChecker, IRunnableInEditorChecker, IGroupableChecker {
+	private final ThreadLocal<CxxModelsCache> modelCache = new ThreadLocal<CxxModelsCache>();
+
+	/**
+	 * Returns the group that runs this checker together with the other checkers working on the
+	 * index-based AST. Checkers that override the way a resource or model is processed are run
+	 * on their own.
+	 *
+	 * @since 3.2
+	 */
+	@Override
+	public ICheckerGroup getCheckerGroup() {
+		return AstCheckerGroup.canRunInGroup(this) ? AstCheckerGroup.INSTANCE : null;
+	}
+
+	/**
+	 * Checkers that inspect the AST with a single visitor may return the visitor from this
+	 * method instead of overriding {@link #processAst(IASTTranslationUnit)}. The visitors of all
+	 * such checkers are run during a single traversal of the AST. The visitor has to report
+	 * problems for the kinds of nodes selected by its <code>shouldVisit...</code> flags only.
+	 *
+	 * @param ast the AST that will be traversed with the visitor.
+	 * @return the visitor, or {@code null} if the checker processes the AST on its own.
+	 * @since 3.2
+	 */
+	protected ASTVisitor createVisitor(IASTTranslationUnit ast) {
+		return null;
+	}
+
+	/**
+	 * Runs the visitor returned by {@link #createVisitor(IASTTranslationUnit)} on the AST.
+	 * Subclasses that do not provide a visitor have to override this method.
+	 */
+	@Override
+	public void processAst(IASTTranslationUnit ast) {
+		ASTVisitor visitor = createVisitor(ast);
+		if (visitor != null)
+			ast.accept(visitor);
+	}
 
 	@Override
-	public synchronized boolean processResource(IResource resource) throws OperationCanceledException {
+	public boolean processResource(IResource resource) throws OperationCanceledException {
 		if (!shouldProduceProblems(resource))
 			return false;
 		if (!(resource instanceof IFile))
@@ -56,24 +96,16 @@ public abstract class AbstractIndexAstChecker extends AbstractCheckerWithProblem
 	}
 
 	private void processFile(IFile file) throws OperationCanceledException {
-		ICheckerInvocationContext context = getContext();
-		synchronized (context) {
-			modelCache = context.get(CxxModelsCache.class);
-			if (modelCache == null) {
-				ICElement celement = CoreModel.getDefault().create(file);
-				if (!(celement instanceof ITranslationUnit)) {
-					return;
-				}
-				modelCache = new CxxModelsCache((ITranslationUnit) celement);
-				context.add(modelCache);
-			}
-		}
+		CxxModelsCache cache = getModelCache(getContext(), file);
+		if (cache == null)
+			return;
 
+		modelCache.set(cache);
 		try {
 			// Run the checker only if the index is fully initialized. Otherwise it may produce
 			// false positives.
-			if (modelCache.getIndex().isFullyInitialized()) {
-				IASTTranslationUnit ast = modelCache.getAST();
+			if (cache.getIndex().isFullyInitialized()) {
+				IASTTranslationUnit ast = cache.getAST();
 				if (ast != null) {
 					synchronized (ast) {
 						processAst(ast);
@@ -83,7 +115,7 @@ public abstract class AbstractIndexAstChecker extends AbstractCheckerWithProblem
 		} catch (CoreException e) {
 			Activator.log(e);
 		} finally {
-			modelCache = null;
+			modelCache.remove();
 		}
 	}
 
@@ -91,7 +123,7 @@ public abstract class AbstractIndexAstChecker extends AbstractCheckerWithProblem
 	 * @see IRunnableInEditorChecker#processModel(Object, ICheckerInvocationContext)
 	 */
 	@Override
-	public synchronized void processModel(Object model, ICheckerInvocationContext context) {
+	public void processModel(Object model, ICheckerInvocationContext context) {
 		if (model instanceof IASTTranslationUnit) {
 			IASTTranslationUnit ast = (IASTTranslationUnit) model;
 			// Run the checker only if the index was fully initialized when the file was parsed.
@@ -100,22 +132,62 @@ public abstract class AbstractIndexAstChecker extends AbstractCheckerWithProblem
 				return;
 
 			setContext(context);
-			synchronized (context) {
-				modelCache = context.get(CxxModelsCache.class);
-				if (modelCache == null) {
-					modelCache = new CxxModelsCache(ast);
-					context.add(modelCache);
-				}
-			}
+			modelCache.set(getModelCache(context, ast));
 			try {
 				processAst(ast);
 			} finally {
-				modelCache = null; 
+				modelCache.remove();
 				setContext(null);
 			}
 		}
 	}
 
+	/**
+	 * Returns the models cache shared by the checkers running on the file, or {@code null}
+	 * if the file is not a translation unit.
+	 */
+	static CxxModelsCache getModelCache(ICheckerInvocationContext context, IFile file) {
+		synchronized (context) {
+			CxxModelsCache cache = context.get(CxxModelsCache.class);
+			if (cache == null) {
+				ICElement celement = CoreModel.getDefault().create(file);
+				if (!(celement instanceof ITranslationUnit)) {
+					return null;
+				}
+				cache = new CxxModelsCache((ITranslationUnit) celement);
+				context.add(cache);
+			}
+			return cache;
+		}
+	}
+
+	/**
+	 * Returns the models cache shared by the checkers running on the AST.
+	 */
+	static CxxModelsCache getModelCache(ICheckerInvocationContext context, IASTTranslationUnit ast) {
+		synchronized (context) {
+			CxxModelsCache cache = context.get(CxxModelsCache.class);
+			if (cache == null) {
+				cache = new CxxModelsCache(ast);
+				context.add(cache);
+			}
+			return cache;
+		}
+	}
+
+	/**
+	 * Prepares the checker for running in a group, see {@link AstCheckerGroup}.
+	 */
+	void attach(ICheckerInvocationContext context, CxxModelsCache cache) {
+		setContext(context);
+		modelCache.set(cache);
+	}
+
+	void detach() {
+		modelCache.remove();
+		setContext(null);
+	}
+
 	@Override
 	public boolean runInEditor() {
 		return true;
@@ -170,7 +242,7 @@ public abstract class AbstractIndexAstChecker extends AbstractCheckerWithProblem
 	}
 
 	protected IFile getFile() {
-		return modelCache.getFile();
+		return modelCache.get().getFile();
 	}
 
 	protected IProject getProject() {
@@ -179,10 +251,10 @@ public abstract class AbstractIndexAstChecker extends AbstractCheckerWithProblem
 	}
 
 	protected CxxModelsCache getModelCache() {
-		return modelCache;
+		return modelCache.get();
 	}
 
 	protected ICodanCommentMap getCommentMap() {
-		return modelCache.getCommentedNodeMap();
+		return modelCache.get().getCommentedNodeMap();
 	}
 }
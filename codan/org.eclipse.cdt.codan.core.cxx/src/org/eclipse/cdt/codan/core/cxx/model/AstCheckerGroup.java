@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.codan.core.cxx.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.cdt.codan.core.cxx.Activator;
+import org.eclipse.cdt.codan.core.cxx.internal.model.AstCheckerDispatcher;
+import org.eclipse.cdt.codan.core.model.AbstractChecker;
+import org.eclipse.cdt.codan.core.model.CheckerLaunchMode;
+import org.eclipse.cdt.codan.core.model.ICheckerGroup;
+import org.eclipse.cdt.codan.core.model.ICheckerInvocationContext;
+import org.eclipse.cdt.codan.core.model.IGroupableChecker;
+import org.eclipse.cdt.codan.internal.core.CheckersTimeStats;
+import org.eclipse.cdt.core.dom.ast.ASTVisitor;
+import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+/**
+ * Runs the enabled {@link AbstractIndexAstChecker}s on a file, such that the AST is obtained
+ * once and the checkers providing a visitor share a single traversal of the AST.
+ */
+class AstCheckerGroup implements ICheckerGroup {
+	static final AstCheckerGroup INSTANCE = new AstCheckerGroup();
+
+	private static final Map<Class<?>, Boolean> groupable = new ConcurrentHashMap<Class<?>, Boolean>();
+	private static final Map<Class<?>, Boolean> usesVisitor = new ConcurrentHashMap<Class<?>, Boolean>();
+
+	private AstCheckerGroup() {
+	}
+
+	/**
+	 * Checks whether the checker relies on the way the framework processes resources and models.
+	 */
+	static boolean canRunInGroup(AbstractIndexAstChecker checker) {
+		Class<?> c = checker.getClass();
+		Boolean result = groupable.get(c);
+		if (result == null) {
+			result = isDeclaredByFramework(c, "processResource", IResource.class) && //$NON-NLS-1$
+					isDeclaredByFramework(c, "processResource", IResource.class, ICheckerInvocationContext.class) && //$NON-NLS-1$
+					isDeclaredByFramework(c, "processModel", Object.class, ICheckerInvocationContext.class); //$NON-NLS-1$
+			groupable.put(c, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Checks whether the checker processes the AST with the visitor returned by
+	 * {@link AbstractIndexAstChecker#createVisitor(IASTTranslationUnit)}.
+	 */
+	private static boolean usesVisitor(AbstractIndexAstChecker checker) {
+		Class<?> c = checker.getClass();
+		Boolean result = usesVisitor.get(c);
+		if (result == null) {
+			result = isDeclaredByFramework(c, "processAst", IASTTranslationUnit.class); //$NON-NLS-1$
+			usesVisitor.put(c, result);
+		}
+		return result;
+	}
+
+	private static boolean isDeclaredByFramework(Class<?> c, String name, Class<?>... parameterTypes) {
+		try {
+			Class<?> declaringClass = c.getMethod(name, parameterTypes).getDeclaringClass();
+			return declaringClass == AbstractIndexAstChecker.class || declaringClass == AbstractChecker.class;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	@Override
+	public void processResource(IResource resource, Object model, CheckerLaunchMode launchMode,
+			List<IGroupableChecker> checkers, ICheckerInvocationContext context)
+			throws OperationCanceledException {
+		List<AbstractIndexAstChecker> astCheckers = new ArrayList<AbstractIndexAstChecker>(checkers.size());
+		if (launchMode == CheckerLaunchMode.RUN_AS_YOU_TYPE) {
+			if (!(model instanceof IASTTranslationUnit))
+				return;
+			IASTTranslationUnit ast = (IASTTranslationUnit) model;
+			// Run the checkers only if the index was fully initialized when the file was parsed.
+			// Otherwise the checkers may produce false positives.
+			if (ast.isBasedOnIncompleteIndex())
+				return;
+			for (IGroupableChecker checker : checkers) {
+				astCheckers.add((AbstractIndexAstChecker) checker);
+			}
+			processAst(ast, AbstractIndexAstChecker.getModelCache(context, ast), astCheckers, context);
+		} else {
+			if (!(resource instanceof IFile))
+				return;
+			for (IGroupableChecker checker : checkers) {
+				AbstractIndexAstChecker astChecker = (AbstractIndexAstChecker) checker;
+				if (astChecker.shouldProduceProblems(resource))
+					astCheckers.add(astChecker);
+			}
+			if (astCheckers.isEmpty())
+				return;
+			CxxModelsCache modelCache = AbstractIndexAstChecker.getModelCache(context, (IFile) resource);
+			if (modelCache == null)
+				return;
+			try {
+				// Run the checkers only if the index is fully initialized. Otherwise they may
+				// produce false positives.
+				if (modelCache.getIndex().isFullyInitialized()) {
+					IASTTranslationUnit ast = modelCache.getAST();
+					if (ast != null) {
+						synchronized (ast) {
+							processAst(ast, modelCache, astCheckers, context);
+						}
+					}
+				}
+			} catch (CoreException e) {
+				Activator.log(e);
+			}
+		}
+	}
+
+	private void processAst(IASTTranslationUnit ast, CxxModelsCache modelCache,
+			List<AbstractIndexAstChecker> checkers, ICheckerInvocationContext context) {
+		CheckersTimeStats stats = CheckersTimeStats.getInstance();
+		List<AstCheckerDispatcher> dispatchers = new ArrayList<AstCheckerDispatcher>();
+		for (AbstractIndexAstChecker checker : checkers) {
+			checker.attach(context, modelCache);
+		}
+		try {
+			for (AbstractIndexAstChecker checker : checkers) {
+				ASTVisitor visitor = null;
+				if (usesVisitor(checker)) {
+					long start = System.nanoTime();
+					visitor = checker.createVisitor(ast);
+					if (visitor == null)
+						continue;
+					if (AstCheckerDispatcher.canShareTraversal(visitor)) {
+						addVisitor(dispatchers, visitor, checker.getClass().getName(), System.nanoTime() - start);
+						continue;
+					}
+				}
+				runOnItsOwn(checker, visitor, ast, stats);
+			}
+			for (AstCheckerDispatcher dispatcher : dispatchers) {
+				dispatcher.run(ast);
+			}
+		} finally {
+			for (AbstractIndexAstChecker checker : checkers) {
+				checker.detach();
+			}
+		}
+	}
+
+	/**
+	 * Runs a checker with a traversal of its own, either with the given visitor or by
+	 * processing the AST if the visitor is {@code null}.
+	 */
+	private static void runOnItsOwn(AbstractIndexAstChecker checker, ASTVisitor visitor,
+			IASTTranslationUnit ast, CheckersTimeStats stats) {
+		long start = System.nanoTime();
+		try {
+			if (visitor != null) {
+				ast.accept(visitor);
+			} else {
+				checker.processAst(ast);
+			}
+		} catch (OperationCanceledException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			Activator.log(e);
+		} finally {
+			stats.checkerElapsed(checker.getClass().getName(), System.nanoTime() - start);
+		}
+	}
+
+	private static void addVisitor(List<AstCheckerDispatcher> dispatchers, ASTVisitor visitor, String id,
+			long elapsed) {
+		for (AstCheckerDispatcher dispatcher : dispatchers) {
+			if (dispatcher.canAdd(visitor)) {
+				dispatcher.add(visitor, id, elapsed);
+				return;
+			}
+		}
+		AstCheckerDispatcher dispatcher = new AstCheckerDispatcher();
+		dispatcher.add(visitor, id, elapsed);
+		dispatchers.add(dispatcher);
+	}
+}
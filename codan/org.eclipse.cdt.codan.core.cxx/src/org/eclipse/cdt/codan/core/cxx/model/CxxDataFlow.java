@@ -0,0 +1,429 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.codan.core.cxx.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.cdt.codan.core.model.cfg.IBasicBlock;
+import org.eclipse.cdt.codan.core.model.cfg.ICfgData;
+import org.eclipse.cdt.codan.core.model.cfg.IControlFlowGraph;
+import org.eclipse.cdt.codan.internal.core.cfg.BitVectorDataFlow;
+import org.eclipse.cdt.codan.internal.core.cfg.IndexedGraph;
+import org.eclipse.cdt.core.dom.ast.ASTVisitor;
+import org.eclipse.cdt.core.dom.ast.IASTBinaryExpression;
+import org.eclipse.cdt.core.dom.ast.IASTDeclaration;
+import org.eclipse.cdt.core.dom.ast.IASTDeclarator;
+import org.eclipse.cdt.core.dom.ast.IASTExpression;
+import org.eclipse.cdt.core.dom.ast.IASTFunctionDefinition;
+import org.eclipse.cdt.core.dom.ast.IASTIdExpression;
+import org.eclipse.cdt.core.dom.ast.IASTName;
+import org.eclipse.cdt.core.dom.ast.IASTNode;
+import org.eclipse.cdt.core.dom.ast.IASTParameterDeclaration;
+import org.eclipse.cdt.core.dom.ast.IASTStandardFunctionDeclarator;
+import org.eclipse.cdt.core.dom.ast.IASTStatement;
+import org.eclipse.cdt.core.dom.ast.IASTUnaryExpression;
+import org.eclipse.cdt.core.dom.ast.IBinding;
+import org.eclipse.cdt.core.dom.ast.IField;
+import org.eclipse.cdt.core.dom.ast.IParameter;
+import org.eclipse.cdt.core.dom.ast.IVariable;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPASTCatchHandler;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPASTLambdaExpression;
+import org.eclipse.cdt.core.dom.ast.gnu.IGNUASTCompoundStatementExpression;
+import org.eclipse.cdt.internal.core.dom.parser.ASTQueries;
+
+/**
+ * Reaching definitions and live variables of the local variables and parameters of a function,
+ * computed on its control flow graph. The nodes of the graph, the variables and the definitions
+ * are numbered, and the results are reported as sets of these numbers.
+ * <p>
+ * Definitions are initializations of declarators, assignments to a variable, increments and
+ * decrements, the parameters on entry of the function and the declarations of catch handlers.
+ * Accesses through pointers and references, and accesses from lambda expressions are not
+ * modeled, therefore the variables whose address is taken may be live although the analysis
+ * says otherwise.
+ * <p>
+ * Instances are obtained from {@link CxxModelsCache#getDataFlow(IASTFunctionDefinition)}.
+ *
+ * <p>
+ * <strong>EXPERIMENTAL</strong>. This class or interface has been added as part
+ * of a work in progress. There is no guarantee that this API will work or that
+ * it will remain the same.
+ * </p>
+ *
+ * @since 3.2
+ */
+public final class CxxDataFlow {
+	private final IASTFunctionDefinition function;
+	private final IndexedGraph graph;
+	private final List<IVariable> variables = new ArrayList<IVariable>();
+	private final Map<IBinding, Integer> variableIndices = new HashMap<IBinding, Integer>();
+	private final List<IASTName> definitions = new ArrayList<IASTName>();
+	private final List<Integer> definitionNodes = new ArrayList<Integer>();
+	private final List<Integer> definedVariables = new ArrayList<Integer>();
+	/** Variables used by each node. */
+	private final BitSet[] uses;
+	/** Variables defined by each node. */
+	private final BitSet[] defs;
+	/** Definitions of each node that are not overridden within the node. */
+	private final BitSet[] generatedDefinitions;
+	private BitVectorDataFlow reachingDefinitions;
+	private BitVectorDataFlow liveVariables;
+
+	public CxxDataFlow(IASTFunctionDefinition function, IControlFlowGraph controlFlowGraph) {
+		this.function = function;
+		this.graph = new IndexedGraph(controlFlowGraph);
+		int size = graph.size();
+		uses = new BitSet[size];
+		defs = new BitSet[size];
+		generatedDefinitions = new BitSet[size];
+		for (int i = 0; i < size; i++) {
+			uses[i] = new BitSet();
+			defs[i] = new BitSet();
+			generatedDefinitions[i] = new BitSet();
+		}
+		collectVariables();
+		for (int i = 0; i < size; i++) {
+			IBasicBlock node = graph.getNode(i);
+			Object data = node instanceof ICfgData ? ((ICfgData) node).getData() : null;
+			if (data instanceof IASTNode)
+				new DefUseCollector(i, (IASTNode) data).collect();
+		}
+	}
+
+	private void collectVariables() {
+		// Parameters are defined on entry of the function, i.e. by the start node.
+		IASTDeclarator declarator = ASTQueries.findTypeRelevantDeclarator(function.getDeclarator());
+		if (declarator instanceof IASTStandardFunctionDeclarator) {
+			for (IASTParameterDeclaration parameter : ((IASTStandardFunctionDeclarator) declarator).getParameters()) {
+				IASTName name = ASTQueries.findInnermostDeclarator(parameter.getDeclarator()).getName();
+				IBinding binding = name.resolveBinding();
+				if (binding instanceof IParameter && !variableIndices.containsKey(binding)) {
+					int variable = addVariable((IVariable) binding);
+					int definition = addDefinition(0, name, variable);
+					generatedDefinitions[0].set(definition);
+				}
+			}
+		}
+		function.getBody().accept(new ASTVisitor() {
+			{
+				shouldVisitDeclarations = true;
+				shouldVisitDeclarators = true;
+			}
+
+			@Override
+			public int visit(IASTDeclaration declaration) {
+				// Skip the methods of local classes.
+				return declaration instanceof IASTFunctionDefinition ? PROCESS_SKIP : PROCESS_CONTINUE;
+			}
+
+			@Override
+			public int visit(IASTDeclarator declarator) {
+				if (declarator.getNestedDeclarator() == null) {
+					IBinding binding = declarator.getName().resolveBinding();
+					if (isLocalVariable(binding) && !variableIndices.containsKey(binding))
+						addVariable((IVariable) binding);
+				}
+				return PROCESS_CONTINUE;
+			}
+		});
+	}
+
+	private static boolean isLocalVariable(IBinding binding) {
+		if (!(binding instanceof IVariable) || binding instanceof IField || binding instanceof IParameter)
+			return false;
+		IVariable variable = (IVariable) binding;
+		return !variable.isStatic() && !variable.isExtern();
+	}
+
+	private int addVariable(IVariable variable) {
+		int index = variables.size();
+		variables.add(variable);
+		variableIndices.put(variable, index);
+		return index;
+	}
+
+	private int addDefinition(int node, IASTName name, int variable) {
+		int index = definitions.size();
+		definitions.add(name);
+		definitionNodes.add(node);
+		definedVariables.add(variable);
+		defs[node].set(variable);
+		return index;
+	}
+
+	private int getVariable(IASTName name) {
+		Integer index = variableIndices.get(name.resolveBinding());
+		return index != null ? index : -1;
+	}
+
+	/**
+	 * Collects the definitions and uses of variables in the AST node of a node of the graph,
+	 * not including nested statements, which belong to other nodes of the graph.
+	 */
+	private class DefUseCollector extends ASTVisitor {
+		private final int node;
+		private final IASTNode root;
+		/** Last definition of each variable in the node. */
+		private final Map<Integer, Integer> lastDefinitions = new HashMap<Integer, Integer>();
+		/** Left-hand sides of simple assignments, which are not uses. */
+		private final Map<IASTIdExpression, Boolean> assigned = new IdentityHashMap<IASTIdExpression, Boolean>();
+		private int nestedStatementsDepth;
+		private int lambdaDepth;
+
+		DefUseCollector(int node, IASTNode root) {
+			this.node = node;
+			this.root = root;
+			shouldVisitStatements = true;
+			shouldVisitDeclarations = true;
+			shouldVisitDeclarators = true;
+			shouldVisitExpressions = true;
+		}
+
+		void collect() {
+			root.accept(this);
+			for (int definition : lastDefinitions.values()) {
+				generatedDefinitions[node].set(definition);
+			}
+		}
+
+		private void define(IASTName name) {
+			if (lambdaDepth > 0)
+				return;
+			int variable = getVariable(name);
+			if (variable >= 0)
+				lastDefinitions.put(variable, addDefinition(node, name, variable));
+		}
+
+		@Override
+		public int visit(IASTStatement statement) {
+			return statement == root || nestedStatementsDepth > 0 ? PROCESS_CONTINUE : PROCESS_SKIP;
+		}
+
+		@Override
+		public int visit(IASTDeclaration declaration) {
+			return declaration instanceof IASTFunctionDefinition ? PROCESS_SKIP : PROCESS_CONTINUE;
+		}
+
+		@Override
+		public int visit(IASTDeclarator declarator) {
+			if (declarator.getNestedDeclarator() != null)
+				return PROCESS_CONTINUE;
+			IASTDeclarator outermost = ASTQueries.findOutermostDeclarator(declarator);
+			if (outermost.getInitializer() != null || root.getParent() instanceof ICPPASTCatchHandler)
+				define(declarator.getName());
+			return PROCESS_CONTINUE;
+		}
+
+		@Override
+		public int visit(IASTExpression expression) {
+			if (expression instanceof ICPPASTLambdaExpression) {
+				nestedStatementsDepth++;
+				lambdaDepth++;
+			} else if (expression instanceof IGNUASTCompoundStatementExpression) {
+				nestedStatementsDepth++;
+			} else if (expression instanceof IASTBinaryExpression) {
+				IASTBinaryExpression binary = (IASTBinaryExpression) expression;
+				int operator = binary.getOperator();
+				if (operator >= IASTBinaryExpression.op_assign && operator <= IASTBinaryExpression.op_binaryOrAssign) {
+					IASTExpression target = skipParentheses(binary.getOperand1());
+					if (target instanceof IASTIdExpression) {
+						if (operator == IASTBinaryExpression.op_assign)
+							assigned.put((IASTIdExpression) target, Boolean.TRUE);
+						define(((IASTIdExpression) target).getName());
+					}
+				}
+			} else if (expression instanceof IASTUnaryExpression) {
+				IASTUnaryExpression unary = (IASTUnaryExpression) expression;
+				switch (unary.getOperator()) {
+				case IASTUnaryExpression.op_prefixIncr:
+				case IASTUnaryExpression.op_prefixDecr:
+				case IASTUnaryExpression.op_postFixIncr:
+				case IASTUnaryExpression.op_postFixDecr:
+					IASTExpression target = skipParentheses(unary.getOperand());
+					if (target instanceof IASTIdExpression)
+						define(((IASTIdExpression) target).getName());
+					break;
+				}
+			} else if (expression instanceof IASTIdExpression && !assigned.containsKey(expression)) {
+				int variable = getVariable(((IASTIdExpression) expression).getName());
+				if (variable >= 0)
+					uses[node].set(variable);
+			}
+			return PROCESS_CONTINUE;
+		}
+
+		@Override
+		public int leave(IASTExpression expression) {
+			if (expression instanceof ICPPASTLambdaExpression) {
+				nestedStatementsDepth--;
+				lambdaDepth--;
+			} else if (expression instanceof IGNUASTCompoundStatementExpression) {
+				nestedStatementsDepth--;
+			}
+			return PROCESS_CONTINUE;
+		}
+	}
+
+	private static IASTExpression skipParentheses(IASTExpression expression) {
+		while (expression instanceof IASTUnaryExpression
+				&& ((IASTUnaryExpression) expression).getOperator() == IASTUnaryExpression.op_bracketedPrimary) {
+			expression = ((IASTUnaryExpression) expression).getOperand();
+		}
+		return expression;
+	}
+
+	/**
+	 * @return the function definition.
+	 */
+	public IASTFunctionDefinition getFunction() {
+		return function;
+	}
+
+	/**
+	 * @return the control flow graph of the function.
+	 */
+	public IControlFlowGraph getControlFlowGraph() {
+		return graph.getGraph();
+	}
+
+	/**
+	 * @return the number of nodes of the control flow graph, including dead nodes.
+	 */
+	public int getNodeCount() {
+		return graph.size();
+	}
+
+	/**
+	 * @return the node with the given number. The start node has number {@code 0}.
+	 */
+	public IBasicBlock getNode(int node) {
+		return graph.getNode(node);
+	}
+
+	/**
+	 * @return the number of the given node, or {@code -1} if it does not belong to the graph.
+	 */
+	public int indexOf(IBasicBlock node) {
+		return graph.indexOf(node);
+	}
+
+	/**
+	 * @return the number of tracked variables.
+	 */
+	public int getVariableCount() {
+		return variables.size();
+	}
+
+	/**
+	 * @return the variable with the given number.
+	 */
+	public IVariable getVariable(int variable) {
+		return variables.get(variable);
+	}
+
+	/**
+	 * @return the number of the given variable, or {@code -1} if the variable is not a local
+	 *     variable or a parameter of the function.
+	 */
+	public int indexOf(IVariable variable) {
+		Integer index = variableIndices.get(variable);
+		return index != null ? index : -1;
+	}
+
+	/**
+	 * @return the number of definitions.
+	 */
+	public int getDefinitionCount() {
+		return definitions.size();
+	}
+
+	/**
+	 * @return the name of the variable at the place of the given definition.
+	 */
+	public IASTName getDefinition(int definition) {
+		return definitions.get(definition);
+	}
+
+	/**
+	 * @return the number of the node containing the given definition.
+	 */
+	public int getDefinitionNode(int definition) {
+		return definitionNodes.get(definition);
+	}
+
+	/**
+	 * @return the number of the variable defined by the given definition.
+	 */
+	public int getDefinedVariable(int definition) {
+		return definedVariables.get(definition);
+	}
+
+	/**
+	 * @return the numbers of the variables read by the given node.
+	 */
+	public BitSet getUsedVariables(int node) {
+		return (BitSet) uses[node].clone();
+	}
+
+	/**
+	 * @return the numbers of the definitions reaching the beginning of the given node.
+	 */
+	public BitSet getReachingDefinitions(int node) {
+		return (BitSet) getReachingDefinitions().getIn(node).clone();
+	}
+
+	/**
+	 * @return the numbers of the variables live at the end of the given node, i.e. whose values
+	 *     may be read after the node is executed.
+	 */
+	public BitSet getLiveVariables(int node) {
+		return (BitSet) getLiveVariables().getOut(node).clone();
+	}
+
+	/**
+	 * @return {@code true} if the value of the variable may be read after the node is executed.
+	 */
+	public boolean isLiveAfter(int node, int variable) {
+		return getLiveVariables().getOut(node).get(variable);
+	}
+
+	private synchronized BitVectorDataFlow getReachingDefinitions() {
+		if (reachingDefinitions == null) {
+			BitSet[] definitionsOfVariables = new BitSet[variables.size()];
+			for (int i = 0; i < definitionsOfVariables.length; i++) {
+				definitionsOfVariables[i] = new BitSet();
+			}
+			for (int i = 0; i < definitions.size(); i++) {
+				definitionsOfVariables[definedVariables.get(i)].set(i);
+			}
+			BitSet[] kill = new BitSet[graph.size()];
+			for (int i = 0; i < kill.length; i++) {
+				kill[i] = new BitSet();
+				for (int v = defs[i].nextSetBit(0); v >= 0; v = defs[i].nextSetBit(v + 1)) {
+					kill[i].or(definitionsOfVariables[v]);
+				}
+			}
+			reachingDefinitions = BitVectorDataFlow.solveForward(graph, generatedDefinitions, kill, new BitSet());
+		}
+		return reachingDefinitions;
+	}
+
+	private synchronized BitVectorDataFlow getLiveVariables() {
+		if (liveVariables == null)
+			liveVariables = BitVectorDataFlow.solveBackward(graph, uses, defs, new BitSet());
+		return liveVariables;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2013 Alena Laskavaia 
+ * Copyright (c) 2009, 2014 Alena Laskavaia 
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,7 +11,8 @@
  *******************************************************************************/
 package org.eclipse.cdt.codan.core.cxx.model;
 
-import java.util.WeakHashMap;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.eclipse.cdt.codan.core.cxx.internal.model.CodanCommentMap;
 import org.eclipse.cdt.codan.core.cxx.internal.model.cfg.CxxControlFlowGraph;
@@ -43,14 +44,16 @@ public class CxxModelsCache implements ICodanDisposable {
 	private final ITranslationUnit tu;
 	private IASTTranslationUnit ast;
 	private IIndex index;
-	private final WeakHashMap<IASTFunctionDefinition, IControlFlowGraph> cfgmap;
+	private final Map<IASTFunctionDefinition, IControlFlowGraph> cfgmap;
+	private final Map<IASTFunctionDefinition, CxxDataFlow> dataFlowMap;
 	private ICodanCommentMap commentMap;
 	private boolean disposed;
 
 	CxxModelsCache(ITranslationUnit tu) {
 		this.tu = tu;
 		this.file = tu != null ? (IFile) tu.getResource() : null;
-		cfgmap = new WeakHashMap<IASTFunctionDefinition, IControlFlowGraph>(0);
+		cfgmap = new HashMap<IASTFunctionDefinition, IControlFlowGraph>();
+		dataFlowMap = new HashMap<IASTFunctionDefinition, CxxDataFlow>();
 	}
 	
 	CxxModelsCache(IASTTranslationUnit ast) {
@@ -82,19 +85,46 @@ public class CxxModelsCache implements ICodanDisposable {
 		return file;
 	}
 
+	/**
+	 * Returns the control flow graph of a function. The graphs of the functions of the AST
+	 * of this cache are built once and kept until the cache is disposed.
+	 */
 	public synchronized IControlFlowGraph getControlFlowGraph(IASTFunctionDefinition func) {
+		if (!isCached(func))
+			return CxxControlFlowGraph.build(func);
 		IControlFlowGraph cfg = cfgmap.get(func);
-		if (cfg != null)
-			return cfg;
-		cfg = CxxControlFlowGraph.build(func);
-		// TODO(Alena Laskavaia): Change to LRU.
-		if (cfgmap.size() > 20) { // if too many function better drop the cache
-			cfgmap.clear();
+		if (cfg == null) {
+			cfg = CxxControlFlowGraph.build(func);
+			cfgmap.put(func, cfg);
 		}
-		cfgmap.put(func, cfg);
 		return cfg;
 	}
 
+	/**
+	 * Returns the reaching definitions and live variables of a function. The results for the
+	 * functions of the AST of this cache are computed once and kept until the cache is disposed.
+	 *
+	 * @since 3.2
+	 */
+	public synchronized CxxDataFlow getDataFlow(IASTFunctionDefinition func) {
+		if (!isCached(func))
+			return new CxxDataFlow(func, CxxControlFlowGraph.build(func));
+		CxxDataFlow dataFlow = dataFlowMap.get(func);
+		if (dataFlow == null) {
+			dataFlow = new CxxDataFlow(func, getControlFlowGraph(func));
+			dataFlowMap.put(func, dataFlow);
+		}
+		return dataFlow;
+	}
+
+	/**
+	 * Results are cached only for functions of the AST of this cache, so that they are
+	 * discarded together with the AST.
+	 */
+	private boolean isCached(IASTFunctionDefinition func) {
+		return ast != null && func.getTranslationUnit() == ast;
+	}
+
 	public synchronized ICodanCommentMap getCommentedNodeMap() {
 		return getCommentedNodeMap(tu);
 	}
@@ -140,6 +170,8 @@ public class CxxModelsCache implements ICodanDisposable {
 	public void dispose() {
         Assert.isTrue(!disposed, "CxxASTCache.dispose() called more than once."); //$NON-NLS-1$
 		disposed = true;
+		cfgmap.clear();
+		dataFlowMap.clear();
 		if (index != null) {
 			index.releaseReadLock();
 		}
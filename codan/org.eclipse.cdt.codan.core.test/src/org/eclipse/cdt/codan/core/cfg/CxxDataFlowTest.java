@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.codan.core.cfg;
+
+import java.util.BitSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.eclipse.cdt.codan.core.cxx.internal.model.cfg.ControlFlowGraphBuilder;
+import org.eclipse.cdt.codan.core.cxx.model.CxxDataFlow;
+import org.eclipse.cdt.codan.core.model.IChecker;
+import org.eclipse.cdt.codan.core.model.cfg.ICfgData;
+import org.eclipse.cdt.codan.core.test.CodanFastCxxAstTestCase;
+import org.eclipse.cdt.core.dom.ast.IASTFunctionDefinition;
+import org.eclipse.cdt.core.dom.ast.IASTIdExpression;
+import org.eclipse.cdt.core.dom.ast.IASTNode;
+import org.eclipse.cdt.core.dom.ast.IVariable;
+
+/**
+ * Tests for reaching definitions and live variables computed on control flow graphs.
+ */
+public class CxxDataFlowTest extends CodanFastCxxAstTestCase {
+	private CxxDataFlow dataFlow;
+
+	@Override
+	public IChecker getChecker() {
+		return null; // not testing checker
+	}
+
+	@Override
+	public boolean isCpp() {
+		return true;
+	}
+
+	private void build(String code) {
+		IASTFunctionDefinition function = (IASTFunctionDefinition) parse(code).getDeclarations()[0];
+		dataFlow = new CxxDataFlow(function, new ControlFlowGraphBuilder().build(function));
+	}
+
+	private int node(String signature) {
+		for (int i = 0; i < dataFlow.getNodeCount(); i++) {
+			Object data = ((ICfgData) dataFlow.getNode(i)).getData();
+			if (data instanceof IASTNode && ((IASTNode) data).getRawSignature().equals(signature))
+				return i;
+		}
+		fail("No node for " + signature);
+		return -1;
+	}
+
+	private int variable(String name) {
+		for (int i = 0; i < dataFlow.getVariableCount(); i++) {
+			IVariable variable = dataFlow.getVariable(i);
+			if (variable.getName().equals(name))
+				return i;
+		}
+		fail("No variable " + name);
+		return -1;
+	}
+
+	private Set<String> reachingDefinitions(String signature) {
+		Set<String> result = new TreeSet<String>();
+		BitSet definitions = dataFlow.getReachingDefinitions(node(signature));
+		for (int d = definitions.nextSetBit(0); d >= 0; d = definitions.nextSetBit(d + 1)) {
+			IASTNode node = dataFlow.getDefinition(d).getParent();
+			if (node instanceof IASTIdExpression)
+				node = node.getParent();
+			result.add(node.getRawSignature());
+		}
+		return result;
+	}
+
+	private Set<String> set(String... elements) {
+		Set<String> result = new TreeSet<String>();
+		for (String element : elements) {
+			result.add(element);
+		}
+		return result;
+	}
+
+	// int f(int a) {
+	//   int x = 1;
+	//   if (a)
+	//     x = 2;
+	//   int y = x;
+	//   x = 3;
+	//   return y;
+	// }
+	public void testReachingDefinitions() {
+		build(getAboveComment());
+		assertEquals(set("a", "x = 1", "x = 2"), reachingDefinitions("int y = x;"));
+		assertEquals(set("a", "y = x", "x = 3"), reachingDefinitions("return y;"));
+	}
+
+	// int f(int a) {
+	//   int x = 1;
+	//   if (a)
+	//     x = 2;
+	//   int y = x;
+	//   x = 3;
+	//   return y;
+	// }
+	public void testLiveVariables() {
+		build(getAboveComment());
+		int a = variable("a");
+		int x = variable("x");
+		int y = variable("y");
+		assertTrue(dataFlow.isLiveAfter(0, a));
+		assertFalse(dataFlow.isLiveAfter(node("a"), a));
+		assertTrue(dataFlow.isLiveAfter(node("int x = 1;"), x));
+		assertTrue(dataFlow.isLiveAfter(node("int y = x;"), y));
+		assertFalse(dataFlow.isLiveAfter(node("int y = x;"), x));
+		assertFalse(dataFlow.isLiveAfter(node("x = 3;"), x));
+	}
+
+	// void f() {
+	//   int i = 0;
+	//   int s = 0;
+	//   while (i < 10) {
+	//     s += i;
+	//     i++;
+	//   }
+	// }
+	public void testLoop() {
+		build(getAboveComment());
+		assertEquals(set("i = 0", "i++", "s = 0", "s += i"), reachingDefinitions("s += i;"));
+		assertTrue(dataFlow.isLiveAfter(node("i++;"), variable("i")));
+		assertTrue(dataFlow.isLiveAfter(node("i++;"), variable("s")));
+	}
+}
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.codan.core.cxx;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.cdt.codan.core.cxx.internal.model.AstCheckerDispatcher;
+import org.eclipse.cdt.codan.core.model.IChecker;
+import org.eclipse.cdt.codan.core.test.CodanFastCxxAstTestCase;
+import org.eclipse.cdt.core.dom.ast.ASTVisitor;
+import org.eclipse.cdt.core.dom.ast.IASTCompoundStatement;
+import org.eclipse.cdt.core.dom.ast.IASTDeclaration;
+import org.eclipse.cdt.core.dom.ast.IASTExpression;
+import org.eclipse.cdt.core.dom.ast.IASTFunctionDefinition;
+import org.eclipse.cdt.core.dom.ast.IASTStatement;
+import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+
+/**
+ * Tests for running several visitors in a single traversal of the AST.
+ */
+public class AstCheckerDispatcherTest extends CodanFastCxxAstTestCase {
+	@Override
+	public IChecker getChecker() {
+		return null; // not testing checker
+	}
+
+	/** Records the visited nodes, skips the bodies of functions with the given name. */
+	private static class RecordingVisitor extends ASTVisitor {
+		final List<String> log = new ArrayList<String>();
+		private final String skippedFunction;
+		private final int abortAfter;
+
+		RecordingVisitor(String skippedFunction, int abortAfter) {
+			this.skippedFunction = skippedFunction;
+			this.abortAfter = abortAfter;
+		}
+
+		private int record(String entry) {
+			log.add(entry);
+			return log.size() >= abortAfter ? PROCESS_ABORT : PROCESS_CONTINUE;
+		}
+
+		@Override
+		public int visit(IASTDeclaration declaration) {
+			if (declaration instanceof IASTFunctionDefinition) {
+				String name = ((IASTFunctionDefinition) declaration).getDeclarator().getName().toString();
+				if (name.equals(skippedFunction)) {
+					log.add("skip " + name);
+					return PROCESS_SKIP;
+				}
+			}
+			return record("decl " + declaration.getRawSignature().length());
+		}
+
+		@Override
+		public int leave(IASTDeclaration declaration) {
+			return record("leave decl " + declaration.getRawSignature().length());
+		}
+
+		@Override
+		public int visit(IASTStatement statement) {
+			if (statement instanceof IASTCompoundStatement)
+				return record("block");
+			return record("stmt " + statement.getRawSignature());
+		}
+
+		@Override
+		public int visit(IASTExpression expression) {
+			return record("expr " + expression.getRawSignature());
+		}
+	}
+
+	private RecordingVisitor createVisitor(boolean declarations, boolean statements, boolean expressions,
+			String skippedFunction, int abortAfter) {
+		RecordingVisitor visitor = new RecordingVisitor(skippedFunction, abortAfter);
+		visitor.shouldVisitDeclarations = declarations;
+		visitor.shouldVisitStatements = statements;
+		visitor.shouldVisitExpressions = expressions;
+		return visitor;
+	}
+
+	private RecordingVisitor[] createVisitors() {
+		return new RecordingVisitor[] {
+				createVisitor(true, true, false, "f", Integer.MAX_VALUE),
+				createVisitor(false, false, true, null, Integer.MAX_VALUE),
+				createVisitor(true, true, true, "g", Integer.MAX_VALUE),
+				createVisitor(true, false, true, null, 5),
+		};
+	}
+
+	// int x = 1 + 2;
+	// void f() {
+	//   x = 3;
+	//   { x++; }
+	// }
+	// void g() {
+	//   if (x) x--;
+	// }
+	// int y = x * 4;
+	public void testSameResultsAsSeparateTraversals() throws Exception {
+		IASTTranslationUnit ast = parse(getAboveComment());
+		RecordingVisitor[] separate = createVisitors();
+		for (RecordingVisitor visitor : separate) {
+			ast.accept(visitor);
+		}
+		RecordingVisitor[] shared = createVisitors();
+		AstCheckerDispatcher dispatcher = new AstCheckerDispatcher();
+		for (int i = 0; i < shared.length; i++) {
+			assertTrue(dispatcher.canAdd(shared[i]));
+			dispatcher.add(shared[i], "visitor" + i, 0);
+		}
+		dispatcher.run(ast);
+		for (int i = 0; i < shared.length; i++) {
+			assertFalse(separate[i].log.isEmpty());
+			assertEquals(separate[i].log, shared[i].log);
+		}
+	}
+
+	public void testTraversalOptions() throws Exception {
+		AstCheckerDispatcher dispatcher = new AstCheckerDispatcher();
+		ASTVisitor visitor = new ASTVisitor() {};
+		dispatcher.add(visitor, "visitor", 0);
+
+		ASTVisitor inactive = new ASTVisitor() {};
+		inactive.includeInactiveNodes = true;
+		assertFalse(dispatcher.canAdd(inactive));
+
+		ASTVisitor ambiguous = new ASTVisitor() {};
+		ambiguous.shouldVisitAmbiguousNodes = true;
+		assertFalse(AstCheckerDispatcher.canShareTraversal(ambiguous));
+		assertTrue(AstCheckerDispatcher.canShareTraversal(visitor));
+	}
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.codan.core.internal;
+
+import java.io.ByteArrayInputStream;
+
+import org.eclipse.cdt.codan.core.model.CheckerLaunchMode;
+import org.eclipse.cdt.codan.core.model.IProblemReporter;
+import org.eclipse.cdt.codan.core.test.CheckerTestCase;
+import org.eclipse.cdt.codan.internal.checkers.StatementHasNoEffectChecker;
+import org.eclipse.cdt.codan.internal.core.AnalysisResultCache;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+
+/**
+ * Tests for skipping the analysis of files whose inputs did not change.
+ */
+public class AnalysisResultCacheTest extends CheckerTestCase {
+	private AnalysisResultCache cache;
+
+	@Override
+	public void setUp() throws Exception {
+		super.setUp();
+		enableProblems(StatementHasNoEffectChecker.ER_ID);
+		cache = AnalysisResultCache.getInstance();
+	}
+
+	private String fingerprint(IFile file) {
+		return cache.computeFingerprint(file, CheckerLaunchMode.RUN_ON_FULL_BUILD);
+	}
+
+	private void deleteMarkers() throws Exception {
+		cproject.getProject().deleteMarkers(IProblemReporter.GENERIC_CODE_ANALYSIS_MARKER_TYPE, true,
+				IResource.DEPTH_INFINITE);
+	}
+
+	// void f(int a) {
+	//   a;
+	// }
+	public void testFingerprint() throws Exception {
+		loadcode(getAboveComment());
+		indexFiles();
+		String fingerprint = fingerprint(currentIFile);
+		assertNotNull(fingerprint);
+		assertEquals(fingerprint, fingerprint(currentIFile));
+
+		enableProblems();
+		assertNull(fingerprint(currentIFile));
+	}
+
+	public void testNoFingerprintForOtherFiles() throws Exception {
+		IFile file = cproject.getProject().getFile("test.o");
+		file.create(new ByteArrayInputStream(new byte[] { 0x7f, 'E', 'L', 'F' }), true, null);
+		assertNull(fingerprint(file));
+	}
+
+	// void f(int a) {
+	//   a;
+	// }
+	public void testUnchangedFileIsSkipped() throws Exception {
+		loadcode(getAboveComment());
+		indexFiles();
+		runCodan();
+		assertEquals(1, markers.length);
+		assertTrue(cache.isUpToDate(currentIFile, fingerprint(currentIFile)));
+
+		// Pretend the last analysis found no problem, the file is not analyzed again.
+		deleteMarkers();
+		cache.update(currentIFile, fingerprint(currentIFile));
+		runCodan();
+		assertEquals(0, markers.length);
+	}
+
+	// void f(int a) {
+	//   a;
+	// }
+	public void testInvalidate() throws Exception {
+		loadcode(getAboveComment());
+		indexFiles();
+		runCodan();
+		deleteMarkers();
+		cache.update(currentIFile, fingerprint(currentIFile));
+
+		cache.invalidate(currentIFile);
+		assertFalse(cache.isUpToDate(currentIFile, fingerprint(currentIFile)));
+		runCodan();
+		assertEquals(1, markers.length);
+	}
+
+	// void f(int a) {
+	//   a;
+	// }
+	public void testClear() throws Exception {
+		loadcode(getAboveComment());
+		indexFiles();
+		runCodan();
+		deleteMarkers();
+		cache.update(currentIFile, fingerprint(currentIFile));
+
+		cache.clear(cproject.getProject());
+		assertFalse(cache.isUpToDate(currentIFile, fingerprint(currentIFile)));
+		runCodan();
+		assertEquals(1, markers.length);
+	}
+}
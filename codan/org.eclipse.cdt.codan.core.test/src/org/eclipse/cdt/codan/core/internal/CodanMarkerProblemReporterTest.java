@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.codan.core.internal;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.cdt.codan.core.CodanRuntime;
+import org.eclipse.cdt.codan.core.model.IChecker;
+import org.eclipse.cdt.codan.core.model.IProblem;
+import org.eclipse.cdt.codan.core.model.IProblemLocation;
+import org.eclipse.cdt.codan.core.model.IProblemReporter;
+import org.eclipse.cdt.codan.core.model.IProblemReporterSessionPersistent;
+import org.eclipse.cdt.codan.core.test.CheckerTestCase;
+import org.eclipse.cdt.codan.internal.checkers.StatementHasNoEffectChecker;
+import org.eclipse.cdt.codan.internal.core.AnalysisResultCache;
+import org.eclipse.cdt.codan.internal.core.CheckersRegistry;
+import org.eclipse.cdt.codan.internal.core.model.CodanMarkerProblemReporter;
+import org.eclipse.cdt.codan.internal.core.model.CodanMarkerProblemReporter.Batch;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IResource;
+
+/**
+ * Tests for reconciling the markers of a run of the checkers in a batch.
+ */
+public class CodanMarkerProblemReporterTest extends CheckerTestCase {
+	@Override
+	public void setUp() throws Exception {
+		super.setUp();
+		enableProblems(StatementHasNoEffectChecker.ER_ID);
+	}
+
+	/**
+	 * Returns the ids of the markers by line number.
+	 */
+	private Map<Integer, Long> markerIds() throws Exception {
+		IMarker[] found = cproject.getProject().findMarkers(IProblemReporter.GENERIC_CODE_ANALYSIS_MARKER_TYPE,
+				true, IResource.DEPTH_INFINITE);
+		Map<Integer, Long> ids = new HashMap<Integer, Long>();
+		for (IMarker m : found) {
+			assertNull(ids.put(getLine(m), m.getId()));
+		}
+		return ids;
+	}
+
+	private void analyzeAgain() {
+		// Make sure the file is analyzed and its markers are reconciled.
+		AnalysisResultCache.getInstance().invalidate(currentIFile);
+		runCodan();
+	}
+
+	// void f(int a, int b) {
+	//   a;
+	//   b;
+	// }
+	public void testUnchangedMarkersAreKept() throws Exception {
+		loadcode(getAboveComment());
+		indexFiles();
+		runCodan();
+		Map<Integer, Long> ids = markerIds();
+		assertEquals(2, ids.size());
+
+		analyzeAgain();
+		assertEquals(ids, markerIds());
+	}
+
+	// void f(int a, int b) {
+	//   a;
+	//   b;
+	// }
+	public void testChangedProblemReplacesOneMarker() throws Exception {
+		String code = getAboveComment();
+		loadcode(code);
+		indexFiles();
+		runCodan();
+		Map<Integer, Long> ids = markerIds();
+		assertEquals(2, ids.size());
+
+		String changed = code.trim().replace("b;", "a + b;");
+		currentIFile.setContents(new ByteArrayInputStream(changed.getBytes()), true, false, null);
+		indexFiles();
+		analyzeAgain();
+		Map<Integer, Long> newIds = markerIds();
+		assertEquals(2, newIds.size());
+		assertEquals(ids.get(2), newIds.get(2));
+		assertNotNull(newIds.get(3));
+		assertFalse(ids.get(3).equals(newIds.get(3)));
+	}
+
+	// void f() {
+	// }
+	public void testWorkerJoinsBatch() throws Exception {
+		loadcode(getAboveComment());
+		IProblem problem = CheckersRegistry.getInstance().getResourceProfile(currentIFile)
+				.findProblem(StatementHasNoEffectChecker.ER_ID);
+		IChecker checker = CheckersRegistry.getInstance().getCheckerForProblem(problem);
+		final IProblemReporterSessionPersistent reporter =
+				new CodanMarkerProblemReporter().createReporter(currentIFile, checker);
+		final IProblemLocation location =
+				CodanRuntime.getInstance().getProblemLocationFactory().createProblemLocation(currentIFile, 1);
+		final boolean[] applied = { false };
+
+		final Batch batch = CodanMarkerProblemReporter.startBatch();
+		assertNotNull(batch);
+		try {
+			Thread worker = new Thread() {
+				@Override
+				public void run() {
+					CodanMarkerProblemReporter.joinBatch(batch);
+					try {
+						reporter.start();
+						reporter.reportProblem(StatementHasNoEffectChecker.ER_ID, location, "x"); //$NON-NLS-1$
+						reporter.done();
+						CodanMarkerProblemReporter.runWhenApplied(new Runnable() {
+							@Override
+							public void run() {
+								applied[0] = true;
+							}
+						});
+					} finally {
+						CodanMarkerProblemReporter.joinBatch(null);
+					}
+				}
+			};
+			worker.start();
+			worker.join();
+			// The problem is reported when the batch is applied by the thread that started it.
+			assertTrue(markerIds().isEmpty());
+			assertFalse(applied[0]);
+			assertSame(batch, CodanMarkerProblemReporter.getCurrentBatch());
+		} finally {
+			CodanMarkerProblemReporter.applyBatch(batch);
+		}
+		assertNull(CodanMarkerProblemReporter.getCurrentBatch());
+		assertTrue(applied[0]);
+		assertEquals(1, markerIds().size());
+	}
+}
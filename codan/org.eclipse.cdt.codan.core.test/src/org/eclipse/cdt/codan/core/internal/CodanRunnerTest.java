@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.codan.core.internal;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.cdt.codan.core.model.IProblemReporter;
+import org.eclipse.cdt.codan.core.test.CheckerTestCase;
+import org.eclipse.cdt.codan.internal.checkers.StatementHasNoEffectChecker;
+import org.eclipse.cdt.codan.internal.core.AnalysisResultCache;
+import org.eclipse.cdt.codan.internal.core.CodanRunner;
+import org.eclipse.cdt.codan.internal.core.model.CodanProblemMarker;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IResource;
+
+/**
+ * Tests for analyzing the files of a project on several threads.
+ */
+public class CodanRunnerTest extends CheckerTestCase {
+	private static final int FILE_COUNT = 6;
+
+	@Override
+	public void setUp() throws Exception {
+		super.setUp();
+		enableProblems(StatementHasNoEffectChecker.ER_ID, SerialCheckerForTesting.ER_ID);
+		SerialCheckerForTesting.reset();
+	}
+
+	/**
+	 * Returns the markers of the project as strings made of file, line and problem id.
+	 */
+	private Set<String> markerKeys() throws Exception {
+		IMarker[] found = cproject.getProject().findMarkers(IProblemReporter.GENERIC_CODE_ANALYSIS_MARKER_TYPE,
+				true, IResource.DEPTH_INFINITE);
+		Set<String> keys = new HashSet<String>();
+		for (IMarker m : found) {
+			String key = m.getResource().getName() + ':' + getLine(m) + ':' + CodanProblemMarker.getProblemId(m);
+			assertTrue(key, keys.add(key));
+		}
+		return keys;
+	}
+
+	private Set<String> analyze(int threads) throws Exception {
+		cproject.getProject().deleteMarkers(IProblemReporter.GENERIC_CODE_ANALYSIS_MARKER_TYPE, true,
+				IResource.DEPTH_INFINITE);
+		AnalysisResultCache.getInstance().clear(cproject.getProject());
+		SerialCheckerForTesting.reset();
+		int previous = CodanRunner.setAnalysisThreads(threads);
+		try {
+			runCodan();
+		} finally {
+			CodanRunner.setAnalysisThreads(previous);
+		}
+		assertEquals(FILE_COUNT, SerialCheckerForTesting.getRuns());
+		return markerKeys();
+	}
+
+	// int g;
+	// void f(int a, int b) {
+	//   a;
+	//   a + b;
+	//   b = a;
+	// }
+	public void testParallelAnalysisMatchesSequential() throws Exception {
+		String code = getAboveComment();
+		for (int i = 0; i < FILE_COUNT; i++) {
+			loadcode(code, "test" + i + (isCpp() ? ".cpp" : ".c"));
+		}
+		indexFiles();
+
+		Set<String> parallel = analyze(4);
+		// The checker that is not thread-safe never runs on two files at the same time.
+		assertEquals(1, SerialCheckerForTesting.getMaxActive());
+
+		Set<String> sequential = analyze(1);
+		assertEquals(3 * FILE_COUNT, sequential.size());
+		assertEquals(sequential, parallel);
+	}
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.codan.core.internal;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.cdt.codan.core.cxx.model.AbstractIndexAstChecker;
+import org.eclipse.cdt.core.dom.ast.IASTDeclaration;
+import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+
+/**
+ * A checker that is not thread-safe, it records how many threads run it at the same time.
+ * Reports a problem on the first declaration of each file.
+ */
+public class SerialCheckerForTesting extends AbstractIndexAstChecker {
+	public static final String ER_ID = "org.eclipse.cdt.codan.core.test.SerialCheckerProblem"; //$NON-NLS-1$
+
+	private static final AtomicInteger active = new AtomicInteger();
+	private static final AtomicInteger maxActive = new AtomicInteger();
+	private static final AtomicInteger runs = new AtomicInteger();
+
+	public static void reset() {
+		active.set(0);
+		maxActive.set(0);
+		runs.set(0);
+	}
+
+	/**
+	 * Returns the largest number of threads that were running the checker at the same time.
+	 */
+	public static int getMaxActive() {
+		return maxActive.get();
+	}
+
+	/**
+	 * Returns the number of files the checker was run on.
+	 */
+	public static int getRuns() {
+		return runs.get();
+	}
+
+	@Override
+	public void processAst(IASTTranslationUnit ast) {
+		int current = active.incrementAndGet();
+		try {
+			runs.incrementAndGet();
+			int max;
+			while ((max = maxActive.get()) < current && !maxActive.compareAndSet(max, current)) {
+			}
+			// Give other threads the chance to enter the checker.
+			Thread.sleep(20);
+			IASTDeclaration[] declarations = ast.getDeclarations();
+			if (declarations.length > 0)
+				reportProblem(ER_ID, declarations[0]);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			active.decrementAndGet();
+		}
+	}
+}
@@ -15,6 +15,9 @@ import junit.framework.Test;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
 
+import org.eclipse.cdt.codan.core.internal.AnalysisResultCacheTest;
+import org.eclipse.cdt.codan.core.internal.CodanMarkerProblemReporterTest;
+import org.eclipse.cdt.codan.core.internal.CodanRunnerTest;
 import org.eclipse.cdt.codan.core.internal.checkers.AbstractClassInstantiationCheckerTest;
 import org.eclipse.cdt.codan.core.internal.checkers.AssignmentInConditionCheckerTest;
 import org.eclipse.cdt.codan.core.internal.checkers.AssignmentToItselfCheckerTest;
@@ -71,6 +74,9 @@ public class AutomatedIntegrationSuite extends TestSuite {
 		suite.addTestSuite(SuspiciousSemicolonCheckerTest.class);
 		suite.addTestSuite(UnusedSymbolInFileScopeCheckerTest.class);
 		// framework
+		suite.addTestSuite(AnalysisResultCacheTest.class);
+		suite.addTestSuite(CodanMarkerProblemReporterTest.class);
+		suite.addTestSuite(CodanRunnerTest.class);
 		suite.addTest(CodanFastTestSuite.suite());
 		// quick fixes
 		suite.addTestSuite(CreateLocalVariableQuickFixTest.class);
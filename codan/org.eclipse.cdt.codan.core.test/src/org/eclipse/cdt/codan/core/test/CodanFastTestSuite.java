@@ -16,6 +16,8 @@ import junit.framework.TestCase;
 import junit.framework.TestSuite;
 
 import org.eclipse.cdt.codan.core.cfg.ControlFlowGraphTest;
+import org.eclipse.cdt.codan.core.cfg.CxxDataFlowTest;
+import org.eclipse.cdt.codan.core.cxx.AstCheckerDispatcherTest;
 import org.eclipse.cdt.codan.core.cxx.CxxAstUtilsTest;
 import org.eclipse.cdt.codan.core.param.BasicProblemPreferenceTest;
 import org.eclipse.cdt.codan.core.param.ListProblemPreferenceTest;
@@ -44,6 +46,8 @@ public class CodanFastTestSuite extends TestSuite {
 		suite.addTestSuite(MapProblemPreferenceTest.class);
 		suite.addTestSuite(CxxAstUtilsTest.class);
 		suite.addTestSuite(ControlFlowGraphTest.class);
+		suite.addTestSuite(CxxDataFlowTest.class);
+		suite.addTestSuite(AstCheckerDispatcherTest.class);
 		return suite;
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2010 Alena Laskavaia and others.
+ * Copyright (c) 2009, 2014 Alena Laskavaia and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.eclipse.cdt.codan.core;
 
+import org.eclipse.cdt.codan.internal.core.AnalysisResultCache;
 import org.eclipse.cdt.codan.internal.core.CodeAnalysisNature;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Plugin;
@@ -65,6 +66,7 @@ public class CodanCorePlugin extends Plugin {
 	 */
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		AnalysisResultCache.shutdown();
 		plugin = null;
 		super.stop(context);
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2012 Alena Laskavaia
+ * Copyright (c) 2009, 2014 Alena Laskavaia
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -25,11 +25,10 @@ import org.eclipse.core.runtime.OperationCanceledException;
  * implementation for common methods.
  */
 public abstract class AbstractChecker implements IChecker {
-	/**
-	 * @since 2.0
-	 */
-	private ICheckerInvocationContext context;
-	private IProblemReporter problemReporter;
+	// The state of a run is kept per thread, such that checkers implementing
+	// IThreadSafeChecker can process several resources at the same time.
+	private final ThreadLocal<ICheckerInvocationContext> context = new ThreadLocal<ICheckerInvocationContext>();
+	private final ThreadLocal<IProblemReporter> problemReporter = new ThreadLocal<IProblemReporter>();
 
 	/**
 	 * Default constructor
@@ -120,7 +119,7 @@ public abstract class AbstractChecker implements IChecker {
 	 */
 	@Override
 	public IProblemReporter getProblemReporter() {
-		return problemReporter;
+		return problemReporter.get();
 	}
 
 	/**
@@ -189,14 +188,18 @@ public abstract class AbstractChecker implements IChecker {
 	 * @since 2.0
 	 */
 	protected ICheckerInvocationContext getContext() {
-		return context;
+		return context.get();
 	}
 
 	/**
 	 * @since 2.0
 	 */
 	protected void setContext(ICheckerInvocationContext context) {
-		this.context = context;
+		if (context != null) {
+			this.context.set(context);
+		} else {
+			this.context.remove();
+		}
 	}
 
 	/**
@@ -205,14 +208,18 @@ public abstract class AbstractChecker implements IChecker {
 	@Override
 	public void before(IResource resource) {
 		IProblemReporter reporter = CodanRuntime.getInstance().getProblemReporter();
-		problemReporter = reporter;
 		if (reporter instanceof IProblemReporterSessionPersistent) {
 			// Create session problem reporter
-			problemReporter = ((IProblemReporterSessionPersistent) reporter).createReporter(resource, this);
-			((IProblemReporterSessionPersistent) problemReporter).start();
-		} else if (reporter instanceof IProblemReporterPersistent) {
-			// Delete markers.
-			((IProblemReporterPersistent) reporter).deleteProblems(resource, this);
+			IProblemReporterSessionPersistent sessionReporter =
+					((IProblemReporterSessionPersistent) reporter).createReporter(resource, this);
+			problemReporter.set(sessionReporter);
+			sessionReporter.start();
+		} else {
+			problemReporter.set(reporter);
+			if (reporter instanceof IProblemReporterPersistent) {
+				// Delete markers.
+				((IProblemReporterPersistent) reporter).deleteProblems(resource, this);
+			}
 		}
 	}
 
@@ -221,11 +228,12 @@ public abstract class AbstractChecker implements IChecker {
 	 */
 	@Override
 	public void after(IResource resource) {
-		if (problemReporter instanceof IProblemReporterSessionPersistent) {
+		IProblemReporter reporter = problemReporter.get();
+		if (reporter instanceof IProblemReporterSessionPersistent) {
 			// Delete general markers.
-			((IProblemReporterSessionPersistent) problemReporter).done();
+			((IProblemReporterSessionPersistent) reporter).done();
 		}
-		problemReporter = null;
+		problemReporter.remove();
 	}
 
 	/**
@@ -242,7 +250,7 @@ public abstract class AbstractChecker implements IChecker {
 	 * @since 2.0
 	 */
 	@Override
-	public synchronized boolean processResource(IResource resource, ICheckerInvocationContext context)
+	public boolean processResource(IResource resource, ICheckerInvocationContext context)
 			throws OperationCanceledException {
 		this.setContext(context);
 		try {
@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.codan.core.model;
+
+import java.util.List;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+/**
+ * Runs a number of checkers on a resource at once, such that the model of the resource
+ * is obtained and traversed only once for all of them.
+ *
+ * <p>
+ * <strong>EXPERIMENTAL</strong>. This class or interface has been added as part
+ * of a work in progress. There is no guarantee that this API will work or that
+ * it will remain the same.
+ * </p>
+ *
+ * @see IGroupableChecker
+ * @since 3.2
+ */
+public interface ICheckerGroup {
+	/**
+	 * Runs the given checkers on a resource. The framework calls {@link IChecker#before(IResource)}
+	 * and {@link IChecker#after(IResource)} for each of the checkers, the group is responsible
+	 * for recording the time spent in each of the checkers.
+	 *
+	 * @param resource the resource to run on.
+	 * @param model the model of the resource when running as you type, or {@code null}.
+	 * @param launchMode the launch mode the checkers are run in.
+	 * @param checkers the checkers of this group that are enabled for the resource.
+	 * @param context container object for sharing data between different checkers
+	 * 		operating on the resource.
+	 * @throws OperationCanceledException if the checkers were interrupted.
+	 */
+	void processResource(IResource resource, Object model, CheckerLaunchMode launchMode,
+			List<IGroupableChecker> checkers, ICheckerInvocationContext context)
+			throws OperationCanceledException;
+}
@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.codan.core.model;
+
+/**
+ * Checker that can be run together with other checkers of the same {@link ICheckerGroup}.
+ * Instead of running each of these checkers on its own, the framework passes all enabled
+ * checkers of a group to {@link ICheckerGroup#processResource}.
+ *
+ * <p>
+ * <strong>EXPERIMENTAL</strong>. This class or interface has been added as part
+ * of a work in progress. There is no guarantee that this API will work or that
+ * it will remain the same.
+ * </p>
+ *
+ * @since 3.2
+ */
+public interface IGroupableChecker extends IChecker {
+	/**
+	 * @return the group that runs this checker, or {@code null} if the checker
+	 * 		has to be run on its own.
+	 */
+	ICheckerGroup getCheckerGroup();
+}
@@ -0,0 +1,28 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.codan.core.model;
+
+/**
+ * Marker interface for checkers that can process several resources at the same time.
+ * Such checkers must not keep the state of a run in fields, other than the per-thread
+ * state maintained by {@link AbstractChecker}. The framework serializes the runs of all
+ * other checkers.
+ *
+ * <p>
+ * <strong>EXPERIMENTAL</strong>. This class or interface has been added as part
+ * of a work in progress. There is no guarantee that this API will work or that
+ * it will remain the same.
+ * </p>
+ *
+ * @since 3.2
+ */
+public interface IThreadSafeChecker extends IChecker {
+}
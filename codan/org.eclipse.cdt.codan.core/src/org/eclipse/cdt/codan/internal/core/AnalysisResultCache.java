@@ -0,0 +1,345 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.codan.internal.core;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.eclipse.cdt.codan.core.CodanCorePlugin;
+import org.eclipse.cdt.codan.core.model.CheckerLaunchMode;
+import org.eclipse.cdt.codan.core.model.IChecker;
+import org.eclipse.cdt.codan.core.model.IProblem;
+import org.eclipse.cdt.codan.core.model.IProblemReporter;
+import org.eclipse.cdt.codan.core.param.IProblemPreference;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtensionPoint;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Platform;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * Remembers the inputs of the last analysis of each file, such that files whose contents,
+ * dependencies and checker configuration did not change since are not analyzed again.
+ * The fingerprints of the files of a project are persisted in the working location of the project.
+ * They are kept in memory until the project is closed or deleted.
+ */
+public class AnalysisResultCache implements IResourceChangeListener {
+	private static final String DEPENDENCIES_EXTENSION_POINT_NAME = "analysisDependencies"; //$NON-NLS-1$
+	private static final String CLASS_ATTR = "class"; //$NON-NLS-1$
+	private static final String CACHE_FILE_NAME = "analysisResults.properties"; //$NON-NLS-1$
+	private static final String DIGEST_ALGORITHM = "SHA-1"; //$NON-NLS-1$
+	private static final Charset UTF_8 = Charset.forName("UTF-8"); //$NON-NLS-1$
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray(); //$NON-NLS-1$
+
+	private static AnalysisResultCache instance;
+
+	private final List<IAnalysisDependencyProvider> dependencyProviders = new ArrayList<IAnalysisDependencyProvider>();
+	/** Fingerprints of the files of each project, keyed by project relative path. */
+	private final Map<IProject, Properties> projects = new HashMap<IProject, Properties>();
+	private final Set<IProject> modifiedProjects = new HashSet<IProject>();
+
+	private AnalysisResultCache() {
+		IExtensionPoint ep = Platform.getExtensionRegistry().getExtensionPoint(CodanCorePlugin.PLUGIN_ID,
+				DEPENDENCIES_EXTENSION_POINT_NAME);
+		if (ep != null) {
+			for (IConfigurationElement ce : ep.getConfigurationElements()) {
+				try {
+					dependencyProviders.add((IAnalysisDependencyProvider) ce.createExecutableExtension(CLASS_ATTR));
+				} catch (CoreException e) {
+					CodanCorePlugin.log(e);
+				}
+			}
+		}
+	}
+
+	public static synchronized AnalysisResultCache getInstance() {
+		if (instance == null) {
+			instance = new AnalysisResultCache();
+			ResourcesPlugin.getWorkspace().addResourceChangeListener(instance,
+					IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE);
+		}
+		return instance;
+	}
+
+	/**
+	 * Saves the modified fingerprints, if the cache was used.
+	 */
+	public static synchronized void shutdown() {
+		if (instance != null) {
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(instance);
+			instance.save(null);
+			instance = null;
+		}
+	}
+
+	@Override
+	public void resourceChanged(IResourceChangeEvent event) {
+		if (event.getResource() instanceof IProject) {
+			IProject project = (IProject) event.getResource();
+			switch (event.getType()) {
+			case IResourceChangeEvent.PRE_CLOSE:
+				preCloseProject(project);
+				break;
+			case IResourceChangeEvent.PRE_DELETE:
+				preDeleteProject(project);
+				break;
+			}
+		}
+	}
+
+	private synchronized void preCloseProject(IProject project) {
+		save(project);
+		projects.remove(project);
+	}
+
+	private synchronized void preDeleteProject(IProject project) {
+		// The working location of the project is deleted with it.
+		modifiedProjects.remove(project);
+		projects.remove(project);
+	}
+
+	/**
+	 * Computes the fingerprint of the inputs of the analysis of a file in the given launch mode.
+	 *
+	 * @return the fingerprint, or {@code null} if the inputs cannot be determined, or no checker
+	 *     runs on the file.
+	 */
+	public String computeFingerprint(IFile file, CheckerLaunchMode mode) {
+		// Checkers running on the file. Files no checker runs on, e.g. object files and
+		// executables, don't get a fingerprint.
+		CheckersRegistry registry = CheckersRegistry.getInstance();
+		List<IChecker> checkers = new ArrayList<IChecker>();
+		for (IChecker checker : registry) {
+			if (registry.isCheckerEnabled(checker, file, mode))
+				checkers.add(checker);
+		}
+		if (checkers.isEmpty())
+			return null;
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			return null;
+		}
+		// Dependencies of the file, the providers reject files they cannot handle before
+		// the contents are read.
+		for (IAnalysisDependencyProvider provider : dependencyProviders) {
+			if (!provider.addDependencies(file, digest))
+				return null;
+		}
+		// Contents of the file.
+		try {
+			InputStream in = file.getContents();
+			try {
+				byte[] buffer = new byte[8192];
+				int n;
+				while ((n = in.read(buffer)) > 0) {
+					digest.update(buffer, 0, n);
+				}
+			} finally {
+				in.close();
+			}
+		} catch (CoreException e) {
+			// The file is out of sync or does not exist.
+			return null;
+		} catch (IOException e) {
+			return null;
+		}
+		// Configuration of the checkers.
+		for (IChecker checker : checkers) {
+			addToDigest(digest, checker.getClass().getName());
+			Bundle bundle = FrameworkUtil.getBundle(checker.getClass());
+			if (bundle != null)
+				addToDigest(digest, bundle.getVersion().toString());
+		}
+		for (IProblem problem : registry.getResourceProfile(file).getProblems()) {
+			addToDigest(digest, problem.getId());
+			addToDigest(digest, String.valueOf(problem.isEnabled()));
+			addToDigest(digest, String.valueOf(problem.getSeverity()));
+			addToDigest(digest, problem.getMessagePattern());
+			IProblemPreference preference = problem.getPreference();
+			if (preference != null)
+				addToDigest(digest, preference.exportValue());
+		}
+		return toHexString(digest.digest());
+	}
+
+	private static void addToDigest(MessageDigest digest, String value) {
+		if (value != null)
+			digest.update(value.getBytes(UTF_8));
+		digest.update((byte) 0);
+	}
+
+	private static String toHexString(byte[] bytes) {
+		char[] chars = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			chars[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+			chars[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xf];
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * Checks whether the file was analyzed with the given fingerprint, and its markers were not
+	 * modified since.
+	 */
+	public boolean isUpToDate(IFile file, String fingerprint) {
+		String entry;
+		synchronized (this) {
+			Properties entries = getEntries(file.getProject());
+			if (entries == null)
+				return false;
+			entry = entries.getProperty(file.getProjectRelativePath().toString());
+		}
+		if (entry == null)
+			return false;
+		Integer markerCount = countMarkers(file);
+		return markerCount != null && entry.equals(fingerprint + ' ' + markerCount);
+	}
+
+	/**
+	 * Records that the file was analyzed with the given fingerprint. Has to be called after
+	 * the markers of the analysis were created.
+	 */
+	public void update(IFile file, String fingerprint) {
+		Integer markerCount = countMarkers(file);
+		if (markerCount == null) {
+			invalidate(file);
+			return;
+		}
+		IProject project = file.getProject();
+		synchronized (this) {
+			Properties entries = getEntries(project);
+			if (entries != null) {
+				entries.setProperty(file.getProjectRelativePath().toString(), fingerprint + ' ' + markerCount);
+				modifiedProjects.add(project);
+			}
+		}
+	}
+
+	/**
+	 * Forgets the fingerprint of a file, such that the file is analyzed again.
+	 */
+	public synchronized void invalidate(IFile file) {
+		IProject project = file.getProject();
+		Properties entries = getEntries(project);
+		if (entries != null && entries.remove(file.getProjectRelativePath().toString()) != null)
+			modifiedProjects.add(project);
+	}
+
+	/**
+	 * Forgets the fingerprints of all files of a project.
+	 */
+	public synchronized void clear(IProject project) {
+		projects.put(project, new Properties());
+		modifiedProjects.add(project);
+	}
+
+	/**
+	 * Saves the modified fingerprints of a project.
+	 *
+	 * @param project the project, or {@code null} to save the fingerprints of all projects.
+	 */
+	public synchronized void save(IProject project) {
+		if (project != null) {
+			if (modifiedProjects.remove(project))
+				store(project, projects.get(project));
+		} else {
+			for (IProject p : modifiedProjects) {
+				store(p, projects.get(p));
+			}
+			modifiedProjects.clear();
+		}
+	}
+
+	private static Integer countMarkers(IFile file) {
+		try {
+			return file.findMarkers(IProblemReporter.GENERIC_CODE_ANALYSIS_MARKER_TYPE, true,
+					IResource.DEPTH_ZERO).length;
+		} catch (CoreException e) {
+			return null;
+		}
+	}
+
+	private Properties getEntries(IProject project) {
+		Properties entries = projects.get(project);
+		if (entries == null) {
+			File cacheFile = getCacheFile(project);
+			if (cacheFile == null)
+				return null;
+			entries = new Properties();
+			if (cacheFile.exists()) {
+				try {
+					InputStream in = new FileInputStream(cacheFile);
+					try {
+						entries.load(in);
+					} finally {
+						in.close();
+					}
+				} catch (IOException e) {
+					CodanCorePlugin.log(e);
+					entries.clear();
+				}
+			}
+			projects.put(project, entries);
+		}
+		return entries;
+	}
+
+	private static void store(IProject project, Properties entries) {
+		File cacheFile = getCacheFile(project);
+		if (cacheFile == null || entries == null)
+			return;
+		try {
+			if (entries.isEmpty()) {
+				cacheFile.delete();
+				return;
+			}
+			OutputStream out = new FileOutputStream(cacheFile);
+			try {
+				entries.store(out, null);
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			CodanCorePlugin.log(e);
+		}
+	}
+
+	private static File getCacheFile(IProject project) {
+		if (!project.isAccessible())
+			return null;
+		IPath location = project.getWorkingLocation(CodanCorePlugin.PLUGIN_ID);
+		return location == null ? null : location.append(CACHE_FILE_NAME).toFile();
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2013 Alena Laskavaia
+ * Copyright (c) 2009, 2014 Alena Laskavaia
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -325,12 +325,12 @@ public class CheckersRegistry implements Iterable<IChecker>, ICheckersRegistry {
 	}
 
 	@Override
-	public IProblemProfile getDefaultProfile() {
+	public synchronized IProblemProfile getDefaultProfile() {
 		return profiles.get(DEFAULT);
 	}
 
 	@Override
-	public IProblemProfile getWorkspaceProfile() {
+	public synchronized IProblemProfile getWorkspaceProfile() {
 		IProblemProfile wp = profiles.get(ResourcesPlugin.getWorkspace());
 		if (wp == null) {
 			wp = (IProblemProfile) getDefaultProfile().clone();
@@ -349,7 +349,7 @@ public class CheckersRegistry implements Iterable<IChecker>, ICheckersRegistry {
 	}
 
 	@Override
-	public void updateProfile(IResource element, IProblemProfile profile) {
+	public synchronized void updateProfile(IResource element, IProblemProfile profile) {
 		// Updating profile can invalidate all cached profiles
 		IProblemProfile defaultProfile = getDefaultProfile();
 		profiles.clear();
@@ -359,7 +359,7 @@ public class CheckersRegistry implements Iterable<IChecker>, ICheckersRegistry {
 	}
 
 	@Override
-	public IProblemProfile getResourceProfile(IResource element) {
+	public synchronized IProblemProfile getResourceProfile(IResource element) {
 		IProblemProfile prof = profiles.get(element);
 		if (prof == null) {
 			if (element instanceof IProject) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009,2010 QNX Software Systems
+ * Copyright (c) 2009, 2014 QNX Software Systems
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -29,21 +29,29 @@ public class CheckersTimeStats {
 		return instance;
 	}
 
+	/**
+	 * Accumulated time in nanoseconds, such that short runs of a checker are not lost.
+	 */
 	private static class TimeRecord {
 		private long duration;
 		private long current;
 		private int count;
 
 		public void start() {
-			current = System.currentTimeMillis();
+			current = System.nanoTime();
 		}
 
 		public void stop() {
 			count++;
-			duration += System.currentTimeMillis() - current;
+			duration += System.nanoTime() - current;
 			current = 0;
 		}
 
+		public void add(long elapsed) {
+			count++;
+			duration += elapsed;
+		}
+
 		/*
 		 * (non-Javadoc)
 		 *
@@ -51,8 +59,10 @@ public class CheckersTimeStats {
 		 */
 		@Override
 		public String toString() {
-			if (count != 0)
-				return duration + " " + count + " " + duration / count;  //$NON-NLS-1$//$NON-NLS-2$
+			if (count != 0) {
+				// Reported in milliseconds.
+				return duration / 1000000 + " " + count + " " + duration / count / 1000000;  //$NON-NLS-1$//$NON-NLS-2$
+			}
 			return ""; //$NON-NLS-1$
 		}
 	}
@@ -86,7 +96,7 @@ public class CheckersTimeStats {
 	 * @param id
 	 * @param counter
 	 */
-	public void checkerStart(String id, String counter) {
+	public synchronized void checkerStart(String id, String counter) {
 		TimeRecord record = getTimeRecord(id + ":" + counter); //$NON-NLS-1$
 		record.start();
 	}
@@ -95,7 +105,7 @@ public class CheckersTimeStats {
 	 * @param id
 	 * @param counter
 	 */
-	public void checkerStop(String id, String counter) {
+	public synchronized void checkerStop(String id, String counter) {
 		getTimeRecord(id + ":" + counter).stop(); //$NON-NLS-1$
 	}
 
@@ -106,6 +116,16 @@ public class CheckersTimeStats {
 		checkerStop(id, ELAPSED);
 	}
 
+	/**
+	 * Adds time measured elsewhere to the elapsed time of checker with given id
+	 *
+	 * @param id
+	 * @param elapsed - elapsed time in nanoseconds
+	 */
+	public synchronized void checkerElapsed(String id, long elapsed) {
+		getTimeRecord(id + ":" + ELAPSED).add(elapsed); //$NON-NLS-1$
+	}
+
 	/**
 	 *
 	 */
@@ -117,7 +137,7 @@ public class CheckersTimeStats {
 	/**
 	 *
 	 */
-	public void printStats() {
+	public synchronized void printStats() {
 		System.out.println("---"); //$NON-NLS-1$
 		for (Iterator<String> iterator = records.keySet().iterator(); iterator.hasNext();) {
 			String id = iterator.next();
@@ -129,7 +149,7 @@ public class CheckersTimeStats {
 	/**
 	 *
 	 */
-	public void reset() {
+	public synchronized void reset() {
 		records.clear();
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2012 Alena Laskavaia
+ * Copyright (c) 2009, 2014 Alena Laskavaia
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,6 +15,7 @@ import java.util.Map;
 
 import org.eclipse.cdt.codan.core.model.CheckerLaunchMode;
 import org.eclipse.cdt.codan.core.model.ICodanBuilder;
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceDelta;
@@ -49,6 +50,8 @@ public class CodanBuilder extends IncrementalProjectBuilder implements ICodanBui
 					break;
 				case IResourceDelta.REMOVED:
 					// Handle removed resource
+					if (resource instanceof IFile)
+						AnalysisResultCache.getInstance().invalidate((IFile) resource);
 					break;
 				case IResourceDelta.CHANGED:
 					// Handle changed resource
@@ -76,6 +79,12 @@ public class CodanBuilder extends IncrementalProjectBuilder implements ICodanBui
 		return null;
 	}
 
+	@Override
+	protected void clean(IProgressMonitor monitor) throws CoreException {
+		// Analyze all files of the project during the next build.
+		AnalysisResultCache.getInstance().clear(getProject());
+	}
+
 	@Override
 	public void processResource(IResource resource, IProgressMonitor monitor) {
 		CodanRunner.processResource(resource, CheckerLaunchMode.RUN_ON_FULL_BUILD, monitor);
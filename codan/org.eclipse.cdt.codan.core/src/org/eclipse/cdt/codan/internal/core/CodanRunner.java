@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2012 Alena Laskavaia
+ * Copyright (c) 2009, 2014 Alena Laskavaia
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,15 +11,35 @@
  *******************************************************************************/
 package org.eclipse.cdt.codan.internal.core;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import org.eclipse.cdt.codan.core.CodanCorePlugin;
 import org.eclipse.cdt.codan.core.model.CheckerLaunchMode;
 import org.eclipse.cdt.codan.core.model.IChecker;
+import org.eclipse.cdt.codan.core.model.ICheckerGroup;
 import org.eclipse.cdt.codan.core.model.ICheckerInvocationContext;
+import org.eclipse.cdt.codan.core.model.IGroupableChecker;
 import org.eclipse.cdt.codan.core.model.IRunnableInEditorChecker;
+import org.eclipse.cdt.codan.core.model.IThreadSafeChecker;
+import org.eclipse.cdt.codan.internal.core.model.CodanMarkerProblemReporter;
+import org.eclipse.cdt.codan.internal.core.model.CodanMarkerProblemReporter.Batch;
 import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.osgi.util.NLS;
@@ -28,9 +48,28 @@ import org.eclipse.osgi.util.NLS;
  * Collection of methods for running checkers.
  */
 public class CodanRunner {
+	/**
+	 * Number of threads used for analyzing the files of a project in parallel. Checkers that
+	 * don't implement {@link IThreadSafeChecker} still process one file at a time.
+	 */
+	private static volatile int analysisThreads =
+			Integer.getInteger("org.eclipse.cdt.codan.core.analysisThreads", //$NON-NLS-1$
+					Runtime.getRuntime().availableProcessors());
+
 	/** Do not instantiate. All methods are static */
 	private CodanRunner() {}
 
+	/**
+	 * Sets the number of threads used for analyzing the files of a project, for testing purposes.
+	 *
+	 * @return the previous number of threads.
+	 */
+	public static int setAnalysisThreads(int threads) {
+		int previous = analysisThreads;
+		analysisThreads = threads;
+		return previous;
+	}
+
 	/**
 	 * Runs all checkers that support "run as you type" mode.
 	 *
@@ -39,7 +78,12 @@ public class CodanRunner {
 	 * @param monitor - the progress monitor
 	 */
 	public static void runInEditor(Object model, IResource resource, IProgressMonitor monitor) {
-		CodanRunner.processResource(resource, model, CheckerLaunchMode.RUN_AS_YOU_TYPE, monitor);
+		Batch batch = CodanMarkerProblemReporter.startBatch();
+		try {
+			CodanRunner.processResource(resource, model, CheckerLaunchMode.RUN_AS_YOU_TYPE, monitor);
+		} finally {
+			CodanMarkerProblemReporter.applyBatch(batch);
+		}
 	}
 
 	/**
@@ -51,7 +95,19 @@ public class CodanRunner {
 	 */
 	public static void processResource(IResource resource, CheckerLaunchMode checkerLaunchMode,
 			IProgressMonitor monitor) {
-		processResource(resource, null, checkerLaunchMode, monitor);
+		// The markers of all resources are updated at the end, in a single workspace operation.
+		Batch batch = CodanMarkerProblemReporter.startBatch();
+		try {
+			if (resource instanceof IContainer && analysisThreads > 1 &&
+					(checkerLaunchMode == CheckerLaunchMode.RUN_ON_FULL_BUILD || checkerLaunchMode == CheckerLaunchMode.RUN_ON_DEMAND)) {
+				processInParallel((IContainer) resource, checkerLaunchMode, monitor);
+			} else {
+				processResource(resource, null, checkerLaunchMode, monitor);
+			}
+		} finally {
+			CodanMarkerProblemReporter.applyBatch(batch);
+			AnalysisResultCache.getInstance().save(resource.getProject());
+		}
 	}
 
 	private static void processResource(IResource resource, Object model,
@@ -72,26 +128,49 @@ public class CodanRunner {
 		monitor.beginTask(NLS.bind(Messages.CodanRunner_Code_analysis_on, resource.getFullPath().toString()),
 				checkers * (1 + numChildren * childWeight));
 		try {
-			CheckersTimeStats.getInstance().checkerStart(CheckersTimeStats.ALL);
+			final AnalysisResultCache resultCache = AnalysisResultCache.getInstance();
+			String fingerprint = null;
+			if (resource instanceof IFile) {
+				if (checkerLaunchMode == CheckerLaunchMode.RUN_AS_YOU_TYPE) {
+					// The markers for the contents of the editor may differ from the ones for the file.
+					resultCache.invalidate((IFile) resource);
+				} else {
+					fingerprint = resultCache.computeFingerprint((IFile) resource, checkerLaunchMode);
+					// Skip files that did not change since their last analysis, unless the user
+					// explicitly asked for the analysis.
+					if (fingerprint != null && checkerLaunchMode != CheckerLaunchMode.RUN_ON_DEMAND &&
+							resultCache.isUpToDate((IFile) resource, fingerprint)) {
+						return;
+					}
+				}
+			}
+			long start = System.nanoTime();
 			ICheckerInvocationContext context = new CheckerInvocationContext(resource);
+			// Checkers that belong to a group are run together after the other checkers.
+			// Thread-safe members of a group are run separately from the others, such that
+			// they don't have to wait for the locks of the others.
+			Map<ICheckerGroup, List<IGroupableChecker>> threadSafeGroups =
+					new LinkedHashMap<ICheckerGroup, List<IGroupableChecker>>();
+			Map<ICheckerGroup, List<IGroupableChecker>> groups =
+					new LinkedHashMap<ICheckerGroup, List<IGroupableChecker>>();
 			try {
 				for (IChecker checker : chegistry) {
 					try {
 						if (monitor.isCanceled())
 							return;
 						if (chegistry.isCheckerEnabled(checker, resource, checkerLaunchMode)) {
-							synchronized (checker) {
-								try {
-									checker.before(resource);
-									CheckersTimeStats.getInstance().checkerStart(checker.getClass().getName());
-									if (checkerLaunchMode == CheckerLaunchMode.RUN_AS_YOU_TYPE) {
-										((IRunnableInEditorChecker) checker).processModel(model, context);
-									} else {
-										checker.processResource(resource, context);
-									}
-								} finally {
-									CheckersTimeStats.getInstance().checkerStop(checker.getClass().getName());
-									checker.after(resource);
+							ICheckerGroup group = checker instanceof IGroupableChecker ?
+									((IGroupableChecker) checker).getCheckerGroup() : null;
+							if (group != null) {
+								addToGroup(checker instanceof IThreadSafeChecker ? threadSafeGroups : groups,
+										group, (IGroupableChecker) checker);
+								continue;
+							}
+							if (checker instanceof IThreadSafeChecker) {
+								runChecker(checker, resource, model, checkerLaunchMode, context);
+							} else {
+								synchronized (checker) {
+									runChecker(checker, resource, model, checkerLaunchMode, context);
 								}
 							}
 						}
@@ -102,9 +181,25 @@ public class CodanRunner {
 						CodanCorePlugin.log(e);
 					}
 				}
+				if (!processGroups(threadSafeGroups, resource, model, checkerLaunchMode, context, monitor))
+					return;
+				if (!processGroups(groups, resource, model, checkerLaunchMode, context, monitor))
+					return;
+				if (fingerprint != null) {
+					// The fingerprint is recorded together with the markers of the file.
+					final IFile file = (IFile) resource;
+					final String analyzedFingerprint = fingerprint;
+					CodanMarkerProblemReporter.runWhenApplied(new Runnable() {
+						@Override
+						public void run() {
+							resultCache.update(file, analyzedFingerprint);
+						}
+					});
+				}
 			} finally {
 				context.dispose();
-				CheckersTimeStats.getInstance().checkerStop(CheckersTimeStats.ALL);
+				CheckersTimeStats.getInstance().checkerElapsed(CheckersTimeStats.ALL,
+						System.nanoTime() - start);
 				//CheckersTimeStats.getInstance().printStats();
 			}
 
@@ -120,4 +215,186 @@ public class CodanRunner {
 			monitor.done();
 		}
 	}
+
+	/**
+	 * Runs the checkers on the files of a container using a pool of worker threads. Each file
+	 * is processed by a single thread, such that the checkers running on the file share its AST.
+	 */
+	private static void processInParallel(IContainer container, final CheckerLaunchMode checkerLaunchMode,
+			IProgressMonitor monitor) {
+		List<IFile> files = new ArrayList<IFile>();
+		try {
+			collectFiles(container, files);
+		} catch (CoreException e) {
+			CodanCorePlugin.log(e);
+		}
+		monitor.beginTask(NLS.bind(Messages.CodanRunner_Code_analysis_on, container.getFullPath().toString()),
+				files.size());
+		if (files.isEmpty()) {
+			monitor.done();
+			return;
+		}
+		// Worker threads share a monitor that is used for propagating cancellation only.
+		final IProgressMonitor workerMonitor = new NullProgressMonitor();
+		// Problems found by the workers are collected in the batch of the calling thread.
+		final Batch batch = CodanMarkerProblemReporter.getCurrentBatch();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(analysisThreads, files.size()));
+		boolean interrupted = false;
+		try {
+			CompletionService<Object> completionService = new ExecutorCompletionService<Object>(executor);
+			for (final IFile file : files) {
+				completionService.submit(new Callable<Object>() {
+					@Override
+					public Object call() {
+						if (!workerMonitor.isCanceled()) {
+							CodanMarkerProblemReporter.joinBatch(batch);
+							try {
+								processResource(file, null, checkerLaunchMode, workerMonitor);
+							} finally {
+								CodanMarkerProblemReporter.joinBatch(null);
+							}
+						}
+						return null;
+					}
+				});
+			}
+			int pending = files.size();
+			while (pending > 0) {
+				if (monitor.isCanceled()) {
+					workerMonitor.setCanceled(true);
+					break;
+				}
+				Future<Object> future = completionService.poll(100, TimeUnit.MILLISECONDS);
+				if (future != null) {
+					pending--;
+					monitor.worked(1);
+					try {
+						future.get();
+					} catch (ExecutionException e) {
+						CodanCorePlugin.log(e.getCause());
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			workerMonitor.setCanceled(true);
+			interrupted = true;
+		} finally {
+			if (interrupted) {
+				executor.shutdownNow();
+			} else {
+				executor.shutdown();
+			}
+			// Wait for the files being processed, the remaining ones are skipped after
+			// a cancellation. The workers add to the batch, so they have to finish before
+			// the batch is applied, even when this thread is interrupted.
+			while (!executor.isTerminated()) {
+				try {
+					executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+				} catch (InterruptedException e) {
+					if (!interrupted) {
+						interrupted = true;
+						workerMonitor.setCanceled(true);
+						executor.shutdownNow();
+					}
+				}
+			}
+			if (interrupted)
+				Thread.currentThread().interrupt();
+			monitor.done();
+		}
+	}
+
+	private static void collectFiles(IContainer container, List<IFile> files) throws CoreException {
+		for (IResource member : container.members()) {
+			if (member instanceof IFile) {
+				files.add((IFile) member);
+			} else if (member instanceof IContainer) {
+				collectFiles((IContainer) member, files);
+			}
+		}
+	}
+
+	private static void runChecker(IChecker checker, IResource resource, Object model,
+			CheckerLaunchMode checkerLaunchMode, ICheckerInvocationContext context) {
+		long start = System.nanoTime();
+		try {
+			checker.before(resource);
+			if (checkerLaunchMode == CheckerLaunchMode.RUN_AS_YOU_TYPE) {
+				((IRunnableInEditorChecker) checker).processModel(model, context);
+			} else {
+				checker.processResource(resource, context);
+			}
+		} finally {
+			CheckersTimeStats.getInstance().checkerElapsed(checker.getClass().getName(),
+					System.nanoTime() - start);
+			checker.after(resource);
+		}
+	}
+
+	private static void addToGroup(Map<ICheckerGroup, List<IGroupableChecker>> groups, ICheckerGroup group,
+			IGroupableChecker checker) {
+		List<IGroupableChecker> members = groups.get(group);
+		if (members == null) {
+			members = new ArrayList<IGroupableChecker>();
+			groups.put(group, members);
+		}
+		members.add(checker);
+	}
+
+	/**
+	 * Runs the checkers of the given groups on a resource.
+	 *
+	 * @return {@code false} if the run was canceled.
+	 */
+	private static boolean processGroups(Map<ICheckerGroup, List<IGroupableChecker>> groups,
+			IResource resource, Object model, CheckerLaunchMode checkerLaunchMode,
+			ICheckerInvocationContext context, IProgressMonitor monitor) {
+		for (Map.Entry<ICheckerGroup, List<IGroupableChecker>> entry : groups.entrySet()) {
+			if (monitor.isCanceled())
+				return false;
+			List<IGroupableChecker> members = entry.getValue();
+			try {
+				processGroup(entry.getKey(), members, 0, resource, model, checkerLaunchMode, context);
+			} catch (OperationCanceledException e) {
+				return false;
+			} catch (Throwable e) {
+				CodanCorePlugin.log(e);
+			}
+			monitor.worked(members.size());
+		}
+		return true;
+	}
+
+	/**
+	 * Runs the checkers of a group on a resource, while holding the locks of all checkers
+	 * starting with the one at the given index that are not thread-safe.
+	 */
+	private static void processGroup(ICheckerGroup group, List<IGroupableChecker> checkers, int index,
+			IResource resource, Object model, CheckerLaunchMode checkerLaunchMode,
+			ICheckerInvocationContext context) {
+		if (index < checkers.size()) {
+			IChecker checker = checkers.get(index);
+			if (checker instanceof IThreadSafeChecker) {
+				processGroupMember(group, checkers, index, resource, model, checkerLaunchMode, context);
+			} else {
+				synchronized (checker) {
+					processGroupMember(group, checkers, index, resource, model, checkerLaunchMode, context);
+				}
+			}
+		} else {
+			group.processResource(resource, model, checkerLaunchMode, checkers, context);
+		}
+	}
+
+	private static void processGroupMember(ICheckerGroup group, List<IGroupableChecker> checkers, int index,
+			IResource resource, Object model, CheckerLaunchMode checkerLaunchMode,
+			ICheckerInvocationContext context) {
+		IChecker checker = checkers.get(index);
+		try {
+			checker.before(resource);
+			processGroup(group, checkers, index + 1, resource, model, checkerLaunchMode, context);
+		} finally {
+			checker.after(resource);
+		}
+	}
 }
@@ -0,0 +1,30 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.codan.internal.core;
+
+import java.security.MessageDigest;
+
+import org.eclipse.core.resources.IFile;
+
+/**
+ * Contributes the inputs of the analysis of a file other than its contents, such as the headers
+ * included by the file, to the fingerprint used for skipping the analysis of unchanged files.
+ */
+public interface IAnalysisDependencyProvider {
+	/**
+	 * Adds the dependencies of the given file to the digest.
+	 * @param file the file to be analyzed.
+	 * @param digest the digest of the inputs of the analysis.
+	 * @return {@code false} if the dependencies of the file cannot be determined, or the
+	 *     provider does not handle files of this kind, in which case the file is always analyzed.
+	 */
+	public boolean addDependencies(IFile file, MessageDigest digest);
+}
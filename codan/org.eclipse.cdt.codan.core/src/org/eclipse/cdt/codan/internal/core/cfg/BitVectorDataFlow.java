@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.codan.internal.core.cfg;
+
+import java.util.BitSet;
+
+/**
+ * Solution of a data flow problem over an {@link IndexedGraph}, with sets of facts represented
+ * by bit vectors. The transfer function of a node is {@code gen | (x & ~kill)}, and the sets
+ * flowing into a node are combined by union, which covers problems like reaching definitions
+ * and live variables.
+ */
+public final class BitVectorDataFlow {
+	private static final BitSet EMPTY = new BitSet();
+
+	private final BitSet[] in;
+	private final BitSet[] out;
+
+	private BitVectorDataFlow(int size) {
+		in = new BitSet[size];
+		out = new BitSet[size];
+		for (int i = 0; i < size; i++) {
+			in[i] = new BitSet();
+			out[i] = new BitSet();
+		}
+	}
+
+	/**
+	 * Solves a problem in which the facts flow along the arcs of the graph.
+	 *
+	 * @param graph the graph.
+	 * @param gen the facts generated by each node, indexed by node.
+	 * @param kill the facts killed by each node, indexed by node.
+	 * @param entry the facts holding before the start node.
+	 * @return the solution.
+	 */
+	public static BitVectorDataFlow solveForward(IndexedGraph graph, BitSet[] gen, BitSet[] kill, BitSet entry) {
+		int size = graph.size();
+		BitVectorDataFlow result = new BitVectorDataFlow(size);
+		Worklist worklist = new Worklist(size);
+		for (int i = 0; i < size; i++) {
+			worklist.add(i);
+		}
+		BitSet facts = new BitSet();
+		while (!worklist.isEmpty()) {
+			int node = worklist.remove();
+			BitSet before = result.in[node];
+			if (node == 0)
+				before.or(entry);
+			for (int p : graph.getPredecessors(node)) {
+				before.or(result.out[p]);
+			}
+			if (transfer(before, gen[node], kill[node], result.out[node], facts)) {
+				for (int s : graph.getSuccessors(node)) {
+					worklist.add(s);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Solves a problem in which the facts flow against the arcs of the graph.
+	 *
+	 * @param graph the graph.
+	 * @param gen the facts generated by each node, indexed by node.
+	 * @param kill the facts killed by each node, indexed by node.
+	 * @param exit the facts holding after the nodes without successors.
+	 * @return the solution.
+	 */
+	public static BitVectorDataFlow solveBackward(IndexedGraph graph, BitSet[] gen, BitSet[] kill, BitSet exit) {
+		int size = graph.size();
+		BitVectorDataFlow result = new BitVectorDataFlow(size);
+		Worklist worklist = new Worklist(size);
+		for (int i = size; --i >= 0;) {
+			worklist.add(i);
+		}
+		BitSet facts = new BitSet();
+		while (!worklist.isEmpty()) {
+			int node = worklist.remove();
+			BitSet after = result.out[node];
+			int[] successors = graph.getSuccessors(node);
+			if (successors.length == 0)
+				after.or(exit);
+			for (int s : successors) {
+				after.or(result.in[s]);
+			}
+			if (transfer(after, gen[node], kill[node], result.in[node], facts)) {
+				for (int p : graph.getPredecessors(node)) {
+					worklist.add(p);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Computes {@code gen | (source & ~kill)} into {@code target}.
+	 * @return {@code true} if {@code target} changed.
+	 */
+	private static boolean transfer(BitSet source, BitSet gen, BitSet kill, BitSet target, BitSet temp) {
+		temp.clear();
+		temp.or(source);
+		temp.andNot(kill != null ? kill : EMPTY);
+		if (gen != null)
+			temp.or(gen);
+		if (temp.equals(target))
+			return false;
+		target.clear();
+		target.or(temp);
+		return true;
+	}
+
+	/**
+	 * @return the facts holding before the given node is executed. The returned set must not be
+	 *     modified.
+	 */
+	public BitSet getIn(int node) {
+		return in[node];
+	}
+
+	/**
+	 * @return the facts holding after the given node is executed. The returned set must not be
+	 *     modified.
+	 */
+	public BitSet getOut(int node) {
+		return out[node];
+	}
+
+	/**
+	 * Queue of node numbers without duplicates.
+	 */
+	private static class Worklist {
+		private final int[] queue;
+		private final boolean[] queued;
+		private int head;
+		private int count;
+
+		Worklist(int size) {
+			queue = new int[size];
+			queued = new boolean[size];
+		}
+
+		boolean isEmpty() {
+			return count == 0;
+		}
+
+		void add(int node) {
+			if (queued[node])
+				return;
+			queued[node] = true;
+			queue[(head + count++) % queue.length] = node;
+		}
+
+		int remove() {
+			int node = queue[head];
+			head = (head + 1) % queue.length;
+			count--;
+			queued[node] = false;
+			return node;
+		}
+	}
+}
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.codan.internal.core.cfg;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.cdt.codan.core.model.cfg.IBasicBlock;
+import org.eclipse.cdt.codan.core.model.cfg.IControlFlowGraph;
+
+/**
+ * Compact, immutable representation of a control flow graph for data flow analysis.
+ * The nodes are numbered from {@code 0} to {@code size() - 1} in reverse postorder, such that
+ * the start node has number {@code 0}. Dead nodes are numbered too. The arcs are kept in
+ * int arrays.
+ */
+public final class IndexedGraph {
+	private static final int[] EMPTY = {};
+
+	private final IControlFlowGraph graph;
+	private final IBasicBlock[] nodes;
+	private final Map<IBasicBlock, Integer> indices;
+	private final int[][] successors;
+	private final int[][] predecessors;
+
+	public IndexedGraph(IControlFlowGraph graph) {
+		this.graph = graph;
+		List<IBasicBlock> postorder = new ArrayList<IBasicBlock>();
+		Map<IBasicBlock, Integer> visited = new IdentityHashMap<IBasicBlock, Integer>();
+		// Dead code is visited first, so that the start node comes first in reverse postorder.
+		for (Iterator<IBasicBlock> iterator = graph.getUnconnectedNodeIterator(); iterator.hasNext();) {
+			addInPostorder(iterator.next(), visited, postorder);
+		}
+		addInPostorder(graph.getStartNode(), visited, postorder);
+
+		int size = postorder.size();
+		nodes = new IBasicBlock[size];
+		indices = new IdentityHashMap<IBasicBlock, Integer>(size);
+		for (int i = 0; i < size; i++) {
+			IBasicBlock node = postorder.get(size - 1 - i);
+			nodes[i] = node;
+			indices.put(node, i);
+		}
+
+		successors = new int[size][];
+		int[] predecessorCounts = new int[size];
+		for (int i = 0; i < size; i++) {
+			IBasicBlock[] outgoing = nodes[i].getOutgoingNodes();
+			int[] succ = new int[outgoing.length];
+			int count = 0;
+			for (IBasicBlock next : outgoing) {
+				Integer index = next != null ? indices.get(next) : null;
+				if (index != null) {
+					succ[count++] = index;
+					predecessorCounts[index]++;
+				}
+			}
+			if (count != succ.length) {
+				int[] trimmed = new int[count];
+				System.arraycopy(succ, 0, trimmed, 0, count);
+				succ = trimmed;
+			}
+			successors[i] = succ;
+		}
+		predecessors = new int[size][];
+		for (int i = 0; i < size; i++) {
+			predecessors[i] = predecessorCounts[i] == 0 ? EMPTY : new int[predecessorCounts[i]];
+			predecessorCounts[i] = 0;
+		}
+		for (int i = 0; i < size; i++) {
+			for (int j : successors[i]) {
+				predecessors[j][predecessorCounts[j]++] = i;
+			}
+		}
+	}
+
+	/**
+	 * Depth first traversal without recursion, since graphs of large functions are deep.
+	 */
+	private static void addInPostorder(IBasicBlock root, Map<IBasicBlock, Integer> visited,
+			List<IBasicBlock> postorder) {
+		if (root == null || visited.containsKey(root))
+			return;
+		List<IBasicBlock> stack = new ArrayList<IBasicBlock>();
+		List<IBasicBlock[]> outgoingStack = new ArrayList<IBasicBlock[]>();
+		visited.put(root, 0);
+		stack.add(root);
+		outgoingStack.add(root.getOutgoingNodes());
+		while (!stack.isEmpty()) {
+			int top = stack.size() - 1;
+			IBasicBlock node = stack.get(top);
+			IBasicBlock[] outgoing = outgoingStack.get(top);
+			int next = visited.get(node);
+			while (next < outgoing.length && (outgoing[next] == null || visited.containsKey(outgoing[next]))) {
+				next++;
+			}
+			if (next < outgoing.length) {
+				visited.put(node, next + 1);
+				IBasicBlock child = outgoing[next];
+				visited.put(child, 0);
+				stack.add(child);
+				outgoingStack.add(child.getOutgoingNodes());
+			} else {
+				stack.remove(top);
+				outgoingStack.remove(top);
+				postorder.add(node);
+			}
+		}
+	}
+
+	/**
+	 * @return the control flow graph represented by this graph.
+	 */
+	public IControlFlowGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * @return the number of nodes.
+	 */
+	public int size() {
+		return nodes.length;
+	}
+
+	/**
+	 * @return the node with the given number.
+	 */
+	public IBasicBlock getNode(int index) {
+		return nodes[index];
+	}
+
+	/**
+	 * @return the number of the given node, or {@code -1} if the node does not belong to the graph.
+	 */
+	public int indexOf(IBasicBlock node) {
+		Integer index = indices.get(node);
+		return index != null ? index : -1;
+	}
+
+	/**
+	 * @return the numbers of the successors of the given node. The returned array must not be
+	 *     modified.
+	 */
+	public int[] getSuccessors(int index) {
+		return successors[index];
+	}
+
+	/**
+	 * @return the numbers of the predecessors of the given node. The returned array must not be
+	 *     modified.
+	 */
+	public int[] getPredecessors(int index) {
+		return predecessors[index];
+	}
+}
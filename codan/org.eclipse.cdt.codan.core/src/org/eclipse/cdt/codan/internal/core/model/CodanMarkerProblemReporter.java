@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2010 Alena Laskavaia
+ * Copyright (c) 2009, 2014 Alena Laskavaia
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,6 +13,10 @@ package org.eclipse.cdt.codan.internal.core.model;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.eclipse.cdt.codan.core.CodanCorePlugin;
 import org.eclipse.cdt.codan.core.CodanRuntime;
@@ -37,6 +41,71 @@ import org.eclipse.core.runtime.IProgressMonitor;
  */
 public class CodanMarkerProblemReporter extends AbstractProblemReporter
 		implements IProblemReporterPersistent, IProblemReporterSessionPersistent {
+	/**
+	 * Problems reported by the session reporters of a run. The markers of all resources of
+	 * the batch are reconciled with the problems in a single workspace operation, such that
+	 * listeners are notified once instead of once per checker and resource.
+	 */
+	public static final class Batch {
+		private final Map<IResource, List<CodanMarkerProblemReporter>> reporters =
+				new LinkedHashMap<IResource, List<CodanMarkerProblemReporter>>();
+		private final List<Runnable> completions = new ArrayList<Runnable>();
+
+		private Batch() {
+		}
+
+		private synchronized void add(CodanMarkerProblemReporter reporter) {
+			List<CodanMarkerProblemReporter> list = reporters.get(reporter.resource);
+			if (list == null) {
+				list = new ArrayList<CodanMarkerProblemReporter>();
+				reporters.put(reporter.resource, list);
+			}
+			list.add(reporter);
+		}
+
+		private synchronized void addCompletion(Runnable runnable) {
+			completions.add(runnable);
+		}
+
+		private synchronized Map<IResource, List<CodanMarkerProblemReporter>> copyReporters() {
+			Map<IResource, List<CodanMarkerProblemReporter>> copy =
+					new LinkedHashMap<IResource, List<CodanMarkerProblemReporter>>();
+			for (Map.Entry<IResource, List<CodanMarkerProblemReporter>> entry : reporters.entrySet()) {
+				copy.put(entry.getKey(), new ArrayList<CodanMarkerProblemReporter>(entry.getValue()));
+			}
+			return copy;
+		}
+
+		private void apply() throws CoreException {
+			// Reconcile a copy, the markers are not updated while holding the lock of the batch.
+			for (Map.Entry<IResource, List<CodanMarkerProblemReporter>> entry : copyReporters().entrySet()) {
+				// Find the markers of the resource once for all checkers.
+				Map<String, List<IMarker>> markersById = new HashMap<String, List<IMarker>>();
+				for (IMarker m : findMarkers(entry.getKey())) {
+					String id = m.getAttribute(ICodanProblemMarker.ID, ""); //$NON-NLS-1$
+					List<IMarker> markers = markersById.get(id);
+					if (markers == null) {
+						markers = new ArrayList<IMarker>();
+						markersById.put(id, markers);
+					}
+					markers.add(m);
+				}
+				ICheckersRegistry reg = CodanRuntime.getInstance().getCheckersRegistry();
+				for (CodanMarkerProblemReporter reporter : entry.getValue()) {
+					Collection<IMarker> markers = new ArrayList<IMarker>();
+					for (IProblem problem : reg.getRefProblems(reporter.checker)) {
+						List<IMarker> list = markersById.get(problem.getId());
+						if (list != null)
+							markers.addAll(list);
+					}
+					reporter.reconcileMarkers(markers);
+				}
+			}
+		}
+	}
+
+	private static final ThreadLocal<Batch> currentBatch = new ThreadLocal<Batch>();
+
 	private IResource resource;
 	private IChecker checker;
 	private ArrayList<ICodanProblemMarker> toAdd = new ArrayList<ICodanProblemMarker>();
@@ -127,17 +196,7 @@ public class CodanMarkerProblemReporter extends AbstractProblemReporter
 
 	protected Collection<IMarker> findResourceMarkers(IResource resource, IChecker checker) throws CoreException {
 		Collection<IMarker> res = new ArrayList<IMarker>();
-		IMarker[] markers;
-		if (resource.exists()) {
-			markers = resource.findMarkers(GENERIC_CODE_ANALYSIS_MARKER_TYPE, true,
-					IResource.DEPTH_INFINITE);
-		} else {
-			if (resource.getProject() == null || !resource.getProject().isAccessible())
-				return res;
-			// non resource markers attached to a project itself
-			markers = resource.getProject().findMarkers(GENERIC_CODE_ANALYSIS_MARKER_TYPE, true,
-					IResource.DEPTH_ZERO);
-		}
+		IMarker[] markers = findMarkers(resource);
 		ICheckersRegistry reg = CodanRuntime.getInstance().getCheckersRegistry();
 		Collection<IProblem> problems = reg.getRefProblems(checker);
 		for (IMarker m : markers) {
@@ -151,6 +210,18 @@ public class CodanMarkerProblemReporter extends AbstractProblemReporter
 		return res;
 	}
 
+	private static IMarker[] findMarkers(IResource resource) throws CoreException {
+		if (resource.exists()) {
+			return resource.findMarkers(GENERIC_CODE_ANALYSIS_MARKER_TYPE, true,
+					IResource.DEPTH_INFINITE);
+		}
+		if (resource.getProject() == null || !resource.getProject().isAccessible())
+			return new IMarker[0];
+		// non resource markers attached to a project itself
+		return resource.getProject().findMarkers(GENERIC_CODE_ANALYSIS_MARKER_TYPE, true,
+				IResource.DEPTH_ZERO);
+	}
+
 	/**
 	 * @param resource
 	 * @param checker
@@ -171,6 +242,12 @@ public class CodanMarkerProblemReporter extends AbstractProblemReporter
 	@Override
 	public void done() {
 		if (checker != null) {
+			Batch batch = currentBatch.get();
+			if (batch != null) {
+				// The markers are reconciled when the batch is applied.
+				batch.add(this);
+				return;
+			}
 			if (toAdd.isEmpty()) {
 				deleteProblems(false);
 			} else {
@@ -180,24 +257,94 @@ public class CodanMarkerProblemReporter extends AbstractProblemReporter
 		}
 	}
 
+	/**
+	 * Starts collecting the problems reported by session reporters on the current thread
+	 * in a batch.
+	 *
+	 * @return the new batch, or {@code null} if problems are already collected in a batch on
+	 * 		the current thread.
+	 * @since 3.2
+	 */
+	public static Batch startBatch() {
+		if (currentBatch.get() != null)
+			return null;
+		Batch batch = new Batch();
+		currentBatch.set(batch);
+		return batch;
+	}
+
+	/**
+	 * Returns the batch collecting the problems reported on the current thread, or {@code null}.
+	 * @since 3.2
+	 */
+	public static Batch getCurrentBatch() {
+		return currentBatch.get();
+	}
+
+	/**
+	 * Collects the problems reported on the current thread in the given batch, which may have
+	 * been started by another thread.
+	 *
+	 * @param batch the batch, or {@code null} to stop collecting problems on the current thread.
+	 * @since 3.2
+	 */
+	public static void joinBatch(Batch batch) {
+		if (batch != null) {
+			currentBatch.set(batch);
+		} else {
+			currentBatch.remove();
+		}
+	}
+
+	/**
+	 * Runs the given runnable after the markers of the batch of the current thread have been
+	 * reconciled, or right away if problems are not collected in a batch.
+	 * @since 3.2
+	 */
+	public static void runWhenApplied(Runnable runnable) {
+		Batch batch = currentBatch.get();
+		if (batch != null) {
+			batch.addCompletion(runnable);
+		} else {
+			runnable.run();
+		}
+	}
+
+	/**
+	 * Stops collecting problems in the batch and reconciles the markers of all resources of
+	 * the batch in a single workspace operation.
+	 *
+	 * @param batch the batch returned by {@link #startBatch()}, may be {@code null}.
+	 * @since 3.2
+	 */
+	public static void applyBatch(final Batch batch) {
+		if (batch == null)
+			return;
+		if (currentBatch.get() == batch)
+			currentBatch.remove();
+		if (!batch.reporters.isEmpty()) {
+			try {
+				ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+					@Override
+					public void run(IProgressMonitor monitor) throws CoreException {
+						batch.apply();
+					}
+				}, null, IWorkspace.AVOID_UPDATE, null);
+			} catch (CoreException e) {
+				CodanCorePlugin.log(e);
+			}
+		}
+		for (Runnable runnable : batch.completions) {
+			runnable.run();
+		}
+	}
+
 	protected void reconcileMarkers() {
 		try {
 			ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
 				@Override
 				public void run(IProgressMonitor monitor) throws CoreException {
-					Collection<IMarker> markers = findResourceMarkers(resource, checker);
-					for (IMarker m : markers) {
-						ICodanProblemMarker cm = similarMarker(m);
-						if (cm == null) {
-							m.delete();
-						} else {
-							updateMarker(m, cm);
-							toAdd.remove(cm);
-						}
-					}
-					for (ICodanProblemMarker cm : toAdd) {
-						cm.createMarker();
-					}
+					reconcileMarkers(findResourceMarkers(resource, checker));
 				}
 			}, null, IWorkspace.AVOID_UPDATE, null);
 		} catch (CoreException e) {
@@ -205,6 +352,22 @@ public class CodanMarkerProblemReporter extends AbstractProblemReporter
 		}
 	}
 
+	private void reconcileMarkers(Collection<IMarker> markers) throws CoreException {
+		for (IMarker m : markers) {
+			ICodanProblemMarker cm = similarMarker(m);
+			if (cm == null) {
+				m.delete();
+			} else {
+				updateMarker(m, cm);
+				toAdd.remove(cm);
+			}
+		}
+		for (ICodanProblemMarker cm : toAdd) {
+			cm.createMarker();
+		}
+		toAdd.clear();
+	}
+
 	/**
 	 * @param m
 	 * @param cm
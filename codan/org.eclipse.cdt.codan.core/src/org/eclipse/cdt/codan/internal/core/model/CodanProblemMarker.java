@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009,2010 QNX Software Systems
+ * Copyright (c) 2009, 2014 QNX Software Systems
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -77,18 +77,16 @@ public class CodanProblemMarker implements ICodanProblemMarker {
 		int lineNumber = loc.getLineNumber();
 		int severity = problem.getSeverity().intValue();
 		String message = createMessage();
-		IMarker marker = file.createMarker(problem.getMarkerType());
-		marker.setAttribute(IMarker.MESSAGE, message);
-		marker.setAttribute(IMarker.SEVERITY, severity);
-		marker.setAttribute(IMarker.LINE_NUMBER, lineNumber);
-		marker.setAttribute(ID, problem.getId());
-		marker.setAttribute(IMarker.CHAR_END, loc.getEndingChar());
-		marker.setAttribute(IMarker.CHAR_START, loc.getStartingChar());
 		String propArgs = serializeArgs(args);
-		marker.setAttribute(PROBLEM_ARGS, propArgs);
 		IProblemCategory[] cats = CodanProblemCategory.findProblemCategories(getProfile(file).getRoot(), problem.getId());
 		String cat = cats.length > 0 ? cats[0].getId() : ""; //$NON-NLS-1$
-		marker.setAttribute(CATEGORY, cat);
+		IMarker marker = file.createMarker(problem.getMarkerType());
+		// Set all attributes at once, setting them one by one modifies the marker each time.
+		marker.setAttributes(
+				new String[] { IMarker.MESSAGE, IMarker.SEVERITY, IMarker.LINE_NUMBER, ID,
+						IMarker.CHAR_END, IMarker.CHAR_START, PROBLEM_ARGS, CATEGORY },
+				new Object[] { message, severity, lineNumber, problem.getId(),
+						loc.getEndingChar(), loc.getStartingChar(), propArgs, cat });
 		return marker;
 	}
 
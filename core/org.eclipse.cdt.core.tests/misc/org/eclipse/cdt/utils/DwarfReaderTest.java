@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.utils;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.cdt.core.testplugin.CTestPlugin;
+import org.eclipse.cdt.utils.debug.dwarf.DwarfReader;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * Tests for {@link DwarfReader} on executables with DWARF 4 debug information, see
+ * resources/exe/dwarf4/Makefile. The compilation units span [0x401000, 0x40101a) for
+ * first.c and [0x40101a, 0x401028) for second.c.
+ */
+public class DwarfReaderTest extends TestCase {
+	private static final String FIRST = new Path("/dwarf4/first.c").toOSString(); //$NON-NLS-1$
+	private static final String SECOND = new Path("/dwarf4/second.c").toOSString(); //$NON-NLS-1$
+
+	public static Test suite() {
+		return new TestSuite(DwarfReaderTest.class);
+	}
+
+	private DwarfReader createReader(String name) throws Exception {
+		String file = CTestPlugin.getDefault().getFileInPlugin(new Path("resources/exe/dwarf4/" + name)).getAbsolutePath(); //$NON-NLS-1$
+		return new DwarfReader(file);
+	}
+
+	private void checkSourceFile(DwarfReader reader) {
+		assertNull(reader.getSourceFile(0x400fffL));
+		assertEquals(FIRST, reader.getSourceFile(0x401000L));
+		assertEquals(FIRST, reader.getSourceFile(0x401019L));
+		assertEquals(SECOND, reader.getSourceFile(0x40101aL));
+		assertEquals(SECOND, reader.getSourceFile(0x401027L));
+		assertNull(reader.getSourceFile(0x401028L));
+	}
+
+	public void testGetSourceFiles() throws Exception {
+		DwarfReader reader = createReader("exe_g"); //$NON-NLS-1$
+		Set<String> files = new HashSet<String>(Arrays.asList(reader.getSourceFiles()));
+		assertTrue(files.contains(FIRST));
+		assertTrue(files.contains(SECOND));
+	}
+
+	public void testGetSourceFileFromAddressRanges() throws Exception {
+		checkSourceFile(createReader("exe_g")); //$NON-NLS-1$
+	}
+
+	public void testGetSourceFileFromCompileUnits() throws Exception {
+		// Without .debug_aranges the ranges come from the low and high pc of the units,
+		// the high pc being an offset from the low pc.
+		checkSourceFile(createReader("exe_g_noaranges")); //$NON-NLS-1$
+	}
+
+	public void testGetSourceFileAfterGetSourceFiles() throws Exception {
+		DwarfReader reader = createReader("exe_g"); //$NON-NLS-1$
+		reader.getSourceFiles();
+		checkSourceFile(reader);
+	}
+}
@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.cdt.utils.elf.Elf;
+import org.eclipse.cdt.utils.elf.ElfSymbolIndex;
+
+/**
+ * Tests for {@link ElfSymbolIndex} on small elf files written by the test. The symbols are
+ * stored out of order, and one of them has an address with the most significant bit set.
+ */
+public class ElfSymbolIndexTest extends TestCase {
+	private static final String STRINGS= "\0first\0second\0dup\0high\0"; //$NON-NLS-1$
+	private static final int FIRST= 1, SECOND= 7, DUP= 14, HIGH= 18;
+	private static final int FUNC= (Elf.Symbol.STB_GLOBAL << 4) | Elf.Symbol.STT_FUNC;
+
+	private File file;
+	private Elf elf;
+
+	public static Test suite() {
+		return new TestSuite(ElfSymbolIndexTest.class);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (elf != null)
+			elf.dispose();
+		if (file != null)
+			file.delete();
+		super.tearDown();
+	}
+
+	/**
+	 * Writes an elf file with a null section, a symbol table and its string table.
+	 */
+	private Elf createElf(boolean is64, long[][] symbols) throws IOException {
+		final int headerSize= is64 ? 64 : 52;
+		final int symSize= is64 ? 24 : 16;
+		final int shentSize= is64 ? 64 : 40;
+		final int strOffset= headerSize;
+		final int symOffset= (strOffset + STRINGS.length() + 7) & ~7;
+		final int symtabSize= (symbols.length + 1) * symSize;
+		final int shOffset= symOffset + symtabSize;
+		ByteBuffer buf= ByteBuffer.allocate(shOffset + 3 * shentSize).order(ByteOrder.LITTLE_ENDIAN);
+
+		buf.put(new byte[] { 0x7f, 'E', 'L', 'F', (byte) (is64 ? 2 : 1), 1, 1 });
+		buf.position(16);
+		buf.putShort((short) 2).putShort((short) (is64 ? 62 : 3)).putInt(1);
+		if (is64) {
+			buf.putLong(0).putLong(0).putLong(shOffset);
+		} else {
+			buf.putInt(0).putInt(0).putInt(shOffset);
+		}
+		buf.putInt(0).putShort((short) headerSize).putShort((short) 0).putShort((short) 0);
+		buf.putShort((short) shentSize).putShort((short) 3).putShort((short) 0);
+
+		buf.position(strOffset);
+		buf.put(STRINGS.getBytes("ISO-8859-1")); //$NON-NLS-1$
+
+		// The first entry of a symbol table is the null symbol.
+		buf.position(symOffset + symSize);
+		for (long[] symbol : symbols) {
+			final int name= (int) symbol[0];
+			final long value= symbol[1];
+			if (is64) {
+				buf.putInt(name).put((byte) FUNC).put((byte) 0).putShort((short) 1);
+				buf.putLong(value).putLong(16);
+			} else {
+				buf.putInt(name).putInt((int) value).putInt(16);
+				buf.put((byte) FUNC).put((byte) 0).putShort((short) 1);
+			}
+		}
+
+		buf.position(shOffset + shentSize);
+		putSection(buf, is64, Elf.Section.SHT_SYMTAB, symOffset, symtabSize, 2, symSize);
+		putSection(buf, is64, Elf.Section.SHT_STRTAB, strOffset, STRINGS.length(), 0, 0);
+
+		file= File.createTempFile("symbols", ".elf"); //$NON-NLS-1$ //$NON-NLS-2$
+		FileOutputStream out= new FileOutputStream(file);
+		try {
+			out.write(buf.array());
+		} finally {
+			out.close();
+		}
+		elf= new Elf(file.getAbsolutePath());
+		return elf;
+	}
+
+	private void putSection(ByteBuffer buf, boolean is64, int type, long offset, long size, int link,
+			int entsize) {
+		buf.putInt(0).putInt(type);
+		if (is64) {
+			buf.putLong(0).putLong(0).putLong(offset).putLong(size);
+			buf.putInt(link).putInt(0).putLong(8).putLong(entsize);
+		} else {
+			buf.putInt(0).putInt(0).putInt((int) offset).putInt((int) size);
+			buf.putInt(link).putInt(0).putInt(4).putInt(entsize);
+		}
+	}
+
+	private void checkIndex(ElfSymbolIndex index, long high) {
+		assertEquals(5, index.size());
+		// Sorted by unsigned address, the high address comes last.
+		assertEquals(0x1000L, index.getValue(0));
+		assertEquals(high, index.getValue(4));
+		for (int i= 1; i < index.size(); i++) {
+			assertTrue((index.getValue(i - 1) ^ Long.MIN_VALUE) <= (index.getValue(i) ^ Long.MIN_VALUE));
+		}
+
+		assertEquals(-1, index.findByAddress(0xfffL));
+		assertEquals("first", index.getName(index.findByAddress(0x1000L))); //$NON-NLS-1$
+		assertEquals("first", index.getName(index.findByAddress(0x1fffL))); //$NON-NLS-1$
+		assertEquals("second", index.getName(index.findByAddress(0x2000L))); //$NON-NLS-1$
+		assertEquals("dup", index.getName(index.findByAddress(0x7fffffffL))); //$NON-NLS-1$
+		assertEquals("high", index.getName(index.findByAddress(high))); //$NON-NLS-1$
+		assertEquals("high", index.getName(index.findByAddress(-1L))); //$NON-NLS-1$
+
+		assertEquals(0x2000L, index.getValue(index.findByName("second"))); //$NON-NLS-1$
+		assertEquals(high, index.getValue(index.findByName("high"))); //$NON-NLS-1$
+		// Of two symbols with the same name the one with the lower address is found.
+		assertEquals(0x2800L, index.getValue(index.findByName("dup"))); //$NON-NLS-1$
+		assertEquals(-1, index.findByName("missing")); //$NON-NLS-1$
+		assertEquals(-1, index.findByName("firs")); //$NON-NLS-1$
+	}
+
+	private long[][] symbols(long high) {
+		return new long[][] {
+			{ HIGH, high }, { SECOND, 0x2000L }, { DUP, 0x3000L }, { FIRST, 0x1000L }, { DUP, 0x2800L }
+		};
+	}
+
+	public void testElf32() throws Exception {
+		final long high= 0x80001000L;
+		createElf(false, symbols(high));
+		checkIndex(elf.getSymbolIndex(), high);
+
+		Elf.Symbol symbol= elf.getSymbol(new Addr32(0x2004L));
+		assertEquals("second", symbol.toString()); //$NON-NLS-1$
+		assertEquals(new Addr32(0x2000L), symbol.st_value);
+		assertEquals("high", elf.getSymbol(new Addr32(0xffffffffL)).toString()); //$NON-NLS-1$
+		assertNull(elf.getSymbol(new Addr32(0x10L)));
+	}
+
+	public void testElf64() throws Exception {
+		final long high= 0xffffffff80001000L;
+		createElf(true, symbols(high));
+		checkIndex(elf.getSymbolIndex(), high);
+
+		Elf.Symbol symbol= elf.getSymbol(new Addr64(BigInteger.valueOf(0x2004L)));
+		assertEquals("second", symbol.toString()); //$NON-NLS-1$
+		assertEquals(new Addr64(BigInteger.valueOf(0x2000L)), symbol.st_value);
+		assertEquals("high", elf.getSymbol(new Addr64("ffffffff80001010", 16)).toString()); //$NON-NLS-1$ //$NON-NLS-2$
+		assertNull(elf.getSymbol(new Addr64(BigInteger.valueOf(0x10L))));
+	}
+}
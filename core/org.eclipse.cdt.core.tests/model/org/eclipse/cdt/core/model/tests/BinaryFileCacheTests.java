@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.core.model.tests;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.cdt.core.IBinaryParser.IBinaryFile;
+import org.eclipse.cdt.internal.core.model.BinaryFileCache;
+import org.eclipse.cdt.utils.BinaryFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * Tests for the cache of probed binaries used by the binary runner.
+ */
+public class BinaryFileCacheTests extends TestCase {
+	private BinaryFileCache cache;
+	private IProject project;
+	private IProject other;
+
+	public static Test suite() {
+		return new TestSuite(BinaryFileCacheTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		cache= new BinaryFileCache();
+		project= ResourcesPlugin.getWorkspace().getRoot().getProject("cache"); //$NON-NLS-1$
+		other= ResourcesPlugin.getWorkspace().getRoot().getProject("other"); //$NON-NLS-1$
+	}
+
+	private IBinaryFile binary(IPath path) {
+		return new BinaryFile(null, path, IBinaryFile.EXECUTABLE) {};
+	}
+
+	public void testModificationStamp() {
+		IPath path= new Path("/cache/a.out"); //$NON-NLS-1$
+		IBinaryFile binary= binary(path);
+		assertNull(cache.get(project, path, 1));
+		cache.put(project, path, 1, binary);
+		assertSame(binary, cache.get(project, path, 1));
+		assertNull(cache.get(project, path, 2));
+		assertNull(cache.get(other, path, 1));
+	}
+
+	public void testNotBinary() {
+		IPath path= new Path("/cache/a.c"); //$NON-NLS-1$
+		cache.put(project, path, 1, null);
+		assertSame(BinaryFileCache.NOT_BINARY, cache.get(project, path, 1));
+		assertNull(cache.get(project, path, 2));
+	}
+
+	public void testRemove() {
+		IPath file= new Path("/cache/a.out"); //$NON-NLS-1$
+		IPath nested= new Path("/cache/Debug/b.out"); //$NON-NLS-1$
+		IPath sibling= new Path("/cache/Debugger/c.out"); //$NON-NLS-1$
+		cache.put(project, file, 1, binary(file));
+		cache.put(project, nested, 1, binary(nested));
+		cache.put(project, sibling, 1, null);
+
+		cache.remove(project, file, false);
+		assertNull(cache.get(project, file, 1));
+		assertNotNull(cache.get(project, nested, 1));
+
+		// A file is removed by its path only.
+		cache.remove(project, new Path("/cache/Debug"), false); //$NON-NLS-1$
+		assertNotNull(cache.get(project, nested, 1));
+
+		cache.remove(project, new Path("/cache/Debug"), true); //$NON-NLS-1$
+		assertNull(cache.get(project, nested, 1));
+		assertSame(BinaryFileCache.NOT_BINARY, cache.get(project, sibling, 1));
+	}
+
+	public void testClear() {
+		IPath path= new Path("/cache/a.out"); //$NON-NLS-1$
+		cache.put(project, path, 1, binary(path));
+		cache.put(other, path, 1, null);
+		cache.clear(project);
+		assertNull(cache.get(project, path, 1));
+		assertSame(BinaryFileCache.NOT_BINARY, cache.get(other, path, 1));
+	}
+}
@@ -26,7 +26,9 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.StringReader;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 
 import junit.framework.TestSuite;
 
@@ -130,15 +132,23 @@ import org.eclipse.cdt.core.dom.ast.cpp.ICPPNamespaceAlias;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPParameter;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPPointerToMemberType;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPReferenceType;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPSpecialization;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPUsingDeclaration;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPVariable;
 import org.eclipse.cdt.core.dom.ast.cpp.SemanticQueries;
+import org.eclipse.cdt.core.dom.parser.cpp.ANSICPPParserExtensionConfiguration;
+import org.eclipse.cdt.core.parser.FileContent;
+import org.eclipse.cdt.core.parser.IScanner;
 import org.eclipse.cdt.core.parser.ParserLanguage;
+import org.eclipse.cdt.core.parser.ParserMode;
 import org.eclipse.cdt.core.parser.util.CharArrayUtils;
+import org.eclipse.cdt.internal.core.dom.parser.IASTLazyNode;
+import org.eclipse.cdt.internal.core.dom.parser.ReusableDeclarations;
 import org.eclipse.cdt.internal.core.dom.parser.SizeofCalculator;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPASTNameBase;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPClassType;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPMethod;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.GNUCPPSourceParser;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ClassTypeHelper;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPInternalBinding;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.OverloadableOperator;
@@ -10577,4 +10587,216 @@ public class AST2CPPTests extends AST2TestBase {
 	public void testU8TokenAfterIfdef_429361() throws Exception {
 		parseAndCheckBindings();
 	}
+
+	public void testParallelResolutionOfFunctionBodies() throws Exception {
+		StringBuilder code= new StringBuilder();
+		code.append("namespace ns { struct Base { int b; }; struct A : Base { int m; A* next(); }; typedef int T; }\n");
+		code.append("typedef ns::A* APtr;\n");
+		code.append("template<typename U> struct B { U get(); };\n");
+		code.append("int g(int);\n");
+		code.append("ns::A* ns::A::next() { return this; }\n");
+		for (int i = 0; i < 64; i++) {
+			code.append("ns::A* f" + i + "(APtr a, ns::T t) {\n");
+			code.append("  ns::T x = g(" + i + ") + t;\n");
+			code.append("  ns::A * p = a->next();\n");
+			code.append("  B<ns::A> b;\n");
+			code.append("  b.get().next()->m = p->m + p->b + x;\n");
+			code.append("  return p;\n");
+			code.append("}\n");
+		}
+		IScanner scanner= createScanner(FileContent.create(TEST_CODE, code.toString().toCharArray()), CPP,
+				ParserMode.COMPLETE_PARSE, createScannerInfo(false));
+		GNUCPPSourceParser parser= new GNUCPPSourceParser(scanner, ParserMode.COMPLETE_PARSE, NULL_LOG,
+				new ANSICPPParserExtensionConfiguration(), null);
+		parser.setParallelFunctionBodies(true);
+		IASTTranslationUnit tu= parser.parse();
+		assertFalse(parser.encounteredError());
+		assertEquals(0, CPPVisitor.getProblems(tu).length);
+
+		NameCollector col= new NameCollector();
+		tu.accept(col);
+		assertNoProblemBindings(col);
+		// All references to a binding declared at namespace scope have to resolve to the same
+		// object, no matter which thread resolved them.
+		Map<String, IBinding> bindings= new HashMap<String, IBinding>();
+		for (IASTName name : col.nameList) {
+			IBinding binding= name.resolveBinding();
+			if ((binding instanceof ICPPClassType || binding instanceof ITypedef
+					|| binding instanceof ICPPNamespace || binding instanceof ICPPFunction)
+					&& !(binding instanceof ICPPSpecialization)) {
+				String key= name.getLastName().toString();
+				IBinding previous= bindings.put(key, binding);
+				if (previous != null)
+					assertSame(key, previous, binding);
+			}
+		}
+		ICPPClassType a= (ICPPClassType) bindings.get("A");
+		assertSame(bindings.get("Base"), a.getBases()[0].getBaseClass());
+		ITypedef aPtr= (ITypedef) bindings.get("APtr");
+		assertSame(a, ((IPointerType) aPtr.getType()).getType());
+		ICPPFunction f= (ICPPFunction) bindings.get("f63");
+		assertSame(a, ((IPointerType) f.getType().getReturnType()).getType());
+		assertSame(aPtr, f.getType().getParameterTypes()[0]);
+	}
+
+	//	struct A { int m; int get() { return m; } };
+	//	typedef int T;
+	//	int g(int);
+	//	void f(A* a) {
+	//	  T x = g(1);
+	//	  A * p;
+	//	  p->m = a->get() + x;
+	//	}
+	public void testLazyFunctionBodies() throws Exception {
+		final String code= getAboveComment();
+		IScanner scanner= createScanner(FileContent.create(TEST_CODE, code.toCharArray()), CPP,
+				ParserMode.COMPLETE_PARSE, createScannerInfo(false));
+		GNUCPPSourceParser parser= new GNUCPPSourceParser(scanner, ParserMode.COMPLETE_PARSE, NULL_LOG,
+				new ANSICPPParserExtensionConfiguration(), null);
+		parser.setLazyFunctionBodies(true);
+		IASTTranslationUnit tu= parser.parse();
+		assertFalse(parser.encounteredError());
+
+		IASTFunctionDefinition fdef= getDeclaration(tu, 3);
+		IASTLazyNode body= (IASTLazyNode) fdef.getBody();
+		assertFalse(body.isExpanded());
+		assertEquals(3, ((IASTCompoundStatement) body).getStatements().length);
+		assertTrue(body.isExpanded());
+		assertTrue(body.isFrozen());
+
+		assertEquals(0, CPPVisitor.getProblems(tu).length);
+		NameCollector col= new NameCollector();
+		tu.accept(col);
+		for (IASTName name : col.nameList) {
+			assertFalse(name.resolveBinding() instanceof IProblemBinding);
+		}
+		assertSame(col.getName(1).resolveBinding(), col.getName(16).resolveBinding());
+	}
+
+	//	int g(int);
+	//	void f() {
+	//	  int x = g(1);
+	//	  x = g(;
+	//	  if (x) { return }
+	//	}
+	public void testLazyFunctionBodyWithSyntaxError() throws Exception {
+		final String code= getAboveComment();
+		IASTTranslationUnit eager= parseWithLazyFunctionBodies(code, false);
+		IASTTranslationUnit lazy= parseWithLazyFunctionBodies(code, true);
+
+		// The malformed statements are reported as problems, as for eagerly parsed bodies.
+		IASTCompoundStatement eagerBody= (IASTCompoundStatement) ((IASTFunctionDefinition) getDeclaration(eager, 1)).getBody();
+		IASTCompoundStatement lazyBody= (IASTCompoundStatement) ((IASTFunctionDefinition) getDeclaration(lazy, 1)).getBody();
+		assertTrue(lazyBody instanceof IASTLazyNode);
+		IASTStatement[] eagerStatements= eagerBody.getStatements();
+		IASTStatement[] lazyStatements= lazyBody.getStatements();
+		assertEquals(eagerStatements.length, lazyStatements.length);
+		for (int i = 0; i < eagerStatements.length; i++) {
+			assertEquals(eagerStatements[i].getClass(), lazyStatements[i].getClass());
+			assertEquals(eagerStatements[i].getRawSignature(), lazyStatements[i].getRawSignature());
+		}
+		assertEquals(CPPVisitor.getProblems(eager).length, CPPVisitor.getProblems(lazy).length);
+		assertTrue(CPPVisitor.getProblems(lazy).length > 0);
+	}
+
+	private IASTTranslationUnit parseWithLazyFunctionBodies(String code, boolean lazy) throws Exception {
+		IScanner scanner= createScanner(FileContent.create(TEST_CODE, code.toCharArray()), CPP,
+				ParserMode.COMPLETE_PARSE, createScannerInfo(false));
+		GNUCPPSourceParser parser= new GNUCPPSourceParser(scanner, ParserMode.COMPLETE_PARSE, NULL_LOG,
+				new ANSICPPParserExtensionConfiguration(), null);
+		parser.setLazyFunctionBodies(lazy);
+		return parser.parse();
+	}
+
+	//	struct A { int m; };
+	//	int f(A* a) { return a->m; }
+	//	int x;
+	//	namespace ns { int g(A a) { return f(&a) + x; } }
+	public void testReuseDeclarations() throws Exception {
+		final String code= getAboveComment();
+		IASTTranslationUnit previous= parseWithReusableDeclarations(code, null, 0);
+		final String changed= code.replace("int x;", "int x, y;\nint h() { return x; }");
+		// The struct, f and the namespace are copied.
+		IASTTranslationUnit tu= parseWithReusableDeclarations(changed, previous, 3);
+
+		IASTDeclaration[] declarations= tu.getDeclarations();
+		assertEquals(5, declarations.length);
+		assertEquals("int h() { return x; }", declarations[3].getRawSignature());
+		assertEquals("namespace ns { int g(A a) { return f(&a) + x; } }", declarations[4].getRawSignature());
+		assertEquals(changed.indexOf("namespace"), declarations[4].getFileLocation().getNodeOffset());
+		assertEquals(0, CPPVisitor.getProblems(tu).length);
+		NameCollector col= new NameCollector();
+		tu.accept(col);
+		for (IASTName name : col.nameList) {
+			assertFalse(name.resolveBinding() instanceof IProblemBinding);
+		}
+	}
+
+	//	#define N 1
+	//	int a[N];
+	//	int b;
+	//	const char* s= "ab"; // comment
+	//	int c;
+	public void testReuseDeclarations_ChangedDirectiveCommentOrLiteral() throws Exception {
+		final String code= getAboveComment();
+		IASTTranslationUnit previous= parseWithReusableDeclarations(code, null, 0);
+		// a, s and c are reused.
+		parseWithReusableDeclarations(code.replace("int b;", "int b, d;"), previous, 3);
+		parseWithReusableDeclarations(code.replace("#define N 1", "#define N 2"), previous, 0);
+		parseWithReusableDeclarations(code.replace("\"ab\"", "\"abc\""), previous, 0);
+		parseWithReusableDeclarations(code.replace("comment", "int d;"), previous, 0);
+		// A comment added to a line.
+		parseWithReusableDeclarations(code.replace("int b;", "int b; /**/"), previous, 0);
+	}
+
+	//	int a;
+	//	int b;
+	//	int line= __LINE__;
+	//	int z;
+	public void testReuseDeclarations_LineMacro() throws Exception {
+		final String code= getAboveComment();
+		IASTTranslationUnit previous= parseWithReusableDeclarations(code, null, 0);
+		// The number of lines does not change, all but the changed declaration are reused.
+		parseWithReusableDeclarations(code.replace("int b;", "int b, c;"), previous, 3);
+
+		// The declaration using __LINE__ is parsed again, a and z are reused.
+		IASTTranslationUnit tu= parseWithReusableDeclarations(code.replace("int b;", "int b,\n c;"), previous, 2);
+		IASTSimpleDeclaration decl= (IASTSimpleDeclaration) tu.getDeclarations()[2];
+		IVariable line= (IVariable) decl.getDeclarators()[0].getName().resolveBinding();
+		assertEquals(4L, line.getInitialValue().numericalValue().longValue());
+	}
+
+	//	int b;
+	//	int v(b);
+	//	int w;
+	public void testReuseDeclarations_ResolvedAmbiguity() throws Exception {
+		final String code= getAboveComment();
+		IASTTranslationUnit previous= parseWithReusableDeclarations(code, null, 0);
+		IASTSimpleDeclaration decl= (IASTSimpleDeclaration) previous.getDeclarations()[1];
+		assertInstance(decl.getDeclarators()[0].getName().resolveBinding(), IVariable.class);
+
+		// The declaration of v is parsed again, only w is reused.
+		IASTTranslationUnit tu= parseWithReusableDeclarations(code.replace("int b;", "typedef int b;"), previous, 1);
+		decl= (IASTSimpleDeclaration) tu.getDeclarations()[1];
+		assertInstance(decl.getDeclarators()[0].getName().resolveBinding(), ICPPFunction.class);
+		assertEquals("int w;", tu.getDeclarations()[2].getRawSignature());
+	}
+
+	private IASTTranslationUnit parseWithReusableDeclarations(String code, IASTTranslationUnit previous,
+			int expectedReused) throws Exception {
+		final FileContent content= FileContent.create(TEST_CODE, code.toCharArray());
+		IScanner scanner= createScanner(content, CPP, ParserMode.COMPLETE_PARSE, createScannerInfo(false));
+		GNUCPPSourceParser parser= new GNUCPPSourceParser(scanner, ParserMode.COMPLETE_PARSE, NULL_LOG,
+				new ANSICPPParserExtensionConfiguration(), null);
+		parser.setRecordResolvedAmbiguities(true);
+		if (previous != null) {
+			ReusableDeclarations reusable= ReusableDeclarations.create(previous, content);
+			if (reusable != null)
+				parser.setReusableDeclarations(reusable);
+		}
+		IASTTranslationUnit tu= parser.parse();
+		assertFalse(parser.encounteredError());
+		assertEquals(expectedReused, parser.getReusedDeclarationCount());
+		return tu;
+	}
 }
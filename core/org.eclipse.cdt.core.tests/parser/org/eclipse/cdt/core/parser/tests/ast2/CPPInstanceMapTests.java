@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.core.parser.tests.ast2;
+
+import java.util.concurrent.CountDownLatch;
+
+import junit.framework.TestSuite;
+
+import org.eclipse.cdt.core.dom.ast.IType;
+import org.eclipse.cdt.core.dom.ast.ITypedef;
+import org.eclipse.cdt.core.dom.ast.IVariable;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateArgument;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateInstance;
+import org.eclipse.cdt.internal.core.dom.parser.Value;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPInstanceMap;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPTemplateNonTypeArgument;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPTemplateTypeArgument;
+
+/**
+ * Tests for {@link CPPInstanceMap}. The hash code of the arguments ignores typedefs and
+ * cv-qualifiers, whether two arguments are equal is decided by comparing their types.
+ */
+public class CPPInstanceMapTests extends AST2TestBase {
+	private static final String CODE= //
+			"template<typename T> struct A {};\n" +
+			"typedef int myint;\n" +
+			"typedef const int cint;\n" +
+			"int vi; myint vt; extern const int vci; cint vtc; extern const myint vct; long vl;\n" +
+			"int* vpi; myint* vpt; const int* vpci;\n" +
+			"A<int> a1; A<long> a2;\n";
+
+	private BindingAssertionHelper helper;
+	private ICPPTemplateInstance instance1;
+	private ICPPTemplateInstance instance2;
+
+	public CPPInstanceMapTests() {
+	}
+
+	public CPPInstanceMapTests(String name) {
+		super(name);
+	}
+
+	public static TestSuite suite() {
+		return suite(CPPInstanceMapTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		helper= new BindingAssertionHelper(CODE, true);
+		instance1= helper.assertNonProblem("A<int>", 6, ICPPTemplateInstance.class);
+		instance2= helper.assertNonProblem("A<long>", 7, ICPPTemplateInstance.class);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		helper= null;
+		instance1= instance2= null;
+		super.tearDown();
+	}
+
+	private IType type(String variable) {
+		IVariable var= helper.assertNonProblem(variable + ";", variable.length(), IVariable.class);
+		return var.getType();
+	}
+
+	/**
+	 * Creates a type argument that keeps typedefs, as the arguments stored in the index do.
+	 */
+	private ICPPTemplateArgument[] typeArg(String variable) {
+		IType type= type(variable);
+		return new ICPPTemplateArgument[] { new CPPTemplateTypeArgument(type, type) };
+	}
+
+	private ICPPTemplateArgument[] valueArg(long value, String variable) {
+		return new ICPPTemplateArgument[] { new CPPTemplateNonTypeArgument(Value.create(value), type(variable)) };
+	}
+
+	public void testTypedefArguments() throws Exception {
+		assertInstance(type("vt"), ITypedef.class);
+		CPPInstanceMap map= new CPPInstanceMap();
+		map.put(typeArg("vi"), instance1);
+		assertSame(instance1, map.get(typeArg("vi")));
+		assertSame(instance1, map.get(typeArg("vt")));
+		assertSame(instance1, map.get(new ICPPTemplateArgument[] { new CPPTemplateTypeArgument(type("vt")) }));
+		assertNull(map.get(typeArg("vl")));
+
+		map.put(typeArg("vpt"), instance2);
+		assertSame(instance2, map.get(typeArg("vpi")));
+		assertNull(map.get(typeArg("vpci")));
+		assertEquals(2, map.size());
+	}
+
+	public void testQualifiedArguments() throws Exception {
+		CPPInstanceMap map= new CPPInstanceMap();
+		map.put(typeArg("vci"), instance1);
+		// Same hash code as int, but a different type.
+		assertNull(map.get(typeArg("vi")));
+		assertNull(map.get(typeArg("vt")));
+		assertSame(instance1, map.get(typeArg("vci")));
+		assertSame(instance1, map.get(typeArg("vtc")));
+		assertSame(instance1, map.get(typeArg("vct")));
+
+		map.put(typeArg("vt"), instance2);
+		assertEquals(2, map.size());
+		assertSame(instance2, map.get(typeArg("vi")));
+		assertSame(instance1, map.get(typeArg("vtc")));
+	}
+
+	public void testValueArguments() throws Exception {
+		CPPInstanceMap map= new CPPInstanceMap();
+		map.put(valueArg(1, "vi"), instance1);
+		assertSame(instance1, map.get(valueArg(1, "vi")));
+		assertSame(instance1, map.get(valueArg(1, "vt")));
+		assertNull(map.get(valueArg(2, "vi")));
+		assertNull(map.get(valueArg(1, "vl")));
+		// A value never matches a type.
+		assertNull(map.get(typeArg("vi")));
+
+		map.put(valueArg(2, "vt"), instance2);
+		assertSame(instance2, map.get(valueArg(2, "vi")));
+		assertSame(instance1, map.get(valueArg(1, "vi")));
+
+		ICPPTemplateArgument[] pair= { valueArg(1, "vi")[0], typeArg("vt")[0] };
+		map.put(pair, instance2);
+		assertSame(instance2, map.get(new ICPPTemplateArgument[] { valueArg(1, "vt")[0], typeArg("vi")[0] }));
+		assertNull(map.get(new ICPPTemplateArgument[] { typeArg("vi")[0], valueArg(1, "vt")[0] }));
+		assertEquals(3, map.size());
+	}
+
+	public void testPutIfAbsent() throws Exception {
+		CPPInstanceMap map= new CPPInstanceMap();
+		assertSame(instance1, map.putIfAbsent(typeArg("vi"), instance1));
+		assertSame(instance1, map.putIfAbsent(typeArg("vt"), instance2));
+		assertSame(instance1, map.get(typeArg("vi")));
+		assertSame(instance2, map.putIfAbsent(typeArg("vci"), instance2));
+		assertEquals(2, map.size());
+	}
+
+	public void testConcurrentPutIfAbsent() throws Exception {
+		final int threadCount= 8;
+		// Equivalent arguments, each thread uses its own array.
+		final ICPPTemplateArgument[][] args= new ICPPTemplateArgument[threadCount][];
+		for (int i= 0; i < threadCount; i++) {
+			args[i]= typeArg(i % 2 == 0 ? "vi" : "vt");
+		}
+		for (int round= 0; round < 50; round++) {
+			final CPPInstanceMap map= new CPPInstanceMap();
+			final CountDownLatch start= new CountDownLatch(1);
+			final ICPPTemplateInstance[] results= new ICPPTemplateInstance[threadCount];
+			Thread[] threads= new Thread[threadCount];
+			for (int i= 0; i < threadCount; i++) {
+				final int index= i;
+				threads[i]= new Thread() {
+					@Override
+					public void run() {
+						try {
+							start.await();
+						} catch (InterruptedException e) {
+							return;
+						}
+						results[index]= map.putIfAbsent(args[index], index % 2 == 0 ? instance1 : instance2);
+					}
+				};
+				threads[i].start();
+			}
+			start.countDown();
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			assertEquals(1, map.size());
+			final ICPPTemplateInstance stored= map.get(args[0]);
+			assertNotNull(stored);
+			for (ICPPTemplateInstance result : results) {
+				assertSame(stored, result);
+			}
+		}
+	}
+}
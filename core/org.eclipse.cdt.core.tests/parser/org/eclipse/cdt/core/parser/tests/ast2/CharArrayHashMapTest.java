@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.core.parser.tests.ast2;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.eclipse.cdt.internal.core.parser.util.CharArrayHashMap;
+
+/**
+ * Tests for the open addressing map used for the macro dictionary.
+ */
+public class CharArrayHashMapTest extends TestCase {
+
+	public void testBasicUsage() {
+		char[] key1 = "first key".toCharArray();
+		char[] key2 = "second key".toCharArray();
+
+		CharArrayHashMap<Integer> map = new CharArrayHashMap<Integer>();
+		assertTrue(map.isEmpty());
+		assertNull(map.put(key1, 1));
+		assertNull(map.put(key2, 2));
+		assertEquals(2, map.size());
+		assertEquals(new Integer(1), map.get(key1));
+		assertEquals(new Integer(2), map.get("second key".toCharArray()));
+		assertTrue(map.containsKey(key1));
+		assertFalse(map.containsKey("third key".toCharArray()));
+
+		assertEquals(new Integer(1), map.put(key1, 3));
+		assertEquals(2, map.size());
+		assertEquals(new Integer(3), map.get(key1));
+
+		assertEquals(new Integer(3), map.remove(key1));
+		assertNull(map.remove(key1));
+		assertNull(map.get(key1));
+		assertEquals(1, map.size());
+
+		map.put(key1, null);
+		assertTrue(map.containsKey(key1));
+		assertNull(map.get(key1));
+
+		map.clear();
+		assertTrue(map.isEmpty());
+		assertNull(map.get(key2));
+	}
+
+	public void testSlices() {
+		char[] chars = "pantera, megadeth, soulfly".toCharArray();
+		CharArrayHashMap<Integer> map = new CharArrayHashMap<Integer>();
+		map.put(chars, 0, 7, 1);
+		map.put(chars, 9, 8, 2);
+		map.put(chars, 19, 7, 3);
+
+		assertEquals(new Integer(1), map.get("pantera".toCharArray()));
+		assertEquals(new Integer(2), map.get("xmegadethx".toCharArray(), 1, 8));
+		assertEquals(new Integer(3), map.get(chars, 19, 7));
+		assertTrue(map.containsKey(chars, 9, 8));
+		assertNull(map.get(chars, 0, 6));
+
+		// Keys must not depend on the buffer they were taken from.
+		chars[0] = 'x';
+		assertEquals(new Integer(1), map.get("pantera".toCharArray()));
+
+		Set<String> keys = new HashSet<String>();
+		for (char[] key : map.keys()) {
+			keys.add(String.valueOf(key));
+		}
+		assertEquals(3, keys.size());
+		assertTrue(keys.contains("megadeth"));
+		assertEquals(3, map.values().size());
+
+		try {
+			map.get(chars, 20, 7);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+		}
+	}
+
+	public void testManyKeys() {
+		final int count = 10000;
+		CharArrayHashMap<Integer> map = new CharArrayHashMap<Integer>(4);
+		for (int i = 0; i < count; i++) {
+			map.put(String.valueOf(i).toCharArray(), i);
+		}
+		assertEquals(count, map.size());
+		for (int i = 0; i < count; i += 2) {
+			assertEquals(new Integer(i), map.remove(String.valueOf(i).toCharArray()));
+		}
+		assertEquals(count / 2, map.size());
+		for (int i = 0; i < count; i++) {
+			Integer value = map.get(String.valueOf(i).toCharArray());
+			if (i % 2 == 0) {
+				assertNull(value);
+			} else {
+				assertEquals(new Integer(i), value);
+			}
+		}
+	}
+}
@@ -32,6 +32,7 @@ public class DOMParserTestSuite extends TestCase {
 		suite.addTest(AST2CPPImplicitNameTests.suite());
 		suite.addTest(AST2TemplateTests.suite());
 		suite.addTest(TypeTraitsTests.suite());
+		suite.addTest(CPPInstanceMapTests.suite());
 		suite.addTestSuite(QuickParser2Tests.class);
 		suite.addTest(CompleteParser2Tests.suite());
 		suite.addTest(DOMLocationTests.suite());
@@ -53,6 +54,7 @@ public class DOMParserTestSuite extends TestCase {
 		suite.addTest(TaskParserTest.suite());
 		suite.addTest(CompletionTestSuite.suite());
 		suite.addTestSuite(CharArrayMapTest.class);
+		suite.addTestSuite(CharArrayHashMapTest.class);
 		suite.addTest(FaultToleranceTests.suite());
 		suite.addTest(LanguageExtensionsTest.suite());
 		suite.addTest(ASTInactiveCodeTests.suite());
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 Wind River Systems, Inc. and others.
+ * Copyright (c) 2010, 2014 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -23,6 +23,8 @@ import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
 import org.eclipse.cdt.internal.core.parser.scanner.AbstractCharArray;
 import org.eclipse.cdt.internal.core.parser.scanner.FileCharArray;
 import org.eclipse.cdt.internal.core.parser.scanner.LazyCharArray;
+import org.eclipse.cdt.internal.core.parser.scanner.MappedCharArray;
+import org.eclipse.cdt.internal.core.parser.scanner.StreamHasher;
 
 public class FileCharArrayTests extends BaseTestCase {
 	
@@ -66,13 +68,7 @@ public class FileCharArrayTests extends BaseTestCase {
 	private void testFile(boolean aligned, int charSize) throws IOException {
 		createFile(aligned, charSize);
 		
-		AbstractCharArray charArray;
-		final FileInputStream inputStream = new FileInputStream(fFile);
-		try {
-			charArray = FileCharArray.create(fFile.getPath(), "utf-8", inputStream);
-		} finally {
-			inputStream.close();
-		}
+		AbstractCharArray charArray = createCharArray(false);
 		
 		checkContent(charArray, LazyCharArray.CHUNK_SIZE, charSize);
 		assertEquals(charSize, charArray.getLength());
@@ -82,6 +78,36 @@ public class FileCharArrayTests extends BaseTestCase {
 		checkContent(charArray, LazyCharArray.CHUNK_SIZE, charSize);
 		assertEquals(charSize, charArray.getLength());	
 
+		charArray = createCharArray(true);
+		if (aligned) {
+			// Pure ASCII content is not decoded.
+			assertTrue(charArray instanceof MappedCharArray);
+			checkContent(charArray, LazyCharArray.CHUNK_SIZE, charSize);
+			assertEquals(charSize, charArray.getLength());
+			assertEquals(computeHash(charSize), charArray.getContentsHash());
+			assertFalse(charArray.hasError());
+		} else {
+			assertTrue(charArray instanceof LazyCharArray);
+		}
+	}
+
+	private AbstractCharArray createCharArray(boolean mapLargeFiles) throws IOException {
+		final FileInputStream inputStream = new FileInputStream(fFile);
+		try {
+			return FileCharArray.create(fFile.getPath(), "utf-8", inputStream, mapLargeFiles);
+		} finally {
+			inputStream.close();
+		}
+	}
+
+	private long computeHash(int charSize) {
+		char[] chars= new char[charSize];
+		for (int i = 0; i < charSize; i++) {
+			chars[i]= (char) (i % 127);
+		}
+		StreamHasher hasher= new StreamHasher();
+		hasher.addChunk(chars);
+		return hasher.computeHash();
 	}
 
 	public void checkContent(AbstractCharArray charArray, int from, int to) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2009 Symbian Software Systems and others.
+ * Copyright (c) 2006, 2014 Symbian Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -120,6 +120,41 @@ public class BTreeTests extends BaseTestCase {
 		}
 	}
 
+	/**
+	 * Build B-trees of various sizes and degrees from unsorted records with duplicates and
+	 * check them against a TreeSet.
+	 */
+	public void testBulkLoad() throws Exception {
+		Random random = new Random(4711);
+		int[] sizes= {0, 1, 2, 3, 7, 8, 15, 16, 17, 1000, 20000};
+		for (int degree = 2; degree < 13; degree+= 5) {
+			for (int size : sizes) {
+				init(degree);
+				try {
+					final SortedSet expected = new TreeSet();
+					long[] records= new long[size];
+					for (int i = 0; i < size; i++) {
+						int value= random.nextInt(2 * size);
+						expected.add(new Integer(value));
+						records[i]= new BTMockRecord(db, value).getRecord();
+					}
+					btree.bulkLoad(records);
+					assertBTreeMatchesSortedSet("[degree " + degree + ", size " + size + "] ", btree, expected);
+					assertBTreeInvariantsHold("[degree " + degree + ", size " + size + "] ");
+
+					// The tree can be modified after bulk loading.
+					for (int i = 0; i < size; i+= 2) {
+						btree.delete(records[i]);
+					}
+					btree.insert(new BTMockRecord(db, -1).getRecord());
+					assertBTreeInvariantsHold("[degree " + degree + ", size " + size + ", modified] ");
+				} finally {
+					finish();
+				}
+			}
+		}
+	}
+
 	/**
 	 * Insert/Delete a random number of records into/from the B-tree
 	 * @param seed the seed for obtaining the deterministic random testing
@@ -12,8 +12,11 @@
  *******************************************************************************/
 package org.eclipse.cdt.internal.pdom.tests;
 
+import java.io.DataInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Random;
 
 import junit.framework.Test;
@@ -126,6 +129,173 @@ public class DBTest extends BaseTestCase {
 		assertEquals(mem2, mem1);
 	}
 	
+	public void testMemoryMappedDatabase() throws Exception {
+		final String shortText= "memory-mapped";
+		final char[] longChars= new char[ShortString.MAX_BYTE_LENGTH * 3];
+		for (int i = 0; i < longChars.length; i++) {
+			longChars[i]= (char) ('a' + i % 26);
+		}
+		final int n= Database.CHUNK_SIZE;
+		long[] records= new long[n];
+		for (int i = 0; i < n; i++) {
+			long record= db.malloc(Database.PTR_SIZE + 8);
+			db.putLong(record + Database.PTR_SIZE, i * 31L);
+			records[i]= record;
+		}
+		long shortString= db.newString(shortText).getRecord();
+		long longString= db.newString(longChars).getRecord();
+		db.putRecPtr(records[0], shortString);
+		db.putRecPtr(records[1], longString);
+		db.flush();
+
+		Database mapped= new Database(db.getLocation(), new ChunkCache(), 0, true, true);
+		try {
+			assertTrue(mapped.isMemoryMapped());
+			mapped.setLocked(true);
+			for (int i = 0; i < n; i++) {
+				assertEquals(i * 31L, mapped.getLong(records[i] + Database.PTR_SIZE));
+			}
+			assertEquals(shortString, mapped.getRecPtr(records[0]));
+			assertEquals(shortText, mapped.getString(mapped.getRecPtr(records[0])).getString());
+			assertEquals(new String(longChars), mapped.getString(mapped.getRecPtr(records[1])).getString());
+			assertEquals(0, mapped.getString(longString).compare(db.getString(longString), true));
+		} finally {
+			mapped.setExclusiveLock();
+			mapped.close();
+		}
+	}
+
+	public void testLargeChunkSize() throws Exception {
+		File f = getTestDir().append("testLargeChunkSize.dat").toFile();
+		f.delete();
+		final int chunkSize= Database.CHUNK_SIZE * 4;
+		Database db = new Database(f, new ChunkCache(), 0, false, false, chunkSize);
+		try {
+			db.setExclusiveLock();
+			assertEquals(chunkSize, db.getChunkSize());
+			assertEquals(chunkSize - Database.BLOCK_HEADER_SIZE, db.getMaxMallocSize());
+
+			final byte[] data= new byte[db.getMaxMallocSize()];
+			new Random(42).nextBytes(data);
+			long large= db.malloc(data.length);
+			db.putBytes(large, data, data.length);
+			long small= db.malloc(42);
+			db.putInt(small, 42);
+			long freed= db.malloc(Database.MAX_MALLOC_SIZE + 1);
+			db.free(freed);
+			// The pages of the freed block are reused.
+			long reused= db.malloc(Database.MAX_MALLOC_SIZE);
+			assertEquals(freed, reused);
+			db.setVersion(17);
+			db.close();
+
+			db = new Database(f, new ChunkCache(), 0, true);
+			db.setLocked(true);
+			assertEquals(chunkSize, db.getChunkSize());
+			assertEquals(17, db.getVersion());
+			byte[] read= new byte[data.length];
+			db.getBytes(large, read);
+			assertTrue(Arrays.equals(data, read));
+			assertEquals(42, db.getInt(small));
+		} finally {
+			db.setExclusiveLock();
+			db.close();
+			f.delete();
+		}
+	}
+
+	public void testLargeBlockReuse() throws Exception {
+		File f = getTestDir().append("testLargeBlockReuse.dat").toFile();
+		f.delete();
+		final int chunkSize= Database.CHUNK_SIZE * 4;
+		Database db = new Database(f, new ChunkCache(), 0, false, false, chunkSize);
+		try {
+			db.setExclusiveLock();
+			// The header occupies the first page, the other pages of its chunk are used.
+			long large= db.malloc(Database.CHUNK_SIZE * 2);
+			assertTrue(large < chunkSize);
+			db.putInt(large, 42);
+			db.free(large);
+			assertEquals(large, db.malloc(Database.CHUNK_SIZE * 2));
+			assertEquals(0, db.getInt(large));
+			db.free(large);
+			// A free block is split for a smaller request.
+			assertEquals(large, db.malloc(Database.CHUNK_SIZE));
+			long page= db.malloc(Database.MAX_MALLOC_SIZE);
+			assertTrue(page < chunkSize);
+			db.setVersion(17);
+			db.close();
+			assertEquals(chunkSize, f.length());
+
+			// The version is stored along with the chunk size.
+			DataInputStream in= new DataInputStream(new FileInputStream(f));
+			try {
+				final int header= in.readInt();
+				assertTrue(header != 17);
+				assertEquals(17, Database.decodeVersion(header));
+			} finally {
+				in.close();
+			}
+		} finally {
+			db.setExclusiveLock();
+			db.close();
+			f.delete();
+		}
+	}
+
+	public void testConcurrentReadersWithSmallCache() throws Exception {
+		File f = getTestDir().append("testConcurrentReaders.dat").toFile();
+		f.delete();
+		final Database db = new Database(f, new ChunkCache(16 * Database.CHUNK_SIZE), 0, false);
+		try {
+			db.setExclusiveLock();
+			final int n= 50000;
+			final long[] records= new long[n];
+			for (int i = 0; i < n; i++) {
+				records[i]= db.malloc(8);
+				db.putLong(records[i], i * 17L);
+			}
+			db.giveUpExclusiveLock(true);
+			db.setLocked(true);
+			db.resetCacheCounters();
+
+			final int threadCount= 4;
+			final Throwable[] failures= new Throwable[threadCount];
+			Thread[] threads= new Thread[threadCount];
+			for (int t = 0; t < threadCount; t++) {
+				final int threadIndex= t;
+				threads[t]= new Thread() {
+					@Override
+					public void run() {
+						try {
+							for (int i = 0; i < n; i++) {
+								int j= (i * (threadIndex + 1) * 7919) % n;
+								assertEquals(j * 17L, db.getLong(records[j]));
+							}
+						} catch (Throwable e) {
+							failures[threadIndex]= e;
+						}
+					}
+				};
+				threads[t].start();
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			for (Throwable failure : failures) {
+				if (failure != null) {
+					throw new AssertionError(failure);
+				}
+			}
+			assertEquals((long) threadCount * n, db.getCacheHits() + db.getCacheMisses());
+			assertTrue(db.getChunkCache().getMaxSize() >= 16 * Database.CHUNK_SIZE);
+		} finally {
+			db.setExclusiveLock();
+			db.close();
+			f.delete();
+		}
+	}
+
 	private static class FindVisitor implements IBTreeVisitor {
 		private Database db;
 		private String key;
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.pdom.tests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import junit.framework.Test;
+
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.internal.core.pdom.db.ChunkCache;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
+import org.eclipse.cdt.internal.core.pdom.db.DatabaseDelta;
+
+/**
+ * Tests for snapshots and deltas of database files.
+ */
+public class DatabaseDeltaTests extends BaseTestCase {
+	private File fFile;
+	private Database fDatabase;
+
+	public static Test suite() {
+		return suite(DatabaseDeltaTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fFile= File.createTempFile("dbdelta", ".dat");
+		fDatabase= new Database(fFile, new ChunkCache(), 0, false);
+		fDatabase.setExclusiveLock();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		fDatabase.close();
+		fFile.delete();
+		super.tearDown();
+	}
+
+	private long[] fillDatabase(int count) throws Exception {
+		long[] records= new long[count];
+		for (int i = 0; i < count; i++) {
+			records[i]= fDatabase.malloc(1000);
+			fDatabase.putInt(records[i], i);
+		}
+		fDatabase.flush();
+		return records;
+	}
+
+	private byte[] getContent() throws IOException {
+		byte[] result= new byte[(int) fFile.length()];
+		DataInputStream in= new DataInputStream(new FileInputStream(fFile));
+		try {
+			in.readFully(result);
+		} finally {
+			in.close();
+		}
+		return result;
+	}
+
+	private byte[] write(byte[] base) throws IOException {
+		ByteArrayOutputStream out= new ByteArrayOutputStream();
+		DatabaseDelta.write(fFile, base == null ? null : new ByteArrayInputStream(base), out);
+		return out.toByteArray();
+	}
+
+	private byte[] apply(byte[] delta, byte[] base, ByteArrayOutputStream snapshot) throws IOException {
+		ByteArrayOutputStream out= new ByteArrayOutputStream();
+		DatabaseDelta.apply(new ByteArrayInputStream(delta), base == null ? null : new ByteArrayInputStream(base),
+				out, snapshot);
+		return out.toByteArray();
+	}
+
+	public void testSnapshot() throws Exception {
+		fillDatabase(100);
+		byte[] content= getContent();
+		byte[] snapshot= write(null);
+		assertTrue(snapshot.length < content.length);
+		assertTrue(Arrays.equals(content, apply(snapshot, null, null)));
+	}
+
+	public void testDelta() throws Exception {
+		long[] records= fillDatabase(100);
+		byte[] base= write(null);
+
+		fDatabase.putInt(records[10], -1);
+		fillDatabase(50);
+		byte[] content= getContent();
+		byte[] delta= write(base);
+		assertTrue(delta.length < base.length);
+
+		ByteArrayOutputStream snapshot= new ByteArrayOutputStream();
+		assertTrue(Arrays.equals(content, apply(delta, base, snapshot)));
+		assertTrue(Arrays.equals(write(null), snapshot.toByteArray()));
+	}
+
+	public void testWrongBase() throws Exception {
+		long[] records= fillDatabase(100);
+		byte[] base= write(null);
+		fDatabase.putInt(records[10], -1);
+		fDatabase.flush();
+		byte[] otherBase= write(null);
+		fDatabase.putInt(records[20], -1);
+		fDatabase.flush();
+		byte[] delta= write(base);
+
+		try {
+			apply(delta, otherBase, null);
+			fail();
+		} catch (IOException e) {
+		}
+		try {
+			apply(delta, null, null);
+			fail();
+		} catch (IOException e) {
+		}
+	}
+
+	public void testCorruptDelta() throws Exception {
+		fillDatabase(100);
+		byte[] snapshot= write(null);
+		for (int i = snapshot.length / 2; i < snapshot.length / 2 + 4; i++) {
+			snapshot[i]^= 0xff;
+		}
+		try {
+			apply(snapshot, null, null);
+			fail();
+		} catch (IOException e) {
+		}
+	}
+}
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.pdom.tests;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Test;
+
+import org.eclipse.cdt.core.index.IIndexFileLocation;
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.internal.core.index.IndexFileLocation;
+import org.eclipse.cdt.internal.core.parser.scanner.CharArray;
+import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContent;
+import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContent.InclusionKind;
+import org.eclipse.cdt.internal.core.pdom.HeaderContentCache;
+
+/**
+ * Tests for the cache of header contents shared by the parser threads of the indexer.
+ */
+public class HeaderContentCacheTests extends BaseTestCase {
+	public static Test suite() {
+		return suite(HeaderContentCacheTests.class);
+	}
+
+	private final List<File> fFiles= new ArrayList<File>();
+
+	@Override
+	protected void tearDown() throws Exception {
+		for (File file : fFiles) {
+			file.delete();
+		}
+		super.tearDown();
+	}
+
+	private File file(String name, String text) throws IOException {
+		File file= new File(System.getProperty("java.io.tmpdir"), getName() + "_" + name);
+		fFiles.add(file);
+		Writer writer= new FileWriter(file);
+		try {
+			writer.write(text);
+		} finally {
+			writer.close();
+		}
+		return file;
+	}
+
+	private static IIndexFileLocation location(File file) {
+		return new IndexFileLocation(file.toURI(), null);
+	}
+
+	private static InternalFileContent content(File file, String text) {
+		return new InternalFileContent(file.getPath(), new CharArray(text.toCharArray()), file.lastModified(),
+				file.length(), 2);
+	}
+
+	private static InternalFileContent get(HeaderContentCache cache, File file) {
+		return cache.get(location(file), file.getPath());
+	}
+
+	public void testGetAndPut() throws Exception {
+		HeaderContentCache cache= new HeaderContentCache(1000);
+		File file= file("a.h", "int a;");
+		assertNull(get(cache, file));
+
+		InternalFileContent fc= content(file, "int a;");
+		cache.put(location(file), fc);
+		InternalFileContent cached= get(cache, file);
+		assertNotSame(fc, cached);
+		assertSame(fc.getSource(), cached.getSource());
+		assertEquals(InclusionKind.USE_SOURCE, cached.getKind());
+		assertEquals(file.lastModified(), cached.getTimestamp());
+		assertEquals(2, cached.getReadTime());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+
+		cache.remove(location(file));
+		assertNull(get(cache, file));
+		assertEquals(0, cache.getSize());
+	}
+
+	public void testSkippedContentIsNotCached() throws Exception {
+		HeaderContentCache cache= new HeaderContentCache(1000);
+		File file= file("a.h", "int a;");
+		cache.put(location(file), new InternalFileContent(file.getPath(), InclusionKind.SKIP_FILE));
+		assertNull(get(cache, file));
+	}
+
+	public void testChangedFileIsNotReturned() throws Exception {
+		HeaderContentCache cache= new HeaderContentCache(1000);
+		File file= file("a.h", "int a;");
+		cache.put(location(file), content(file, "int a;"));
+		assertNotNull(get(cache, file));
+
+		file("a.h", "int ab;");
+		assertNull(get(cache, file));
+		assertEquals(0, cache.getSize());
+
+		file.setLastModified(file.lastModified() - 10000);
+		cache.put(location(file), content(file, "int ab;"));
+		assertNotNull(get(cache, file));
+		file.setLastModified(file.lastModified() + 5000);
+		assertNull(get(cache, file));
+	}
+
+	public void testClear() throws Exception {
+		HeaderContentCache cache= new HeaderContentCache(1000);
+		File file= file("a.h", "int a;");
+		cache.put(location(file), content(file, "int a;"));
+		cache.clear();
+		assertNull(get(cache, file));
+		assertEquals(0, cache.getSize());
+	}
+
+	public void testSizeIsBounded() throws Exception {
+		HeaderContentCache cache= new HeaderContentCache(10);
+		File a= file("a.h", "int a;");
+		File b= file("b.h", "int b;");
+		File c= file("c.h", "int c; int d;");
+		cache.put(location(a), content(a, "int a;"));
+		cache.put(location(b), content(b, "int b;"));
+		assertEquals(6, cache.getSize());
+		assertNull(get(cache, a));
+		assertNotNull(get(cache, b));
+
+		cache.put(location(c), content(c, "int c; int d;"));
+		assertNull(get(cache, c));
+		assertEquals(6, cache.getSize());
+	}
+}
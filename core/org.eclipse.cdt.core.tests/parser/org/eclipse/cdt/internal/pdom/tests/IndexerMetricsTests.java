@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.pdom.tests;
+
+import java.util.List;
+
+import junit.framework.Test;
+
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.internal.core.pdom.IndexerMetrics;
+import org.eclipse.cdt.internal.core.pdom.IndexerMetrics.FileMetrics;
+import org.eclipse.cdt.internal.core.pdom.IndexerMetrics.Phase;
+
+/**
+ * Tests for the collection of the timings of the indexer.
+ */
+public class IndexerMetricsTests extends BaseTestCase {
+	public static Test suite() {
+		return suite(IndexerMetricsTests.class);
+	}
+
+	private static FileMetrics file(String path, long parsing, long lockWait) {
+		FileMetrics result= new FileMetrics(path);
+		result.addTime(Phase.PARSING, parsing * 1000000);
+		result.addTime(Phase.LOCK_WAIT, lockWait * 1000000);
+		return result;
+	}
+
+	public void testFileMetrics() {
+		FileMetrics file= file("a.cpp", 5, 2);
+		file.addTime(Phase.PREPROCESSING, -1);
+		assertEquals(0, file.getTime(Phase.PREPROCESSING));
+		assertEquals(7000000, file.getTotalTime());
+	}
+
+	public void testRecord() {
+		IndexerMetrics metrics= new IndexerMetrics();
+		metrics.record(file("a.cpp", 5, 2));
+		metrics.record(file("b.cpp", 3, 0));
+		metrics.addCacheCounts(10, 4);
+		assertEquals(2, metrics.getFileCount());
+		assertEquals(8, metrics.getParsingTime());
+		assertEquals(2, metrics.getLockWaitTime());
+		assertEquals(0, metrics.getTime(Phase.PREPROCESSING));
+		// The parsing time reported via JMX includes preprocessing.
+		FileMetrics file= file("c.cpp", 1, 0);
+		file.addTime(Phase.PREPROCESSING, 2000000);
+		file.addTime(Phase.FILE_CONTENT_LOOKUP, 1000000);
+		metrics.record(file);
+		assertEquals(12, metrics.getParsingTime());
+		assertEquals(1, metrics.getTime(Phase.PARSING) / 1000000);
+		assertEquals(10, metrics.getCacheHits());
+		assertEquals(4, metrics.getCacheMisses());
+
+		metrics.reset();
+		assertEquals(0, metrics.getFileCount());
+		assertEquals(0, metrics.getParsingTime());
+		assertEquals(0, metrics.getCacheHits());
+		assertTrue(metrics.getSlowestFiles().isEmpty());
+	}
+
+	public void testSlowestFiles() {
+		IndexerMetrics metrics= new IndexerMetrics();
+		for (int i = 0; i < 100; i++) {
+			metrics.record(file("f" + i + ".cpp", i % 50, 0));
+		}
+		List<FileMetrics> slowest= metrics.getSlowestFiles();
+		assertEquals(20, slowest.size());
+		assertEquals(49000000, slowest.get(0).getTotalTime());
+		assertEquals(40000000, slowest.get(19).getTotalTime());
+		for (int i = 1; i < slowest.size(); i++) {
+			assertTrue(slowest.get(i - 1).getTotalTime() >= slowest.get(i).getTotalTime());
+		}
+		String[] reports= metrics.getSlowestFileReports();
+		assertEquals(20, reports.length);
+		assertTrue(reports[0].startsWith("f49.cpp: 49ms"));
+	}
+}
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.pdom.tests;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Test;
+
+import org.eclipse.cdt.core.index.IIndexFileLocation;
+import org.eclipse.cdt.core.index.IIndexLocationConverter;
+import org.eclipse.cdt.core.model.LanguageManager;
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.internal.core.pdom.WritablePDOM;
+
+/**
+ * Tests for the read-write lock of the PDOM.
+ */
+public class PDOMLockTests extends BaseTestCase {
+	private WritablePDOM pdom;
+
+	public static Test suite() {
+		return suite(PDOMLockTests.class);
+	}
+
+	private static class MockIndexLocationConverter implements IIndexLocationConverter {
+		@Override
+		public IIndexFileLocation fromInternalFormat(String raw) {
+			return null;
+		}
+
+		@Override
+		public String toInternalFormat(IIndexFileLocation location) {
+			return null;
+		}
+	}
+
+	/**
+	 * Holds a read lock in a separate thread until it is released.
+	 */
+	private class Reader extends Thread {
+		final CountDownLatch fAcquired= new CountDownLatch(1);
+		final CountDownLatch fRelease= new CountDownLatch(1);
+		volatile long fAcquireTime;
+
+		@Override
+		public void run() {
+			try {
+				pdom.acquireReadLock();
+				try {
+					fAcquireTime= System.nanoTime();
+					fAcquired.countDown();
+					fRelease.await();
+				} finally {
+					pdom.releaseReadLock();
+				}
+			} catch (InterruptedException e) {
+			}
+		}
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		File tmpFile = File.createTempFile(getClass().getSimpleName() + '.'
+				+ Double.toString(Math.random()).substring(2), null);
+		pdom = new WritablePDOM(tmpFile, new MockIndexLocationConverter(),
+				LanguageManager.getInstance().getPDOMLinkageFactoryMappings());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		pdom.close();
+		super.tearDown();
+	}
+
+	public void testConcurrentReaders() throws Exception {
+		Reader r1= new Reader();
+		Reader r2= new Reader();
+		r1.start();
+		r2.start();
+		assertTrue(r1.fAcquired.await(10, TimeUnit.SECONDS));
+		assertTrue(r2.fAcquired.await(10, TimeUnit.SECONDS));
+
+		// Nested read locks of the current thread.
+		pdom.acquireReadLock();
+		pdom.acquireReadLock();
+		pdom.releaseReadLock();
+		pdom.releaseReadLock();
+
+		r1.fRelease.countDown();
+		r2.fRelease.countDown();
+		r1.join();
+		r2.join();
+	}
+
+	public void testTryAcquireWriteLock() throws Exception {
+		Reader reader= new Reader();
+		reader.start();
+		assertTrue(reader.fAcquired.await(10, TimeUnit.SECONDS));
+		assertFalse(pdom.tryAcquireWriteLock(0, 50));
+
+		reader.fRelease.countDown();
+		reader.join();
+		assertTrue(pdom.tryAcquireWriteLock(0, 10000));
+		pdom.releaseWriteLock();
+	}
+
+	public void testGiveupReadLocks() throws Exception {
+		pdom.acquireReadLock();
+		pdom.acquireWriteLock(1);
+		pdom.releaseWriteLock(1, false);
+		pdom.releaseReadLock();
+
+		pdom.acquireWriteLock();
+		pdom.releaseWriteLock();
+	}
+
+	public void testWriterIsNotStarvedByNewReaders() throws Exception {
+		pdom.resetLockCounters();
+		final Reader first= new Reader();
+		first.start();
+		assertTrue(first.fAcquired.await(10, TimeUnit.SECONDS));
+
+		final CountDownLatch writerStarted= new CountDownLatch(1);
+		final long[] writeLockTime= new long[1];
+		Thread writer= new Thread() {
+			@Override
+			public void run() {
+				try {
+					writerStarted.countDown();
+					pdom.acquireWriteLock();
+					writeLockTime[0]= System.nanoTime();
+					pdom.releaseWriteLock();
+				} catch (InterruptedException e) {
+				}
+			}
+		};
+		writer.start();
+		assertTrue(writerStarted.await(10, TimeUnit.SECONDS));
+
+		// Once the writer has priority, a new reader has to wait for it.
+		final long deadline= System.currentTimeMillis() + 10000;
+		while (!pdom.hasPriorityWriter()) {
+			assertTrue(System.currentTimeMillis() < deadline);
+			Thread.yield();
+		}
+		Reader second= new Reader();
+		second.start();
+		first.fRelease.countDown();
+
+		writer.join(10000);
+		assertFalse(writer.isAlive());
+		assertTrue(second.fAcquired.await(10, TimeUnit.SECONDS));
+		assertTrue(writeLockTime[0] < second.fAcquireTime);
+		second.fRelease.countDown();
+		first.join();
+		second.join();
+
+		assertEquals(1, pdom.getWriteLockCount());
+		assertTrue(pdom.getBlockedWriteLockTime() >= 100);
+	}
+}
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.pdom.tests;
+
+import junit.framework.Test;
+
+import org.eclipse.cdt.core.testplugin.util.BaseTestCase;
+import org.eclipse.cdt.internal.core.pdom.PDOMResultCache;
+
+/**
+ * Tests for the cache of results computed from a PDOM.
+ */
+public class PDOMResultCacheTests extends BaseTestCase {
+	private static final int LINKAGE_1= 1;
+	private static final int LINKAGE_2= 2;
+
+	public static Test suite() {
+		return suite(PDOMResultCacheTests.class);
+	}
+
+	public void testPutAndGet() {
+		PDOMResultCache cache= new PDOMResultCache(1000);
+		assertEquals("a", cache.put("key", "a", true, LINKAGE_1));
+		assertEquals("a", cache.get("key"));
+		assertEquals("a", cache.put("key", "b", false, LINKAGE_1));
+		assertEquals("a", cache.get("key"));
+		assertEquals("b", cache.put("key", "b", true, LINKAGE_1));
+		assertEquals("b", cache.get("key"));
+		assertNull(cache.put("key", null, true, LINKAGE_1));
+		assertNull(cache.get("key"));
+		assertEquals(0, cache.size());
+
+		assertEquals(3, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		cache.resetCounters();
+		assertEquals(0, cache.getHitCount());
+		assertEquals(0, cache.getMissCount());
+	}
+
+	public void testInvalidate() {
+		PDOMResultCache cache= new PDOMResultCache(1000);
+		cache.put("t", "t", true, PDOMResultCache.TRANSIENT);
+		cache.put("l1", "l1", true, LINKAGE_1);
+		cache.put("l2", "l2", true, LINKAGE_2);
+
+		cache.invalidate(PDOMResultCache.TRANSIENT);
+		assertNull(cache.get("t"));
+		assertEquals("l1", cache.get("l1"));
+		assertEquals("l2", cache.get("l2"));
+
+		cache.put("t", "t", true, PDOMResultCache.TRANSIENT);
+		cache.invalidate(LINKAGE_1);
+		assertEquals("t", cache.get("t"));
+		assertNull(cache.get("l1"));
+		assertEquals("l2", cache.get("l2"));
+
+		cache.put("l1", "l1", true, LINKAGE_1);
+		cache.invalidateAllLinkages();
+		assertEquals("t", cache.get("t"));
+		assertNull(cache.get("l1"));
+		assertNull(cache.get("l2"));
+
+		cache.clear();
+		assertEquals(0, cache.size());
+	}
+
+	public void testReplaceTransientEntry() {
+		PDOMResultCache cache= new PDOMResultCache(1000);
+		cache.put("key", "t", true, PDOMResultCache.TRANSIENT);
+		cache.put("key", "l1", true, LINKAGE_1);
+		cache.invalidate(PDOMResultCache.TRANSIENT);
+		assertEquals("l1", cache.get("key"));
+	}
+
+	public void testSizeIsBounded() {
+		final int maxSize= 160;
+		PDOMResultCache cache= new PDOMResultCache(maxSize);
+		for (int i = 0; i < 10 * maxSize; i++) {
+			cache.put(i, i, true, LINKAGE_1);
+		}
+		assertTrue(cache.size() <= maxSize);
+		assertEquals(10 * maxSize - cache.size(), cache.getEvictionCount());
+
+		// Recently used entries are kept.
+		cache.put(0, 0, true, LINKAGE_1);
+		for (int i = 0; i < 10 * maxSize; i++) {
+			cache.get(0);
+			cache.put(-i - 1, i, true, LINKAGE_1);
+		}
+		assertEquals(Integer.valueOf(0), cache.get(0));
+	}
+}
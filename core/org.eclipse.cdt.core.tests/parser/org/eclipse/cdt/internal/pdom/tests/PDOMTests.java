@@ -26,6 +26,11 @@ public class PDOMTests extends TestSuite {
 
 		suite.addTest(DBTest.suite());
 		suite.addTest(DBPropertiesTests.suite());
+		suite.addTest(DatabaseDeltaTests.suite());
+		suite.addTest(PDOMResultCacheTests.suite());
+		suite.addTest(PDOMLockTests.suite());
+		suite.addTest(HeaderContentCacheTests.suite());
+		suite.addTest(IndexerMetricsTests.suite());
 		suite.addTest(PDOMCBugsTest.suite());
 		suite.addTest(PDOMCPPBugsTest.suite());
 		suite.addTest(PDOMSearchTest.suite());
@@ -0,0 +1,6 @@
+int second(int value);
+
+int first(int value)
+{
+	return second(value) + 1;
+}
@@ -0,0 +1,4 @@
+int second(int value)
+{
+	return value * 2;
+}
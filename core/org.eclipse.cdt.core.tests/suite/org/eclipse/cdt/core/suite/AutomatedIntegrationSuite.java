@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2010 IBM Corporation and others.
+ * Copyright (c) 2005, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -36,6 +36,8 @@ import org.eclipse.cdt.internal.pdom.tests.PDOMTests;
 import org.eclipse.cdt.utils.ByteUtilsTest;
 import org.eclipse.cdt.utils.CdtVariableResolverTest;
 import org.eclipse.cdt.utils.CommandLineUtilTest;
+import org.eclipse.cdt.utils.DwarfReaderTest;
+import org.eclipse.cdt.utils.ElfSymbolIndexTest;
 import org.eclipse.cdt.utils.FindProgramLocationTest;
 import org.eclipse.cdt.utils.StorableCdtVariablesTest;
 import org.eclipse.cdt.utils.WeakHashSetTest;
@@ -86,6 +88,8 @@ public class AutomatedIntegrationSuite extends TestSuite {
 		suite.addTest(FindProgramLocationTest.suite());
 		suite.addTest(EFSExtensionTests.suite());
 		suite.addTest(ByteUtilsTest.suite());
+		suite.addTest(DwarfReaderTest.suite());
+		suite.addTest(ElfSymbolIndexTest.suite());
 
 		// Add in PDOM tests
 		suite.addTest(PDOMTests.suite());
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2010 QNX Software Systems and others.
+ * Copyright (c) 2005, 2014 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -82,6 +82,24 @@ public interface ILanguage extends IAdaptable {
 	 */
 	public final static int OPTION_PARSE_INACTIVE_CODE= 0x20;
 
+	/**
+	 * Option for {@link #getASTTranslationUnit(FileContent, IScannerInfo, IncludeFileContentProvider, IIndex, int, IParserLogService)}
+	 * Allows the parser to defer parsing the bodies of functions until the statements of a body
+	 * are accessed. Languages that do not support this option parse the bodies right away.
+	 * 
+	 * @since 5.7
+	 */
+	public final static int OPTION_LAZY_FUNCTION_BODIES= 0x40;
+
+	/**
+	 * Option for {@link #getASTTranslationUnit(FileContent, IScannerInfo, IncludeFileContentProvider, IIndex, int, IParserLogService)}
+	 * Instructs the preprocessor to measure the time it spends computing tokens and looking up
+	 * included files. Measuring adds to the cost of every token, therefore it is off by default.
+	 * 
+	 * @since 5.7
+	 */
+	public final static int OPTION_COLLECT_PREPROCESSOR_TIMES= 0x80;
+
 	/**
 	 * Return the language id for this language.
 	 * This is to differentiate languages from each other.
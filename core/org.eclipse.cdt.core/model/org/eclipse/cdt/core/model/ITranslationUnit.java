@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 QNX Software Systems and others.
+ * Copyright (c) 2000, 2014 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -110,6 +110,25 @@ public interface ITranslationUnit extends ICElement, IParent, IOpenable, ISource
 	 */
 	public final static int AST_PARSE_INACTIVE_CODE= 0x80;
 
+	/**
+	 * Style constant for {@link #getAST(IIndex, int)}. 
+	 * Allows the parser to defer parsing the bodies of functions until the statements of a body
+	 * are accessed, e.g. by a visitor.
+	 * 
+	 * @since 5.7
+	 */
+	public final static int AST_LAZY_FUNCTION_BODIES= 0x100;
+
+	/**
+	 * Style constant for {@link #getAST(IIndex, int)}. 
+	 * Allows the parser to copy declarations from the AST previously created for this translation
+	 * unit with the same style, rather than parsing them again. Meant for reparsing the contents
+	 * of an editor after small changes.
+	 * 
+	 * @since 5.7
+	 */
+	public final static int AST_INCREMENTAL= 0x200;
+
 	/**
 	 * Creates and returns an include declaration in this translation unit
 	 * with the given name.
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2012 Wind River Systems, Inc. and others. All rights reserved.
+ * Copyright (c) 2007, 2014 Wind River Systems, Inc. and others. All rights reserved.
  * This program and the accompanying materials are made available under the
  * terms of the Eclipse Public License v1.0 which accompanies this distribution,
  * and is available at http://www.eclipse.org/legal/epl-v10.html
@@ -43,7 +43,8 @@ public class ASTCache {
 	public static int PARSE_MODE = ITranslationUnit.AST_SKIP_ALL_HEADERS
 			| ITranslationUnit.AST_CONFIGURE_USING_SOURCE_CONTEXT
 			| ITranslationUnit.AST_SKIP_TRIVIAL_EXPRESSIONS_IN_AGGREGATE_INITIALIZERS
-			| ITranslationUnit.AST_PARSE_INACTIVE_CODE;
+			| ITranslationUnit.AST_PARSE_INACTIVE_CODE
+			| ITranslationUnit.AST_LAZY_FUNCTION_BODIES;
 
 	/**
 	 * Do something with an AST.
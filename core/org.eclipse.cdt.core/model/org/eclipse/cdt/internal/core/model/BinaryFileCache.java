@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.model;
+
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.eclipse.cdt.core.IBinaryParser.IBinaryFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * Remembers the outcome of probing files for binaries, such that the binary runner does not
+ * have to probe files again that did not change since a previous run. The entries of a project
+ * have to be discarded when the binary parsers of the project change.
+ * <p>
+ * The binaries are softly referenced, a binary collected by the garbage collector is simply
+ * probed again. Only the fact that a file is not a binary is held strongly.
+ */
+public class BinaryFileCache {
+	private static class Entry {
+		final long fModificationStamp;
+		final SoftReference<IBinaryFile> fBinary;
+
+		Entry(long modificationStamp, IBinaryFile binary) {
+			fModificationStamp= modificationStamp;
+			fBinary= binary == null ? null : new SoftReference<IBinaryFile>(binary);
+		}
+	}
+
+	/** Marker for files that are known not to be binaries. */
+	public static final Object NOT_BINARY= new Object();
+
+	private final Map<IProject, Map<IPath, Entry>> fProjects= new HashMap<IProject, Map<IPath, Entry>>();
+
+	/**
+	 * Returns the binary for the given file, {@link #NOT_BINARY}, or <code>null</code> if
+	 * the file has not been probed with the given modification stamp or the binary has been
+	 * garbage collected.
+	 */
+	public synchronized Object get(IProject project, IPath path, long modificationStamp) {
+		Map<IPath, Entry> entries= fProjects.get(project);
+		if (entries == null)
+			return null;
+		Entry entry= entries.get(path);
+		if (entry == null || entry.fModificationStamp != modificationStamp)
+			return null;
+		if (entry.fBinary == null)
+			return NOT_BINARY;
+		IBinaryFile binary= entry.fBinary.get();
+		if (binary == null) {
+			entries.remove(path);
+		}
+		return binary;
+	}
+
+	/**
+	 * Stores the outcome of probing a file, <code>binary</code> is <code>null</code> for a
+	 * file that is not a binary.
+	 */
+	public synchronized void put(IProject project, IPath path, long modificationStamp, IBinaryFile binary) {
+		Map<IPath, Entry> entries= fProjects.get(project);
+		if (entries == null) {
+			entries= new HashMap<IPath, Entry>();
+			fProjects.put(project, entries);
+		}
+		entries.put(path, new Entry(modificationStamp, binary));
+	}
+
+	/**
+	 * Discards the entry for the given file, or the entries for all files below the given folder.
+	 */
+	public synchronized void remove(IProject project, IPath path, boolean isFolder) {
+		Map<IPath, Entry> entries= fProjects.get(project);
+		if (entries == null)
+			return;
+		if (isFolder) {
+			for (Iterator<IPath> iterator= entries.keySet().iterator(); iterator.hasNext();) {
+				if (path.isPrefixOf(iterator.next())) {
+					iterator.remove();
+				}
+			}
+		} else {
+			entries.remove(path);
+		}
+		if (entries.isEmpty()) {
+			fProjects.remove(project);
+		}
+	}
+
+	public synchronized void clear(IProject project) {
+		fProjects.remove(project);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 QNX Software Systems and others.
+ * Copyright (c) 2000, 2014 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,6 +13,13 @@
  *******************************************************************************/
 package org.eclipse.cdt.internal.core.model;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.IBinaryParser.IBinaryFile;
@@ -82,6 +89,25 @@ public class BinaryRunner {
 
 	}
 
+	/** Number of threads probing files for binaries. */
+	private static final int THREADS = Integer.getInteger("org.eclipse.cdt.core.binaryRunnerThreads", //$NON-NLS-1$
+			Runtime.getRuntime().availableProcessors());
+	/** Number of files probed by a single task. */
+	private static final int CHUNK_SIZE = 64;
+
+	/**
+	 * A file that may be a binary.
+	 */
+	private static class Candidate {
+		final IFile fFile;
+		final long fModificationStamp;
+
+		Candidate(IFile file, long modificationStamp) {
+			fFile = file;
+			fModificationStamp = modificationStamp;
+		}
+	}
+
 	private final ICProject cproject;
 	private final Job runnerJob;		// final fields don't need synchronization
 	private IOutputEntry[] entries = new IOutputEntry[0];
@@ -118,7 +144,9 @@ public class BinaryRunner {
 						// traverse project, but only if at least one binary parser is configured
 						BinaryParserConfig[] parsers = CModelManager.getDefault().getBinaryParser(cproject.getProject());
 						if (parsers.length > 0) {
-							cproject.getProject().accept(new Visitor(monitor), IContainer.INCLUDE_PHANTOMS);
+							Visitor visitor = new Visitor(monitor);
+							cproject.getProject().accept(visitor, IContainer.INCLUDE_PHANTOMS);
+							createBinaries(visitor.getCandidates(), parsers, monitor);
 						}
 
 						if (!monitor.isCanceled()) {
@@ -140,6 +168,81 @@ public class BinaryRunner {
 		return job;
 	}
 
+	/**
+	 * Probes the candidates that are not known from a previous run in parallel, and adds
+	 * the binaries to the containers in the order the candidates were found.
+	 */
+	private void createBinaries(final List<Candidate> candidates, BinaryParserConfig[] parsers,
+			final IProgressMonitor monitor) {
+		final CModelManager factory = CModelManager.getDefault();
+		final BinaryFileCache cache = factory.getBinaryFileCache();
+		final IProject project = cproject.getProject();
+		final IBinaryFile[] binaries = new IBinaryFile[candidates.size()];
+		List<Integer> unknown = new ArrayList<Integer>();
+		for (int i = 0; i < binaries.length; i++) {
+			Candidate candidate = candidates.get(i);
+			Object cached = cache.get(project, candidate.fFile.getFullPath(), candidate.fModificationStamp);
+			if (cached instanceof IBinaryFile) {
+				binaries[i] = (IBinaryFile) cached;
+			} else if (cached == null) {
+				unknown.add(i);
+			}
+		}
+
+		if (!unknown.isEmpty()) {
+			// Create the parsers up front, rather than concurrently in the workers.
+			for (BinaryParserConfig parser : parsers) {
+				try {
+					parser.getBinaryParser();
+				} catch (CoreException e) {
+				}
+			}
+			final int threads = Math.min(THREADS, (unknown.size() + CHUNK_SIZE - 1) / CHUNK_SIZE);
+			ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+			try {
+				List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+				for (int start = 0; start < unknown.size(); start += CHUNK_SIZE) {
+					final List<Integer> chunk = unknown.subList(start, Math.min(start + CHUNK_SIZE, unknown.size()));
+					tasks.add(new Callable<Object>() {
+						@Override
+						public Object call() {
+							for (int i : chunk) {
+								if (monitor.isCanceled())
+									return null;
+								Candidate candidate = candidates.get(i);
+								IBinaryFile bin = factory.createBinaryFile(candidate.fFile);
+								binaries[i] = bin;
+								cache.put(project, candidate.fFile.getFullPath(), candidate.fModificationStamp, bin);
+							}
+							return null;
+						}
+					});
+				}
+				for (Future<Object> future : executor.invokeAll(tasks)) {
+					try {
+						future.get();
+					} catch (ExecutionException e) {
+						CCorePlugin.log(e.getCause());
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+
+		for (int i = 0; i < binaries.length; i++) {
+			if (monitor.isCanceled())
+				return;
+			if (binaries[i] != null) {
+				// Create the file will add it to the {Archive,Binary}Container.
+				factory.create(candidates.get(i).fFile, binaries[i], cproject);
+			}
+		}
+	}
+
 	public void start() {
 		synchronized (runnerJob) {
 			if (!isStopped) {
@@ -173,6 +276,7 @@ public class BinaryRunner {
 		private final IProgressMonitor vMonitor;
 		private final IProject project;
 		private final IContentType textContentType;
+		private final List<Candidate> candidates = new ArrayList<Candidate>();
 
 		public Visitor(IProgressMonitor monitor) {
 			vMonitor = monitor;
@@ -218,13 +322,9 @@ public class BinaryRunner {
 			if (path != null) {
 				for (IOutputEntry entrie : entries) {
 					if (isOnOutputEntry(entrie, path)) {
+						// The file is probed later, together with the other candidates.
 						IFile file = (IFile) proxy.requestResource();
-						CModelManager factory = CModelManager.getDefault();
-						IBinaryFile bin = factory.createBinaryFile(file);
-						if (bin != null) {
-							// Create the file will add it to the {Archive,Binary}Container.
-							factory.create(file, bin, cproject);
-						}
+						candidates.add(new Candidate(file, proxy.getModificationStamp()));
 						return true;
 					}
 				}
@@ -232,6 +332,10 @@ public class BinaryRunner {
 			return true;
 		}
 
+		public List<Candidate> getCandidates() {
+			return candidates;
+		}
+
 		private boolean isOnOutputEntry(IOutputEntry entry, IPath path) {
 			if (entry.getPath().isPrefixOf(path) && !CoreModelUtil.isExcluded(path, entry.fullExclusionPatternChars())) {
 				return true;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 QNX Software Systems and others.
+ * Copyright (c) 2000, 2014 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -169,6 +169,11 @@ public class CModelManager implements IResourceChangeListener, IContentTypeChang
 	private final Map<IProject, BinaryParserConfig[]> binaryParsersMap =
 			Collections.synchronizedMap(new HashMap<IProject, BinaryParserConfig[]>());
 
+	/**
+	 * Outcome of probing files for binaries, survives restarts of the binary runners.
+	 */
+	private final BinaryFileCache binaryFileCache = new BinaryFileCache();
+
 	/**
 	 * The list of the SourceMappers on projects.
 	 */
@@ -770,6 +775,7 @@ public class CModelManager implements IResourceChangeListener, IContentTypeChang
 					CCorePlugin.log(e);
 				}
 				binaryParsersMap.remove(project);
+				binaryFileCache.clear(project);
 
 				// Fired and ICElementDelta.PARSER_CHANGED
 				CElementDelta delta = new CElementDelta(getCModel());
@@ -803,6 +809,10 @@ public class CModelManager implements IResourceChangeListener, IContentTypeChang
 		return runner;
 	}
 
+	public BinaryFileCache getBinaryFileCache() {
+		return binaryFileCache;
+	}
+
 	public void removeBinaryRunner(ICProject cproject) {
 		removeBinaryRunner(cproject.getProject());
 	}
@@ -1384,6 +1394,7 @@ public class CModelManager implements IResourceChangeListener, IContentTypeChang
 	private void preDeleteProject(IProject project) {
 		// remove binary parsers
 		binaryParsersMap.remove(project);
+		binaryFileCache.clear(project);
 		// stop the binary runner for this project
 		removeBinaryRunner(project);
 		// stop indexing jobs for this project
@@ -1393,6 +1404,7 @@ public class CModelManager implements IResourceChangeListener, IContentTypeChang
 	private void preCloseProject(IProject project) {
 		// remove binary parsers
 		binaryParsersMap.remove(project);
+		binaryFileCache.clear(project);
 		// stop the binary runner for this project
 		removeBinaryRunner(project);
 		// stop indexing jobs for this project
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2002, 2011 IBM Corporation and others.
+ * Copyright (c) 2002, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -600,6 +600,11 @@ final class DeltaProcessor {
 				return false;
 
 			case IResourceDelta.REMOVED :
+				if (resource.getType() != IResource.PROJECT) {
+					// The children of a removed folder are not visited, forget all of them.
+					CModelManager.getDefault().getBinaryFileCache().remove(resource.getProject(), resource.getFullPath(),
+							resource.getType() == IResource.FOLDER);
+				}
 				if (element != null) {
 					elementRemoved(element, delta);
 				}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 QNX Software Systems and others.
+ * Copyright (c) 2000, 2014 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -19,6 +19,7 @@ package org.eclipse.cdt.internal.core.model;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.ref.SoftReference;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -31,6 +32,7 @@ import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.dom.ILinkage;
 import org.eclipse.cdt.core.dom.ast.IASTCompletionNode;
 import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+import org.eclipse.cdt.core.dom.parser.AbstractCLikeLanguage;
 import org.eclipse.cdt.core.index.IIndex;
 import org.eclipse.cdt.core.index.IIndexFile;
 import org.eclipse.cdt.core.index.IIndexFileLocation;
@@ -106,6 +108,12 @@ public class TranslationUnit extends Openable implements ITranslationUnit {
 	SourceManipulationInfo sourceManipulationInfo = null;
 	private ILanguage fLanguageOfContext;
 
+	/** The last AST created with style {@link #AST_INCREMENTAL}, used for reparsing the contents. */
+	private SoftReference<IASTTranslationUnit> fPreviousAST;
+	private int fPreviousASTStyle;
+	private ILanguage fPreviousASTLanguage;
+	private long fPreviousASTIndexTimestamp;
+
 	public TranslationUnit(ICElement parent, IFile file, String idType) {
 		super(parent, file, ICElement.C_UNIT);
 		setContentTypeID(idType);
@@ -857,6 +865,9 @@ public class TranslationUnit extends Openable implements ITranslationUnit {
 		if ((style & AST_PARSE_INACTIVE_CODE) != 0) {
 			options |= ILanguage.OPTION_PARSE_INACTIVE_CODE;
 		}
+		if ((style & AST_LAZY_FUNCTION_BODIES) != 0) {
+			options |= ILanguage.OPTION_LAZY_FUNCTION_BODIES;
+		}
 		if (isSourceUnit()) {
 			options |= ILanguage.OPTION_IS_SOURCE_UNIT;
 		}
@@ -866,13 +877,38 @@ public class TranslationUnit extends Openable implements ITranslationUnit {
 		} else {
 			log= ParserUtil.getParserLogService();
 		}
-		ASTTranslationUnit ast = (ASTTranslationUnit) ((AbstractLanguage) language).getASTTranslationUnit(
-				fileContent, scanInfo, crf, index, options, log);
+		ASTTranslationUnit ast;
+		if ((style & AST_INCREMENTAL) != 0 && language instanceof AbstractCLikeLanguage) {
+			final long indexTimestamp= index != null ? index.getLastWriteAccess() : 0;
+			final IASTTranslationUnit previous= getPreviousAST(style, language, indexTimestamp);
+			ast = (ASTTranslationUnit) ((AbstractCLikeLanguage) language).getASTTranslationUnit(
+					fileContent, scanInfo, crf, index, options, log, previous);
+			setPreviousAST(ast, style, language, indexTimestamp);
+		} else {
+			ast = (ASTTranslationUnit) ((AbstractLanguage) language).getASTTranslationUnit(
+					fileContent, scanInfo, crf, index, options, log);
+		}
 		ast.setOriginatingTranslationUnit(this);
 		ast.setBasedOnIncompleteIndex(incompleteIndex);
 		return ast;
 	}
 
+	private synchronized IASTTranslationUnit getPreviousAST(int style, ILanguage language, long indexTimestamp) {
+		if (fPreviousAST == null || fPreviousASTStyle != style || fPreviousASTLanguage != language
+				|| fPreviousASTIndexTimestamp != indexTimestamp) {
+			return null;
+		}
+		return fPreviousAST.get();
+	}
+
+	private synchronized void setPreviousAST(IASTTranslationUnit ast, int style, ILanguage language,
+			long indexTimestamp) {
+		fPreviousAST= ast == null ? null : new SoftReference<IASTTranslationUnit>(ast);
+		fPreviousASTStyle= style;
+		fPreviousASTLanguage= language;
+		fPreviousASTIndexTimestamp= indexTimestamp;
+	}
+
 	private IncludeFileContentProvider getIncludeFileContentProvider(int style, IIndex index, int linkageID, IIndexFile[] contextToHeader) {
 		final ICProject cprj= getCProject();
 		final ProjectIndexerInputAdapter pathResolver = new ProjectIndexerInputAdapter(cprj);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2013 IBM Corporation and others.
+ * Copyright (c) 2007, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -39,6 +39,9 @@ import org.eclipse.cdt.core.parser.ParseError;
 import org.eclipse.cdt.core.parser.ParseError.ParseErrorKind;
 import org.eclipse.cdt.core.parser.ParserLanguage;
 import org.eclipse.cdt.core.parser.ParserMode;
+import org.eclipse.cdt.internal.core.dom.parser.ASTTranslationUnit;
+import org.eclipse.cdt.internal.core.dom.parser.AbstractGNUSourceCodeParser;
+import org.eclipse.cdt.internal.core.dom.parser.ReusableDeclarations;
 import org.eclipse.cdt.internal.core.parser.scanner.CPreprocessor;
 import org.eclipse.cdt.internal.core.util.ICancelable;
 import org.eclipse.cdt.internal.core.util.ICanceler;
@@ -139,9 +142,27 @@ public abstract class AbstractCLikeLanguage extends AbstractLanguage implements
 	public IASTTranslationUnit getASTTranslationUnit(FileContent reader, IScannerInfo scanInfo,
 			IncludeFileContentProvider fileCreator, IIndex index, int options, IParserLogService log)
 			throws CoreException {
+		return getASTTranslationUnit(reader, scanInfo, fileCreator, index, options, log, null);
+	}
+
+	/**
+	 * Same as {@link #getASTTranslationUnit(FileContent, IScannerInfo, IncludeFileContentProvider, IIndex, int, IParserLogService)},
+	 * however the declarations of a previous AST of the same file that are not affected by the
+	 * changes of the file are copied rather than parsed again. The AST created records the
+	 * information needed to reuse its declarations in the same way.
+	 * @param previousAST an AST previously created for the same file with the same options and
+	 *     index, or <code>null</code>.
+	 * @since 5.7
+	 */
+	public IASTTranslationUnit getASTTranslationUnit(FileContent reader, IScannerInfo scanInfo,
+			IncludeFileContentProvider fileCreator, IIndex index, int options, IParserLogService log,
+			IASTTranslationUnit previousAST) throws CoreException {
 		final IScanner scanner= createScanner(reader, scanInfo, fileCreator, log);
 		scanner.setComputeImageLocations((options & OPTION_NO_IMAGE_LOCATIONS) == 0);
 		scanner.setProcessInactiveCode((options & OPTION_PARSE_INACTIVE_CODE) != 0);
+		if (scanner instanceof CPreprocessor) {
+			((CPreprocessor) scanner).setCollectTimes((options & OPTION_COLLECT_PREPROCESSOR_TIMES) != 0);
+		}
 
 		IParserSettings parserSettings= null;
 		if (scanInfo instanceof ExtendedScannerInfo) {
@@ -149,6 +170,13 @@ public abstract class AbstractCLikeLanguage extends AbstractLanguage implements
 			parserSettings = extendedScannerInfo.getParserSettings();
 		}
 		final ISourceCodeParser parser= createParser(scanner, log, index, false, options, parserSettings);
+		if (parser instanceof AbstractGNUSourceCodeParser) {
+			final AbstractGNUSourceCodeParser gnuParser= (AbstractGNUSourceCodeParser) parser;
+			gnuParser.setRecordResolvedAmbiguities(true);
+			if (previousAST != null) {
+				gnuParser.setReusableDeclarations(ReusableDeclarations.create(previousAST, reader));
+			}
+		}
 
 		// Make it possible to cancel parser by reconciler - http://bugs.eclipse.org/226682
 		ICanceler canceler= null;
@@ -166,6 +194,11 @@ public abstract class AbstractCLikeLanguage extends AbstractLanguage implements
 			// Parse
 			IASTTranslationUnit ast= parser.parse();
 			ast.setIsHeaderUnit((options & OPTION_IS_SOURCE_UNIT) == 0);
+			if (scanner instanceof CPreprocessor && ast instanceof ASTTranslationUnit) {
+				final CPreprocessor cpp= (CPreprocessor) scanner;
+				((ASTTranslationUnit) ast).setPreprocessorTimes(cpp.getPreprocessingTime(),
+						cpp.getContentLookupTime());
+			}
 			return ast;
 		} catch(ParseError e) {
 			// Only the TOO_MANY_TOKENS error can be handled here.
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2013 Wind River Systems, Inc. and others.
+ * Copyright (c) 2008, 2014 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,7 +13,9 @@
 package org.eclipse.cdt.internal.core.dom.parser;
 
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Semaphore;
 
 import org.eclipse.cdt.core.CCorePlugin;
@@ -21,7 +23,9 @@ import org.eclipse.cdt.core.dom.IName;
 import org.eclipse.cdt.core.dom.ast.ASTGenericVisitor;
 import org.eclipse.cdt.core.dom.ast.ASTVisitor;
 import org.eclipse.cdt.core.dom.ast.IASTComment;
+import org.eclipse.cdt.core.dom.ast.IASTCompositeTypeSpecifier;
 import org.eclipse.cdt.core.dom.ast.IASTDeclaration;
+import org.eclipse.cdt.core.dom.ast.IASTDeclarationListOwner;
 import org.eclipse.cdt.core.dom.ast.IASTFileLocation;
 import org.eclipse.cdt.core.dom.ast.IASTName;
 import org.eclipse.cdt.core.dom.ast.IASTNode;
@@ -84,6 +88,12 @@ public abstract class ASTTranslationUnit extends ASTNode implements IASTTranslat
 	private final Semaphore fSemaphore= new Semaphore(1);
 	private boolean fBasedOnIncompleteIndex;
 	private boolean fNodesOmitted;
+	/** Declarations at namespace scope that contained an ambiguity, only recorded for incremental parsing */
+	private Set<IASTNode> fAmbiguousDeclarations;
+	// Statistics in nanoseconds.
+	private long fPreprocessingTime;
+	private long fContentLookupTime;
+	private long fAmbiguityResolutionTime;
 
 	@Override
 	public final IASTTranslationUnit getTranslationUnit() {
@@ -442,10 +452,20 @@ public abstract class ASTTranslationUnit extends ASTNode implements IASTTranslat
 	
 	@Override
 	public final void freeze() {
-		accept(new ASTGenericVisitor(true) {
+		freeze(this);
+	}
+
+	/**
+	 * Makes the given node and its descendants immutable. Lazy nodes that have not been
+	 * expanded yet are frozen without creating their children.
+	 */
+	public static void freeze(IASTNode root) {
+		root.accept(new ASTGenericVisitor(true) {
 			@Override
 			protected int genericVisit(IASTNode node) {
 				((ASTNode) node).setIsFrozen();
+				if (node instanceof IASTLazyNode && !((IASTLazyNode) node).isExpanded())
+					return PROCESS_SKIP;
 				return PROCESS_CONTINUE;
 			}
 		});
@@ -560,4 +580,92 @@ public abstract class ASTTranslationUnit extends ASTNode implements IASTTranslat
 		assertNotFrozen();
 		fNodesOmitted = hasNodesOmitted;
 	}
+
+	/**
+	 * Instructs the AST to record the declarations at namespace scope in which ambiguities are
+	 * resolved, such that a later incremental parse can tell which declarations may be reused.
+	 * Must be called before the ambiguities are resolved.
+	 */
+	public final void setRecordResolvedAmbiguities() {
+		assertNotFrozen();
+		if (fAmbiguousDeclarations == null)
+			fAmbiguousDeclarations= new HashSet<IASTNode>();
+	}
+
+	/**
+	 * Returns whether the AST records the declarations containing resolved ambiguities.
+	 */
+	public final boolean isRecordingResolvedAmbiguities() {
+		return fAmbiguousDeclarations != null;
+	}
+
+	/**
+	 * Records that an ambiguity has been resolved below the given node. The declarations at
+	 * namespace scope containing the node are marked, the resolution of the ambiguity may
+	 * depend on other declarations of the translation unit. Called by the ambiguity resolvers
+	 * for ASTs that record resolved ambiguities, only.
+	 */
+	public final void addResolvedAmbiguity(IASTNode node) {
+		final Set<IASTNode> declarations= fAmbiguousDeclarations;
+		if (declarations == null)
+			return;
+		synchronized (declarations) {
+			for (; node != null; node= node.getParent()) {
+				final IASTNode parent= node.getParent();
+				if (node instanceof IASTDeclaration && parent instanceof IASTDeclarationListOwner &&
+						!(parent instanceof IASTCompositeTypeSpecifier)) {
+					declarations.add(node);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns whether an ambiguity has been resolved in the given declaration at namespace scope.
+	 * Returns <code>true</code> for ASTs that do not record resolved ambiguities.
+	 */
+	public boolean hasResolvedAmbiguity(IASTDeclaration declaration) {
+		final Set<IASTNode> declarations= fAmbiguousDeclarations;
+		if (declarations == null)
+			return true;
+		synchronized (declarations) {
+			return declarations.contains(declaration);
+		}
+	}
+
+	/**
+	 * Stores the time in nanoseconds spent in the preprocessor and the part of it spent for
+	 * looking up the content of included files while creating this AST.
+	 */
+	public void setPreprocessorTimes(long preprocessingTime, long contentLookupTime) {
+		fPreprocessingTime= preprocessingTime;
+		fContentLookupTime= contentLookupTime;
+	}
+
+	/**
+	 * Returns the time in nanoseconds spent in the preprocessor while creating this AST,
+	 * including the time returned by {@link #getContentLookupTime()}.
+	 */
+	public long getPreprocessingTime() {
+		return fPreprocessingTime;
+	}
+
+	/**
+	 * Returns the time in nanoseconds spent for looking up the content of included files while
+	 * creating this AST.
+	 */
+	public long getContentLookupTime() {
+		return fContentLookupTime;
+	}
+
+	public void setAmbiguityResolutionTime(long time) {
+		fAmbiguityResolutionTime= time;
+	}
+
+	/**
+	 * Returns the time in nanoseconds spent for resolving the ambiguities of this AST.
+	 */
+	public long getAmbiguityResolutionTime() {
+		return fAmbiguityResolutionTime;
+	}
 }
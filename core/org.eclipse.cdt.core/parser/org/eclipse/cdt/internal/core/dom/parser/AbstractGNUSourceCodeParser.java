@@ -210,6 +210,9 @@ public abstract class AbstractGNUSourceCodeParser implements ISourceCodeParser {
 
     private final INodeFactory nodeFactory;
 	private boolean fActiveCode= true;
+	private ReusableDeclarations fReusableDeclarations;
+	private boolean fRecordResolvedAmbiguities;
+	private int fReusedDeclarationCount;
 
     protected AbstractGNUSourceCodeParser(IScanner scanner,
             IParserLogService logService, ParserMode parserMode,
@@ -240,6 +243,30 @@ public abstract class AbstractGNUSourceCodeParser implements ISourceCodeParser {
 		maximumTrivialExpressionsInAggregateInitializers= limit;
 	}
 
+	/**
+	 * Instructs the parser to copy the declarations of a previous AST of the translation unit
+	 * rather than parsing them again, where this is possible.
+	 */
+	public void setReusableDeclarations(ReusableDeclarations declarations) {
+		fReusableDeclarations= declarations;
+	}
+
+	/**
+	 * Instructs the parser to create an AST that records where ambiguities are resolved, such
+	 * that its declarations can be reused by a later incremental parse.
+	 */
+	public void setRecordResolvedAmbiguities(boolean record) {
+		fRecordResolvedAmbiguities= record;
+	}
+
+	/**
+	 * Returns the number of declarations that were copied from the previous AST rather than
+	 * parsed.
+	 */
+	public int getReusedDeclarationCount() {
+		return fReusedDeclarationCount;
+	}
+
     private AbstractParserLogService wrapLogService(IParserLogService logService) {
 		if (logService instanceof AbstractParserLogService) {
 			return (AbstractParserLogService) logService;
@@ -657,11 +684,15 @@ public abstract class AbstractGNUSourceCodeParser implements ISourceCodeParser {
                 + (++parseCount) + ": " //$NON-NLS-1$
                 + (System.currentTimeMillis() - startTime) + "ms" //$NON-NLS-1$
                 + (parsePassed ? "" : " - parse failure")); //$NON-NLS-1$ //$NON-NLS-2$
-        startTime = System.currentTimeMillis();
+        startTime = System.nanoTime();
         resolveAmbiguities();
+        final long resolutionTime = System.nanoTime() - startTime;
         log.traceLog("Ambiguity resolution : " //$NON-NLS-1$
-                + (System.currentTimeMillis() - startTime) + "ms"); //$NON-NLS-1$
+                + (resolutionTime / 1000000) + "ms"); //$NON-NLS-1$
         IASTTranslationUnit result = getTranslationUnit();
+        if (result instanceof ASTTranslationUnit) {
+        	((ASTTranslationUnit) result).setAmbiguityResolutionTime(resolutionTime);
+        }
         nullifyTranslationUnit();
         result.freeze(); // make the AST immutable
         return result;
@@ -1288,6 +1319,11 @@ public abstract class AbstractGNUSourceCodeParser implements ISourceCodeParser {
             logException("translationUnit::createCompilationUnit()", e); //$NON-NLS-1$
             return;
         }
+		if (fRecordResolvedAmbiguities) {
+			final IASTTranslationUnit tu= getTranslationUnit();
+			if (tu instanceof ASTTranslationUnit)
+				((ASTTranslationUnit) tu).setRecordResolvedAmbiguities();
+		}
         parseTranslationUnit();
     }
 
@@ -1348,6 +1384,11 @@ public abstract class AbstractGNUSourceCodeParser implements ISourceCodeParser {
 				return;
 			}
 
+			if (fReusableDeclarations != null && active && !(tu instanceof IASTCompositeTypeSpecifier)
+					&& reuseDeclaration(tu, next)) {
+				continue;
+			}
+
 			final int offset = next.getOffset();
 			declarationMark= next;
 			next= null; // don't hold on to the token while parsing namespaces, class bodies, etc.
@@ -1374,6 +1415,51 @@ public abstract class AbstractGNUSourceCodeParser implements ISourceCodeParser {
 		}
 	}
 
+	/**
+	 * Attempts to copy the declaration of the previous AST that starts with the given token,
+	 * and to skip the tokens of the declaration.
+	 */
+	private boolean reuseDeclaration(final IASTDeclarationListOwner parent, IToken first) {
+		final ILocationResolver lr= scanner.getLocationResolver();
+		if (lr == null)
+			return false;
+		final IASTDeclaration previous= fReusableDeclarations.getDeclaration(first, lr);
+		if (previous == null)
+			return false;
+
+		final ASTNode node= (ASTNode) previous;
+		final int delta= first.getOffset() - node.getOffset();
+		final int endOffset= node.getOffset() + node.getLength() + delta;
+		final IASTDeclaration copy;
+		try {
+			copy= ReusableDeclarations.copy(previous, delta);
+		} catch (UnsupportedOperationException e) {
+			return false;
+		}
+
+		IToken mark= null;
+		try {
+			mark= mark();
+			while (true) {
+				final IToken t= consume();
+				final int end= t.getEndOffset();
+				if (end == endOffset)
+					break;
+				if (end > endOffset || t.getType() == IToken.tEOC) {
+					backup(mark);
+					return false;
+				}
+			}
+		} catch (EndOfFileException e) {
+			if (mark != null)
+				backup(mark);
+			return false;
+		}
+		addDeclaration(parent, copy, true);
+		fReusedDeclarationCount++;
+		return true;
+	}
+
 	private void addDeclaration(final IASTDeclarationListOwner parent, IASTDeclaration declaration,
 			final boolean active) {
 		if (!active) {
@@ -0,0 +1,24 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.dom.parser;
+
+import org.eclipse.cdt.core.dom.ast.IASTNode;
+
+/**
+ * A node whose children are created when they are first accessed. Visiting the node creates
+ * the children, unless the visitor skips the node.
+ */
+public interface IASTLazyNode extends IASTNode {
+	/**
+	 * Returns whether the children of this node have been created.
+	 */
+	boolean isExpanded();
+}
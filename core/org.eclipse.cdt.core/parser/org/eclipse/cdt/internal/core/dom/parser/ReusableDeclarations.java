@@ -0,0 +1,301 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.dom.parser;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.cdt.core.dom.ast.ASTGenericVisitor;
+import org.eclipse.cdt.core.dom.ast.IASTDeclaration;
+import org.eclipse.cdt.core.dom.ast.IASTDeclarationListOwner;
+import org.eclipse.cdt.core.dom.ast.IASTFileLocation;
+import org.eclipse.cdt.core.dom.ast.IASTName;
+import org.eclipse.cdt.core.dom.ast.IASTNode;
+import org.eclipse.cdt.core.dom.ast.IASTNode.CopyStyle;
+import org.eclipse.cdt.core.dom.ast.IASTPreprocessorMacroExpansion;
+import org.eclipse.cdt.core.dom.ast.IASTProblem;
+import org.eclipse.cdt.core.dom.ast.IASTProblemDeclaration;
+import org.eclipse.cdt.core.dom.ast.IASTProblemHolder;
+import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPASTFunctionWithTryBlock;
+import org.eclipse.cdt.core.parser.FileContent;
+import org.eclipse.cdt.core.parser.IToken;
+import org.eclipse.cdt.core.parser.util.CharArrayUtils;
+import org.eclipse.cdt.internal.core.parser.scanner.AbstractCharArray;
+import org.eclipse.cdt.internal.core.parser.scanner.ILocationResolver;
+import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContent;
+
+/**
+ * Declarations of a previous AST of a translation unit that can be reused when the file
+ * is parsed again after its contents changed in a single region. A declaration at namespace
+ * scope is reused when it lies completely before or after the changed region and the change
+ * cannot affect the way it is preprocessed, parsed or disambiguated. The parser then copies
+ * the declaration instead of parsing it, the preprocessor still runs on the entire file.
+ */
+public final class ReusableDeclarations {
+	private static final char[] LINE_MACRO= "__LINE__".toCharArray(); //$NON-NLS-1$
+
+	private final ASTTranslationUnit fPrevious;
+	private final ILocationResolver fLocationResolver;
+	private final AbstractCharArray fSource;
+	private final String fFilePath;
+	/** Length of the common prefix of the previous and the new contents */
+	private final int fPrefix;
+	/** End of the changed region in the previous contents */
+	private final int fOldEnd;
+	/** End of the changed region in the new contents */
+	private final int fNewEnd;
+	private final boolean fLinesChanged;
+	/** Declarations at namespace scope outside of the changed region by file offset */
+	private final Map<Integer, IASTDeclaration> fDeclarations= new HashMap<Integer, IASTDeclaration>();
+
+	/**
+	 * Compares the new contents of a file with the contents the previous AST was created for.
+	 * Returns <code>null</code> if the changes do not allow for reusing declarations.
+	 */
+	public static ReusableDeclarations create(IASTTranslationUnit previous, FileContent content) {
+		if (!(previous instanceof ASTTranslationUnit) || !(content instanceof InternalFileContent))
+			return null;
+		final ASTTranslationUnit tu= (ASTTranslationUnit) previous;
+		// Without knowing where ambiguities were resolved, no declaration can be reused safely.
+		if (!tu.isRecordingResolvedAmbiguities())
+			return null;
+		final ILocationResolver resolver= (ILocationResolver) tu.getAdapter(ILocationResolver.class);
+		if (resolver == null)
+			return null;
+		final String path= resolver.getTranslationUnitPath();
+		if (path == null || !path.equals(content.getFileLocation()))
+			return null;
+		final AbstractCharArray oldSource= resolver.getTranslationUnitSource();
+		final AbstractCharArray newSource= ((InternalFileContent) content).getSource();
+		if (oldSource == null || newSource == null)
+			return null;
+
+		final int oldLength= oldSource.getLength();
+		final int newLength= newSource.getLength();
+		final int minLength= Math.min(oldLength, newLength);
+		int prefix= 0;
+		while (prefix < minLength && oldSource.get(prefix) == newSource.get(prefix)) {
+			prefix++;
+		}
+		int suffix= 0;
+		while (suffix < minLength - prefix &&
+				oldSource.get(oldLength - suffix - 1) == newSource.get(newLength - suffix - 1)) {
+			suffix++;
+		}
+		final int oldEnd= oldLength - suffix;
+		final int newEnd= newLength - suffix;
+		if (!isSafeChange(oldSource, prefix, oldEnd) || !isSafeChange(newSource, prefix, newEnd))
+			return null;
+
+		final boolean linesChanged=
+				countLines(oldSource, prefix, oldEnd) != countLines(newSource, prefix, newEnd);
+		return new ReusableDeclarations(tu, resolver, oldSource, path, prefix, oldEnd, newEnd, linesChanged);
+	}
+
+	/**
+	 * Checks whether a change of the given region cannot affect comments, literals, line
+	 * splices or preprocessor directives. All lines touched by the region are checked.
+	 */
+	private static boolean isSafeChange(AbstractCharArray source, int begin, int end) {
+		int from= begin;
+		while (from > 0 && source.get(from - 1) != '\n') {
+			from--;
+		}
+		int to= end;
+		while (source.isValidOffset(to) && source.get(to) != '\n') {
+			to++;
+		}
+		for (int i= from; i < to; i++) {
+			final char c= source.get(i);
+			final char next= i + 1 < to ? source.get(i + 1) : 0;
+			switch (c) {
+			case '#':
+			case '"':
+			case '\'':
+			case '\\':
+				return false;
+			case '/':
+				if (next == '/' || next == '*')
+					return false;
+				break;
+			case '*':
+				if (next == '/')
+					return false;
+				break;
+			case '%':
+				if (next == ':')
+					return false;
+				break;
+			case '?':
+				if (next == '?')
+					return false;
+				break;
+			}
+		}
+		return true;
+	}
+
+	private static int countLines(AbstractCharArray source, int begin, int end) {
+		int count= 0;
+		for (int i= begin; i < end; i++) {
+			if (source.get(i) == '\n')
+				count++;
+		}
+		return count;
+	}
+
+	private ReusableDeclarations(ASTTranslationUnit previous, ILocationResolver resolver,
+			AbstractCharArray source, String path, int prefix, int oldEnd, int newEnd,
+			boolean linesChanged) {
+		fPrevious= previous;
+		fLocationResolver= resolver;
+		fSource= source;
+		fFilePath= path;
+		fPrefix= prefix;
+		fOldEnd= oldEnd;
+		fNewEnd= newEnd;
+		fLinesChanged= linesChanged;
+		collectDeclarations(previous.getDeclarations());
+	}
+
+	private void collectDeclarations(IASTDeclaration[] declarations) {
+		for (IASTDeclaration declaration : declarations) {
+			if (declaration instanceof IASTDeclarationListOwner) {
+				collectDeclarations(((IASTDeclarationListOwner) declaration).getDeclarations(false));
+			}
+			final IASTFileLocation loc= declaration.getFileLocation();
+			if (loc == null || !fFilePath.equals(loc.getFileName()))
+				continue;
+			final int start= loc.getNodeOffset();
+			final int end= start + loc.getNodeLength();
+			if (end <= fPrefix || start > fOldEnd) {
+				fDeclarations.put(start, declaration);
+			}
+		}
+	}
+
+	/**
+	 * Returns the declaration of the previous AST that starts at the same place as the given token
+	 * of the new translation unit and can be reused, or <code>null</code>.
+	 */
+	public IASTDeclaration getDeclaration(IToken first, ILocationResolver resolver) {
+		final IASTFileLocation loc= resolver.getMappedFileLocation(first.getOffset(), first.getLength());
+		if (loc == null || !fFilePath.equals(loc.getFileName()))
+			return null;
+
+		final int newStart= loc.getNodeOffset();
+		final int oldStart;
+		final boolean beforeChange;
+		if (newStart < fPrefix) {
+			oldStart= newStart;
+			beforeChange= true;
+		} else if (newStart > fNewEnd) {
+			oldStart= newStart - fNewEnd + fOldEnd;
+			beforeChange= false;
+		} else {
+			return null;
+		}
+		final IASTDeclaration declaration= fDeclarations.get(oldStart);
+		if (declaration == null || !isReusable(declaration, beforeChange))
+			return null;
+		return declaration;
+	}
+
+	private boolean isReusable(IASTDeclaration declaration, boolean beforeChange) {
+		if (declaration instanceof IASTProblemDeclaration || declaration instanceof ICPPASTFunctionWithTryBlock)
+			return false;
+
+		final IASTFileLocation loc= declaration.getFileLocation();
+		final int start= loc.getNodeOffset();
+		final int end= start + loc.getNodeLength();
+		if (beforeChange) {
+			// Make sure the declaration cannot be continued by the changed text.
+			final char last= end > 0 ? fSource.get(end - 1) : 0;
+			if (last != ';' && last != '}')
+				return false;
+		} else {
+			// Make sure the declaration cannot be merged with the changed text, and that it
+			// does not depend on the changed declarations.
+			final char previous= fSource.get(start - 1);
+			if (!Character.isWhitespace(previous) && previous != ';' && previous != '{' && previous != '}')
+				return false;
+			if (fPrevious.hasResolvedAmbiguity(declaration))
+				return false;
+			if (fLinesChanged && usesLineMacro(loc))
+				return false;
+		}
+		for (int i= start; i < end; i++) {
+			if (fSource.get(i) == '#')
+				return false;
+		}
+		return !containsProblem(declaration);
+	}
+
+	private boolean usesLineMacro(IASTFileLocation loc) {
+		for (IASTPreprocessorMacroExpansion expansion : fLocationResolver.getMacroExpansions(loc)) {
+			if (isLineMacro(expansion.getMacroReference()))
+				return true;
+			for (IASTName name : expansion.getNestedMacroReferences()) {
+				if (isLineMacro(name))
+					return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isLineMacro(IASTName name) {
+		return CharArrayUtils.equals(name.getSimpleID(), LINE_MACRO);
+	}
+
+	private static boolean containsProblem(IASTNode node) {
+		final boolean[] result= { false };
+		node.accept(new ASTGenericVisitor(true) {
+			@Override
+			protected int genericVisit(IASTNode n) {
+				if (n instanceof IASTProblem || n instanceof IASTProblemHolder) {
+					result[0]= true;
+					return PROCESS_ABORT;
+				}
+				if (n instanceof IASTLazyNode && !((IASTLazyNode) n).isExpanded())
+					return PROCESS_SKIP;
+				return PROCESS_CONTINUE;
+			}
+		});
+		return result[0];
+	}
+
+	/**
+	 * Creates a copy of a declaration of the previous AST for the new AST. The offsets of the
+	 * copied nodes are moved by the given delta.
+	 */
+	public static IASTDeclaration copy(IASTDeclaration declaration, final int delta) {
+		final IASTDeclaration copy= declaration.copy(CopyStyle.withoutLocations);
+		if (delta != 0) {
+			copy.accept(new ASTGenericVisitor(true) {
+				{
+					shouldVisitTokens= true;
+				}
+				@Override
+				protected int genericVisit(IASTNode n) {
+					if (n instanceof ASTNode) {
+						final ASTNode node= (ASTNode) n;
+						node.setOffset(node.getOffset() + delta);
+					}
+					if (n instanceof IASTLazyNode && !((IASTLazyNode) n).isExpanded())
+						return PROCESS_SKIP;
+					return PROCESS_CONTINUE;
+				}
+			});
+		}
+		return copy;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009 Wind River Systems, Inc. and others.
+ * Copyright (c) 2009, 2014 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,23 +16,39 @@ import org.eclipse.cdt.core.dom.ast.IASTDeclarator;
 import org.eclipse.cdt.core.dom.ast.IASTExpression;
 import org.eclipse.cdt.core.dom.ast.IASTNode;
 import org.eclipse.cdt.core.dom.ast.IASTParameterDeclaration;
+import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
 import org.eclipse.cdt.core.dom.ast.IScope;
 import org.eclipse.cdt.core.dom.ast.c.ICCompositeTypeScope;
 import org.eclipse.cdt.internal.core.dom.parser.ASTAmbiguousNode;
+import org.eclipse.cdt.internal.core.dom.parser.ASTTranslationUnit;
 
 /**
  * Visitor to resolve ast ambiguities in the right order, which is simply a depth
  * first traversal.
  */
 public final class CASTAmbiguityResolver extends ASTVisitor {
+	/** The translation unit recording the resolved ambiguities, or <code>null</code> */
+	private ASTTranslationUnit fRecorder;
+
 	public CASTAmbiguityResolver() {
 		super(false);
 		includeInactiveNodes= true;
 		shouldVisitAmbiguousNodes= true;
+		shouldVisitTranslationUnit= true;
+	}
+
+	@Override
+	public int visit(IASTTranslationUnit tu) {
+		if (tu instanceof ASTTranslationUnit && ((ASTTranslationUnit) tu).isRecordingResolvedAmbiguities()) {
+			fRecorder= (ASTTranslationUnit) tu;
+		}
+		return PROCESS_CONTINUE;
 	}
 
 	@Override
 	public int visit(ASTAmbiguousNode astAmbiguousNode) {
+		if (fRecorder != null)
+			fRecorder.addResolvedAmbiguity(astAmbiguousNode.getParent());
 		IASTNode node= astAmbiguousNode.resolveAmbiguity(this);
 		if (node instanceof IASTDeclarator || node instanceof IASTParameterDeclaration 
 				|| node instanceof IASTDeclaration) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2011 Wind River Systems, Inc. and others.
+ * Copyright (c) 2009, 2014 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,45 +12,324 @@
 package org.eclipse.cdt.internal.core.dom.parser.cpp;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.cdt.core.dom.ast.ASTNodeProperty;
 import org.eclipse.cdt.core.dom.ast.ASTVisitor;
+import org.eclipse.cdt.core.dom.ast.DOMException;
 import org.eclipse.cdt.core.dom.ast.IASTCompositeTypeSpecifier;
 import org.eclipse.cdt.core.dom.ast.IASTDeclSpecifier;
 import org.eclipse.cdt.core.dom.ast.IASTDeclaration;
 import org.eclipse.cdt.core.dom.ast.IASTDeclarator;
 import org.eclipse.cdt.core.dom.ast.IASTExpression;
+import org.eclipse.cdt.core.dom.ast.IASTFunctionDeclarator;
 import org.eclipse.cdt.core.dom.ast.IASTFunctionDefinition;
 import org.eclipse.cdt.core.dom.ast.IASTInitializer;
 import org.eclipse.cdt.core.dom.ast.IASTName;
 import org.eclipse.cdt.core.dom.ast.IASTNode;
 import org.eclipse.cdt.core.dom.ast.IASTParameterDeclaration;
+import org.eclipse.cdt.core.dom.ast.IASTSimpleDeclSpecifier;
 import org.eclipse.cdt.core.dom.ast.IASTSimpleDeclaration;
+import org.eclipse.cdt.core.dom.ast.IASTStatement;
 import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+import org.eclipse.cdt.core.dom.ast.IBinding;
+import org.eclipse.cdt.core.dom.ast.IEnumeration;
 import org.eclipse.cdt.core.dom.ast.IScope;
+import org.eclipse.cdt.core.dom.ast.ITypedef;
+import org.eclipse.cdt.core.dom.ast.IVariable;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPASTCompositeTypeSpecifier;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPASTDeclSpecifier;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPASTElaboratedTypeSpecifier;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPASTNamespaceDefinition;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPASTTemplateDeclaration;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPASTTemplateId;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPASTTemplateSpecialization;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPClassTemplate;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPFunction;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateDefinition;
 import org.eclipse.cdt.internal.core.dom.parser.ASTAmbiguousNode;
 import org.eclipse.cdt.internal.core.dom.parser.ASTQueries;
+import org.eclipse.cdt.internal.core.dom.parser.ASTTranslationUnit;
+import org.eclipse.cdt.internal.core.dom.parser.IASTInternalScope;
+import org.eclipse.cdt.internal.core.dom.parser.IASTLazyNode;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.CPPSemantics;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.CPPVisitor;
 
 /**
- * Visitor to resolve AST ambiguities in the right order
+ * Visitor to resolve AST ambiguities in the right order.
+ * <p>
+ * The bodies of functions at namespace scope are resolved after the rest of the translation
+ * unit. When requested, and the translation unit contains enough of them, the ambiguities and
+ * the names of these bodies are resolved on a fork-join pool. Before that, all names outside of
+ * these bodies are resolved and the lazily computed properties of their bindings are initialized,
+ * such that the tasks only read the nodes and bindings they share. Bodies that may add
+ * declarations to shared bindings, or that are evaluated by other bodies, are resolved before
+ * the others. A name outside of its own body that a task still needs to resolve is resolved
+ * while holding a lock common to all tasks, see {@link #getSharedNameLock(IASTNode)}.
  */
 final class CPPASTAmbiguityResolver extends ASTVisitor {
+	private static final String PARALLEL_FUNCTION_BODIES = "org.eclipse.cdt.core.parser.parallelFunctionBodies"; //$NON-NLS-1$
+	private static final int PARALLEL_THRESHOLD =
+			Integer.getInteger("org.eclipse.cdt.core.parser.parallelFunctionBodiesThreshold", 32); //$NON-NLS-1$
+	private static final int BODIES_PER_TASK = 4;
+
+	/** Whether function bodies are resolved in parallel unless the parser says otherwise. */
+	static final boolean PARALLEL_BY_DEFAULT = Boolean.getBoolean(PARALLEL_FUNCTION_BODIES);
+
+	private static class PoolHolder {
+		static final ForkJoinPool POOL = new ForkJoinPool();
+	}
+
+	/** Number of parallel resolutions in progress, avoids the thread local lookup otherwise. */
+	private static final AtomicInteger sParallelResolutions= new AtomicInteger();
+	private static final ThreadLocal<Confinement> sConfinement= new ThreadLocal<>();
+
+	/**
+	 * The function definition a task is resolving, and the lock for resolving other names.
+	 */
+	private static final class Confinement {
+		final IASTNode fOwnedNode;
+		final Object fSharedLock;
+
+		Confinement(IASTNode ownedNode, Object sharedLock) {
+			fOwnedNode= ownedNode;
+			fSharedLock= sharedLock;
+		}
+	}
+
+	/**
+	 * Returns the lock that has to be held while the binding of the given name is computed, or
+	 * <code>null</code> if the name is confined to the current thread. The latter is the case
+	 * unless the current thread resolves function bodies in parallel and the name does not
+	 * belong to the function definition it is working on.
+	 */
+	static Object getSharedNameLock(IASTNode name) {
+		if (sParallelResolutions.get() == 0)
+			return null;
+		final Confinement confinement= sConfinement.get();
+		if (confinement == null || ASTQueries.isAncestorOf(confinement.fOwnedNode, name))
+			return null;
+		return confinement.fSharedLock;
+	}
+
+	/**
+	 * Resolves the ambiguities and the names of a range of function bodies.
+	 */
+	private static final class ResolveBodiesTask extends RecursiveAction {
+		private final IASTNode[] fNodes;
+		private final int fFrom;
+		private final int fTo;
+		private final Object fSharedLock;
+		private final ASTTranslationUnit fRecorder;
+
+		ResolveBodiesTask(IASTNode[] nodes, int from, int to, Object sharedLock, ASTTranslationUnit recorder) {
+			fNodes= nodes;
+			fFrom= from;
+			fTo= to;
+			fSharedLock= sharedLock;
+			fRecorder= recorder;
+		}
+
+		@Override
+		protected void compute() {
+			if (fTo - fFrom > BODIES_PER_TASK) {
+				final int mid= (fFrom + fTo) >>> 1;
+				invokeAll(new ResolveBodiesTask(fNodes, fFrom, mid, fSharedLock, fRecorder),
+						new ResolveBodiesTask(fNodes, mid, fTo, fSharedLock, fRecorder));
+				return;
+			}
+			for (int i= fFrom; i < fTo; i++) {
+				final IASTNode node= fNodes[i];
+				sConfinement.set(new Confinement(node, fSharedLock));
+				try {
+					resolveAmbiguities(node, fRecorder);
+					node.accept(new NameResolver());
+				} finally {
+					sConfinement.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Resolves all names outside of the function definitions resolved in parallel, except for
+	 * their declarators, populates the scopes and computes the lazily initialized properties
+	 * of the bindings.
+	 */
+	private static final class SharedNameResolver extends ASTVisitor {
+		private final Set<IASTNode> fParallelNodes;
+		private final Set<IBinding> fInitialized= new HashSet<>();
+
+		SharedNameResolver(Set<IASTNode> parallelNodes) {
+			fParallelNodes= parallelNodes;
+			shouldVisitTranslationUnit= true;
+			shouldVisitNamespaces= true;
+			shouldVisitDeclarations= true;
+			shouldVisitDeclSpecifiers= true;
+			shouldVisitStatements= true;
+			shouldVisitNames= true;
+			shouldVisitImplicitNames= true;
+		}
+
+		@Override
+		public int visit(IASTTranslationUnit tu) {
+			populate(tu.getScope());
+			return PROCESS_CONTINUE;
+		}
+
+		@Override
+		public int visit(ICPPASTNamespaceDefinition namespaceDefinition) {
+			populate(namespaceDefinition.getScope());
+			return PROCESS_CONTINUE;
+		}
+
+		@Override
+		public int visit(IASTDeclSpecifier declSpec) {
+			if (declSpec instanceof ICPPASTCompositeTypeSpecifier)
+				populate(((ICPPASTCompositeTypeSpecifier) declSpec).getScope());
+			return PROCESS_CONTINUE;
+		}
+
+		@Override
+		public int visit(IASTDeclaration declaration) {
+			if (fParallelNodes.contains(declaration)) {
+				final IASTFunctionDefinition fdef= (IASTFunctionDefinition) declaration;
+				fdef.getDeclSpecifier().accept(this);
+				fdef.getDeclarator().accept(this);
+				return PROCESS_SKIP;
+			}
+			return PROCESS_CONTINUE;
+		}
+
+		@Override
+		public int visit(IASTStatement statement) {
+			return isUnexpanded(statement) ? PROCESS_SKIP : PROCESS_CONTINUE;
+		}
+
+		@Override
+		public int visit(IASTName name) {
+			initialize(name.resolveBinding());
+			return PROCESS_CONTINUE;
+		}
+
+		private void initialize(IBinding binding) {
+			if (binding == null || !fInitialized.add(binding))
+				return;
+			if (binding instanceof ICPPFunction) {
+				((ICPPFunction) binding).getType();
+				// Collects all declarations of the function.
+				((ICPPFunction) binding).isStatic();
+			} else if (binding instanceof IVariable) {
+				((IVariable) binding).getType();
+			} else if (binding instanceof ITypedef) {
+				((ITypedef) binding).getType();
+			} else if (binding instanceof IEnumeration) {
+				((IEnumeration) binding).getMinValue();
+				((IEnumeration) binding).getMaxValue();
+			}
+			if (binding instanceof ICPPTemplateDefinition)
+				((ICPPTemplateDefinition) binding).getTemplateParameters();
+			if (binding instanceof ICPPClassTemplate)
+				((ICPPClassTemplate) binding).getPartialSpecializations();
+			if (binding instanceof ICPPInternalClassTemplate) {
+				try {
+					((ICPPInternalClassTemplate) binding).asDeferredInstance();
+				} catch (DOMException e) {
+				}
+			}
+			if (binding instanceof ICPPInternalClassTypeMixinHost)
+				((ICPPInternalClassTypeMixinHost) binding).checkForDefinition();
+		}
+
+		private static void populate(IScope scope) {
+			if (scope instanceof IASTInternalScope)
+				((IASTInternalScope) scope).populateCache();
+		}
+	}
+
+	/**
+	 * Looks for declarations in a function definition that are added to bindings declared
+	 * outside of the function, i.e. block scope declarations of functions, extern variables
+	 * and friends. Considers all alternatives of ambiguous nodes.
+	 */
+	private static final class SharedDeclarationFinder extends ASTVisitor {
+		boolean fFound;
+
+		SharedDeclarationFinder() {
+			shouldVisitDeclarations= true;
+			shouldVisitAmbiguousNodes= true;
+		}
+
+		@Override
+		public int visit(ASTAmbiguousNode node) {
+			for (IASTNode alternative : node.getNodes()) {
+				if (!alternative.accept(this))
+					return PROCESS_ABORT;
+			}
+			return PROCESS_SKIP;
+		}
+
+		@Override
+		public int visit(IASTDeclaration declaration) {
+			if (!(declaration instanceof IASTSimpleDeclaration))
+				return PROCESS_CONTINUE;
+			final IASTSimpleDeclaration sdecl= (IASTSimpleDeclaration) declaration;
+			final IASTDeclSpecifier declSpec= sdecl.getDeclSpecifier();
+			if (declSpec.getStorageClass() == IASTDeclSpecifier.sc_extern ||
+					(declSpec instanceof ICPPASTDeclSpecifier && ((ICPPASTDeclSpecifier) declSpec).isFriend())) {
+				fFound= true;
+				return PROCESS_ABORT;
+			}
+			if (!(declaration.getParent() instanceof IASTCompositeTypeSpecifier)) {
+				for (IASTDeclarator dtor : sdecl.getDeclarators()) {
+					if (ASTQueries.findTypeRelevantDeclarator(dtor) instanceof IASTFunctionDeclarator) {
+						fFound= true;
+						return PROCESS_ABORT;
+					}
+				}
+			}
+			return PROCESS_CONTINUE;
+		}
+	}
+
+	/**
+	 * Resolves all names of a function body.
+	 */
+	private static final class NameResolver extends ASTVisitor {
+		NameResolver() {
+			shouldVisitNames= true;
+			shouldVisitImplicitNames= true;
+		}
+
+		@Override
+		public int visit(IASTName name) {
+			name.resolveBinding();
+			return PROCESS_CONTINUE;
+		}
+	}
+
+	private final boolean fParallel;
 	private int fSkipInitializers= 0;
 	private int fDeferFunctions= 1;
 	private HashSet<IASTDeclaration> fRepopulate= new HashSet<>();
 	private Deque<Deque<IASTNode>> fDeferredNodes= new ArrayDeque<>();
+	/** The translation unit recording the resolved ambiguities, or <code>null</code> */
+	private ASTTranslationUnit fRecorder;
 
 	public CPPASTAmbiguityResolver() {
+		this(PARALLEL_BY_DEFAULT);
+	}
+
+	CPPASTAmbiguityResolver(boolean parallel) {
 		super(false);
+		fParallel= parallel;
 		includeInactiveNodes= true;
 		shouldVisitAmbiguousNodes= true;
 		shouldVisitDeclarations= true;
@@ -61,6 +340,8 @@ final class CPPASTAmbiguityResolver extends ASTVisitor {
 
 	@Override
 	public int visit(ASTAmbiguousNode astAmbiguousNode) {
+		if (fRecorder != null)
+			fRecorder.addResolvedAmbiguity(astAmbiguousNode.getParent());
 		IASTNode node= astAmbiguousNode.resolveAmbiguity(this);
 		if (node instanceof IASTDeclarator) {
 			while (node != null) {
@@ -119,8 +400,33 @@ final class CPPASTAmbiguityResolver extends ASTVisitor {
 		return PROCESS_CONTINUE;
 	}
 
+	/**
+	 * Resolves the ambiguities of a node below the level of declarations at namespace and
+	 * class scope, e.g. the body of a function.
+	 * @param recorder the translation unit recording the resolved ambiguities, or <code>null</code>.
+	 */
+	static void resolveAmbiguities(IASTNode node, ASTTranslationUnit recorder) {
+		CPPASTAmbiguityResolver resolver= new CPPASTAmbiguityResolver(false);
+		resolver.fDeferFunctions= 0;
+		resolver.fRecorder= recorder;
+		node.accept(resolver);
+	}
+
 	@Override
 	public int visit(IASTDeclaration decl) {
+		if (decl instanceof IASTFunctionDefinition &&
+				isUnexpanded(((IASTFunctionDefinition) decl).getBody())) {
+			// The body resolves its ambiguities when it is parsed.
+			final IASTFunctionDefinition fdef= (IASTFunctionDefinition) decl;
+			fSkipInitializers++;
+			ASTQueries.findOutermostDeclarator(fdef.getDeclarator()).accept(this);
+			fSkipInitializers--;
+			fdef.getDeclSpecifier().accept(this);
+			if (fRepopulate.remove(decl)) {
+				repopulateScope(decl);
+			}
+			return PROCESS_SKIP;
+		}
 		if (fDeferFunctions > 0 && decl instanceof IASTFunctionDefinition) {
 			final IASTFunctionDefinition fdef= (IASTFunctionDefinition) decl;
 
@@ -137,6 +443,10 @@ final class CPPASTAmbiguityResolver extends ASTVisitor {
 		return PROCESS_CONTINUE;
 	}
 
+	private static boolean isUnexpanded(IASTNode node) {
+		return node instanceof IASTLazyNode && !((IASTLazyNode) node).isExpanded();
+	}
+
 	@Override
 	public int leave(IASTDeclaration declaration) {
 		if (fRepopulate.remove(declaration)) {
@@ -180,6 +490,9 @@ final class CPPASTAmbiguityResolver extends ASTVisitor {
 
 	@Override
 	public int visit(IASTTranslationUnit tu) {
+		if (tu instanceof ASTTranslationUnit && ((ASTTranslationUnit) tu).isRecordingResolvedAmbiguities()) {
+			fRecorder= (ASTTranslationUnit) tu;
+		}
 		fDeferredNodes.add(new ArrayDeque<IASTNode>());
 		return PROCESS_CONTINUE;
 	}
@@ -188,11 +501,57 @@ final class CPPASTAmbiguityResolver extends ASTVisitor {
 	public int leave(IASTTranslationUnit tu) {
 		fDeferFunctions= 0;
 		while (!fDeferredNodes.isEmpty()) {
-			processDeferredNodes(fDeferredNodes.removeLast());
+			final Deque<IASTNode> deferredNodes= fDeferredNodes.removeLast();
+			if (fParallel && fDeferredNodes.isEmpty() && deferredNodes.size() >= PARALLEL_THRESHOLD) {
+				processDeferredNodesInParallel(tu, deferredNodes);
+			} else {
+				processDeferredNodes(deferredNodes);
+			}
 		}
 		return PROCESS_CONTINUE;
 	}
 
+	private void processDeferredNodesInParallel(IASTTranslationUnit tu, Deque<IASTNode> deferredNodes) {
+		// The bodies of the functions at namespace scope can only see the declarations outside
+		// of function bodies and their own local declarations. Bodies that modify the former,
+		// or that other bodies may evaluate, are resolved first.
+		final List<IASTNode> parallelNodes= new ArrayList<>(deferredNodes.size());
+		while (!deferredNodes.isEmpty()) {
+			final IASTNode node= deferredNodes.removeFirst();
+			if (canResolveInParallel(node)) {
+				parallelNodes.add(node);
+			} else {
+				node.accept(this);
+			}
+		}
+		// Then resolve everything the remaining bodies share, such that they do not depend on
+		// each other.
+		tu.accept(new SharedNameResolver(new HashSet<>(parallelNodes)));
+		final IASTNode[] nodes= parallelNodes.toArray(new IASTNode[parallelNodes.size()]);
+		sParallelResolutions.incrementAndGet();
+		try {
+			PoolHolder.POOL.invoke(new ResolveBodiesTask(nodes, 0, nodes.length, new Object(), fRecorder));
+		} finally {
+			sParallelResolutions.decrementAndGet();
+		}
+	}
+
+	private static boolean canResolveInParallel(IASTNode node) {
+		if (!(node instanceof IASTFunctionDefinition))
+			return false;
+		final IASTDeclSpecifier declSpec= ((IASTFunctionDefinition) node).getDeclSpecifier();
+		// The bodies of constexpr functions are evaluated, and the return types of functions
+		// declared with auto may be deduced from their bodies, while resolving other bodies.
+		if (declSpec instanceof ICPPASTDeclSpecifier && ((ICPPASTDeclSpecifier) declSpec).isConstexpr())
+			return false;
+		if (declSpec instanceof IASTSimpleDeclSpecifier &&
+				((IASTSimpleDeclSpecifier) declSpec).getType() == IASTSimpleDeclSpecifier.t_auto)
+			return false;
+		final SharedDeclarationFinder finder= new SharedDeclarationFinder();
+		node.accept(finder);
+		return !finder.fFound;
+	}
+
 	private void processDeferredNodes(Deque<IASTNode> deferredNodes) {
 		int deferFunctions = fDeferFunctions;
 		fDeferFunctions = 0;
@@ -54,12 +54,20 @@ public class CPPASTCompoundStatement extends ASTAttributeOwner
     @Override
 	public void addStatement(IASTStatement statement) {
         assertNotFrozen();
+        appendStatement(statement);
+    }
+
+	/**
+	 * Adds a statement without checking whether the node is frozen, used for statements
+	 * parsed after the translation unit.
+	 */
+	void appendStatement(IASTStatement statement) {
         statements = ArrayUtil.append(statements, statement);
         if (statement != null) {
 			statement.setParent(this);
 			statement.setPropertyInParent(NESTED_STATEMENT);
 		}
-    }
+	}
 
     @Override
 	public IScope getScope() {
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.dom.parser.cpp;
+
+import org.eclipse.cdt.core.dom.ast.ASTVisitor;
+import org.eclipse.cdt.core.dom.ast.IASTCompoundStatement;
+import org.eclipse.cdt.core.dom.ast.IASTStatement;
+import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPASTTranslationUnit;
+import org.eclipse.cdt.core.dom.parser.cpp.ICPPParserExtensionConfiguration;
+import org.eclipse.cdt.core.parser.IParserLogService;
+import org.eclipse.cdt.core.parser.ParserMode;
+import org.eclipse.cdt.internal.core.dom.parser.ASTTranslationUnit;
+import org.eclipse.cdt.internal.core.dom.parser.IASTLazyNode;
+import org.eclipse.cdt.internal.core.parser.scanner.ILocationResolver;
+import org.eclipse.cdt.internal.core.parser.scanner.Token;
+import org.eclipse.cdt.internal.core.parser.scanner.TokenReplayScanner;
+
+/**
+ * Body of a function that is parsed when its statements are first accessed. The node keeps
+ * the tokens of the body as delivered by the preprocessor, such that the statements can be
+ * parsed without the preprocessor.
+ */
+public class CPPASTLazyCompoundStatement extends CPPASTCompoundStatement implements IASTLazyNode {
+	private final ICPPParserExtensionConfiguration fConfig;
+	private final IParserLogService fLog;
+	private volatile Token[] fTokens;
+	private boolean fExpanding;
+
+	public CPPASTLazyCompoundStatement(Token[] tokens, ICPPParserExtensionConfiguration config,
+			IParserLogService log) {
+		fTokens= tokens;
+		fConfig= config;
+		fLog= log;
+	}
+
+	@Override
+	public boolean isExpanded() {
+		return fTokens == null;
+	}
+
+	private void expand() {
+		if (fTokens == null)
+			return;
+
+		synchronized (this) {
+			final Token[] tokens= fTokens;
+			if (tokens == null || fExpanding)
+				return;
+
+			fExpanding= true;
+			try {
+				final IASTTranslationUnit tu= getTranslationUnit();
+				if (tu instanceof ICPPASTTranslationUnit && tu instanceof ASTTranslationUnit) {
+					final ILocationResolver resolver=
+							(ILocationResolver) ((ASTTranslationUnit) tu).getAdapter(ILocationResolver.class);
+					// The node may have been moved by an incremental parse, the tokens move with it.
+					final int delta= getOffset() - tokens[0].getOffset();
+					GNUCPPSourceParser parser= new GNUCPPSourceParser(new TokenReplayScanner(tokens, delta, resolver),
+							ParserMode.COMPLETE_PARSE, fLog, fConfig, tu.getIndex());
+					IASTCompoundStatement body= parser.parseLazyFunctionBody((ICPPASTTranslationUnit) tu);
+					if (body != null) {
+						for (IASTStatement statement : body.getStatements()) {
+							appendStatement(statement);
+						}
+						final ASTTranslationUnit ast= (ASTTranslationUnit) tu;
+						CPPASTAmbiguityResolver.resolveAmbiguities(this,
+								ast.isRecordingResolvedAmbiguities() ? ast : null);
+					}
+					if (isFrozen()) {
+						ASTTranslationUnit.freeze(this);
+					}
+				}
+			} finally {
+				fExpanding= false;
+				fTokens= null;
+			}
+		}
+	}
+
+	@Override
+	public IASTStatement[] getStatements() {
+		expand();
+		return super.getStatements();
+	}
+
+	@Override
+	public CPPASTCompoundStatement copy(CopyStyle style) {
+		synchronized (this) {
+			final Token[] tokens= fTokens;
+			if (tokens != null && !fExpanding) {
+				// Share the tokens, the copy is parsed independently.
+				return copy(new CPPASTLazyCompoundStatement(tokens, fConfig, fLog), style);
+			}
+		}
+		return super.copy(style);
+	}
+
+	@Override
+	public boolean accept(ASTVisitor action) {
+		if (action.shouldVisitStatements) {
+			switch (action.visit(this)) {
+			case ASTVisitor.PROCESS_ABORT: return false;
+			case ASTVisitor.PROCESS_SKIP: return true;
+			default: break;
+			}
+		}
+
+		// The statements are parsed only when the visitor is interested in them.
+		if (!acceptByAttributeSpecifiers(action))
+			return false;
+		for (IASTStatement statement : getStatements()) {
+			if (!statement.accept(action))
+				return false;
+		}
+
+		if (action.shouldVisitStatements) {
+			switch (action.leave(this)) {
+			case ASTVisitor.PROCESS_ABORT: return false;
+			case ASTVisitor.PROCESS_SKIP: return true;
+			default: break;
+			}
+		}
+		return true;
+	}
+}
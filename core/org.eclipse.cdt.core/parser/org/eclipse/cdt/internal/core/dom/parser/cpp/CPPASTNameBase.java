@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2012 Wind River Systems, Inc. and others.
+ * Copyright (c) 2008, 2014 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -67,7 +67,9 @@ public abstract class CPPASTNameBase extends ASTNode implements ICPPASTName {
 	
 	private IBinding fBinding;
 	private byte fResolutionDepth;
-	private boolean fIsFinal;
+	// Volatile, such that a final binding can be read without locking while function bodies
+	// are resolved in parallel, see CPPASTAmbiguityResolver.
+	private volatile boolean fIsFinal;
 
 	public final void incResolutionDepth() {
 		if (fBinding == null && ++fResolutionDepth > MAX_RESOLUTION_DEPTH) {
@@ -87,6 +89,20 @@ public abstract class CPPASTNameBase extends ASTNode implements ICPPASTName {
 	 */
 	@Override
 	public IBinding resolvePreBinding() {
+		if (fIsFinal) {
+			final IBinding binding= fBinding;
+			if (binding != null)
+				return binding;
+		}
+		final Object lock= CPPASTAmbiguityResolver.getSharedNameLock(this);
+		if (lock == null)
+			return doResolvePreBinding();
+		synchronized (lock) {
+			return doResolvePreBinding();
+		}
+	}
+
+	private IBinding doResolvePreBinding() {
     	if (fBinding == null) {
     		if (++fResolutionDepth > MAX_RESOLUTION_DEPTH) {
     			setBinding(createRecursionResolvingBinding());
@@ -99,6 +115,20 @@ public abstract class CPPASTNameBase extends ASTNode implements ICPPASTName {
 	
     @Override
 	public IBinding resolveBinding() {
+		if (fIsFinal) {
+			final IBinding binding= fBinding;
+			if (binding != null)
+				return binding;
+		}
+		final Object lock= CPPASTAmbiguityResolver.getSharedNameLock(this);
+		if (lock == null)
+			return doResolveBinding();
+		synchronized (lock) {
+			return doResolveBinding();
+		}
+    }
+
+	private IBinding doResolveBinding() {
     	if (fBinding == null) {
     		if (++fResolutionDepth > MAX_RESOLUTION_DEPTH) {
     			setBinding(createRecursionResolvingBinding());
@@ -138,6 +168,17 @@ public abstract class CPPASTNameBase extends ASTNode implements ICPPASTName {
      */
     @Override
 	public IBinding getBinding() {
+		if (fIsFinal)
+			return fBinding;
+		final Object lock= CPPASTAmbiguityResolver.getSharedNameLock(this);
+		if (lock == null)
+			return doGetBinding();
+		synchronized (lock) {
+			return doGetBinding();
+		}
+    }
+
+	private IBinding doGetBinding() {
     	final IBinding cand= fBinding;
         if (cand == null)
         	return null;
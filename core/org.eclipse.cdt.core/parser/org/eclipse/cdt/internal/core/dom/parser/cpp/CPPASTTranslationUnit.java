@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2011 IBM Corporation and others.
+ * Copyright (c) 2004, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -187,6 +187,14 @@ public class CPPASTTranslationUnit extends ASTTranslationUnit implements ICPPAST
 	public void resolveAmbiguities() {
 		accept(new CPPASTAmbiguityResolver()); 
 	}
+
+	/**
+	 * Resolves the ambiguities of this translation unit, the bodies of the functions at
+	 * namespace scope are resolved in parallel if requested.
+	 */
+	public void resolveAmbiguities(boolean parallelFunctionBodies) {
+		accept(new CPPASTAmbiguityResolver(parallelFunctionBodies));
+	}
 	
 	@Override
 	protected IType createType(IASTTypeId typeid) {
@@ -1,5 +1,5 @@
                                                    /*******************************************************************************
- * Copyright (c) 2009, 2011 Wind River Systems, Inc. and others.
+ * Copyright (c) 2009, 2014 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -30,7 +30,7 @@ import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.CPPTemplates;
  */
 public class CPPClassTemplatePartialSpecializationSpecialization extends CPPClassSpecialization
 		implements ICPPClassTemplatePartialSpecializationSpecialization, ICPPInternalClassTemplate {
-	private ObjectMap instances;
+	private CPPInstanceMap instances;
 	private ICPPDeferredClassInstance fDeferredInstance;
 	private final ICPPClassTemplate fClassTemplate;
 	private final ICPPTemplateArgument[] fArguments;
@@ -51,16 +51,14 @@ public class CPPClassTemplatePartialSpecializationSpecialization extends CPPClas
 	@Override
 	public synchronized final void addInstance(ICPPTemplateArgument[] arguments, ICPPTemplateInstance instance) {
 		if (instances == null)
-			instances = new ObjectMap(2);
-		String key= ASTTypeUtil.getArgumentListString(arguments, true);
-		instances.put(key, instance);
+			instances = new CPPInstanceMap();
+		instances.put(arguments, instance);
 	}
 
 	@Override
 	public synchronized final ICPPTemplateInstance getInstance(ICPPTemplateArgument[] arguments) {
 		if (instances != null) {
-			String key= ASTTypeUtil.getArgumentListString(arguments, true);
-			return (ICPPTemplateInstance) instances.get(key);
+			return instances.get(arguments);
 		}
 		return null;
 	}
@@ -68,11 +66,7 @@ public class CPPClassTemplatePartialSpecializationSpecialization extends CPPClas
 	@Override
 	public synchronized ICPPTemplateInstance[] getAllInstances() {
 		if (instances != null) {
-			ICPPTemplateInstance[] result= new ICPPTemplateInstance[instances.size()];
-			for (int i= 0; i < instances.size(); i++) {
-				result[i]= (ICPPTemplateInstance) instances.getAt(i);
-			}
-			return result;
+			return instances.getAll();
 		}
 		return ICPPTemplateInstance.EMPTY_TEMPLATE_INSTANCE_ARRAY;
 	}
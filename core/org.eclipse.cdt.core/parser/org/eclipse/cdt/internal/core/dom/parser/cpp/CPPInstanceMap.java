@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.dom.parser.cpp;
+
+import static org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.SemanticUtil.CVTYPE;
+import static org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.SemanticUtil.TDEF;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.cdt.core.dom.ast.IArrayType;
+import org.eclipse.cdt.core.dom.ast.IBasicType;
+import org.eclipse.cdt.core.dom.ast.IBinding;
+import org.eclipse.cdt.core.dom.ast.IPointerType;
+import org.eclipse.cdt.core.dom.ast.IType;
+import org.eclipse.cdt.core.dom.ast.IValue;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPParameterPackType;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPReferenceType;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateArgument;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateInstance;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateParameter;
+import org.eclipse.cdt.core.parser.util.CharArrayUtils;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.SemanticUtil;
+
+/**
+ * Thread-safe map from template arguments to the instances of a template, used by the
+ * implementations of {@link ICPPInstanceCache} for the AST and the index. The arguments are
+ * compared structurally, such that no signature needs to be computed for a lookup.
+ */
+public final class CPPInstanceMap {
+	/**
+	 * Key for a list of template arguments. The hash code depends only on properties that are
+	 * equal for arguments with the same value, arguments with equal hash codes are compared by
+	 * their types and values.
+	 */
+	private static final class Key {
+		private final ICPPTemplateArgument[] fArguments;
+		private final int fHash;
+
+		Key(ICPPTemplateArgument[] arguments) {
+			fArguments= arguments;
+			int hash= arguments.length;
+			for (ICPPTemplateArgument arg : arguments) {
+				hash= 31 * hash + hashCode(arg);
+			}
+			fHash= hash;
+		}
+
+		private static int hashCode(ICPPTemplateArgument arg) {
+			final IValue value= arg.getNonTypeValue();
+			if (value != null)
+				return CharArrayUtils.hash(value.getSignature());
+			return hashCode(arg.getTypeValue());
+		}
+
+		private static int hashCode(IType type) {
+			int hash= 17;
+			for (;;) {
+				type= SemanticUtil.getNestedType(type, TDEF | CVTYPE);
+				if (type instanceof IPointerType) {
+					hash= 31 * hash + 1;
+					type= ((IPointerType) type).getType();
+				} else if (type instanceof ICPPReferenceType) {
+					hash= 31 * hash + 2;
+					type= ((ICPPReferenceType) type).getType();
+				} else if (type instanceof IArrayType) {
+					hash= 31 * hash + 3;
+					type= ((IArrayType) type).getType();
+				} else if (type instanceof ICPPParameterPackType) {
+					hash= 31 * hash + 4;
+					type= ((ICPPParameterPackType) type).getType();
+				} else {
+					break;
+				}
+			}
+			if (type instanceof IBasicType)
+				return 31 * hash + ((IBasicType) type).getKind().ordinal();
+			if (type instanceof ICPPTemplateParameter)
+				return 31 * hash + ((ICPPTemplateParameter) type).getParameterID();
+			if (type instanceof IBinding)
+				return 31 * hash + CharArrayUtils.hash(((IBinding) type).getNameCharArray());
+			return hash;
+		}
+
+		@Override
+		public int hashCode() {
+			return fHash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Key))
+				return false;
+			final Key other= (Key) obj;
+			if (fHash != other.fHash || fArguments.length != other.fArguments.length)
+				return false;
+			for (int i = 0; i < fArguments.length; i++) {
+				if (!isSameArgument(fArguments[i], other.fArguments[i]))
+					return false;
+			}
+			return true;
+		}
+
+		private static boolean isSameArgument(ICPPTemplateArgument arg1, ICPPTemplateArgument arg2) {
+			if (arg1 == arg2)
+				return true;
+			final IValue value1= arg1.getNonTypeValue();
+			final IValue value2= arg2.getNonTypeValue();
+			if (value1 != null) {
+				return value2 != null && value1.equals(value2) &&
+						isSameType(arg1.getTypeOfNonTypeValue(), arg2.getTypeOfNonTypeValue());
+			}
+			return value2 == null && isSameType(arg1.getTypeValue(), arg2.getTypeValue());
+		}
+
+		private static boolean isSameType(IType t1, IType t2) {
+			if (t1 == t2)
+				return true;
+			return t1 != null && t2 != null && t1.isSameType(t2);
+		}
+	}
+
+	private final ConcurrentHashMap<Key, ICPPTemplateInstance> fMap;
+
+	public CPPInstanceMap() {
+		fMap= new ConcurrentHashMap<Key, ICPPTemplateInstance>(4, 0.75f, 1);
+	}
+
+	public void put(ICPPTemplateArgument[] arguments, ICPPTemplateInstance instance) {
+		fMap.put(new Key(arguments), instance);
+	}
+
+	/**
+	 * Stores the instance unless there is one for the given arguments already. Returns the
+	 * instance that is stored for the arguments after the call.
+	 */
+	public ICPPTemplateInstance putIfAbsent(ICPPTemplateArgument[] arguments, ICPPTemplateInstance instance) {
+		final ICPPTemplateInstance existing= fMap.putIfAbsent(new Key(arguments), instance);
+		return existing != null ? existing : instance;
+	}
+
+	/**
+	 * Returns the instance for the given arguments, or <code>null</code>.
+	 */
+	public ICPPTemplateInstance get(ICPPTemplateArgument[] arguments) {
+		return fMap.get(new Key(arguments));
+	}
+
+	public ICPPTemplateInstance[] getAll() {
+		return fMap.values().toArray(new ICPPTemplateInstance[fMap.size()]);
+	}
+
+	public int size() {
+		return fMap.size();
+	}
+}
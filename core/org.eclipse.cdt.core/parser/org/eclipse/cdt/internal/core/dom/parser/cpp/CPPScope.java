@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2011 IBM Corporation and others.
+ * Copyright (c) 2004, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -56,9 +56,10 @@ abstract public class CPPScope implements ICPPASTInternalScope {
 	protected static final char[] CONSTRUCTOR_KEY = "!!!CTOR!!!".toCharArray(); //$NON-NLS-1$
 	private static final IProgressMonitor NPM = new NullProgressMonitor();
 	private static final ICPPNamespace UNINITIALIZED = new CPPNamespace.CPPNamespaceProblem(null, 0, null);
+	private static final Object[] NO_CANDIDATES = {};
 
     private final IASTNode physicalNode;
-	private boolean isCached = false;
+	private volatile boolean isCached = false;
 	protected CharArrayObjectMap<Object> bindings;
 	private ICPPNamespace fIndexNamespace= UNINITIALIZED;
 
@@ -88,7 +89,7 @@ abstract public class CPPScope implements ICPPASTInternalScope {
 
 	@Override
 	@SuppressWarnings({ "unchecked" })
-	public void addName(IASTName name) {
+	public synchronized void addName(IASTName name) {
 		// Don't add inactive names to the scope.
 		if (!name.isActive())
 			return;
@@ -227,36 +228,43 @@ abstract public class CPPScope implements ICPPASTInternalScope {
 	    final char[] c = lookup.getLookupKey();
 	    IBinding[] result = null;
 
-	    Object obj = null;
-	    if (lookup.isPrefixLookup()) {
-	    	Object[] keys = bindings != null ? bindings.keyArray() : new Object[0];
-	    	ObjectSet<Object> all= new ObjectSet<Object>(16);
-	    	IContentAssistMatcher matcher = ContentAssistMatcherFactory.getInstance().createMatcher(c);
-	    	for (Object key2 : keys) {
-	    		final char[] key = (char[]) key2;
-				if (key != CONSTRUCTOR_KEY && matcher.match(key)) {
-	    			obj= bindings.get(key);
-	    			if (obj instanceof ObjectSet<?>) {
-	    				all.addAll((ObjectSet<?>) obj);
-	    			} else if (obj != null) {
-	    				all.put(obj);
+	    // Copy the candidates while holding the lock, bodies of functions may be resolved
+	    // in parallel (see CPPASTAmbiguityResolver). Resolving the candidates may access
+	    // other scopes, therefore this is done without holding the lock.
+	    Object[] candidates;
+	    synchronized (this) {
+	    	Object obj = null;
+	    	if (lookup.isPrefixLookup()) {
+	    		Object[] keys = bindings != null ? bindings.keyArray() : new Object[0];
+	    		ObjectSet<Object> all= new ObjectSet<Object>(16);
+	    		IContentAssistMatcher matcher = ContentAssistMatcherFactory.getInstance().createMatcher(c);
+	    		for (Object key2 : keys) {
+	    			final char[] key = (char[]) key2;
+	    			if (key != CONSTRUCTOR_KEY && matcher.match(key)) {
+	    				obj= bindings.get(key);
+	    				if (obj instanceof ObjectSet<?>) {
+	    					all.addAll((ObjectSet<?>) obj);
+	    				} else if (obj != null) {
+	    					all.put(obj);
+	    				}
 	    			}
 	    		}
+	    		obj= all;
+	    	} else {
+	    		obj = bindings != null ? bindings.get(c) : null;
+	    	}
+
+	    	if (obj instanceof ObjectSet<?>) {
+	    		candidates= ((ObjectSet<?>) obj).keyArray();
+	    	} else if (obj != null) {
+	    		candidates= new Object[] { obj };
+	    	} else {
+	    		candidates= NO_CANDIDATES;
 	    	}
-	    	obj= all;
-	    } else {
-	    	obj = bindings != null ? bindings.get(c) : null;
 	    }
 
-	    if (obj != null) {
-	        if (obj instanceof ObjectSet<?>) {
-	        	ObjectSet<?> os= (ObjectSet<?>) obj;
-        		for (int j = 0; j < os.size(); j++) {
-        			result= addCandidate(os.keyAt(j), lookup, result);
-        		}
-	        } else {
-	        	result = addCandidate(obj, lookup, result);
-	        }
+	    for (Object candidate : candidates) {
+	    	result= addCandidate(candidate, lookup, result);
 	    }
 	    return ArrayUtil.trim(IBinding.class, result);
 	}
@@ -294,13 +302,17 @@ abstract public class CPPScope implements ICPPASTInternalScope {
 	@Override
 	public final void populateCache() {
 		if (!isCached) {
-			CPPSemantics.populateCache(this);
-			isCached= true;
+			synchronized (this) {
+				if (!isCached) {
+					CPPSemantics.populateCache(this);
+					isCached= true;
+				}
+			}
 		}
 	}
 
 	@Override
-	public void removeNestedFromCache(IASTNode container) {
+	public synchronized void removeNestedFromCache(IASTNode container) {
 		if (bindings != null) {
 			removeFromMap(bindings, container);
 		}
@@ -345,7 +357,7 @@ abstract public class CPPScope implements ICPPASTInternalScope {
 
 	@Override
 	@SuppressWarnings({ "unchecked" })
-    public void addBinding(IBinding binding) {
+    public synchronized void addBinding(IBinding binding) {
         if (bindings == null)
             bindings = new CharArrayObjectMap<Object>(1);
         char[] c = binding.getNameCharArray();
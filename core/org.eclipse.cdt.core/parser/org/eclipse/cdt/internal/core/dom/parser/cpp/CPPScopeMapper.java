@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2010 Wind River Systems, Inc. and others.
+ * Copyright (c) 2008, 2014 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -331,13 +331,23 @@ public class CPPScopeMapper {
 			return fTu.getScope();
 		}
 		if (scope instanceof ICPPNamespaceScope) {
-			IScope result= fMappedScopes.get(scope);
+			IScope result;
+			synchronized (fMappedScopes) {
+				result= fMappedScopes.get(scope);
+			}
 			if (result == null) {
 				result= fTu.getScope().findNamespaceScope(scope);
 				if (result == null) {
 					result= wrapNamespaceScope((ICPPNamespaceScope) scope);
 				}
-				fMappedScopes.put(scope, result);
+				synchronized (fMappedScopes) {
+					IScope existing= fMappedScopes.get(scope);
+					if (existing != null) {
+						result= existing;
+					} else {
+						fMappedScopes.put(scope, result);
+					}
+				}
 			}
 			return result;
 		}
@@ -347,10 +357,20 @@ public class CPPScopeMapper {
 	private IScope wrapNamespaceScope(ICPPNamespaceScope scope) {
 		try {
 			String rqname= getReverseQualifiedName(scope);
-			NamespaceScopeWrapper result= fNamespaceWrappers.get(rqname);
+			NamespaceScopeWrapper result;
+			synchronized (fNamespaceWrappers) {
+				result= fNamespaceWrappers.get(rqname);
+			}
 			if (result == null) {
 				result= new NamespaceScopeWrapper(getCompositeNamespaceScope(scope));
-				fNamespaceWrappers.put(rqname, result);
+				synchronized (fNamespaceWrappers) {
+					NamespaceScopeWrapper existing= fNamespaceWrappers.get(rqname);
+					if (existing != null) {
+						result= existing;
+					} else {
+						fNamespaceWrappers.put(rqname, result);
+					}
+				}
 			}
 			return result;
 		} catch (DOMException e) {
@@ -384,11 +404,14 @@ public class CPPScopeMapper {
 			return type;
 		}
 		
-		if (fClasses == null) {
-			fClasses= new CharArrayMap<IASTName[]>();
-			fTu.accept(new Visitor());
+		IASTName[] names;
+		synchronized (this) {
+			if (fClasses == null) {
+				fClasses= new CharArrayMap<IASTName[]>();
+				fTu.accept(new Visitor());
+			}
+			names= fClasses.get(type.getNameCharArray());
 		}
-		IASTName[] names= fClasses.get(type.getNameCharArray());
 		if (names != null) {
 			for (IASTName name : names) {
 				if (name == null)
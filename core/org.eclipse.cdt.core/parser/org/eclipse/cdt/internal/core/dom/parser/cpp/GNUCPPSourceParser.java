@@ -54,6 +54,7 @@ import org.eclipse.cdt.core.dom.ast.IASTPointer;
 import org.eclipse.cdt.core.dom.ast.IASTPointerOperator;
 import org.eclipse.cdt.core.dom.ast.IASTProblem;
 import org.eclipse.cdt.core.dom.ast.IASTProblemDeclaration;
+import org.eclipse.cdt.core.dom.ast.IASTProblemStatement;
 import org.eclipse.cdt.core.dom.ast.IASTProblemTypeId;
 import org.eclipse.cdt.core.dom.ast.IASTSimpleDeclSpecifier;
 import org.eclipse.cdt.core.dom.ast.IASTSimpleDeclaration;
@@ -159,6 +160,8 @@ import org.eclipse.cdt.internal.core.dom.parser.IASTAmbiguousStatement;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.NameOrTemplateIDVariants.BranchPoint;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.NameOrTemplateIDVariants.Variant;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.CPPVisitor;
+import org.eclipse.cdt.internal.core.parser.scanner.CPreprocessor;
+import org.eclipse.cdt.internal.core.parser.scanner.TokenReplayScanner;
 
 /**
  * This is our implementation of the IParser interface, serving as a parser for
@@ -178,9 +181,12 @@ public class GNUCPPSourceParser extends AbstractGNUSourceCodeParser {
     private final boolean supportAutoTypeSpecifier;
 
 	private final IIndex index;
+	private final ICPPParserExtensionConfiguration fConfig;
     protected ICPPASTTranslationUnit translationUnit;
 
     private int functionBodyCount;
+    private boolean fLazyFunctionBodies;
+    private boolean fParallelFunctionBodies= CPPASTAmbiguityResolver.PARALLEL_BY_DEFAULT;
 	private char[] currentClassName;
 
 	private final ICPPNodeFactory nodeFactory;
@@ -209,10 +215,73 @@ public class GNUCPPSourceParser extends AbstractGNUSourceCodeParser {
         functionCallCanBeLValue= true;
         supportAutoTypeSpecifier= true;
         this.index= index;
+        this.fConfig= config;
         this.nodeFactory = CPPNodeFactory.getDefault();
         scanner.setSplitShiftROperator(true);
     }
 
+    /**
+     * Instructs the parser to capture the bodies of functions at namespace and class scope
+     * as tokens, the statements are parsed when they are first accessed. Only effective for
+     * complete parses of code from the preprocessor.
+     */
+    public void setLazyFunctionBodies(boolean value) {
+    	fLazyFunctionBodies= value;
+    }
+
+    /**
+     * Instructs the parser to resolve the ambiguities and names of the bodies of functions
+     * at namespace scope in parallel, for translation units with many of them. Defaults to
+     * the value of the system property <code>org.eclipse.cdt.core.parser.parallelFunctionBodies</code>.
+     */
+    public void setParallelFunctionBodies(boolean value) {
+    	fParallelFunctionBodies= value;
+    }
+
+    /**
+     * Parses the tokens of a function body that was captured by a parser with lazy function
+     * bodies.
+     * @return the parsed body. When the tokens do not form a compound statement, the body
+     * ends with a problem statement, as for a function body that is parsed eagerly.
+     */
+    IASTCompoundStatement parseLazyFunctionBody(ICPPASTTranslationUnit tu) {
+    	translationUnit= tu;
+    	int offset= 0;
+    	try {
+    		offset= LA(1).getOffset();
+    		return functionBody();
+    	} catch (EndOfFileException e) {
+    		return problemFunctionBody(offset);
+    	} catch (BacktrackException bt) {
+    		final IASTNode beforeProblem= bt.getNodeBeforeProblem();
+    		if (beforeProblem instanceof IASTCompoundStatement && bt.getProblem() != null) {
+    			// Keep the statements parsed before the problem.
+    			final IASTCompoundStatement body= (IASTCompoundStatement) beforeProblem;
+    			body.addStatement(problemStatement(bt.getProblem()));
+    			return body;
+    		}
+    		return problemFunctionBody(offset);
+    	} finally {
+    		translationUnit= null;
+    	}
+    }
+
+    /**
+     * Creates a function body with a problem statement spanning the tokens from the given offset.
+     */
+    private IASTCompoundStatement problemFunctionBody(int offset) {
+    	IASTCompoundStatement body= nodeFactory.newCompoundStatement();
+    	body.addStatement(problemStatement(createProblem(IProblem.SYNTAX_ERROR, offset, getEndOffset() - offset)));
+    	return body;
+    }
+
+    private IASTProblemStatement problemStatement(IASTProblem problem) {
+    	failParse();
+    	IASTProblemStatement statement= nodeFactory.newProblemStatement(problem);
+    	((ASTNode) statement).setOffsetAndLength((ASTNode) problem);
+    	return statement;
+    }
+
     @Override
 	protected IASTName identifier() throws EndOfFileException, BacktrackException {
     	switch (LT(1)) {
@@ -2692,7 +2761,7 @@ public class GNUCPPSourceParser extends AbstractGNUSourceCodeParser {
 		}
 
 		try {
-			IASTStatement body= handleFunctionBody();
+			IASTStatement body= canParseBodyLazily(fdef) ? lazyFunctionBody() : handleFunctionBody();
 			fdef.setBody(body);
 			setRange(fdef, firstOffset, calculateEndOffset(body));
 		} catch (BacktrackException bt) {
@@ -2721,6 +2790,25 @@ public class GNUCPPSourceParser extends AbstractGNUSourceCodeParser {
 		return fdef;
 	}
 
+	private boolean canParseBodyLazily(ICPPASTFunctionDefinition fdef) throws EndOfFileException {
+		return fLazyFunctionBodies && mode == ParserMode.COMPLETE_PARSE && functionBodyCount == 0 &&
+				isActiveCode() && scanner instanceof CPreprocessor && LT(1) == IToken.tLBRACE &&
+				!(fdef instanceof ICPPASTFunctionWithTryBlock) && fdef.getMemberInitializers().length == 0;
+	}
+
+	/**
+	 * Skips over the body of a function and returns a node that parses the body when its
+	 * statements are accessed.
+	 */
+	private IASTCompoundStatement lazyFunctionBody() throws EndOfFileException, BacktrackException {
+		declarationMark= null;
+		final IToken first= LA(1);
+		final IToken last= skipOverCompoundStatement(false);
+		CPPASTLazyCompoundStatement body= new CPPASTLazyCompoundStatement(
+				TokenReplayScanner.copyTokens(first, last), fConfig, log);
+		return setRange(body, first.getOffset(), last.getEndOffset());
+	}
+
 	/**
 	 * ctor-initializer:
 	 * 	  : mem-initializer-list
@@ -4723,6 +4811,15 @@ public class GNUCPPSourceParser extends AbstractGNUSourceCodeParser {
         translationUnit = null;
     }
 
+    @Override
+	protected void resolveAmbiguities() {
+    	if (translationUnit instanceof CPPASTTranslationUnit) {
+    		((CPPASTTranslationUnit) translationUnit).resolveAmbiguities(fParallelFunctionBodies);
+    	} else {
+    		super.resolveAmbiguities();
+    	}
+    }
+
     @Override
 	protected IASTStatement parseWhileStatement() throws EndOfFileException, BacktrackException {
         int startOffset = consume().getOffset();
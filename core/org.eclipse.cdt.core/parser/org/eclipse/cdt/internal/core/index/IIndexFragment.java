@@ -347,7 +347,8 @@ public interface IIndexFragment {
 	Object getCachedResult(Object key);
 
 	/**
-	 * Clears the result cache.
+	 * Clears the results cached via {@link #putCachedResult(Object, Object, boolean)}. Results
+	 * that a fragment computes from its own content only may be kept until the content changes.
 	 */
 	void clearResultCache();
 
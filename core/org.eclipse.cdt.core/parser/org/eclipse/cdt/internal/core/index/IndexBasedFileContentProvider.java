@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2013 QNX Software Systems and others.
+ * Copyright (c) 2005, 2014 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -43,6 +43,7 @@ import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContentProvider;
 import org.eclipse.cdt.internal.core.pdom.ASTFilePathResolver;
 import org.eclipse.cdt.internal.core.pdom.AbstractIndexerTask;
 import org.eclipse.cdt.internal.core.pdom.AbstractIndexerTask.IndexFileContent;
+import org.eclipse.cdt.internal.core.pdom.HeaderContentCache;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.Path;
 
@@ -64,6 +65,7 @@ public final class IndexBasedFileContentProvider extends InternalFileContentProv
 	private Set<String> fHeadersToIndexAllVersions = Collections.emptySet();
 
 	private boolean fIndexAllHeaderVersions;
+	private HeaderContentCache fHeaderContentCache;
 
 	public IndexBasedFileContentProvider(IIndex index,
 			ASTFilePathResolver pathResolver, int linkage, IncludeFileContentProvider fallbackFactory) {
@@ -90,6 +92,14 @@ public final class IndexBasedFileContentProvider extends InternalFileContentProv
 	public void setLinkage(int linkageID) {
 		fLinkage= linkageID;
 	}
+
+	/**
+	 * Sets a cache for the content of headers read by the fall-back provider, the cache may be
+	 * shared with other providers.
+	 */
+	public void setHeaderContentCache(HeaderContentCache cache) {
+		fHeaderContentCache= cache;
+	}
 	
 	@Override
 	public void resetForTranslationUnit() {
@@ -183,10 +193,19 @@ public final class IndexBasedFileContentProvider extends InternalFileContentProv
 
 	@Override
 	public InternalFileContent getContentForInclusion(IIndexFileLocation ifl, String astPath) {
-		if (fFallBackFactory != null) {
-			return fFallBackFactory.getContentForInclusion(ifl, astPath);
+		if (fFallBackFactory == null)
+			return null;
+
+		if (fHeaderContentCache != null) {
+			InternalFileContent ifc= fHeaderContentCache.get(ifl, astPath);
+			if (ifc != null)
+				return ifc;
 		}
-		return null;
+		InternalFileContent ifc= fFallBackFactory.getContentForInclusion(ifl, astPath);
+		if (ifc != null && fHeaderContentCache != null) {
+			fHeaderContentCache.put(ifl, ifc);
+		}
+		return ifc;
 	}
 
 	private boolean collectFileContent(IIndexFile file, IIndexFile stopAt,
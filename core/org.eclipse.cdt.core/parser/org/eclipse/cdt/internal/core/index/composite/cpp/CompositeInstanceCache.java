@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2009 Wind River Systems, Inc. and others.
+ * Copyright (c) 2008, 2014 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,19 +10,14 @@
  *******************************************************************************/ 
 package org.eclipse.cdt.internal.core.index.composite.cpp;
 
-import java.util.HashMap;
-
-import org.eclipse.cdt.core.CCorePlugin;
-import org.eclipse.cdt.core.dom.ast.DOMException;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateArgument;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateInstance;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPInstanceMap;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPDeferredClassInstance;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPInstanceCache;
 import org.eclipse.cdt.internal.core.index.IIndexFragment;
 import org.eclipse.cdt.internal.core.index.IIndexFragmentBinding;
-import org.eclipse.cdt.internal.core.index.IndexCPPSignatureUtil;
 import org.eclipse.cdt.internal.core.index.composite.ICompositesFactory;
-import org.eclipse.core.runtime.CoreException;
 
 public class CompositeInstanceCache {
 	
@@ -39,32 +34,19 @@ public class CompositeInstanceCache {
 		return (CompositeInstanceCache) frag.putCachedResult(key, newCache, false);
 	}
 	
-	private final HashMap<String, ICPPTemplateInstance> fMap;
+	private final CPPInstanceMap fMap;
 	private ICPPDeferredClassInstance fDeferredInstance;
 
 	public CompositeInstanceCache() {
-		fMap= new HashMap<String, ICPPTemplateInstance>();
+		fMap= new CPPInstanceMap();
 	}
 	
-	synchronized public final void addInstance(ICPPTemplateArgument[] arguments, ICPPTemplateInstance instance) {
-		try {
-			String key= IndexCPPSignatureUtil.getTemplateArgString(arguments, true);
-			fMap.put(key, instance);
-		} catch (CoreException e) {
-			CCorePlugin.log(e);
-		} catch (DOMException e) {
-		}
+	public final void addInstance(ICPPTemplateArgument[] arguments, ICPPTemplateInstance instance) {
+		fMap.putIfAbsent(arguments, instance);
 	}
 
-	synchronized public final ICPPTemplateInstance getInstance(ICPPTemplateArgument[] arguments) {
-		try {
-			String key= IndexCPPSignatureUtil.getTemplateArgString(arguments, true);
-			return fMap.get(key);
-		} catch (CoreException e) {
-			CCorePlugin.log(e);
-		} catch (DOMException e) {
-		}
-		return null;
+	public final ICPPTemplateInstance getInstance(ICPPTemplateArgument[] arguments) {
+		return fMap.get(arguments);
 	}
 	
 	private void populate(ICompositesFactory cf, IIndexFragmentBinding fb) {
@@ -80,8 +62,8 @@ public class CompositeInstanceCache {
 		}
 	}
 
-	synchronized public ICPPTemplateInstance[] getAllInstances() {
-		return fMap.values().toArray(new ICPPTemplateInstance[fMap.size()]);
+	public ICPPTemplateInstance[] getAllInstances() {
+		return fMap.getAll();
 	}
 
 	public ICPPDeferredClassInstance getDeferredInstance() {
@@ -19,6 +19,7 @@ import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.index.IIndexLocationConverter;
 import org.eclipse.cdt.core.model.LanguageManager;
 import org.eclipse.cdt.internal.core.pdom.PDOM;
+import org.eclipse.cdt.internal.core.pdom.db.ChunkCache;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 
@@ -26,6 +27,12 @@ import org.eclipse.core.runtime.IPath;
  * Internal singleton map maintained for non-project PDOM objects
  */
 class PDOMCache {
+	/**
+	 * Whether the read-only PDOMs are accessed through a memory mapping of their files,
+	 * rather than through the chunk cache.
+	 */
+	private static final boolean MEMORY_MAPPED= Boolean.getBoolean("org.eclipse.cdt.core.parser.pdom.memoryMapped"); //$NON-NLS-1$
+
 	private Map<File, PDOM> path2pdom; // gives the PDOM for a particular path
 
 	private static PDOMCache singleton;
@@ -68,7 +75,8 @@ class PDOMCache {
 			}
 			if (result == null) {
 				try {
-					result= new PDOM(file, converter, LanguageManager.getInstance().getPDOMLinkageFactoryMappings());
+					result= new PDOM(file, converter, ChunkCache.getSharedInstance(),
+							LanguageManager.getInstance().getPDOMLinkageFactoryMappings(), MEMORY_MAPPED);
 					path2pdom.put(file, result);
 				} catch (CoreException ce) {
 					CCorePlugin.log(ce);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2013 IBM Corporation and others.
+ * Copyright (c) 2004, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -50,7 +50,6 @@ import org.eclipse.cdt.core.parser.OffsetLimitReachedException;
 import org.eclipse.cdt.core.parser.ParseError;
 import org.eclipse.cdt.core.parser.ParserLanguage;
 import org.eclipse.cdt.core.parser.util.CharArrayIntMap;
-import org.eclipse.cdt.core.parser.util.CharArrayMap;
 import org.eclipse.cdt.core.parser.util.CharArrayObjectMap;
 import org.eclipse.cdt.core.parser.util.CharArraySet;
 import org.eclipse.cdt.core.parser.util.CharArrayUtils;
@@ -66,6 +65,7 @@ import org.eclipse.cdt.internal.core.parser.scanner.MacroDefinitionParser.Invali
 import org.eclipse.cdt.internal.core.parser.scanner.ScannerContext.BranchKind;
 import org.eclipse.cdt.internal.core.parser.scanner.ScannerContext.CodeState;
 import org.eclipse.cdt.internal.core.parser.scanner.ScannerContext.Conditional;
+import org.eclipse.cdt.internal.core.parser.util.CharArrayHashMap;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IAdaptable;
 
@@ -156,7 +156,10 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
 			if (once != null) {
 				fc= new InternalFileContent(path, InclusionKind.SKIP_FILE);
 			} else {
+				final long start= fCollectTimes ? System.nanoTime() : 0;
 				fc= fFileContentProvider.getContentForInclusion(path, fMacroDictionaryFacade);
+				if (fCollectTimes)
+					fContentLookupTime += System.nanoTime() - start;
 			}
 			if (fc != null) {
 				fc.setFoundByHeuristics(isHeuristicMatch);
@@ -246,7 +249,7 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
 	private boolean fSplitShiftRightOperator= false;
 
     // State information
-    private final CharArrayMap<PreprocessorMacro> fMacroDictionary = new CharArrayMap<PreprocessorMacro>(512);
+    private final CharArrayHashMap<PreprocessorMacro> fMacroDictionary = new CharArrayHashMap<PreprocessorMacro>(512);
 	private final IMacroDictionary fMacroDictionaryFacade = new MacroDictionary();
     private final LocationMap fLocationMap;
 	private CharArraySet fPreventInclusion;
@@ -262,6 +265,11 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
     private Token fLastToken;
 
 	private InternalFileContent fRootContent;
+
+	// Statistics in nanoseconds, collected only on request.
+	private boolean fCollectTimes;
+	private long fPreprocessingTime;
+	private long fContentLookupTime;
 	private boolean fHandledEndOfTranslationUnit;
 
 	// Detection of include guards used around an include directive
@@ -387,6 +395,31 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
 		return fLocationMap;
 	}
 
+	/**
+	 * Instructs the preprocessor to measure the time spent for computing tokens and for looking
+	 * up the content of included files. Off by default, since it is measured for every token.
+	 */
+	public void setCollectTimes(boolean value) {
+		fCollectTimes= value;
+	}
+
+	/**
+	 * Returns the time in nanoseconds spent for computing the tokens returned so far, including
+	 * the time for looking up the content of included files, or <code>0</code> if the times
+	 * are not collected.
+	 */
+	public long getPreprocessingTime() {
+		return fPreprocessingTime;
+	}
+
+	/**
+	 * Returns the time in nanoseconds spent in the file content provider for looking up the
+	 * content of included files, or <code>0</code> if the times are not collected.
+	 */
+	public long getContentLookupTime() {
+		return fContentLookupTime;
+	}
+
 	private void configureKeywords(ParserLanguage language, IScannerExtensionConfiguration configuration) {
 		Keywords.addKeywordsPreprocessor(fPPKeywords);
 		if (language == ParserLanguage.C) {
@@ -506,12 +539,16 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
 		}
         final String location = fLocationMap.getTranslationUnitPath();
 		InternalFileContent content;
+		final long start= fCollectTimes ? System.nanoTime() : 0;
 		try {
 			content = fFileContentProvider.getContentForContextToHeaderGap(location,
 					fMacroDictionaryFacade);
 		} catch (DependsOnOutdatedFileException e) {
 			// Abort the parser, handled by the abstract indexer task.
 			throw new RuntimeException(e);
+		} finally {
+			if (fCollectTimes)
+				fContentLookupTime += System.nanoTime() - start;
 		}
 		if (content != null && content.getKind() == InclusionKind.FOUND_IN_INDEX) {
 			processInclusionFromIndex(0, content, false);
@@ -610,6 +647,17 @@ public class CPreprocessor implements ILexerLog, IScanner, IAdaptable {
      * and also without splitting the shift-right operator.
      */
     private Token fetchToken() throws OffsetLimitReachedException {
+    	if (!fCollectTimes)
+    		return doFetchToken();
+    	final long start= System.nanoTime();
+    	try {
+    		return doFetchToken();
+    	} finally {
+    		fPreprocessingTime += System.nanoTime() - start;
+    	}
+    }
+
+    private Token doFetchToken() throws OffsetLimitReachedException {
     	if (fIsFirstFetchToken) {
     		beforeFirstFetchToken();
     		fIsFirstFetchToken= false;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2009 IBM Corporation and others.
+ * Copyright (c) 2004, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,7 +18,7 @@ import java.util.ArrayList;
 import org.eclipse.cdt.core.dom.ast.IASTName;
 import org.eclipse.cdt.core.parser.IProblem;
 import org.eclipse.cdt.core.parser.IToken;
-import org.eclipse.cdt.core.parser.util.CharArrayMap;
+import org.eclipse.cdt.internal.core.parser.util.CharArrayHashMap;
 
 /**
  * Used to evaluate expressions in preprocessor directives.
@@ -43,14 +43,14 @@ public class ExpressionEvaluator {
     }
 
 	private Token fTokens;
-	private CharArrayMap<PreprocessorMacro> fDictionary;
+	private CharArrayHashMap<PreprocessorMacro> fDictionary;
 	private ArrayList<IASTName> fMacrosInDefinedExpressions= new ArrayList<IASTName>();
 	private LocationMap fLocationMap;
 
 	ExpressionEvaluator() {
 	}
 
-	public boolean evaluate(TokenList condition, CharArrayMap<PreprocessorMacro> macroDictionary, LocationMap map) throws EvalException {
+	public boolean evaluate(TokenList condition, CharArrayHashMap<PreprocessorMacro> macroDictionary, LocationMap map) throws EvalException {
 		fTokens= condition.first();
 		fDictionary= macroDictionary;
 		fLocationMap= map;
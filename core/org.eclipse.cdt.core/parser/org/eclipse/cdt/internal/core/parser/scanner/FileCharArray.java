@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 Wind River Systems, Inc. and others.
+ * Copyright (c) 2010, 2014 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -29,9 +29,22 @@ import org.eclipse.cdt.core.CCorePlugin;
  */
 public class FileCharArray extends LazyCharArray {
 	private static final String UTF8_CHARSET_NAME = "UTF-8"; //$NON-NLS-1$
+	// Mapping is opt-in: on some platforms a mapped file cannot be modified or deleted until
+	// the mapping is garbage collected, and truncating it while it is read crashes the reader.
+	private static final boolean MAP_LARGE_FILES=
+			Boolean.getBoolean("org.eclipse.cdt.core.parser.mapLargeFiles"); //$NON-NLS-1$
 
 	public static AbstractCharArray create(String fileName, String charSet, InputStream in)
 			throws IOException {
+		return create(fileName, charSet, in, MAP_LARGE_FILES);
+	}
+
+	/**
+	 * Creates the char array for a local file.
+	 * @param mapLargeFiles whether large files that need no decoding may be mapped into memory.
+	 */
+	public static AbstractCharArray create(String fileName, String charSet, InputStream in,
+			boolean mapLargeFiles) throws IOException {
 		// No support for non-local files.
 		if (!(in instanceof FileInputStream)) {
 			return null;
@@ -46,6 +59,12 @@ public class FileCharArray extends LazyCharArray {
 			return decodeSmallFile(channel, (int) lsize, charSet);
 		}
 
+		// Large files that need no decoding are lexed directly from memory.
+		if (mapLargeFiles) {
+			AbstractCharArray mapped= MappedCharArray.create(channel, lsize, charSet);
+			if (mapped != null)
+				return mapped;
+		}
 		return new FileCharArray(fileName, charSet);
 	}
 	
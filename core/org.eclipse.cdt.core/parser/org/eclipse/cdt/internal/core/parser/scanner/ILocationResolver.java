@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2009 IBM Corporation and others.
+ * Copyright (c) 2004, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -78,6 +78,11 @@ public interface ILocationResolver {
      * @see IASTTranslationUnit#getFilePath()
      */
     String getTranslationUnitPath();
+
+    /**
+     * Returns the source of the file the translation unit was created for.
+     */
+    AbstractCharArray getTranslationUnitSource();
     
     /**
      * @see IASTTranslationUnit#getContainingFilename()
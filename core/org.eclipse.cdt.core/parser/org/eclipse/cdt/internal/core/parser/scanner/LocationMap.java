@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2013 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007, 2014 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -449,6 +449,11 @@ public class LocationMap implements ILocationResolver {
 		return fTranslationUnitPath;
 	}
 
+	@Override
+	public AbstractCharArray getTranslationUnitSource() {
+		return fRootContext == null ? null : fRootContext.getSource();
+	}
+
 	/**
 	 * Line number of offset in current context.
 	 * @param offset in current context.
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.parser.scanner;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Implementation of char array for a file that is mapped into memory. Every byte of the file
+ * is one character, such that no decoding is necessary. This is used for large files that are
+ * pure ASCII in an ASCII compatible encoding, or are encoded in ISO-8859-1.
+ * <p>
+ * When the file is truncated while it is mapped, the JVM reports the failed access to the
+ * mapping with an {@link InternalError}. The array then reports an error and reads zeros.
+ */
+public final class MappedCharArray extends AbstractCharArray {
+	private static final long NON_ASCII_BITS= 0x8080808080808080L;
+
+	/**
+	 * Maps the file opened by the channel into memory, or returns <code>null</code> if its content
+	 * has to be decoded.
+	 */
+	static AbstractCharArray create(FileChannel channel, long size, String charSet) throws IOException {
+		if (size > Integer.MAX_VALUE)
+			return null;
+		final String name= Charset.forName(charSet).name();
+		final boolean isLatin1= name.equals("ISO-8859-1"); //$NON-NLS-1$
+		final boolean isUTF8= name.equals("UTF-8"); //$NON-NLS-1$
+		if (!isLatin1 && !isUTF8 && !name.equals("US-ASCII")) //$NON-NLS-1$
+			return null;
+
+		final ByteBuffer buffer= channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		int start= 0;
+		try {
+			if (isUTF8 && size >= 3 && buffer.get(0) == (byte) 0xEF && buffer.get(1) == (byte) 0xBB &&
+					buffer.get(2) == (byte) 0xBF) {
+				start= 3;
+			}
+			if (!isLatin1 && !isASCII(buffer, start, (int) size))
+				return null;
+		} catch (InternalError e) {
+			// The file has been truncated in the meantime.
+			throw new IOException(e.getMessage());
+		}
+		return new MappedCharArray(buffer, start, (int) size - start);
+	}
+
+	private static boolean isASCII(ByteBuffer buffer, int start, int end) {
+		int pos= start;
+		for (; pos + 8 <= end; pos += 8) {
+			if ((buffer.getLong(pos) & NON_ASCII_BITS) != 0)
+				return false;
+		}
+		for (; pos < end; pos++) {
+			if (buffer.get(pos) < 0)
+				return false;
+		}
+		return true;
+	}
+
+	private final ByteBuffer fBuffer;
+	private final int fStart;
+	private final int fLength;
+	private long fHash64;
+	private volatile boolean fHasError;
+
+	private MappedCharArray(ByteBuffer buffer, int start, int length) {
+		fBuffer= buffer;
+		fStart= start;
+		fLength= length;
+	}
+
+	@Override
+	public int tryGetLength() {
+		return fLength;
+	}
+
+	@Override
+	public int getLength() {
+		return fLength;
+	}
+
+	@Override
+	public boolean isValidOffset(int offset) {
+		return offset < fLength;
+	}
+
+	@Override
+	public char get(int offset) {
+		try {
+			return (char) (fBuffer.get(fStart + offset) & 0xff);
+		} catch (InternalError e) {
+			fHasError= true;
+			return 0;
+		}
+	}
+
+	@Override
+	public void arraycopy(int offset, char[] destination, int destinationPos, int length) {
+		final ByteBuffer buffer= fBuffer;
+		try {
+			for (int i= 0, pos= fStart + offset; i < length; i++, pos++) {
+				destination[destinationPos + i]= (char) (buffer.get(pos) & 0xff);
+			}
+		} catch (InternalError e) {
+			fHasError= true;
+			Arrays.fill(destination, destinationPos, destinationPos + length, (char) 0);
+		}
+	}
+
+	@Override
+	public long getContentsHash() {
+		if (fHash64 == 0 && fLength != 0) {
+			StreamHasher hasher= new StreamHasher();
+			char[] chunk= new char[LazyCharArray.CHUNK_SIZE];
+			for (int offset= 0; offset < fLength; offset += chunk.length) {
+				final int length= Math.min(chunk.length, fLength - offset);
+				if (length < chunk.length) {
+					chunk= new char[length];
+				}
+				arraycopy(offset, chunk, 0, length);
+				hasher.addChunk(chunk);
+			}
+			fHash64= hasher.computeHash();
+		}
+		return fHash64;
+	}
+
+	@Override
+	public boolean hasError() {
+		return fHasError;
+	}
+}
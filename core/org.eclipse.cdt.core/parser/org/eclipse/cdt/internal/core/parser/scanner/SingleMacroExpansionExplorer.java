@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008 Wind River Systems, Inc. and others.
+ * Copyright (c) 2008, 2014 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,8 +17,8 @@ import org.eclipse.cdt.core.dom.ast.IASTName;
 import org.eclipse.cdt.core.dom.ast.IBinding;
 import org.eclipse.cdt.core.dom.ast.IMacroBinding;
 import org.eclipse.cdt.core.dom.rewrite.MacroExpansionExplorer;
-import org.eclipse.cdt.core.parser.util.CharArrayMap;
 import org.eclipse.cdt.internal.core.parser.scanner.Lexer.LexerOptions;
+import org.eclipse.cdt.internal.core.parser.util.CharArrayHashMap;
 import org.eclipse.text.edits.ReplaceEdit;
 
 /**
@@ -27,7 +27,7 @@ import org.eclipse.text.edits.ReplaceEdit;
  */
 public class SingleMacroExpansionExplorer extends MacroExpansionExplorer {
 	private final String fInput;
-	private final CharArrayMap<PreprocessorMacro> fDictionary;
+	private final CharArrayHashMap<PreprocessorMacro> fDictionary;
 	private MacroExpansionStep fFullExpansion;
 	private int fExpansionCount;
 	private final String fFilePath;
@@ -49,15 +49,15 @@ public class SingleMacroExpansionExplorer extends MacroExpansionExplorer {
 		fLexerOptions.fCreateImageLocations= false;
 	}
 
-	private CharArrayMap<PreprocessorMacro> createDictionary(IASTName[] refs) {
-		CharArrayMap<PreprocessorMacro> map= new CharArrayMap<PreprocessorMacro>(refs.length);
+	private CharArrayHashMap<PreprocessorMacro> createDictionary(IASTName[] refs) {
+		CharArrayHashMap<PreprocessorMacro> map= new CharArrayHashMap<PreprocessorMacro>(refs.length);
 		for (IASTName name : refs) {
 			addMacroDefinition(map, name);
 		}
 		return map;
 	}
 
-	private void addMacroDefinition(CharArrayMap<PreprocessorMacro> map, IASTName name) {
+	private void addMacroDefinition(CharArrayHashMap<PreprocessorMacro> map, IASTName name) {
 		IBinding binding= name.getBinding();
 		if (binding instanceof PreprocessorMacro) {
 			map.put(name.getSimpleID(), (PreprocessorMacro) binding);
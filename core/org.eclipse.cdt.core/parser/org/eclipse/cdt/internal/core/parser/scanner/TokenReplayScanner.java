@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.parser.scanner;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.eclipse.cdt.core.dom.ast.IMacroBinding;
+import org.eclipse.cdt.core.parser.EndOfFileException;
+import org.eclipse.cdt.core.parser.IScanner;
+import org.eclipse.cdt.core.parser.IToken;
+import org.eclipse.cdt.core.parser.IncludeExportPatterns;
+import org.eclipse.cdt.core.parser.ParseError;
+
+/**
+ * Scanner that returns a sequence of tokens previously obtained from the preprocessor, used
+ * to parse parts of a translation unit after the translation unit has been parsed. The tokens
+ * are copied when they are returned, such that the sequence can be replayed.
+ */
+public final class TokenReplayScanner implements IScanner {
+	private final Token[] fTokens;
+	private final int fOffsetDelta;
+	private final ILocationResolver fLocationResolver;
+	private int fNext;
+	private volatile boolean fCancelled;
+
+	/**
+	 * Creates a scanner for the given tokens, which must not be linked to other tokens.
+	 * The offsets of the returned tokens are moved by <code>offsetDelta</code>.
+	 */
+	public TokenReplayScanner(Token[] tokens, int offsetDelta, ILocationResolver locationResolver) {
+		fTokens= tokens;
+		fOffsetDelta= offsetDelta;
+		fLocationResolver= locationResolver;
+	}
+
+	/**
+	 * Copies the tokens from <code>first</code> to <code>last</code>, following the links
+	 * between the tokens. Markers for inactive code are not copied.
+	 */
+	public static Token[] copyTokens(IToken first, IToken last) {
+		int count= 0;
+		for (IToken t= first; ; t= t.getNext()) {
+			if (!isInactiveCodeMarker(t))
+				count++;
+			if (t == last)
+				break;
+		}
+		final Token[] result= new Token[count];
+		int i= 0;
+		for (IToken t= first; ; t= t.getNext()) {
+			if (!isInactiveCodeMarker(t)) {
+				final Token copy= ((Token) t).clone();
+				copy.setNext(null);
+				result[i++]= copy;
+			}
+			if (t == last)
+				break;
+		}
+		return result;
+	}
+
+	private static boolean isInactiveCodeMarker(IToken t) {
+		switch (t.getType()) {
+		case IToken.tINACTIVE_CODE_START:
+		case IToken.tINACTIVE_CODE_SEPARATOR:
+		case IToken.tINACTIVE_CODE_END:
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public IToken nextToken() throws EndOfFileException {
+		if (fCancelled)
+			throw new ParseError(ParseError.ParseErrorKind.TIMEOUT_OR_CANCELLED);
+		if (fNext >= fTokens.length) {
+			final int offset= fTokens.length == 0 ? 0 : fTokens[fTokens.length - 1].getEndOffset();
+			throw new EndOfFileException(offset + fOffsetDelta);
+		}
+		final Token t= fTokens[fNext++].clone();
+		t.setNext(null);
+		if (fOffsetDelta != 0)
+			t.setOffset(t.getOffset() + fOffsetDelta, t.getEndOffset() + fOffsetDelta);
+		return t;
+	}
+
+	@Override
+	public Map<String, IMacroBinding> getMacroDefinitions() {
+		return Collections.emptyMap();
+	}
+
+	@Override
+	public boolean isOnTopContext() {
+		return true;
+	}
+
+	@Override
+	public void cancel() {
+		fCancelled= true;
+	}
+
+	@Override
+	public ILocationResolver getLocationResolver() {
+		return fLocationResolver;
+	}
+
+	@Override
+	public void setContentAssistMode(int offset) {
+	}
+
+	@Override
+	public void setSplitShiftROperator(boolean val) {
+		// The tokens have already been split by the preprocessor.
+	}
+
+	@Override
+	public void setComputeImageLocations(boolean val) {
+	}
+
+	@Override
+	public void setTrackIncludeExport(IncludeExportPatterns patterns) {
+	}
+
+	@Override
+	public void setProcessInactiveCode(boolean val) {
+	}
+
+	@Override
+	public void skipInactiveCode() {
+	}
+
+	@Override
+	public int getCodeBranchNesting() {
+		return 0;
+	}
+
+	@Override
+	@Deprecated
+	public void setScanComments(boolean val) {
+	}
+}
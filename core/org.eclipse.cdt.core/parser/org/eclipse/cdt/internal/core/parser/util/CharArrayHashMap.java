@@ -0,0 +1,268 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.parser.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.eclipse.cdt.core.parser.util.CharArrayUtils;
+
+/**
+ * A hash map with char arrays or slices of char arrays as keys, that does not allocate
+ * objects for lookups. In contrast to {@link org.eclipse.cdt.core.parser.util.CharArrayMap}
+ * the keys, their hash codes and the values are stored in parallel arrays using open addressing
+ * with linear probing. Keys passed as slices are copied when a new mapping is created.
+ * <p>
+ * The map is used for the macro dictionary of the preprocessor, which is queried for every
+ * identifier.
+ *
+ * @param <V> the type of the values.
+ */
+public final class CharArrayHashMap<V> {
+	private static final int MIN_CAPACITY= 16;
+
+	private char[][] fKeys;
+	private int[] fHashes;
+	private Object[] fValues;
+	private int fSize;
+	private int fMask;
+
+	/**
+	 * Constructs an empty map with default initial capacity.
+	 */
+	public CharArrayHashMap() {
+		this(MIN_CAPACITY / 2);
+	}
+
+	/**
+	 * Constructs an empty map that can hold the given number of mappings without growing.
+	 */
+	public CharArrayHashMap(int initialSize) {
+		int capacity= MIN_CAPACITY;
+		while (capacity < initialSize * 2) {
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+
+	private void allocate(int capacity) {
+		fKeys= new char[capacity][];
+		fHashes= new int[capacity];
+		fValues= new Object[capacity];
+		fMask= capacity - 1;
+	}
+
+	private static int hash(char[] chars, int start, int length) {
+		final int h= CharArrayUtils.hash(chars, start, length);
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Returns the slot of the key, or <code>-1</code> if the map does not contain the key.
+	 */
+	private int find(char[] chars, int start, int length, int hash) {
+		for (int i= hash & fMask;; i= (i + 1) & fMask) {
+			final char[] key= fKeys[i];
+			if (key == null)
+				return -1;
+			if (fHashes[i] == hash && key.length == length && equals(key, chars, start))
+				return i;
+		}
+	}
+
+	private static boolean equals(char[] key, char[] chars, int start) {
+		for (int i= 0; i < key.length; i++) {
+			if (key[i] != chars[start + i])
+				return false;
+		}
+		return true;
+	}
+
+	private static void checkBoundaries(char[] chars, int start, int length) {
+		if (start < 0 || length < 0 || start + length > chars.length)
+			throw new IndexOutOfBoundsException("Buffer length: " + chars.length + //$NON-NLS-1$
+					", Start index: " + start + //$NON-NLS-1$
+					", Length: " + length); //$NON-NLS-1$
+	}
+
+	/**
+	 * Creates a new mapping for the given slice, or replaces the value of an existing one.
+	 * Returns the previous value or <code>null</code>.
+	 */
+	public V put(char[] chars, int start, int length, V value) {
+		checkBoundaries(chars, start, length);
+		final int hash= hash(chars, start, length);
+		int i= find(chars, start, length, hash);
+		if (i >= 0) {
+			@SuppressWarnings("unchecked")
+			V old= (V) fValues[i];
+			fValues[i]= value;
+			return old;
+		}
+		if (2 * (fSize + 1) > fKeys.length) {
+			rehash(fKeys.length * 2);
+		}
+		final char[] key= start == 0 && length == chars.length ?
+				chars : CharArrayUtils.extract(chars, start, length);
+		insert(key, hash, value);
+		fSize++;
+		return null;
+	}
+
+	/**
+	 * Creates a new mapping for the given key, or replaces the value of an existing one.
+	 * Returns the previous value or <code>null</code>.
+	 */
+	public V put(char[] chars, V value) {
+		return put(chars, 0, chars.length, value);
+	}
+
+	private void insert(char[] key, int hash, Object value) {
+		int i= hash & fMask;
+		while (fKeys[i] != null) {
+			i= (i + 1) & fMask;
+		}
+		fKeys[i]= key;
+		fHashes[i]= hash;
+		fValues[i]= value;
+	}
+
+	private void rehash(int capacity) {
+		final char[][] keys= fKeys;
+		final int[] hashes= fHashes;
+		final Object[] values= fValues;
+		allocate(capacity);
+		for (int i= 0; i < keys.length; i++) {
+			if (keys[i] != null) {
+				insert(keys[i], hashes[i], values[i]);
+			}
+		}
+	}
+
+	/**
+	 * Returns the value for the given slice, or <code>null</code> if there is no mapping.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(char[] chars, int start, int length) {
+		checkBoundaries(chars, start, length);
+		final int i= find(chars, start, length, hash(chars, start, length));
+		return i < 0 ? null : (V) fValues[i];
+	}
+
+	/**
+	 * Returns the value for the given key, or <code>null</code> if there is no mapping.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(char[] chars) {
+		final int length= chars.length;
+		final int i= find(chars, 0, length, hash(chars, 0, length));
+		return i < 0 ? null : (V) fValues[i];
+	}
+
+	public boolean containsKey(char[] chars, int start, int length) {
+		checkBoundaries(chars, start, length);
+		return find(chars, start, length, hash(chars, start, length)) >= 0;
+	}
+
+	public boolean containsKey(char[] chars) {
+		return find(chars, 0, chars.length, hash(chars, 0, chars.length)) >= 0;
+	}
+
+	/**
+	 * Removes the mapping for the given slice and returns its value, or <code>null</code> if
+	 * there was no mapping.
+	 */
+	public V remove(char[] chars, int start, int length) {
+		checkBoundaries(chars, start, length);
+		int i= find(chars, start, length, hash(chars, start, length));
+		if (i < 0)
+			return null;
+
+		@SuppressWarnings("unchecked")
+		final V old= (V) fValues[i];
+		// Shift back the entries of the cluster, such that no probe sequence is interrupted.
+		for (int j= (i + 1) & fMask; fKeys[j] != null; j= (j + 1) & fMask) {
+			final int home= fHashes[j] & fMask;
+			if (((j - home) & fMask) >= ((j - i) & fMask)) {
+				fKeys[i]= fKeys[j];
+				fHashes[i]= fHashes[j];
+				fValues[i]= fValues[j];
+				i= j;
+			}
+		}
+		fKeys[i]= null;
+		fValues[i]= null;
+		fSize--;
+		return old;
+	}
+
+	/**
+	 * Removes the mapping for the given key and returns its value, or <code>null</code> if
+	 * there was no mapping.
+	 */
+	public V remove(char[] chars) {
+		return remove(chars, 0, chars.length);
+	}
+
+	/**
+	 * Returns a new collection with the values of the map.
+	 */
+	@SuppressWarnings("unchecked")
+	public Collection<V> values() {
+		ArrayList<V> result= new ArrayList<V>(fSize);
+		for (int i= 0; i < fKeys.length; i++) {
+			if (fKeys[i] != null) {
+				result.add((V) fValues[i]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a new collection with the keys of the map.
+	 */
+	public Collection<char[]> keys() {
+		ArrayList<char[]> result= new ArrayList<char[]>(fSize);
+		for (char[] key : fKeys) {
+			if (key != null) {
+				result.add(key);
+			}
+		}
+		return result;
+	}
+
+	public void clear() {
+		allocate(MIN_CAPACITY);
+		fSize= 0;
+	}
+
+	public int size() {
+		return fSize;
+	}
+
+	public boolean isEmpty() {
+		return fSize == 0;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder buf= new StringBuilder();
+		buf.append('{');
+		for (int i= 0; i < fKeys.length; i++) {
+			if (fKeys[i] != null) {
+				if (buf.length() > 1)
+					buf.append(", "); //$NON-NLS-1$
+				buf.append(fKeys[i]).append('=').append(fValues[i]);
+			}
+		}
+		return buf.append('}').toString();
+	}
+}
@@ -27,6 +27,14 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.dom.ILinkage;
@@ -67,6 +75,8 @@ import org.eclipse.cdt.internal.core.parser.ParserSettings2;
 import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContentProvider;
 import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContentProvider.DependsOnOutdatedFileException;
 import org.eclipse.cdt.internal.core.parser.util.LRUCache;
+import org.eclipse.cdt.internal.core.pdom.IndexerMetrics.FileMetrics;
+import org.eclipse.cdt.internal.core.pdom.IndexerMetrics.Phase;
 import org.eclipse.cdt.utils.EFSExtensionManager;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
@@ -233,6 +243,59 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 		}
 	}
 
+	/**
+	 * Parses a source file on one of the parser threads. The job keeps the result until it is
+	 * written to the index.
+	 */
+	private class ParserJob implements Callable<ParserJob> {
+		final Object fTu;
+		final AbstractLanguage fLanguage;
+		final IIndexFileLocation fLocation;
+		final LocationTask fLocationTask;
+		private final IScannerInfo fScannerInfo;
+		private final InternalFileContentProvider fContentProvider;
+		private final IProgressMonitor fMonitor;
+		FileContent fCodeReader;
+		IASTTranslationUnit fAST;
+		long fParsingTime;	// In nanoseconds.
+		Throwable fError;
+
+		ParserJob(Object tu, AbstractLanguage language, IIndexFileLocation ifl, LocationTask locTask,
+				IScannerInfo scannerInfo, InternalFileContentProvider contentProvider, IProgressMonitor monitor) {
+			fTu= tu;
+			fLanguage= language;
+			fLocation= ifl;
+			fLocationTask= locTask;
+			fScannerInfo= scannerInfo;
+			fContentProvider= contentProvider;
+			fMonitor= monitor;
+		}
+
+		@Override
+		public ParserJob call() {
+			IPath path= getLabel(fLocation);
+			try {
+				if (fShowActivity) {
+					trace("Indexer: parsing " + path.toOSString()); //$NON-NLS-1$
+				}
+				fMonitor.subTask(getMessage(MessageKind.parsingFileTask,
+						path.lastSegment(), path.removeLastSegments(1).toString()));
+				fCodeReader= fResolver.getCodeReader(fTu);
+				final boolean isSource = fResolver.isSourceUnit(fTu);
+
+				long start= System.nanoTime();
+				fAST= createAST(fLanguage, fCodeReader, fScannerInfo, isSource, fASTOptions, null,
+						fContentProvider, fMonitor);
+				fParsingTime= System.nanoTime() - start;
+			} catch (Exception e) {
+				fError= e;
+			} catch (Error e) {
+				fError= e;
+			}
+			return this;
+		}
+	}
+
 	public static class IndexFileContent {
 		private Object[] fPreprocessingDirectives;
 		private ICPPUsingDirective[] fDirectives;
@@ -293,14 +356,28 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 
 	protected enum MessageKind { parsingFileTask, errorWhileParsing, tooManyIndexProblems }
 
+	/**
+	 * Maximum number of characters of header content shared between the translation units
+	 * parsed by one indexer task.
+	 */
+	private static final long HEADER_CACHE_SIZE=
+			Long.getLong("org.eclipse.cdt.core.parser.indexer.headerCacheSize", 16 * 1024 * 1024); //$NON-NLS-1$
+
 	private int fUpdateFlags= IIndexManager.UPDATE_ALL;
 	private UnusedHeaderStrategy fIndexHeadersWithoutContext= UnusedHeaderStrategy.useDefaultLanguage;
 	private boolean fIndexFilesWithoutConfiguration= true;
 	private boolean fIndexAllHeaderVersions = false;
 	private Set<String> fHeadersToIndexAllVersions = Collections.emptySet();
 	private List<LinkageTask> fRequestsPerLinkage= new ArrayList<LinkageTask>();
-	private Map<IIndexFile, IndexFileContent> fIndexContentCache= new LRUCache<IIndexFile, IndexFileContent>(500);
-	private Map<IIndexFileLocation, IIndexFragmentFile[]> fIndexFilesCache= new LRUCache<IIndexFileLocation, IIndexFragmentFile[]>(5000);
+	// The caches are accessed by the parser threads, when parsing in parallel.
+	private Map<IIndexFile, IndexFileContent> fIndexContentCache=
+			Collections.synchronizedMap(new LRUCache<IIndexFile, IndexFileContent>(500));
+	private Map<IIndexFileLocation, IIndexFragmentFile[]> fIndexFilesCache=
+			Collections.synchronizedMap(new LRUCache<IIndexFileLocation, IIndexFragmentFile[]>(5000));
+	private final HeaderContentCache fHeaderContentCache= new HeaderContentCache(HEADER_CACHE_SIZE);
+	private final IndexerMetrics fMetrics= new IndexerMetrics();
+	private long fLastCacheHits;
+	private long fLastCacheMisses;
 	private Map<IIndexFileLocation, LocationTask> fOneLinkageTasks= new HashMap<IIndexFileLocation, AbstractIndexerTask.LocationTask>();
 
 	private Object[] fFilesToUpdate;
@@ -311,9 +388,13 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 	protected IWritableIndex fIndex;
 	private ITodoTaskUpdater fTodoTaskUpdater;
 	private final boolean fIsFastIndexer;
+	private boolean fCollectPreprocessorTimes;
 	private long fFileSizeLimit= 0;
 	private InternalFileContentProvider fCodeReaderFactory;
 	private int fSwallowOutOfMemoryError= 5;
+	private int fParserThreadCount= 1;
+	private ExecutorService fParserThreads;
+	private InternalFileContentProvider[] fParserThreadContentProviders;
 	/**
 	 * A queue of urgent indexing tasks that contribute additional files to this task.
 	 * The files from the urgent tasks are indexed before all not yet processed files.
@@ -368,6 +449,33 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 		fHeadersToIndexAllVersions = headers;
 	}
 
+	/**
+	 * Sets the number of threads used for parsing source files. With more than one thread
+	 * the sources are parsed in parallel, writing to the index remains single-threaded.
+	 */
+	public final void setParserThreadCount(int count) {
+		fParserThreadCount= Math.max(1, count);
+	}
+
+	/**
+	 * Instructs the task to measure the time spent in the preprocessor separately from the time
+	 * spent in the parser. Otherwise the former is included in the latter.
+	 */
+	public final void setCollectPreprocessorTimes(boolean value) {
+		fCollectPreprocessorTimes= value;
+	}
+
+	public int getParserThreadCount() {
+		return fParserThreadCount;
+	}
+
+	/**
+	 * Returns the cache for the content of headers that are parsed by this task.
+	 */
+	protected HeaderContentCache getHeaderContentCache() {
+		return fHeaderContentCache;
+	}
+
 	/**
 	 * @see IPDOMIndexerTask#acceptUrgentTask(IPDOMIndexerTask)
 	 */
@@ -389,6 +497,8 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 			return false;
 		}
 		fUrgentTasks.add(task);
+		// The urgent task is caused by changed files, their content must be read again.
+		fHeaderContentCache.clear();
 		return true;
 	}
 
@@ -505,10 +615,15 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 			if (fIndex == null) {
 				return;
 			}
+			fLastCacheHits= fIndex.getCacheHits();
+			fLastCacheMisses= fIndex.getCacheMisses();
 			fTodoTaskUpdater= createTodoTaskUpdater();
 
 			fASTOptions= ILanguage.OPTION_NO_IMAGE_LOCATIONS
 					| ILanguage.OPTION_SKIP_TRIVIAL_EXPRESSIONS_IN_AGGREGATE_INITIALIZERS;
+			if (fCollectPreprocessorTimes) {
+				fASTOptions |= ILanguage.OPTION_COLLECT_PREPROCESSOR_TIMES;
+			}
 
 			if (getSkipReferences() == SKIP_ALL_REFERENCES) {
 				fASTOptions |= ILanguage.OPTION_SKIP_FUNCTION_BODIES;
@@ -592,6 +707,8 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 			} catch (CoreException e) {
 				logException(e);
 			} finally {
+				// The parser threads rely on the read lock held by this task.
+				shutdownParserThreads();
 				fIndex.releaseReadLock();
 			}
 		} finally {
@@ -844,17 +961,22 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 			return;
 
 		// First parse the required sources
-		for (Iterator<IIndexFileLocation> it= files.iterator(); it.hasNext();) {
-			IIndexFileLocation ifl= it.next();
-			LocationTask locTask = map.find(ifl);
-			if (locTask == null || locTask.isCompleted()) {
-				it.remove();
-			} else if (locTask.fKind == UpdateKind.REQUIRED_SOURCE) {
-				if (monitor.isCanceled() || hasUrgentTasks())
-					return;
-				final Object tu = locTask.fTu;
-				final IScannerInfo scannerInfo = getScannerInfo(linkageID, tu);
-				parseFile(tu, getLanguage(tu, linkageID), ifl, scannerInfo, null, monitor);
+		if (fParserThreadCount > 1) {
+			if (!parseSourcesInParallel(linkageID, map, files, monitor))
+				return;
+		} else {
+			for (Iterator<IIndexFileLocation> it= files.iterator(); it.hasNext();) {
+				IIndexFileLocation ifl= it.next();
+				LocationTask locTask = map.find(ifl);
+				if (locTask == null || locTask.isCompleted()) {
+					it.remove();
+				} else if (locTask.fKind == UpdateKind.REQUIRED_SOURCE) {
+					if (monitor.isCanceled() || hasUrgentTasks())
+						return;
+					final Object tu = locTask.fTu;
+					final IScannerInfo scannerInfo = getScannerInfo(linkageID, tu);
+					parseFile(tu, getLanguage(tu, linkageID), ifl, scannerInfo, null, monitor);
+				}
 			}
 		}
 
@@ -1040,16 +1162,17 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 			FileContent codeReader= fResolver.getCodeReader(tu);
 			final boolean isSource = fResolver.isSourceUnit(tu);
 
-			long start= System.currentTimeMillis();
+			long start= System.nanoTime();
 			IASTTranslationUnit ast= createAST(lang, codeReader, scanInfo, isSource, fASTOptions, ctx, pm);
-			fStatistics.fParsingTime += System.currentTimeMillis() - start;
+			final long parsingTime= System.nanoTime() - start;
+			fStatistics.fParsingTime += parsingTime / 1000000;
 			if (ast == null) {
 				++fStatistics.fTooManyTokensCount;
 			} else {
 				// Give the new AST a chance to recognize its translation unit before it is written
 				// to the index.
 				((ASTTranslationUnit) ast).setOriginatingTranslationUnit((ITranslationUnit) tu);
-				writeToIndex(lang.getLinkageID(), ast, codeReader, ctx, pm);
+				writeToIndex(lang.getLinkageID(), ast, codeReader, ctx, parsingTime, pm);
 				resultCacheCleared = true;  // The cache was cleared while writing to the index.
 			}
 		} catch (CoreException e) {
@@ -1073,16 +1196,175 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 		}
 
 		if (!resultCacheCleared) {
-			// If the result cache has not been cleared, clear it under a write lock to reduce
-			// interference with index readers.
-			fIndex.acquireWriteLock();
+			clearResultCache();
+		}
+		return null;
+	}
+
+	/**
+	 * Clears the result cache under a write lock to reduce interference with index readers.
+	 */
+	private void clearResultCache() throws InterruptedException {
+		fIndex.acquireWriteLock();
+		try {
+			fIndex.clearResultCache();
+		} finally {
+			fIndex.releaseWriteLock();
+		}
+	}
+
+	/**
+	 * Parses the required sources of a linkage on the parser threads. The sources are processed
+	 * in batches of the size of the thread pool. The ASTs of a batch are written to the index
+	 * by the calling thread after all of them have been parsed, such that the parser threads
+	 * never read from the index while it is being modified.
+	 *
+	 * @return {@code false} if parsing was stopped because of cancellation or an urgent task.
+	 */
+	private boolean parseSourcesInParallel(int linkageID, LinkageTask map, List<IIndexFileLocation> files,
+			IProgressMonitor monitor) throws CoreException, InterruptedException {
+		List<ParserJob> batch= new ArrayList<ParserJob>(fParserThreadCount);
+		for (Iterator<IIndexFileLocation> it= files.iterator(); it.hasNext();) {
+			IIndexFileLocation ifl= it.next();
+			LocationTask locTask = map.find(ifl);
+			if (locTask == null || locTask.isCompleted()) {
+				it.remove();
+			} else if (locTask.fKind == UpdateKind.REQUIRED_SOURCE) {
+				final Object tu = locTask.fTu;
+				final IScannerInfo scannerInfo = getScannerInfo(linkageID, tu);
+				final InternalFileContentProvider contentProvider =
+						getParserThreadContentProvider(batch.size(), linkageID);
+				batch.add(new ParserJob(tu, getLanguage(tu, linkageID), ifl, locTask, scannerInfo,
+						contentProvider, monitor));
+				if (batch.size() == fParserThreadCount && !parseBatch(batch, monitor))
+					return false;
+			}
+		}
+		return parseBatch(batch, monitor);
+	}
+
+	private boolean parseBatch(List<ParserJob> batch, IProgressMonitor monitor)
+			throws CoreException, InterruptedException {
+		if (batch.isEmpty())
+			return true;
+		try {
+			if (monitor.isCanceled() || hasUrgentTasks())
+				return false;
+
+			// Returns after all jobs of the batch have completed.
+			List<Future<ParserJob>> results= getParserThreads().invokeAll(batch);
+			for (Future<ParserJob> result : results) {
+				if (monitor.isCanceled() || hasUrgentTasks())
+					return false;
+				try {
+					writeParsedFile(result.get(), monitor);
+				} catch (ExecutionException e) {
+					logException(e.getCause());
+				}
+			}
+			return true;
+		} finally {
+			batch.clear();
+		}
+	}
+
+	/**
+	 * Writes the AST created by a parser thread to the index, errors are handled the same way
+	 * as in {@link #parseFile}.
+	 */
+	private void writeParsedFile(ParserJob job, IProgressMonitor pm) throws CoreException, InterruptedException {
+		if (job.fLocationTask.isCompleted()) {
+			// The source has been written to the index as part of another translation unit.
+			return;
+		}
+		boolean resultCacheCleared = false;
+		Throwable th= job.fError;
+		if (th == null) {
+			final IASTTranslationUnit ast= job.fAST;
+			job.fAST= null;
+			fStatistics.fParsingTime += job.fParsingTime / 1000000;
 			try {
-				fIndex.clearResultCache();
-			} finally {
-				fIndex.releaseWriteLock();
+				if (ast == null) {
+					++fStatistics.fTooManyTokensCount;
+				} else {
+					((ASTTranslationUnit) ast).setOriginatingTranslationUnit((ITranslationUnit) job.fTu);
+					writeToIndex(job.fLanguage.getLinkageID(), ast, job.fCodeReader, null, job.fParsingTime, pm);
+					resultCacheCleared = true;  // The cache was cleared while writing to the index.
+				}
+			} catch (CoreException e) {
+				th= e;
+			} catch (RuntimeException e) {
+				th= e;
+			} catch (Error e) {
+				th= e;
 			}
 		}
-		return null;
+		if (th != null) {
+			if (th instanceof RuntimeException && th.getCause() instanceof DependsOnOutdatedFileException)
+				return;
+			if (th instanceof OutOfMemoryError) {
+				if (--fSwallowOutOfMemoryError < 0)
+					throw (OutOfMemoryError) th;
+			} else if (th instanceof Error && !(th instanceof StackOverflowError) && !(th instanceof AssertionError)) {
+				throw (Error) th;
+			}
+			swallowError(getLabel(job.fLocation), th);
+		}
+
+		if (!resultCacheCleared) {
+			clearResultCache();
+		}
+	}
+
+	private InternalFileContentProvider getParserThreadContentProvider(int i, int linkageID) {
+		if (fParserThreadContentProviders == null) {
+			fParserThreadContentProviders= new InternalFileContentProvider[fParserThreadCount];
+		}
+		InternalFileContentProvider contentProvider= fParserThreadContentProviders[i];
+		if (contentProvider == null) {
+			contentProvider= createFileContentProvider(linkageID);
+			fParserThreadContentProviders[i]= contentProvider;
+		}
+		return contentProvider;
+	}
+
+	private ExecutorService getParserThreads() {
+		if (fParserThreads == null) {
+			final AtomicInteger threadNumber= new AtomicInteger();
+			fParserThreads= Executors.newFixedThreadPool(fParserThreadCount, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread= new Thread(r, "C/C++ Indexer Parser " + threadNumber.incrementAndGet()); //$NON-NLS-1$
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return fParserThreads;
+	}
+
+	/**
+	 * Stops the parser threads and waits until all of them have finished.
+	 */
+	private void shutdownParserThreads() {
+		if (fParserThreads == null)
+			return;
+
+		fParserThreads.shutdown();
+		boolean interrupted= false;
+		while (true) {
+			try {
+				if (fParserThreads.awaitTermination(1, TimeUnit.SECONDS))
+					break;
+			} catch (InterruptedException e) {
+				interrupted= true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		fParserThreads= null;
+		fParserThreadContentProviders= null;
 	}
 
 	private AbstractLanguage getLanguage(Object tu, int linkageID) {
@@ -1155,6 +1437,15 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 	private final IASTTranslationUnit createAST(AbstractLanguage language, FileContent codeReader,
 			IScannerInfo scanInfo, boolean isSource, int options,
 			FileContext ctx, IProgressMonitor pm) throws CoreException {
+		if (fCodeReaderFactory == null) {
+			fCodeReaderFactory= createFileContentProvider(language.getLinkageID());
+		}
+		return createAST(language, codeReader, scanInfo, isSource, options, ctx, fCodeReaderFactory, pm);
+	}
+
+	private final IASTTranslationUnit createAST(AbstractLanguage language, FileContent codeReader,
+			IScannerInfo scanInfo, boolean isSource, int options, FileContext ctx,
+			InternalFileContentProvider fileContentProvider, IProgressMonitor pm) throws CoreException {
 		if (codeReader == null) {
 			return null;
 		}
@@ -1167,28 +1458,14 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 			}
 			return null;
 		}
-		final IIndexFile[] ctx2header = ctx == null ? null : new IIndexFile[] {ctx.fContext, ctx.fOldFile};
-		if (fCodeReaderFactory == null) {
-			InternalFileContentProvider fileContentProvider = createInternalFileContentProvider();
-			if (fIsFastIndexer) {
-				IndexBasedFileContentProvider ibfcp = new IndexBasedFileContentProvider(fIndex, fResolver,
-						language.getLinkageID(), fileContentProvider, this);
-				ibfcp.setContextToHeaderGap(ctx2header);
-				ibfcp.setFileSizeLimit(fFileSizeLimit);
-				ibfcp.setHeadersToIndexAllVersions(fHeadersToIndexAllVersions);
-				ibfcp.setIndexAllHeaderVersions(fIndexAllHeaderVersions);
-				fCodeReaderFactory= ibfcp;
-			} else {
-				fCodeReaderFactory= fileContentProvider;
-			}
-			fCodeReaderFactory.setIncludeResolutionHeuristics(createIncludeHeuristics());
-		} else if (fIsFastIndexer) {
-			final IndexBasedFileContentProvider ibfcp = (IndexBasedFileContentProvider) fCodeReaderFactory;
+		if (fIsFastIndexer) {
+			final IIndexFile[] ctx2header = ctx == null ? null : new IIndexFile[] {ctx.fContext, ctx.fOldFile};
+			final IndexBasedFileContentProvider ibfcp = (IndexBasedFileContentProvider) fileContentProvider;
 			ibfcp.setContextToHeaderGap(ctx2header);
 			ibfcp.setLinkage(language.getLinkageID());
 		}
 
-		IASTTranslationUnit ast= language.getASTTranslationUnit(codeReader, scanInfo, fCodeReaderFactory,
+		IASTTranslationUnit ast= language.getASTTranslationUnit(codeReader, scanInfo, fileContentProvider,
 				fIndex, options, getLogService());
 		if (pm.isCanceled()) {
 			return null;
@@ -1196,6 +1473,24 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 		return ast;
 	}
 
+	private InternalFileContentProvider createFileContentProvider(int linkageID) {
+		final InternalFileContentProvider fileContentProvider = createInternalFileContentProvider();
+		final InternalFileContentProvider result;
+		if (fIsFastIndexer) {
+			IndexBasedFileContentProvider ibfcp = new IndexBasedFileContentProvider(fIndex, fResolver,
+					linkageID, fileContentProvider, this);
+			ibfcp.setFileSizeLimit(fFileSizeLimit);
+			ibfcp.setHeadersToIndexAllVersions(fHeadersToIndexAllVersions);
+			ibfcp.setIndexAllHeaderVersions(fIndexAllHeaderVersions);
+			ibfcp.setHeaderContentCache(fHeaderContentCache);
+			result= ibfcp;
+		} else {
+			result= fileContentProvider;
+		}
+		result.setIncludeResolutionHeuristics(createIncludeHeuristics());
+		return result;
+	}
+
 	private InternalFileContentProvider createInternalFileContentProvider() {
 		final IncludeFileContentProvider fileContentProvider = createReaderFactory();
 		if (fileContentProvider instanceof InternalFileContentProvider)
@@ -1205,7 +1500,11 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 	}
 
 	private void writeToIndex(final int linkageID, IASTTranslationUnit ast, FileContent codeReader,
-			FileContext ctx, IProgressMonitor pm) throws CoreException, InterruptedException {
+			FileContext ctx, long parsingTime, IProgressMonitor pm) throws CoreException, InterruptedException {
+		final long start= System.nanoTime();
+		final int resolutionTime= fStatistics.fResolutionTime;
+		final int addToIndexTime= fStatistics.fAddToIndexTime;
+		final int lockWaitTime= fStatistics.fLockWaitTime;
 		HashSet<FileContentKey> enteredFiles= new HashSet<FileContentKey>();
 		ArrayList<FileInAST> orderedFileKeys= new ArrayList<FileInAST>();
 
@@ -1253,6 +1552,46 @@ public abstract class AbstractIndexerTask extends PDOMWriter {
 			withdrawRequests(linkageID, fileKeys);
 			throw e;
 		}
+
+		FileMetrics metrics= new FileMetrics(getLabel(topIfl).toString());
+		if (ast instanceof ASTTranslationUnit) {
+			final ASTTranslationUnit tu= (ASTTranslationUnit) ast;
+			final long preprocessing= tu.getPreprocessingTime();
+			final long ambiguities= tu.getAmbiguityResolutionTime();
+			metrics.addTime(Phase.FILE_CONTENT_LOOKUP, tu.getContentLookupTime());
+			metrics.addTime(Phase.PREPROCESSING, preprocessing - tu.getContentLookupTime());
+			metrics.addTime(Phase.AMBIGUITY_RESOLUTION, ambiguities);
+			metrics.addTime(Phase.PARSING, parsingTime - preprocessing - ambiguities);
+		} else {
+			metrics.addTime(Phase.PARSING, parsingTime);
+		}
+		final long resolution= (fStatistics.fResolutionTime - resolutionTime) * 1000000L;
+		final long write= (fStatistics.fAddToIndexTime - addToIndexTime) * 1000000L;
+		final long wait= (fStatistics.fLockWaitTime - lockWaitTime) * 1000000L;
+		metrics.addTime(Phase.NAME_RESOLUTION, resolution);
+		metrics.addTime(Phase.INDEX_WRITE, write);
+		metrics.addTime(Phase.LOCK_WAIT, wait);
+		metrics.addTime(Phase.SYMBOL_COLLECTION, System.nanoTime() - start - resolution - write - wait);
+		recordMetrics(metrics);
+	}
+
+	private void recordMetrics(FileMetrics file) {
+		final long hits= fIndex.getCacheHits();
+		final long misses= fIndex.getCacheMisses();
+		fMetrics.record(file);
+		fMetrics.addCacheCounts(hits - fLastCacheHits, misses - fLastCacheMisses);
+		final IndexerMetrics shared= IndexerMetrics.getDefault();
+		shared.record(file);
+		shared.addCacheCounts(hits - fLastCacheHits, misses - fLastCacheMisses);
+		fLastCacheHits= hits;
+		fLastCacheMisses= misses;
+	}
+
+	/**
+	 * Returns the time spent in the phases of indexing the translation units of this task.
+	 */
+	public IndexerMetrics getMetrics() {
+		return fMetrics;
 	}
 
 	private void collectOrderedFileKeys(final int linkageID, IASTInclusionNode inclusion,
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.pdom;
+
+import java.io.File;
+import java.net.URI;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import org.eclipse.core.filesystem.EFS;
+
+import org.eclipse.cdt.core.index.IIndexFileLocation;
+import org.eclipse.cdt.internal.core.parser.scanner.AbstractCharArray;
+import org.eclipse.cdt.internal.core.parser.scanner.CharArray;
+import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContent;
+import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContent.InclusionKind;
+
+/**
+ * Cache for the content of header files that are not yet stored in the index, shared by the
+ * translation units parsed during one run of the indexer. Every translation unit including such
+ * a header would otherwise read and decode the file again. The size of the cache is limited by
+ * the total number of characters, the least recently used content is evicted first.
+ * <p>
+ * Only content that was read completely from a local file is cached, large files are loaded
+ * lazily and cannot be shared between parser threads. Cached content is returned only as long
+ * as the time stamp and the size of the file are unchanged.
+ */
+public final class HeaderContentCache {
+	private static final class CachedContent {
+		final CharArray fSource;
+		final long fTimestamp;
+		final long fFileSize;
+		final long fReadTime;
+
+		CachedContent(CharArray source, long timestamp, long fileSize, long readTime) {
+			fSource= source;
+			fTimestamp= timestamp;
+			fFileSize= fileSize;
+			fReadTime= readTime;
+		}
+	}
+
+	private final LinkedHashMap<IIndexFileLocation, CachedContent> fMap=
+			new LinkedHashMap<IIndexFileLocation, CachedContent>(16, 0.75f, true);
+	private final long fMaxChars;
+	private long fChars;
+	private long fHits;
+	private long fMisses;
+
+	/**
+	 * @param maxChars the maximum number of characters kept in the cache.
+	 */
+	public HeaderContentCache(long maxChars) {
+		fMaxChars= maxChars;
+	}
+
+	/**
+	 * Returns new file content for the header at the given location, or <code>null</code> if
+	 * the content is not cached or the file has changed since it was read.
+	 */
+	public synchronized InternalFileContent get(IIndexFileLocation ifl, String astPath) {
+		CachedContent cached= fMap.get(ifl);
+		if (cached != null && !isCurrent(ifl, cached)) {
+			remove(ifl);
+			cached= null;
+		}
+		if (cached == null) {
+			fMisses++;
+			return null;
+		}
+		fHits++;
+		return new InternalFileContent(astPath, cached.fSource, cached.fTimestamp, cached.fFileSize,
+				cached.fReadTime);
+	}
+
+	private static boolean isCurrent(IIndexFileLocation ifl, CachedContent cached) {
+		final File file= getLocalFile(ifl);
+		return file != null && file.lastModified() == cached.fTimestamp && file.length() == cached.fFileSize;
+	}
+
+	private static File getLocalFile(IIndexFileLocation ifl) {
+		final URI uri= ifl.getURI();
+		if (!EFS.SCHEME_FILE.equals(uri.getScheme()))
+			return null;
+		return new File(uri.getPath());
+	}
+
+	/**
+	 * Stores the content of the header at the given location, if it can be shared.
+	 */
+	public synchronized void put(IIndexFileLocation ifl, InternalFileContent content) {
+		if (content.getKind() != InclusionKind.USE_SOURCE || content.hasError() ||
+				getLocalFile(ifl) == null)
+			return;
+		final AbstractCharArray source= content.getSource();
+		if (!(source instanceof CharArray))
+			return;
+
+		final int length= source.getLength();
+		if (length > fMaxChars)
+			return;
+
+		CachedContent old= fMap.put(ifl, new CachedContent((CharArray) source, content.getTimestamp(),
+				content.getFileSize(), content.getReadTime()));
+		if (old != null) {
+			fChars -= old.fSource.getLength();
+		}
+		fChars += length;
+		for (Iterator<CachedContent> it= fMap.values().iterator(); fChars > fMaxChars && it.hasNext();) {
+			fChars -= it.next().fSource.getLength();
+			it.remove();
+		}
+	}
+
+	/**
+	 * Removes the content of the header at the given location.
+	 */
+	public synchronized void remove(IIndexFileLocation ifl) {
+		CachedContent old= fMap.remove(ifl);
+		if (old != null) {
+			fChars -= old.fSource.getLength();
+		}
+	}
+
+	public synchronized void clear() {
+		fMap.clear();
+		fChars= 0;
+	}
+
+	/**
+	 * Returns the number of characters currently held by the cache.
+	 */
+	public synchronized long getSize() {
+		return fChars;
+	}
+
+	public synchronized long getHitCount() {
+		return fHits;
+	}
+
+	public synchronized long getMissCount() {
+		return fMisses;
+	}
+}
@@ -0,0 +1,232 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.pdom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Collects the time spent in the phases of indexing translation units. Besides the totals per
+ * phase the files that took longest are kept. The metrics of all indexer tasks are accumulated
+ * in a shared instance that is also available via JMX, see {@link IndexerMetricsMXBean}.
+ * <p>
+ * The phases are disjoint, such that their sum is the time spent for a file.
+ */
+public final class IndexerMetrics implements IndexerMetricsMXBean {
+	public enum Phase {
+		/**
+		 * Looking up the content of included files in the index or on disk. This and the time
+		 * for preprocessing are measured only with the indexer statistics trace option, they
+		 * are part of the time for parsing otherwise.
+		 */
+		FILE_CONTENT_LOOKUP,
+		/** Preprocessing, without the time for looking up included files. */
+		PREPROCESSING,
+		/** Parsing, without preprocessing and resolution of ambiguities. */
+		PARSING,
+		AMBIGUITY_RESOLUTION,
+		/** Collecting the symbols of the AST by {@link PDOMWriter#process}. */
+		SYMBOL_COLLECTION,
+		/** Resolving the names of the AST to bindings. */
+		NAME_RESOLUTION,
+		/** Waiting for the write lock of the index. */
+		LOCK_WAIT,
+		/** Storing the symbols in the index while holding the write lock. */
+		INDEX_WRITE
+	}
+
+	private static final int PHASE_COUNT= Phase.values().length;
+	private static final int MAX_SLOW_FILES= 20;
+	private static final IndexerMetrics sDefault= new IndexerMetrics();
+
+	/**
+	 * The time spent for the phases of a single file.
+	 */
+	public static final class FileMetrics {
+		private final String fPath;
+		private final long[] fTimes= new long[PHASE_COUNT];
+
+		public FileMetrics(String path) {
+			fPath= path;
+		}
+
+		public String getPath() {
+			return fPath;
+		}
+
+		/**
+		 * Adds to the time of the phase, negative values are ignored.
+		 */
+		public void addTime(Phase phase, long nanos) {
+			if (nanos > 0)
+				fTimes[phase.ordinal()] += nanos;
+		}
+
+		/**
+		 * Returns the time spent in the given phase in nanoseconds.
+		 */
+		public long getTime(Phase phase) {
+			return fTimes[phase.ordinal()];
+		}
+
+		/**
+		 * Returns the time spent in all phases in nanoseconds.
+		 */
+		public long getTotalTime() {
+			long result= 0;
+			for (long time : fTimes) {
+				result += time;
+			}
+			return result;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder buf= new StringBuilder();
+			buf.append(fPath).append(": ").append(getTotalTime() / 1000000).append("ms ("); //$NON-NLS-1$ //$NON-NLS-2$
+			for (Phase phase : Phase.values()) {
+				if (phase.ordinal() > 0)
+					buf.append(", "); //$NON-NLS-1$
+				buf.append(phase.name().toLowerCase()).append('=').append(getTime(phase) / 1000000);
+			}
+			return buf.append(')').toString();
+		}
+	}
+
+	private static final Comparator<FileMetrics> BY_TOTAL_TIME= new Comparator<FileMetrics>() {
+		@Override
+		public int compare(FileMetrics m1, FileMetrics m2) {
+			final long t1= m1.getTotalTime();
+			final long t2= m2.getTotalTime();
+			return t1 < t2 ? -1 : t1 == t2 ? 0 : 1;
+		}
+	};
+
+	/**
+	 * Returns the metrics accumulated for all indexer tasks.
+	 */
+	public static IndexerMetrics getDefault() {
+		return sDefault;
+	}
+
+	private final long[] fTimes= new long[PHASE_COUNT];
+	private final PriorityQueue<FileMetrics> fSlowFiles=
+			new PriorityQueue<FileMetrics>(MAX_SLOW_FILES + 1, BY_TOTAL_TIME);
+	private long fFileCount;
+	private long fCacheHits;
+	private long fCacheMisses;
+
+	/**
+	 * Adds the times of a file.
+	 */
+	public synchronized void record(FileMetrics file) {
+		for (int i = 0; i < PHASE_COUNT; i++) {
+			fTimes[i] += file.fTimes[i];
+		}
+		fFileCount++;
+		fSlowFiles.add(file);
+		if (fSlowFiles.size() > MAX_SLOW_FILES) {
+			fSlowFiles.poll();
+		}
+	}
+
+	/**
+	 * Adds hits and misses of the database caches.
+	 */
+	public synchronized void addCacheCounts(long hits, long misses) {
+		fCacheHits += hits;
+		fCacheMisses += misses;
+	}
+
+	/**
+	 * Returns the time spent in the given phase in nanoseconds.
+	 */
+	public synchronized long getTime(Phase phase) {
+		return fTimes[phase.ordinal()];
+	}
+
+	/**
+	 * Returns the slowest files, the slowest one first.
+	 */
+	public synchronized List<FileMetrics> getSlowestFiles() {
+		List<FileMetrics> result= new ArrayList<FileMetrics>(fSlowFiles);
+		Collections.sort(result, Collections.reverseOrder(BY_TOTAL_TIME));
+		return result;
+	}
+
+	@Override
+	public synchronized long getFileCount() {
+		return fFileCount;
+	}
+
+	@Override
+	public synchronized long getCacheHits() {
+		return fCacheHits;
+	}
+
+	@Override
+	public synchronized long getCacheMisses() {
+		return fCacheMisses;
+	}
+
+	@Override
+	public synchronized long getParsingTime() {
+		return (getTime(Phase.FILE_CONTENT_LOOKUP) + getTime(Phase.PREPROCESSING) + getTime(Phase.PARSING))
+				/ 1000000;
+	}
+
+	@Override
+	public long getAmbiguityResolutionTime() {
+		return getTime(Phase.AMBIGUITY_RESOLUTION) / 1000000;
+	}
+
+	@Override
+	public long getSymbolCollectionTime() {
+		return getTime(Phase.SYMBOL_COLLECTION) / 1000000;
+	}
+
+	@Override
+	public long getNameResolutionTime() {
+		return getTime(Phase.NAME_RESOLUTION) / 1000000;
+	}
+
+	@Override
+	public long getLockWaitTime() {
+		return getTime(Phase.LOCK_WAIT) / 1000000;
+	}
+
+	@Override
+	public long getIndexWriteTime() {
+		return getTime(Phase.INDEX_WRITE) / 1000000;
+	}
+
+	@Override
+	public String[] getSlowestFileReports() {
+		List<FileMetrics> files= getSlowestFiles();
+		String[] result= new String[files.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i]= files.get(i).toString();
+		}
+		return result;
+	}
+
+	@Override
+	public synchronized void reset() {
+		for (int i = 0; i < PHASE_COUNT; i++) {
+			fTimes[i]= 0;
+		}
+		fSlowFiles.clear();
+		fFileCount= fCacheHits= fCacheMisses= 0;
+	}
+}
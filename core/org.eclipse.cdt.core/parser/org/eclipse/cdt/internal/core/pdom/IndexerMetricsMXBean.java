@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.pdom;
+
+/**
+ * Management interface for the metrics of the indexer, registered with the platform MBean
+ * server under {@link #OBJECT_NAME}. Times are reported in milliseconds.
+ */
+public interface IndexerMetricsMXBean {
+	public static final String OBJECT_NAME= "org.eclipse.cdt.core:type=IndexerMetrics"; //$NON-NLS-1$
+
+	/**
+	 * Returns the number of translation units that were indexed.
+	 */
+	long getFileCount();
+
+	/**
+	 * Returns the time spent for parsing, including the time for preprocessing and for looking up
+	 * included files. These are measured separately only with the indexer statistics trace option,
+	 * since measuring them adds to the cost of every token.
+	 */
+	long getParsingTime();
+
+	long getAmbiguityResolutionTime();
+
+	long getSymbolCollectionTime();
+
+	long getNameResolutionTime();
+
+	long getLockWaitTime();
+
+	long getIndexWriteTime();
+
+	long getCacheHits();
+
+	long getCacheMisses();
+
+	/**
+	 * Returns a description of the times of the slowest translation units, slowest first.
+	 */
+	String[] getSlowestFileReports();
+
+	/**
+	 * Resets all metrics.
+	 */
+	void reset();
+}
@@ -15,6 +15,7 @@ public class IndexerStatistics {
 	public int fResolutionTime;
 	public int fParsingTime;
 	public int fAddToIndexTime;
+	public int fLockWaitTime;
 	public int fErrorCount;
 	public int fReferenceCount= 0;
 	public int fDeclarationCount= 0;
@@ -28,6 +28,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 import org.eclipse.cdt.core.CCorePlugin;
@@ -254,6 +255,23 @@ public class PDOM extends PlatformObject implements IPDOM {
 	private static final int MAX_SUPPORTED_VERSION= version(170, Short.MAX_VALUE);
 	private static final int DEFAULT_VERSION = version(170, 0);
 
+	/**
+	 * The chunk size for newly created databases, larger chunks reduce the number of chunk
+	 * lookups and cache entries for big indexes.
+	 */
+	private static final int NEW_DATABASE_CHUNK_SIZE= getNewDatabaseChunkSize();
+
+	private static int getNewDatabaseChunkSize() {
+		int chunkSize= Integer.getInteger("org.eclipse.cdt.core.parser.pdom.chunkSize", Database.CHUNK_SIZE); //$NON-NLS-1$
+		return Database.isValidChunkSize(chunkSize) ? chunkSize : Database.CHUNK_SIZE;
+	}
+
+	/**
+	 * Maximum number of entries in the result cache.
+	 */
+	private static final int RESULT_CACHE_SIZE=
+			Integer.getInteger("org.eclipse.cdt.core.parser.pdom.resultCacheSize", 20000); //$NON-NLS-1$
+
 	private static int version(int major, int minor) {
 		return (major << 16) + minor;
 	}
@@ -297,6 +315,8 @@ public class PDOM extends PlatformObject implements IPDOM {
 	public static class ChangeEvent {
 		public Set<IIndexFileLocation> fClearedFiles= new HashSet<IIndexFileLocation>();
 		public Set<IIndexFileLocation> fFilesWritten= new HashSet<IIndexFileLocation>();
+		/** Ids of the linkages that have been modified */
+		public Set<Integer> fModifiedLinkages= new HashSet<Integer>();
 		private boolean fCleared;
 		private boolean fReloaded;
 		private boolean fNewFiles;
@@ -308,6 +328,7 @@ public class PDOM extends PlatformObject implements IPDOM {
 
 			fClearedFiles.clear();
 			fFilesWritten.clear();
+			fModifiedLinkages.clear();
 		}
 
 		public boolean isCleared() {
@@ -356,9 +377,10 @@ public class PDOM extends PlatformObject implements IPDOM {
 	private BTree indexOfFiledWithUnresolvedIncludes;
 	private final Map<Integer, PDOMLinkage> fLinkageIDCache = new HashMap<Integer, PDOMLinkage>();
 	private File fPath;
+	private final boolean fMemoryMapped;
 	private final IIndexLocationConverter locationConverter;
 	private final Map<String, IPDOMLinkageFactory> fPDOMLinkageFactoryCache;
-	private final HashMap<Object, Object> fResultCache= new HashMap<Object, Object>();
+	private final PDOMResultCache fResultCache= new PDOMResultCache(RESULT_CACHE_SIZE);
 	private List<IListener> listeners;
 	protected ChangeEvent fEvent= new ChangeEvent();
 
@@ -369,7 +391,19 @@ public class PDOM extends PlatformObject implements IPDOM {
 
 	public PDOM(File dbPath, IIndexLocationConverter locationConverter, ChunkCache cache,
 			Map<String, IPDOMLinkageFactory> linkageFactoryMappings) throws CoreException {
+		this(dbPath, locationConverter, cache, linkageFactoryMappings, false);
+	}
+
+	/**
+	 * Creates a PDOM, optionally reading the database through a memory mapping of the file.
+	 * A memory-mapped PDOM does not copy its content into the chunk cache, which avoids
+	 * keeping the content on the heap in addition to the operating system's file cache.
+	 * Memory mapping is supported for permanently read-only PDOMs, only.
+	 */
+	public PDOM(File dbPath, IIndexLocationConverter locationConverter, ChunkCache cache,
+			Map<String, IPDOMLinkageFactory> linkageFactoryMappings, boolean memoryMapped) throws CoreException {
 		fPDOMLinkageFactoryCache = linkageFactoryMappings;
+		fMemoryMapped= memoryMapped && isPermanentlyReadOnly();
 		loadDatabase(dbPath, cache);
 		this.locationConverter = locationConverter;
 		if (sDEBUG_LOCKS) {
@@ -387,16 +421,17 @@ public class PDOM extends PlatformObject implements IPDOM {
 
 	private void loadDatabase(File dbPath, ChunkCache cache) throws CoreException {
 		fPath= dbPath;
-		final boolean lockDB= db == null || lockCount != 0;
+		final boolean lockDB= db == null || lockCount.get() != 0;
 
 		clearCaches();
-		db = new Database(fPath, cache, getDefaultVersion(), isPermanentlyReadOnly());
+		db = new Database(fPath, cache, getDefaultVersion(), isPermanentlyReadOnly(), fMemoryMapped,
+				NEW_DATABASE_CHUNK_SIZE);
 
 		db.setLocked(lockDB);
 		if (isSupportedVersion()) {
 			readLinkages();
 		}
-		db.setLocked(lockCount != 0);
+		db.setLocked(lockCount.get() != 0);
 	}
 
 	public IIndexLocationConverter getLocationConverter() {
@@ -596,7 +631,7 @@ public class PDOM extends PlatformObject implements IPDOM {
 	}
 
 	protected void clear() throws CoreException {
-		assert lockCount < 0; // needs write-lock.
+		assert lockCount.get() < 0; // needs write-lock.
 
 		// Clear out the database, everything is set to zero.
 		int vers = getDefaultVersion();
@@ -606,7 +641,7 @@ public class PDOM extends PlatformObject implements IPDOM {
 	}
 
 	void reloadFromFile(File file) throws CoreException {
-		assert lockCount < 0;	// must have write lock.
+		assert lockCount.get() < 0;	// must have write lock.
 		File oldFile= fPath;
 		clearCaches();
 		try {
@@ -932,29 +967,76 @@ public class PDOM extends PlatformObject implements IPDOM {
 
 	// Read-write lock rules. Readers don't conflict with other readers,
 	// Writers conflict with readers, and everyone conflicts with writers.
+	// The lock count is positive for the number of read locks and -1 while the write lock
+	// is held. As long as there are other readers, a read lock is acquired and released by
+	// updating the lock count without entering the mutex. Transitions from and to zero and
+	// all operations of writers are performed while holding the mutex. The state of the
+	// database is updated before a positive lock count is published, such that readers on
+	// the optimistic path find the database locked.
+	// Readers go first, however a writer that has been waiting for WRITER_PRIORITY_DELAY
+	// obtains priority: new readers then have to wait unless their thread already holds a
+	// read lock. The priority is given up after MAX_WRITER_PRIORITY_TIME, because read locks
+	// may be passed between threads and a reader could otherwise wait for the writer that
+	// is waiting for the reader.
+	private static final int WRITER_PRIORITY_DELAY = 100;
+	private static final int MAX_WRITER_PRIORITY_TIME = 1000;
+
 	private final Object mutex = new Object();
-	private int lockCount;
+	private final AtomicInteger lockCount= new AtomicInteger();
+	private final ThreadLocal<int[]> fReadLocksOfThread= new ThreadLocal<int[]>() {
+		@Override
+		protected int[] initialValue() {
+			return new int[1];
+		}
+	};
 	private int waitingReaders;
+	private volatile int waitingWriters;
+	private volatile Thread fPriorityWriter;
 	private long lastWriteAccess= 0;
 	private long lastReadAccess= 0;
 	private long timeWriteLockAcquired;
+	// Lock statistics, protected by the mutex.
+	private long fBlockedReadLockTime;
+	private long fBlockedWriteLockTime;
+	private long fMaxBlockedWriteLockTime;
+	private int fWriteLockCount;
 
 	@Override
 	public void acquireReadLock() throws InterruptedException {
-		long t = sDEBUG_LOCKS ? System.nanoTime() : 0;
+		final int[] readLocksOfThread= fReadLocksOfThread.get();
+		if (!sDEBUG_LOCKS && (fPriorityWriter == null || readLocksOfThread[0] > 0)) {
+			// Optimistic path, just join the other readers.
+			int count;
+			while ((count= lockCount.get()) > 0) {
+				if (lockCount.compareAndSet(count, count + 1)) {
+					readLocksOfThread[0]++;
+					return;
+				}
+			}
+		}
+
 		synchronized (mutex) {
+			long t= 0;
 			++waitingReaders;
 			try {
-				while (lockCount < 0)
+				while (lockCount.get() < 0 || (fPriorityWriter != null && readLocksOfThread[0] == 0)) {
+					if (t == 0)
+						t= System.nanoTime();
 					mutex.wait();
+				}
 			} finally {
 				--waitingReaders;
 			}
-			++lockCount;
+			// Lock the database before the count becomes visible to readers on the optimistic path.
 			db.setLocked(true);
+			lockCount.incrementAndGet();
+			readLocksOfThread[0]++;
 
-			if (sDEBUG_LOCKS) {
+			if (t != 0) {
 				t = (System.nanoTime() - t) / 1000000;
+				fBlockedReadLockTime+= t;
+			}
+			if (sDEBUG_LOCKS) {
 				if (t >= LONG_READ_LOCK_WAIT_REPORT_THRESHOLD) {
 					System.out.println("Acquired index read lock after " + t + " ms wait."); //$NON-NLS-1$//$NON-NLS-2$
 				}
@@ -965,19 +1047,40 @@ public class PDOM extends PlatformObject implements IPDOM {
 
 	@Override
 	public void releaseReadLock() {
+		final int[] readLocksOfThread= fReadLocksOfThread.get();
+		if (readLocksOfThread[0] > 0)
+			readLocksOfThread[0]--;
+
+		if (!sDEBUG_LOCKS) {
+			// Optimistic path, there are other readers.
+			int count;
+			while ((count= lockCount.get()) > 1) {
+				if (lockCount.compareAndSet(count, count - 1)) {
+					lastReadAccess= System.currentTimeMillis();
+					if (waitingWriters > 0) {
+						synchronized (mutex) {
+							mutex.notifyAll();
+						}
+					}
+					return;
+				}
+			}
+		}
+
 		boolean clearCache= false;
 		synchronized (mutex) {
-			assert lockCount > 0: "No lock to release"; //$NON-NLS-1$
+			assert lockCount.get() > 0: "No lock to release"; //$NON-NLS-1$
 			if (sDEBUG_LOCKS) {
 				decReadLock(fLockDebugging);
 			}
 
 			lastReadAccess= System.currentTimeMillis();
-			if (lockCount > 0)
-				--lockCount;
+			int count= lockCount.get();
+			if (count > 0)
+				count= lockCount.decrementAndGet();
 			mutex.notifyAll();
-			clearCache= lockCount == 0;
-			db.setLocked(lockCount != 0);
+			clearCache= count == 0;
+			db.setLocked(count != 0);
 		}
 		if (clearCache) {
 			clearResultCache();
@@ -1000,7 +1103,25 @@ public class PDOM extends PlatformObject implements IPDOM {
 	 * @throws IllegalStateException if this PDOM is not writable
 	 */
 	public void acquireWriteLock(int giveupReadLocks) throws InterruptedException {
+		acquireWriteLock(giveupReadLocks, -1);
+	}
+
+	/**
+	 * Attempts to acquire a write lock on this PDOM, giving up the specified number of read locks
+	 * first. Blocks until any existing read/write locks are released or the timeout expires.
+	 * When the write lock cannot be obtained, the read locks are kept.
+	 * @param timeout the maximum time to wait in milliseconds.
+	 * @return whether the write lock has been acquired.
+	 * @throws InterruptedException
+	 * @throws IllegalStateException if this PDOM is not writable
+	 */
+	public boolean tryAcquireWriteLock(int giveupReadLocks, long timeout) throws InterruptedException {
+		return acquireWriteLock(giveupReadLocks, Math.max(0, timeout));
+	}
+
+	private boolean acquireWriteLock(int giveupReadLocks, long timeout) throws InterruptedException {
 		assert !isPermanentlyReadOnly();
+		final Thread thread= Thread.currentThread();
 		synchronized (mutex) {
 			if (sDEBUG_LOCKS) {
 				incWriteLock(giveupReadLocks);
@@ -1008,26 +1129,84 @@ public class PDOM extends PlatformObject implements IPDOM {
 
 			if (giveupReadLocks > 0) {
 				// give up on read locks
-				assert lockCount >= giveupReadLocks: "Not enough locks to release"; //$NON-NLS-1$
-				if (lockCount < giveupReadLocks) {
-					giveupReadLocks= lockCount;
+				assert lockCount.get() >= giveupReadLocks: "Not enough locks to release"; //$NON-NLS-1$
+				if (lockCount.get() < giveupReadLocks) {
+					giveupReadLocks= Math.max(0, lockCount.get());
 				}
 			} else {
 				giveupReadLocks= 0;
 			}
 
-			// Let the readers go first
-			long start= sDEBUG_LOCKS ? System.currentTimeMillis() : 0;
-			while (lockCount > giveupReadLocks || waitingReaders > 0) {
-				mutex.wait(BLOCKED_WRITE_LOCK_OUTPUT_INTERVAL);
-				if (sDEBUG_LOCKS) {
-					start = reportBlockedWriteLock(start, giveupReadLocks);
+			final long start= System.currentTimeMillis();
+			long priorityChange= start;
+			long lastReport= start;
+			boolean acquired= false;
+			++waitingWriters;
+			try {
+				while (true) {
+					// Let the readers go first, unless this writer has priority.
+					final boolean hasPriority= fPriorityWriter == thread;
+					if ((hasPriority || waitingReaders == 0) && lockCount.compareAndSet(giveupReadLocks, -1)) {
+						acquired= true;
+						break;
+					}
+					final long now= System.currentTimeMillis();
+					if (timeout >= 0 && now - start >= timeout)
+						break;
+
+					long waitTime= BLOCKED_WRITE_LOCK_OUTPUT_INTERVAL;
+					if (hasPriority) {
+						if (now - priorityChange >= MAX_WRITER_PRIORITY_TIME) {
+							fPriorityWriter= null;
+							priorityChange= now;
+							mutex.notifyAll();
+							waitTime= WRITER_PRIORITY_DELAY;
+						} else {
+							waitTime= priorityChange + MAX_WRITER_PRIORITY_TIME - now;
+						}
+					} else if (fPriorityWriter == null) {
+						if (now - priorityChange >= WRITER_PRIORITY_DELAY) {
+							fPriorityWriter= thread;
+							priorityChange= now;
+							continue;
+						}
+						waitTime= priorityChange + WRITER_PRIORITY_DELAY - now;
+					}
+					if (timeout >= 0) {
+						waitTime= Math.min(waitTime, start + timeout - now);
+					}
+					mutex.wait(Math.max(1, waitTime));
+					if (sDEBUG_LOCKS) {
+						lastReport = reportBlockedWriteLock(lastReport, start, giveupReadLocks);
+					}
+				}
+			} finally {
+				--waitingWriters;
+				if (fPriorityWriter == thread) {
+					fPriorityWriter= null;
+					mutex.notifyAll();
+				}
+				if (!acquired && sDEBUG_LOCKS) {
+					getLockInfo(fLockDebugging).fWriteLocks--;
 				}
 			}
-			lockCount= -1;
-			if (sDEBUG_LOCKS)
+			if (!acquired)
+				return false;
+
+			final long blocked= System.currentTimeMillis() - start;
+			fBlockedWriteLockTime+= blocked;
+			fMaxBlockedWriteLockTime= Math.max(fMaxBlockedWriteLockTime, blocked);
+			fWriteLockCount++;
+			final int[] readLocksOfThread= fReadLocksOfThread.get();
+			readLocksOfThread[0]= Math.max(0, readLocksOfThread[0] - giveupReadLocks);
+			if (sDEBUG_LOCKS) {
+				if (blocked >= LONG_WRITE_LOCK_REPORT_THRESHOLD) {
+					System.out.println("Acquired index write lock after " + blocked + " ms wait."); //$NON-NLS-1$//$NON-NLS-2$
+				}
 				timeWriteLockAcquired = System.currentTimeMillis();
+			}
 			db.setExclusiveLock();
+			return true;
 		}
 	}
 
@@ -1037,7 +1216,8 @@ public class PDOM extends PlatformObject implements IPDOM {
 
 	@SuppressWarnings("nls")
 	public void releaseWriteLock(int establishReadLocks, boolean flush) {
-		// When all locks are released we can clear the result cache.
+		invalidateResultCache(fEvent);
+		// When all locks are released we can clear the transient results.
 		if (establishReadLocks == 0) {
 			clearResultCache();
 		}
@@ -1046,7 +1226,7 @@ public class PDOM extends PlatformObject implements IPDOM {
 		} catch (CoreException e) {
 			CCorePlugin.log(e);
 		}
-		assert lockCount == -1;
+		assert lockCount.get() == -1;
 		if (!fEvent.isTrivial())
 			lastWriteAccess= System.currentTimeMillis();
 		final ChangeEvent event= fEvent;
@@ -1060,10 +1240,15 @@ public class PDOM extends PlatformObject implements IPDOM {
 				decWriteLock(establishReadLocks);
 			}
 
-			if (lockCount < 0)
-				lockCount= establishReadLocks;
+			if (lockCount.get() < 0) {
+				// Update the database before readers can join on the optimistic path.
+				db.setLocked(establishReadLocks != 0);
+				lockCount.set(establishReadLocks);
+				fReadLocksOfThread.get()[0]+= establishReadLocks;
+			} else {
+				db.setLocked(lockCount.get() != 0);
+			}
 			mutex.notifyAll();
-			db.setLocked(lockCount != 0);
 		}
 		fireChange(event);
 	}
@@ -1075,6 +1260,58 @@ public class PDOM extends PlatformObject implements IPDOM {
 		}
 	}
 
+	/**
+	 * Returns the total time in milliseconds that threads were blocked waiting for a read lock.
+	 */
+	public long getBlockedReadLockTime() {
+		synchronized (mutex) {
+			return fBlockedReadLockTime;
+		}
+	}
+
+	/**
+	 * Returns the total time in milliseconds that writers were blocked waiting for the write lock.
+	 */
+	public long getBlockedWriteLockTime() {
+		synchronized (mutex) {
+			return fBlockedWriteLockTime;
+		}
+	}
+
+	/**
+	 * Returns the longest time in milliseconds that a writer was blocked waiting for the write lock.
+	 */
+	public long getMaxBlockedWriteLockTime() {
+		synchronized (mutex) {
+			return fMaxBlockedWriteLockTime;
+		}
+	}
+
+	/**
+	 * Returns the number of times the write lock has been acquired.
+	 */
+	public int getWriteLockCount() {
+		synchronized (mutex) {
+			return fWriteLockCount;
+		}
+	}
+
+	/**
+	 * Returns whether a waiting writer currently has priority over new readers.
+	 */
+	public boolean hasPriorityWriter() {
+		return fPriorityWriter != null;
+	}
+
+	public void resetLockCounters() {
+		synchronized (mutex) {
+			fBlockedReadLockTime= 0;
+			fBlockedWriteLockTime= 0;
+			fMaxBlockedWriteLockTime= 0;
+			fWriteLockCount= 0;
+		}
+	}
+
 	@Override
 	public long getLastWriteAccess() {
 		return lastWriteAccess;
@@ -1392,16 +1629,39 @@ public class PDOM extends PlatformObject implements IPDOM {
 		indexOfDefectiveFiles= null;
 		indexOfFiledWithUnresolvedIncludes= null;
 		fLinkageIDCache.clear();
-		clearResultCache();
+		fResultCache.clear();
 	}
 
+	/**
+	 * Removes the transient entries from the result cache, these may reference objects of an AST.
+	 * Results computed for a linkage are kept until the linkage is modified.
+	 */
 	@Override
 	public void clearResultCache() {
-		synchronized (fResultCache) {
-			fResultCache.clear();
+		fResultCache.invalidate(PDOMResultCache.TRANSIENT);
+	}
+
+	/**
+	 * Removes the cached results of the linkages modified while holding the write lock. When
+	 * the modified linkages are not known, the results of all linkages are removed.
+	 */
+	private void invalidateResultCache(ChangeEvent event) {
+		if (!event.fModifiedLinkages.isEmpty()) {
+			for (int linkageID : event.fModifiedLinkages) {
+				fResultCache.invalidate(linkageID);
+			}
+		} else if (!event.isTrivial()) {
+			fResultCache.invalidateAllLinkages();
 		}
 	}
 
+	/**
+	 * Returns the cache for results computed from this PDOM, e.g. to query its statistics.
+	 */
+	public PDOMResultCache getResultCache() {
+		return fResultCache;
+	}
+
 	@Override
 	public long getCacheHits() {
 		return db.getCacheHits();
@@ -1423,9 +1683,7 @@ public class PDOM extends PlatformObject implements IPDOM {
 
 	@Override
 	public Object getCachedResult(Object key) {
-		synchronized (fResultCache) {
-			return fResultCache.get(key);
-		}
+		return fResultCache.get(key);
 	}
 
 	public void putCachedResult(Object key, Object result) {
@@ -1434,20 +1692,20 @@ public class PDOM extends PlatformObject implements IPDOM {
 
 	@Override
 	public Object putCachedResult(Object key, Object result, boolean replace) {
-		synchronized (fResultCache) {
-			Object old= fResultCache.put(key, result);
-			if (old != null && !replace) {
-				fResultCache.put(key, old);
-				return old;
-			}
-			return result;
-		}
+		return fResultCache.put(key, result, replace, PDOMResultCache.TRANSIENT);
+	}
+
+	/**
+	 * Caches a result that is computed from the content of the given linkage only. Other than
+	 * the transient results such an entry survives the release of the locks, it is removed when
+	 * the linkage is modified. The result must not reference any objects of an AST.
+	 */
+	public Object putCachedResult(int linkageID, Object key, Object result, boolean replace) {
+		return fResultCache.put(key, result, replace, linkageID);
 	}
 
 	public void removeCachedResult(Object key) {
-		synchronized (fResultCache) {
-			fResultCache.remove(key);
-		}
+		fResultCache.remove(key);
 	}
 
 	public String createKeyForCache(long record, char[] name) {
@@ -1702,16 +1960,18 @@ public class PDOM extends PlatformObject implements IPDOM {
 
 	// For debugging lock issues
 	@SuppressWarnings("nls")
-	private long reportBlockedWriteLock(long start, int giveupReadLocks) {
+	private long reportBlockedWriteLock(long lastReport, long start, int giveupReadLocks) {
 		long now= System.currentTimeMillis();
-		if (now >= start + BLOCKED_WRITE_LOCK_OUTPUT_INTERVAL) {
+		if (now >= lastReport + BLOCKED_WRITE_LOCK_OUTPUT_INTERVAL) {
 			System.out.println();
-			System.out.println("Blocked writeLock");
-			System.out.println("  lockcount= " + lockCount + ", giveupReadLocks=" + giveupReadLocks + ", waitingReaders=" + waitingReaders);
+			System.out.println("Blocked writeLock for " + (now - start) + " ms");
+			System.out.println("  lockcount= " + lockCount.get() + ", giveupReadLocks=" + giveupReadLocks +
+					", waitingReaders=" + waitingReaders + ", waitingWriters=" + waitingWriters +
+					", priority=" + (fPriorityWriter == Thread.currentThread()));
 			outputReadLocks(fLockDebugging);
-			start= now;
+			lastReport= now;
 		}
-		return start;
+		return lastReport;
 	}
 
 	// For debugging lock issues
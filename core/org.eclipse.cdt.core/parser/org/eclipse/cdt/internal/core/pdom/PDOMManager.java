@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2013 QNX Software Systems and others.
+ * Copyright (c) 2005, 2014 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,11 +18,14 @@
  *******************************************************************************/
 package org.eclipse.cdt.internal.core.pdom;
 
+import java.io.DataInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Date;
@@ -34,6 +37,10 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.CCorePreferenceConstants;
 import org.eclipse.cdt.core.dom.ILinkage;
@@ -73,6 +80,8 @@ import org.eclipse.cdt.internal.core.index.IndexerStateEvent;
 import org.eclipse.cdt.internal.core.index.provider.IndexProviderManager;
 import org.eclipse.cdt.internal.core.pdom.PDOM.IListener;
 import org.eclipse.cdt.internal.core.pdom.db.ChunkCache;
+import org.eclipse.cdt.internal.core.pdom.db.Database;
+import org.eclipse.cdt.internal.core.pdom.db.DatabaseDelta;
 import org.eclipse.cdt.internal.core.pdom.dom.IPDOMLinkageFactory;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMProjectIndexLocationConverter;
 import org.eclipse.cdt.internal.core.pdom.indexer.AbstractPDOMIndexer;
@@ -243,6 +252,7 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 		adjustCacheSize();
 		updatePathCanonicalizationStrategy();
 		fIndexProviderManager.startup();
+		registerMetrics(true);
 
 		fTraceIndexerSetup= String.valueOf(true).equals(Platform.getDebugOption(TRACE_INDEXER_SETUP));
 		final CoreModel model = CoreModel.getDefault();
@@ -283,6 +293,25 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 			jobToCancel.cancelJobs(null, false);
 		}
 		Job.getJobManager().removeJobChangeListener(fJobChangeListener);
+		registerMetrics(false);
+	}
+
+	/**
+	 * Makes the metrics of the indexer available via JMX.
+	 */
+	private void registerMetrics(boolean register) {
+		try {
+			MBeanServer server= ManagementFactory.getPlatformMBeanServer();
+			ObjectName name= new ObjectName(IndexerMetricsMXBean.OBJECT_NAME);
+			if (register) {
+				if (!server.isRegistered(name))
+					server.registerMBean(IndexerMetrics.getDefault(), name);
+			} else if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+		} catch (JMException e) {
+			CCorePlugin.log(e);
+		}
 	}
 
 	protected void onPreferenceChange(PreferenceChangeEvent event) {
@@ -1300,14 +1329,7 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 				version= (version << 8) + (b & 0xff);
 				out.write(b);
 			}
-			if (version > PDOM.getMaxSupportedVersion()) {
-				final IStatus status = new Status(IStatus.WARNING, CCorePlugin.PLUGIN_ID, 0, CCorePlugin.getResourceString("PDOMManager.unsupportedHigherVersion"), null); //$NON-NLS-1$
-				throw new CoreException(status);
-			}
-			if ( !PDOM.isSupportedVersion( version ) ) {
-				final IStatus status = new Status(IStatus.WARNING, CCorePlugin.PLUGIN_ID, 0, CCorePlugin.getResourceString("PDOMManager.unsupportedVersion"), null); //$NON-NLS-1$
-				throw new CoreException(status);
-			}
+			checkImportVersion(Database.decodeVersion(version));
 			byte[] buffer= new byte[2048];
 			int read;
 			while ((read= stream.read(buffer)) >= 0) {
@@ -1317,6 +1339,88 @@ public class PDOMManager implements IWritableIndexManager, IListener {
 			out.close();
 		}
 
+		// A subsequent delta cannot be applied to the new database.
+		getTeamSnapshotFile(project, false).delete();
+		reloadProjectPDOM(project, newName, newFile);
+	}
+
+	/**
+	 * Resets the pdom for the project with a snapshot or a delta created by {@link DatabaseDelta}.
+	 * A delta is applied to the snapshot of the previous import, the snapshot is replaced with
+	 * the one of the imported database. The delta is applied while it is read from the stream.
+	 * @throws IOException if the delta does not fit to the snapshot of the previous import,
+	 *     or if it is corrupt.
+	 * @throws OperationCanceledException in case the thread was interrupted
+	 */
+	public void importProjectPDOMDelta(ICProject project, InputStream stream) throws CoreException, IOException {
+		final File baseFile= getTeamSnapshotFile(project, false);
+		final File newBaseFile= new File(baseFile.getPath() + ".tmp"); //$NON-NLS-1$
+		final String newName= createNewDatabaseName(project);
+		final File newFile= fileFromDatabaseName(newName);
+		boolean ok= false;
+		try {
+			InputStream base= baseFile.exists() ? new FileInputStream(baseFile) : null;
+			try {
+				OutputStream out= new FileOutputStream(newFile);
+				try {
+					OutputStream snapshot= new FileOutputStream(newBaseFile);
+					try {
+						DatabaseDelta.apply(stream, base, out, snapshot);
+					} finally {
+						snapshot.close();
+					}
+				} finally {
+					out.close();
+				}
+			} finally {
+				if (base != null) {
+					base.close();
+				}
+			}
+			checkImportVersion(readVersion(newFile));
+
+			baseFile.delete();
+			if (!newBaseFile.renameTo(baseFile)) {
+				newBaseFile.delete();
+			}
+			ok= true;
+		} finally {
+			if (!ok) {
+				newFile.delete();
+				newBaseFile.delete();
+			}
+		}
+		reloadProjectPDOM(project, newName, newFile);
+	}
+
+	/**
+	 * Returns the file for the snapshot of the database last exported or imported for the project.
+	 */
+	File getTeamSnapshotFile(ICProject project, boolean export) {
+		return fileFromDatabaseName(project.getElementName() + (export ? ".export" : ".import") + ".snap"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	private static int readVersion(File file) throws IOException {
+		DataInputStream in= new DataInputStream(new FileInputStream(file));
+		try {
+			return Database.decodeVersion(in.readInt());
+		} finally {
+			in.close();
+		}
+	}
+
+	private void checkImportVersion(int version) throws CoreException {
+		if (version > PDOM.getMaxSupportedVersion()) {
+			final IStatus status = new Status(IStatus.WARNING, CCorePlugin.PLUGIN_ID, 0, CCorePlugin.getResourceString("PDOMManager.unsupportedHigherVersion"), null); //$NON-NLS-1$
+			throw new CoreException(status);
+		}
+		if ( !PDOM.isSupportedVersion( version ) ) {
+			final IStatus status = new Status(IStatus.WARNING, CCorePlugin.PLUGIN_ID, 0, CCorePlugin.getResourceString("PDOMManager.unsupportedVersion"), null); //$NON-NLS-1$
+			throw new CoreException(status);
+		}
+	}
+
+	private void reloadProjectPDOM(ICProject project, String newName, File newFile) throws CoreException {
 		WritablePDOM pdom= (WritablePDOM) getPDOM(project);
 		try {
 			pdom.acquireWriteLock();
@@ -0,0 +1,241 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.pdom;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache for results computed from the content of a PDOM. The cache is split into shards, each
+ * of them protected by its own lock and limited to a number of entries. When the limit is
+ * exceeded the least recently used entry of the shard is evicted.
+ * <p>
+ * Transient entries may reference objects of an AST, they have to be dropped when the PDOM is
+ * no longer locked. All other entries belong to a linkage and stay valid until the linkage
+ * is modified.
+ */
+public final class PDOMResultCache {
+	/**
+	 * Linkage id used for transient entries.
+	 */
+	public static final int TRANSIENT= -1;
+
+	private static final int SHARD_COUNT= 16;
+	private static final int ALL_LINKAGES= -2;
+
+	private static final class CachedResult {
+		final Object fValue;
+		final int fLinkageID;
+
+		CachedResult(Object value, int linkageID) {
+			fValue= value;
+			fLinkageID= linkageID;
+		}
+	}
+
+	private static final class Shard extends LinkedHashMap<Object, CachedResult> {
+		private final int fMaxSize;
+		int fTransientCount;
+		long fHits;
+		long fMisses;
+		long fEvictions;
+
+		Shard(int maxSize) {
+			super(16, 0.75f, true);
+			fMaxSize= maxSize;
+		}
+
+		void putEntry(Object key, CachedResult entry) {
+			removeEntry(key);
+			if (entry.fLinkageID == TRANSIENT)
+				fTransientCount++;
+			put(key, entry);
+		}
+
+		void removeEntry(Object key) {
+			CachedResult old= remove(key);
+			if (old != null && old.fLinkageID == TRANSIENT)
+				fTransientCount--;
+		}
+
+		void removeEntries(int linkageID) {
+			if (linkageID == TRANSIENT && fTransientCount == 0)
+				return;
+			for (Iterator<CachedResult> it = values().iterator(); it.hasNext();) {
+				final int entryLinkageID= it.next().fLinkageID;
+				if (entryLinkageID == linkageID || (linkageID == ALL_LINKAGES && entryLinkageID != TRANSIENT)) {
+					it.remove();
+				}
+			}
+			if (linkageID == TRANSIENT)
+				fTransientCount= 0;
+		}
+
+		@Override
+		public void clear() {
+			super.clear();
+			fTransientCount= 0;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Object, CachedResult> eldest) {
+			if (size() > fMaxSize) {
+				if (eldest.getValue().fLinkageID == TRANSIENT)
+					fTransientCount--;
+				fEvictions++;
+				return true;
+			}
+			return false;
+		}
+	}
+
+	private final Shard[] fShards;
+
+	/**
+	 * @param maxSize the maximum number of entries kept in the cache.
+	 */
+	public PDOMResultCache(int maxSize) {
+		fShards= new Shard[SHARD_COUNT];
+		final int maxShardSize= Math.max(1, maxSize / SHARD_COUNT);
+		for (int i = 0; i < fShards.length; i++) {
+			fShards[i]= new Shard(maxShardSize);
+		}
+	}
+
+	private Shard getShard(Object key) {
+		int h= key.hashCode();
+		h ^= (h >>> 16);
+		return fShards[h & (SHARD_COUNT - 1)];
+	}
+
+	public Object get(Object key) {
+		final Shard shard= getShard(key);
+		synchronized (shard) {
+			CachedResult entry= shard.get(key);
+			if (entry == null) {
+				shard.fMisses++;
+				return null;
+			}
+			shard.fHits++;
+			return entry.fValue;
+		}
+	}
+
+	/**
+	 * Stores a value for the key.
+	 * @param linkageID the linkage the value was computed for, or {@link #TRANSIENT}.
+	 * @param replace if <code>false</code> an existing entry will not be replaced.
+	 * @return the value that is actually stored.
+	 */
+	public Object put(Object key, Object value, boolean replace, int linkageID) {
+		final Shard shard= getShard(key);
+		synchronized (shard) {
+			if (value == null) {
+				shard.removeEntry(key);
+				return null;
+			}
+			if (!replace) {
+				CachedResult old= shard.get(key);
+				if (old != null) {
+					return old.fValue;
+				}
+			}
+			shard.putEntry(key, new CachedResult(value, linkageID));
+			return value;
+		}
+	}
+
+	public void remove(Object key) {
+		final Shard shard= getShard(key);
+		synchronized (shard) {
+			shard.removeEntry(key);
+		}
+	}
+
+	/**
+	 * Removes all entries.
+	 */
+	public void clear() {
+		for (Shard shard : fShards) {
+			synchronized (shard) {
+				shard.clear();
+			}
+		}
+	}
+
+	/**
+	 * Removes the entries of the given linkage. Use {@link #TRANSIENT} to remove the transient
+	 * entries.
+	 */
+	public void invalidate(int linkageID) {
+		for (Shard shard : fShards) {
+			synchronized (shard) {
+				shard.removeEntries(linkageID);
+			}
+		}
+	}
+
+	/**
+	 * Removes all entries that are not transient.
+	 */
+	public void invalidateAllLinkages() {
+		invalidate(ALL_LINKAGES);
+	}
+
+	public int size() {
+		int result= 0;
+		for (Shard shard : fShards) {
+			synchronized (shard) {
+				result += shard.size();
+			}
+		}
+		return result;
+	}
+
+	public long getHitCount() {
+		long result= 0;
+		for (Shard shard : fShards) {
+			synchronized (shard) {
+				result += shard.fHits;
+			}
+		}
+		return result;
+	}
+
+	public long getMissCount() {
+		long result= 0;
+		for (Shard shard : fShards) {
+			synchronized (shard) {
+				result += shard.fMisses;
+			}
+		}
+		return result;
+	}
+
+	public long getEvictionCount() {
+		long result= 0;
+		for (Shard shard : fShards) {
+			synchronized (shard) {
+				result += shard.fEvictions;
+			}
+		}
+		return result;
+	}
+
+	public void resetCounters() {
+		for (Shard shard : fShards) {
+			synchronized (shard) {
+				shard.fHits= shard.fMisses= shard.fEvictions= 0;
+			}
+		}
+	}
+}
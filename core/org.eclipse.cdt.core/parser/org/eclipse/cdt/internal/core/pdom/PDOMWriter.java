@@ -356,6 +356,7 @@ abstract public class PDOMWriter implements IPDOMASTProcessor {
 							fileInAST.fileContentKey.getLocation().getURI().getPath()), th));
 				}
 				fStatistics.fAddToIndexTime += lock.getCumulativeLockTime();
+				fStatistics.fLockWaitTime += lock.getCumulativeWaitTime();
 			}
 		}
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2010 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007, 2014 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,8 @@
  *******************************************************************************/ 
 package org.eclipse.cdt.internal.core.pdom;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -32,6 +34,7 @@ import org.eclipse.cdt.core.index.IIndexLocationConverter;
 import org.eclipse.cdt.core.model.ICProject;
 import org.eclipse.cdt.core.model.LanguageManager;
 import org.eclipse.cdt.internal.core.CCoreInternals;
+import org.eclipse.cdt.internal.core.pdom.db.DatabaseDelta;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMProjectIndexLocationConverter;
 import org.eclipse.cdt.internal.core.pdom.indexer.IndexerPreferences;
 import org.eclipse.cdt.internal.core.resources.ResourceLookup;
@@ -57,9 +60,19 @@ public class TeamPDOMExportOperation implements IWorkspaceRunnable {
 	 */
 	public static int EXPORT_OPTION_RESOURCE_SNAPSHOT = 1;
 
+	/**
+	 * Option constant (value:2) to indicate that the index should be exported as a compressed
+	 * delta to the previous export of the project. The delta can only be imported on top of
+	 * the previous export, an import of an older or no previous export fails and causes the
+	 * index to be rebuilt. Every {@value #FULL_SNAPSHOT_INTERVAL}th export is a full snapshot,
+	 * such that an importer that missed an export can catch up again.
+	 */
+	public static int EXPORT_OPTION_CHUNK_DELTA = 2;
+
 	private static final String RESOURCE_PREFIX = "res-"; //$NON-NLS-1$
 	private static final String CDT_PREFIX = "cdt-"; //$NON-NLS-1$
 	private static final String RESOURCE_SNAP_EXTENSION = "snap.zip"; //$NON-NLS-1$
+	private static final int FULL_SNAPSHOT_INTERVAL = 8;
 	
 	private ICProject fProject; 
 	private String fTargetLocation;
@@ -125,7 +138,11 @@ public class TeamPDOMExportOperation implements IWorkspaceRunnable {
 			}
 			
 			// create archive
-			createArchive(tmpPDOM, tmpChecksums);
+			if ((fOptions & EXPORT_OPTION_CHUNK_DELTA) != 0) {
+				createDeltaArchive(tmpPDOM, tmpChecksums);
+			} else {
+				createArchive(tmpPDOM, tmpChecksums);
+			}
 			
 			// store preferences
 			monitor.setTaskName(Messages.TeamPDOMExportOperation_taskExportIndex);
@@ -259,6 +276,98 @@ public class TeamPDOMExportOperation implements IWorkspaceRunnable {
 		}
 	}
 
+	private void createDeltaArchive(File tmpPDOM, File tmpChecksums) throws CoreException {
+		final File baseFile= CCoreInternals.getPDOMManager().getTeamSnapshotFile(fProject, true);
+		final File countFile= new File(baseFile.getPath() + ".count"); //$NON-NLS-1$
+		// Periodically a full snapshot is exported, it can be imported on top of any base.
+		int deltaCount= baseFile.exists() ? readDeltaCount(countFile) + 1 : 0;
+		if (deltaCount >= FULL_SNAPSHOT_INTERVAL) {
+			deltaCount= 0;
+		}
+		fTargetLocationFile.delete();
+		ZipOutputStream out= null;
+		InputStream base= null;
+		try {
+			fTargetLocationFile.getParentFile().mkdirs();
+			out= new ZipOutputStream(new FileOutputStream(fTargetLocationFile));
+			// The delta is compressed already.
+			out.setLevel(Deflater.NO_COMPRESSION);
+			out.putNextEntry(new ZipEntry(TeamPDOMImportOperation.DELTA_NAME));
+			if (deltaCount > 0) {
+				base= new FileInputStream(baseFile);
+			}
+			DatabaseDelta.write(tmpPDOM, base, out);
+			out.closeEntry();
+			out.setLevel(Deflater.BEST_COMPRESSION);
+			writeEntry(out, TeamPDOMImportOperation.CHECKSUMS_NAME, tmpChecksums);
+		}
+		catch (IOException e) {
+			throw new CoreException(CCorePlugin.createStatus(Messages.TeamPDOMExportOperation_errorCreateArchive, e));
+		}
+		finally {
+			close(base);
+			close(out);
+		}
+		updateSnapshot(tmpPDOM, baseFile);
+		writeDeltaCount(countFile, deltaCount);
+		IFile[] wsResource= ResourceLookup.findFilesForLocation(new Path(fTargetLocationFile.getAbsolutePath()));
+		for (IFile file : wsResource) {
+			file.refreshLocal(0, new NullProgressMonitor());
+		}
+	}
+
+	/**
+	 * Stores the snapshot of the exported index, it serves as the base for the next delta.
+	 */
+	private void updateSnapshot(File tmpPDOM, File baseFile) throws CoreException {
+		File tmpSnapshot= new File(baseFile.getPath() + ".tmp"); //$NON-NLS-1$
+		OutputStream out= null;
+		try {
+			out= new FileOutputStream(tmpSnapshot);
+			DatabaseDelta.write(tmpPDOM, null, out);
+		} catch (IOException e) {
+			close(out);
+			tmpSnapshot.delete();
+			throw new CoreException(CCorePlugin.createStatus(Messages.TeamPDOMExportOperation_errorWriteTempFile, e));
+		}
+		finally {
+			close(out);
+		}
+		baseFile.delete();
+		if (!tmpSnapshot.renameTo(baseFile)) {
+			tmpSnapshot.delete();
+		}
+	}
+
+	/**
+	 * Returns the number of deltas exported since the last full snapshot.
+	 */
+	private int readDeltaCount(File countFile) {
+		if (!countFile.exists())
+			return 0;
+		DataInputStream in= null;
+		try {
+			in= new DataInputStream(new FileInputStream(countFile));
+			return in.readInt();
+		} catch (IOException e) {
+			return 0;
+		} finally {
+			close(in);
+		}
+	}
+
+	private void writeDeltaCount(File countFile, int count) throws CoreException {
+		DataOutputStream out= null;
+		try {
+			out= new DataOutputStream(new FileOutputStream(countFile));
+			out.writeInt(count);
+		} catch (IOException e) {
+			throw new CoreException(CCorePlugin.createStatus(Messages.TeamPDOMExportOperation_errorWriteTempFile, e));
+		} finally {
+			close(out);
+		}
+	}
+
 	private void writeEntry(ZipOutputStream out, String name, File input) throws IOException {
 		ZipEntry e= new ZipEntry(name);
 		out.putNextEntry(e);
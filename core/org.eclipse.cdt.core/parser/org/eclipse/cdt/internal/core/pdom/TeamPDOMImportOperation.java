@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2010 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007, 2014 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -56,6 +56,7 @@ import org.eclipse.osgi.util.NLS;
 public class TeamPDOMImportOperation implements IWorkspaceRunnable {
 	static final String CHECKSUMS_NAME = "checksums.dat"; //$NON-NLS-1$
 	static final String INDEX_NAME = "cdt-index.pdom"; //$NON-NLS-1$
+	static final String DELTA_NAME = "cdt-index.delta"; //$NON-NLS-1$
 	private static final Pattern PROJECT_VAR_PATTERN= Pattern.compile("\\$\\{(project_[a-zA-Z0-9]*)\\}"); //$NON-NLS-1$
 	private static final String PROJECT_VAR_REPLACEMENT_BEGIN = "\\${$1:"; //$NON-NLS-1$
 	private static final String PROJECT_VAR_REPLACEMENT_END = "}"; //$NON-NLS-1$
@@ -163,12 +164,22 @@ public class TeamPDOMImportOperation implements IWorkspaceRunnable {
 
 	private void importIndex(ZipFile zip, IProgressMonitor monitor) throws CoreException, IOException {
 		ZipEntry indexEntry= zip.getEntry(INDEX_NAME);
-		if (indexEntry == null) {
+		if (indexEntry != null) {
+			InputStream stream= zip.getInputStream(indexEntry);
+			CCoreInternals.getPDOMManager().importProjectPDOM(fProject, stream);
+			return;
+		}
+		ZipEntry deltaEntry= zip.getEntry(DELTA_NAME);
+		if (deltaEntry == null) {
 			throw new CoreException(CCorePlugin.createStatus(
 					NLS.bind(Messages.PDOMImportTask_errorInvalidArchive, zip.getName())));
 		}
-		InputStream stream= zip.getInputStream(indexEntry);
-		CCoreInternals.getPDOMManager().importProjectPDOM(fProject, stream);
+		InputStream stream= zip.getInputStream(deltaEntry);
+		try {
+			CCoreInternals.getPDOMManager().importProjectPDOMDelta(fProject, stream);
+		} finally {
+			stream.close();
+		}
 	}
 
 	private Map<?, ?> getChecksums(ZipFile zip) {
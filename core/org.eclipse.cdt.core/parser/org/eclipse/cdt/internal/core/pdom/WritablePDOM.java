@@ -14,6 +14,7 @@ package org.eclipse.cdt.internal.core.pdom;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -122,6 +123,7 @@ public class WritablePDOM extends PDOM implements IWritableIndexFragment {
 		}
 
 		fEvent.fFilesWritten.add(uncommittedKey.getLocation());
+		fEvent.fModifiedLinkages.add(file.getLinkageID());
 		uncommittedFile = null;
 		uncommittedKey = null;
 		return file;
@@ -130,6 +132,7 @@ public class WritablePDOM extends PDOM implements IWritableIndexFragment {
 	@Override
 	public void clearUncommittedFile() throws CoreException {
 		if (uncommittedFile != null) {
+			fEvent.fModifiedLinkages.add(uncommittedFile.getLinkageID());
 			try {
 				uncommittedFile.clear();
 				uncommittedFile.delete();
@@ -148,6 +151,7 @@ public class WritablePDOM extends PDOM implements IWritableIndexFragment {
 		assert sourceFile.getIndexFragment() == this;
 
 		PDOMFile pdomFile = (PDOMFile) sourceFile;
+		fEvent.fModifiedLinkages.add(pdomFile.getLinkageID());
 		pdomFile.addMacros(macros);
 		final ASTFilePathResolver origResolver= fPathResolver;
 		fPathResolver= pathResolver;
@@ -171,6 +175,7 @@ public class WritablePDOM extends PDOM implements IWritableIndexFragment {
 		assert file.getIndexFragment() == this;
 		IIndexFileLocation location = file.getLocation();
 		PDOMFile pdomFile = (PDOMFile) file;
+		fEvent.fModifiedLinkages.add(pdomFile.getLinkageID());
 		pdomFile.clear();
 		IIndexInclude include = pdomFile.getParsedInContext();
 		if (include != null) {
@@ -228,15 +233,21 @@ public class WritablePDOM extends PDOM implements IWritableIndexFragment {
 
 		clearFileIndex();
 		final List<PDOMFile> notConverted = new ArrayList<PDOMFile>();
+		long[] converted= new long[pdomfiles.size()];
+		int count= 0;
 		for (PDOMFile file : pdomfiles) {
 			String internalFormat = newConverter.toInternalFormat(file.getLocation());
 			if (internalFormat != null) {
 				file.setInternalLocation(internalFormat);
-				getFileIndex().insert(file.getRecord());
+				converted[count++]= file.getRecord();
 			} else {
 				notConverted.add(file);
 			}
 		}
+		if (count < converted.length) {
+			converted= Arrays.copyOf(converted, count);
+		}
+		getFileIndex().bulkLoad(converted);
 
 		// remove content where converter returns null
 		for (PDOMFile file : notConverted) {
@@ -22,6 +22,7 @@ public class YieldableIndexLock {
 	private final boolean flushIndex;
 	private long lastLockTime;
 	private long cumulativeLockTime;
+	private long cumulativeWaitTime;
 
 	public YieldableIndexLock(IWritableIndex index, boolean flushIndex) {
 		this.index = index;
@@ -34,8 +35,10 @@ public class YieldableIndexLock {
 	 * @throws InterruptedException
 	 */
 	public void acquire() throws InterruptedException {
+		final long start = System.currentTimeMillis();
 		index.acquireWriteLock();
 		lastLockTime = System.currentTimeMillis();
+		cumulativeWaitTime += lastLockTime - start;
 	}
 
 	/**
@@ -69,4 +72,11 @@ public class YieldableIndexLock {
 	public long getCumulativeLockTime() {
 		return cumulativeLockTime;
 	}
+
+	/**
+	 * @return Total time spent waiting for the lock in milliseconds.
+	 */
+	public long getCumulativeWaitTime() {
+		return cumulativeWaitTime;
+	}
 }
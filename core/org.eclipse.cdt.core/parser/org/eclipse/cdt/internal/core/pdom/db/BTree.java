@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2009 QNX Software Systems and others.
+ * Copyright (c) 2005, 2014 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -207,6 +207,103 @@ public class BTree {
 		putRecord(db.getChunk(root), root, 0, record); 
 	}
 
+	/**
+	 * Inserts the records into the b-tree. Like with {@link #insert(long)}, a record is not
+	 * inserted when there is an equal one, the first one of equal records wins.
+	 * <p>
+	 * When the b-tree is empty, the records are sorted and the tree is built bottom-up from
+	 * nodes that are filled as much as possible. The nodes are allocated one after the other
+	 * and every node is written once, which is much faster than inserting the records one by
+	 * one when rebuilding a large index.
+	 *
+	 * @param records offsets of the records, the array is not modified.
+	 */
+	public void bulkLoad(long[] records) throws CoreException {
+		if (getRoot() != 0) {
+			for (long record : records) {
+				insert(record);
+			}
+			return;
+		}
+		if (records.length == 0)
+			return;
+
+		long[] keys= records.clone();
+		mergeSort(keys, records.clone(), 0, keys.length);
+		keys= removeDuplicates(keys);
+
+		// Build the tree level by level, starting with the leaves. Between two nodes of a
+		// level one key is moved up to the parent level.
+		long[] children= null;
+		while (true) {
+			final int nodeCount= (keys.length + MAX_CHILDREN) / MAX_CHILDREN;
+			final int keysInNodes= keys.length - (nodeCount - 1);
+			final long[] parentKeys= new long[nodeCount - 1];
+			final long[] nodes= new long[nodeCount];
+			int k= 0;
+			int c= 0;
+			for (int i = 0; i < nodeCount; i++) {
+				final int keyCount= keysInNodes / nodeCount + (i < keysInNodes % nodeCount ? 1 : 0);
+				final long node= allocateNode();
+				final Chunk chunk= db.getChunk(node);
+				for (int j = 0; j < keyCount; j++) {
+					putRecord(chunk, node, j, keys[k++]);
+				}
+				if (children != null) {
+					for (int j = 0; j <= keyCount; j++) {
+						putChild(chunk, node, j, children[c++]);
+					}
+				}
+				nodes[i]= node;
+				if (i < nodeCount - 1) {
+					parentKeys[i]= keys[k++];
+				}
+			}
+			if (nodeCount == 1) {
+				db.putRecPtr(rootPointer, nodes[0]);
+				return;
+			}
+			keys= parentKeys;
+			children= nodes;
+		}
+	}
+
+	/**
+	 * Stable merge sort of <code>records[from..to)</code> using the comparator of the b-tree.
+	 * @param buffer a copy of the records used as temporary storage.
+	 */
+	private void mergeSort(long[] records, long[] buffer, int from, int to) throws CoreException {
+		// The buffer and the records swap their roles on each level of recursion.
+		if (to - from < 2)
+			return;
+		final int middle= (from + to) >>> 1;
+		mergeSort(buffer, records, from, middle);
+		mergeSort(buffer, records, middle, to);
+		int i= from;
+		int j= middle;
+		for (int k = from; k < to; k++) {
+			if (j >= to || (i < middle && cmp.compare(buffer[i], buffer[j]) <= 0)) {
+				records[k]= buffer[i++];
+			} else {
+				records[k]= buffer[j++];
+			}
+		}
+	}
+
+	private long[] removeDuplicates(long[] sortedRecords) throws CoreException {
+		int length= 1;
+		for (int i = 1; i < sortedRecords.length; i++) {
+			if (cmp.compare(sortedRecords[length - 1], sortedRecords[i]) != 0) {
+				sortedRecords[length++]= sortedRecords[i];
+			}
+		}
+		if (length == sortedRecords.length)
+			return sortedRecords;
+		long[] result= new long[length];
+		System.arraycopy(sortedRecords, 0, result, 0, length);
+		return result;
+	}
+
 	private long allocateNode() throws CoreException {
 		return db.malloc((2 * MAX_RECORDS + 1) * Database.INT_SIZE);
 	}
@@ -21,26 +21,36 @@ import org.eclipse.core.runtime.CoreException;
 /**
  * Caches the content of a piece of the database.
  */
-final class Chunk {
-	final private byte[] fBuffer= new byte[Database.CHUNK_SIZE];
+class Chunk {
+	final private byte[] fBuffer;
 
 	final Database fDatabase;
 	final int fSequenceNumber;
+	private final int fOffsetMask;
 	
 	boolean fCacheHitFlag;
 	boolean fDirty;
 	boolean fLocked;	// locked chunks must not be released from cache.
-	int fCacheIndex= -1;
+	int fCacheIndex= -1;	// index in the page table of the cache segment.
 		
 	Chunk(Database db, int sequenceNumber) {
+		this(db, sequenceNumber, new byte[db.getChunkSize()]);
+	}
+
+	/**
+	 * For subclasses that do not keep a copy of the content on the heap.
+	 */
+	Chunk(Database db, int sequenceNumber, byte[] buffer) {
 		fDatabase= db;
 		fSequenceNumber= sequenceNumber;
+		fOffsetMask= db.getChunkSize() - 1;
+		fBuffer= buffer;
 	}
 
 	void read() throws CoreException {
 		try {
 			final ByteBuffer buf= ByteBuffer.wrap(fBuffer);
-			fDatabase.read(buf, (long) fSequenceNumber*Database.CHUNK_SIZE);
+			fDatabase.read(buf, (long) fSequenceNumber * fBuffer.length);
 		} catch (IOException e) {
 			throw new CoreException(new DBStatus(e));
 		}
@@ -49,15 +59,15 @@ final class Chunk {
 	void flush() throws CoreException {
 		try {
 			final ByteBuffer buf= ByteBuffer.wrap(fBuffer);
-			fDatabase.write(buf, (long) fSequenceNumber*Database.CHUNK_SIZE);
+			fDatabase.write(buf, (long) fSequenceNumber * fBuffer.length);
 		} catch (IOException e) {
 			throw new CoreException(new DBStatus(e));
 		}
 		fDirty= false;
 	}
 
-	private static int recPtrToIndex(final long offset) {
-		return (int) (offset & Database.OFFSET_IN_CHUNK_MASK);
+	final int recPtrToIndex(final long offset) {
+		return (int) (offset & fOffsetMask);
 	}
 
 	public void putByte(final long offset, final byte value) {
@@ -122,7 +132,7 @@ final class Chunk {
 	 * A free Record Pointer is a pointer to a raw block,
 	 * i.e. the pointer is not moved past the BLOCK_HEADER_SIZE.
 	 */
-	private static long expandToFreeRecPtr(int value) {
+	static long expandToFreeRecPtr(int value) {
 		/*
 		 * We need to properly manage the integer that was read. The value will be sign-extended 
 		 * so if the most significant bit is set, the resulting long will look negative. By 
@@ -148,7 +158,14 @@ final class Chunk {
 	 * This is a pointer to a block + BLOCK_HEADER_SIZE.
 	 */
 	static long getRecPtr(byte[] buffer, final int idx) {
-		int value = getInt(buffer, idx);
+		return expandToRecPtr(getInt(buffer, idx));
+	}
+
+	/**
+	 * A Record Pointer is a pointer as returned by Database.malloc().
+	 * This is a pointer to a block + BLOCK_HEADER_SIZE.
+	 */
+	static long expandToRecPtr(int value) {
 		long address = expandToFreeRecPtr(value);
 		return address != 0 ? (address + Database.BLOCK_HEADER_SIZE) : address;
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007, 2014 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,16 +7,132 @@
  *
  * Contributors:
  *     Markus Schorn - initial API and implementation
- *******************************************************************************/ 
+ *******************************************************************************/
 package org.eclipse.cdt.internal.core.pdom.db;
 
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache for the chunks of one or more databases. The cache is split into segments, each of
+ * them is protected by its own lock and replaces its chunks with the CLOCK algorithm. This
+ * way readers of different chunks do not have to wait for each other.
+ * <p>
+ * A chunk is always assigned to the same segment, the lock of that segment also protects the
+ * slot of the chunk in the chunk table of its database. Operations that need to access the
+ * entire chunk table of a database have to obtain the locks for all segments.
+ */
 public final class ChunkCache {
+	private static final int MAX_SEGMENTS= 16;
 	private static ChunkCache sSharedInstance= new ChunkCache();
-	
-	private Chunk[] fPageTable;
-	private boolean fTableIsFull;
-	private int fPointer;
-	
+
+	/**
+	 * A stripe of the chunk cache, the lock needs to be held when accessing its members.
+	 * The capacity is measured in units of {@link Database#CHUNK_SIZE}, a chunk of a database
+	 * with a larger chunk size occupies multiple units.
+	 */
+	static final class Segment extends ReentrantLock {
+		private Chunk[] fPageTable;
+		private int fCount;
+		private int fPointer;
+		private int fUsed;
+		private int fCapacity;
+
+		Segment(int capacity) {
+			fPageTable= new Chunk[capacity];
+			fCapacity= capacity;
+		}
+
+		void add(Chunk chunk, boolean locked) {
+			assert isHeldByCurrentThread();
+			if (locked) {
+				chunk.fLocked= true;
+			}
+			if (chunk.fCacheIndex >= 0) {
+				chunk.fCacheHitFlag= true;
+				return;
+			}
+			final int weight= getWeight(chunk);
+			while (fUsed + weight > fCapacity && fCount > 0) {
+				evictChunk();
+			}
+			if (fCount == fPageTable.length) {
+				// Only possible for a chunk larger than the capacity.
+				Chunk[] newTable= new Chunk[fCount + 1];
+				System.arraycopy(fPageTable, 0, newTable, 0, fCount);
+				fPageTable= newTable;
+			}
+			chunk.fCacheIndex= fCount;
+			fPageTable[fCount++]= chunk;
+			fUsed += weight;
+		}
+
+		/**
+		 * Evicts a chunk from the page table and the chunk table.
+		 */
+		private void evictChunk() {
+			/*
+			 * Use the CLOCK algorithm to determine which chunk to evict.
+			 * i.e., if the chunk in the current slot of the page table has been
+			 * recently referenced (i.e. the reference flag is set), unset the
+			 * reference flag and move to the next slot.  Otherwise, evict the
+			 * chunk in the current slot.
+			 */
+			while (true) {
+				if (fPointer >= fCount) {
+					fPointer= 0;
+				}
+				Chunk chunk = fPageTable[fPointer];
+				if (chunk.fCacheHitFlag) {
+					chunk.fCacheHitFlag= false;
+					fPointer++;
+				} else {
+					chunk.fDatabase.releaseChunk(chunk);
+					remove(chunk);
+					return;
+				}
+			}
+		}
+
+		void remove(Chunk chunk) {
+			assert isHeldByCurrentThread();
+			final int idx= chunk.fCacheIndex;
+			if (idx >= 0) {
+				chunk.fCacheIndex= -1;
+				fUsed -= getWeight(chunk);
+				final Chunk move= fPageTable[--fCount];
+				fPageTable[fCount]= null;
+				if (move != chunk) {
+					fPageTable[idx]= move;
+					move.fCacheIndex= idx;
+				}
+			}
+		}
+
+		int getCapacity() {
+			return fCapacity;
+		}
+
+		void setCapacity(int capacity) {
+			assert isHeldByCurrentThread();
+			fCapacity= capacity;
+			while (fUsed > fCapacity && fCount > 0) {
+				evictChunk();
+			}
+			if (fPageTable.length != capacity && fCount <= capacity) {
+				Chunk[] newTable= new Chunk[capacity];
+				System.arraycopy(fPageTable, 0, newTable, 0, fCount);
+				fPageTable= newTable;
+			}
+		}
+
+		private static int getWeight(Chunk chunk) {
+			return chunk.fDatabase.getChunkSize() / Database.CHUNK_SIZE;
+		}
+	}
+
+	private final Segment[] fSegments;
+	private final int fSegmentMask;
+
 	public static ChunkCache getSharedInstance() {
 		return sSharedInstance;
 	}
@@ -24,116 +140,119 @@ public final class ChunkCache {
 	public ChunkCache() {
 		this(5 * 1024 * 1024);
 	}
-	
+
 	public ChunkCache(long maxSize) {
-		fPageTable= new Chunk[computeLength(maxSize)];
+		final int length= computeLength(maxSize);
+		int segmentCount= 1;
+		while (segmentCount < MAX_SEGMENTS && 2 * segmentCount <= length) {
+			segmentCount *= 2;
+		}
+		fSegments= new Segment[segmentCount];
+		fSegmentMask= segmentCount - 1;
+		for (int i = 0; i < segmentCount; i++) {
+			fSegments[i]= new Segment(computeSegmentLength(length, i));
+		}
 	}
-	
-	public synchronized void add(Chunk chunk, boolean locked) {
-		if (locked) {
-			chunk.fLocked= true;
-		}
-		if (chunk.fCacheIndex >= 0) {
-			chunk.fCacheHitFlag= true;
-			return;
-		}
-		if (fTableIsFull) {
-			evictChunk();
-			chunk.fCacheIndex= fPointer;
-			fPageTable[fPointer]= chunk;
-		} else {
-			chunk.fCacheIndex= fPointer;
-			fPageTable[fPointer]= chunk;
-
-			fPointer++;
-			if (fPointer == fPageTable.length) {
-				fPointer= 0;
-				fTableIsFull= true;
-			}
+
+	/**
+	 * Returns the segment responsible for the chunk with the given sequence number of a database.
+	 */
+	Segment getSegment(Database db, int sequenceNumber) {
+		return fSegments[(System.identityHashCode(db) + sequenceNumber) & fSegmentMask];
+	}
+
+	/**
+	 * Acquires the locks of all segments, has to be followed by a call to {@link #unlockAll()}.
+	 */
+	void lockAll() {
+		for (Segment segment : fSegments) {
+			segment.lock();
 		}
 	}
-	
-	/**                                                                   
-	 * Evicts a chunk from the page table and the chunk table.            
-	 * After this method returns, {@link #fPointer}  will contain
-	 * the index of the evicted chunk within the page table.              
-	 */                                                                   
-	private void evictChunk() {
-		/*
-		 * Use the CLOCK algorithm to determine which chunk to evict.
-		 * i.e., if the chunk in the current slot of the page table has been
-		 * recently referenced (i.e. the reference flag is set), unset the
-		 * reference flag and move to the next slot.  Otherwise, evict the
-		 * chunk in the current slot.
-		 */
-		while (true) {
-			Chunk chunk = fPageTable[fPointer];
-			if (chunk.fCacheHitFlag) {
-				chunk.fCacheHitFlag= false;
-				fPointer= (fPointer + 1) % fPageTable.length;
-			} else {
-				chunk.fDatabase.releaseChunk(chunk);
-				chunk.fCacheIndex= -1;
-				fPageTable[fPointer] = null;
-				return;
-			}
+
+	void unlockAll() {
+		for (int i = fSegments.length; --i >= 0;) {
+			fSegments[i].unlock();
 		}
 	}
 
-	public synchronized void remove(Chunk chunk) {
-		final int idx= chunk.fCacheIndex;
-		if (idx >= 0) {
-			if (fTableIsFull) {
-				fPointer= fPageTable.length-1;
-				fTableIsFull= false;
-			} else {
-				fPointer--;
-			}
-			chunk.fCacheIndex= -1;
-			final Chunk move= fPageTable[fPointer];
-			fPageTable[idx]= move;
-			move.fCacheIndex= idx;
-			fPageTable[fPointer]= null;
-		}	
+	/**
+	 * Returns whether the current thread holds the lock of any of the segments.
+	 */
+	boolean isLockedByCurrentThread() {
+		for (Segment segment : fSegments) {
+			if (segment.isHeldByCurrentThread())
+				return true;
+		}
+		return false;
 	}
 
-	/**                                                                           
+	public void add(Chunk chunk, boolean locked) {
+		final Segment segment= getSegment(chunk.fDatabase, chunk.fSequenceNumber);
+		segment.lock();
+		try {
+			segment.add(chunk, locked);
+		} finally {
+			segment.unlock();
+		}
+	}
+
+	public void remove(Chunk chunk) {
+		final Segment segment= getSegment(chunk.fDatabase, chunk.fSequenceNumber);
+		segment.lock();
+		try {
+			segment.remove(chunk);
+		} finally {
+			segment.unlock();
+		}
+	}
+
+	/**
 	 * Returns the maximum size of the chunk cache in bytes.
-	 */                                                                           
-	public synchronized long getMaxSize() {
-		return (long) fPageTable.length * Database.CHUNK_SIZE;
+	 */
+	public long getMaxSize() {
+		lockAll();
+		try {
+			long length= 0;
+			for (Segment segment : fSegments) {
+				length += segment.getCapacity();
+			}
+			return length * Database.CHUNK_SIZE;
+		} finally {
+			unlockAll();
+		}
 	}
 
-	/**                                                                           
+	/**
 	 * Clears the page table and changes it to hold chunks with
-	 * maximum total memory of <code>maxSize</code>.       
-	 * @param maxSize the total size of the chunks in bytes.                
-	 */                                                                           
-	public synchronized void setMaxSize(long maxSize) {
-		final int newLength= computeLength(maxSize);
-		final int oldLength= fTableIsFull ? fPageTable.length : fPointer;
-		if (newLength > oldLength) {
-			Chunk[] newTable= new Chunk[newLength];
-			System.arraycopy(fPageTable, 0, newTable, 0, oldLength);
-			fTableIsFull= false;
-			fPointer= oldLength;
-			fPageTable= newTable;
-		} else {
-			for (int i= newLength; i < oldLength; i++) {
-				final Chunk chunk= fPageTable[i];
-				chunk.fDatabase.releaseChunk(chunk);
-				chunk.fCacheIndex= -1;
+	 * maximum total memory of <code>maxSize</code>. Each segment of the
+	 * cache holds at least one chunk, such that the actual maximum may
+	 * exceed a very small <code>maxSize</code>.
+	 * @param maxSize the total size of the chunks in bytes.
+	 */
+	public void setMaxSize(long maxSize) {
+		final int length= computeLength(maxSize);
+		lockAll();
+		try {
+			for (int i = 0; i < fSegments.length; i++) {
+				fSegments[i].setCapacity(computeSegmentLength(length, i));
 			}
-			Chunk[] newTable= new Chunk[newLength];
-			System.arraycopy(fPageTable, 0, newTable, 0, newLength);
-			fTableIsFull= true;
-			fPointer= 0;
-			fPageTable= newTable;
-		}       
-	}                                                                             
+		} finally {
+			unlockAll();
+		}
+	}
 
 	private int computeLength(long maxSize) {
 		long maxLength= Math.min(maxSize/Database.CHUNK_SIZE, Integer.MAX_VALUE);
 		return Math.max(1, (int)maxLength);
 	}
+
+	private int computeSegmentLength(int length, int segment) {
+		final int segmentCount= fSegmentMask + 1;
+		int segmentLength= length / segmentCount;
+		if (segment < length % segmentCount) {
+			segmentLength++;
+		}
+		return Math.max(1, segmentLength);
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2012 QNX Software Systems and others.
+ * Copyright (c) 2005, 2014 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -30,7 +30,9 @@ import java.nio.ByteBuffer;
 import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Database encapsulates access to a flat binary format file with a memory-manager-like API for
@@ -39,36 +41,47 @@ import java.util.ArrayList;
  * @author Doug Schaefer
  */
 /*
- * The file encapsulated is divided into Chunks of size CHUNK_SIZE, and a table of contents
- * mapping chunk index to chunk address is maintained. Chunk structure exists only conceptually -
- * it is not a structure that appears in the file.
+ * The file encapsulated is divided into Chunks of a size that is a multiple of CHUNK_SIZE, and a
+ * table of contents mapping chunk index to chunk address is maintained. Chunk structure exists only
+ * conceptually - it is not a structure that appears in the file. The size of the chunks is chosen
+ * when the database is created, blocks are allocated from pages of size CHUNK_SIZE.
  *
  * ===== The first chunk is used by Database itself for house-keeping purposes and has structure
  *
  * offset            content
  * 	                 _____________________________
- * 0                | version number
+ * 0                | version number, the highest byte encodes the chunk size (2)
  * INT_SIZE         | pointer to head of linked list of blocks of size MIN_BLOCK_DELTAS*BLOCK_SIZE_DELTA
  * ..               | ...
  * INT_SIZE * m (1) | pointer to head of linked list of blocks of size (m+MIN_BLOCK_DELTAS) * BLOCK_SIZE_DELTA
  * DATA_AREA        | undefined (PDOM stores its own house-keeping data in this area)
+ * LARGE_BLOCKS     | pointer to head of linked list of free blocks spanning 2 pages (4)
+ * ..               | ...
+ * LARGE_BLOCKS + INT_SIZE * (p - 2) | pointer to head of linked list of free blocks spanning p pages
+ * CHUNK_SIZE       | the remaining pages of the first chunk are allocated like any other pages
  *
  * (1) where 2 <= m <= CHUNK_SIZE/BLOCK_SIZE_DELTA - MIN_BLOCK_DELTAS + 1
+ * (2) the chunk size is CHUNK_SIZE << n for an encoded value of n
+ * (4) where p <= MAX_CHUNK_SIZE/CHUNK_SIZE, only used when the chunk size is larger than CHUNK_SIZE
  *
  * ===== block structure
  *
  * offset            content
  * 	                 _____________________________
- * 0                | size of block (negative indicates in use, positive unused) (2 bytes)
+ * 0                | size of block (negative indicates in use, positive unused) (2 bytes) (3)
  * PREV_OFFSET      | pointer to prev block (of same size) (only in free blocks)
  * NEXT_OFFSET      | pointer to next block (of same size) (only in free blocks)
  *
+ * (3) a block larger than CHUNK_SIZE spans n consecutive pages within a chunk, its size is stored
+ *     as -(CHUNK_SIZE + n). Free pages that are consecutive within a chunk are kept as one such block,
+ *     a single free page as a block of size CHUNK_SIZE. Allocations split these blocks as needed.
  */
 public class Database {
 	// Public for tests only, you shouldn't need these.
 	public static final int INT_SIZE = 4;
 	public static final int CHUNK_SIZE = 1024 * 4;
 	public static final int OFFSET_IN_CHUNK_MASK= CHUNK_SIZE-1;
+	public static final int MAX_CHUNK_SIZE = CHUNK_SIZE << 4;
 	public static final int BLOCK_HEADER_SIZE= 2;
 	public static final int BLOCK_SIZE_DELTA_BITS = 3;
 	public static final int BLOCK_SIZE_DELTA= 1 << BLOCK_SIZE_DELTA_BITS;
@@ -90,6 +103,17 @@ public class Database {
 	private static final int BLOCK_PREV_OFFSET = BLOCK_HEADER_SIZE;
 	private static final int BLOCK_NEXT_OFFSET = BLOCK_HEADER_SIZE + INT_SIZE;
 
+	// The highest byte of the version number in the header encodes the chunk size.
+	private static final int CHUNK_SIZE_SHIFT = 24;
+	private static final int VERSION_MASK = (1 << CHUNK_SIZE_SHIFT) - 1;
+
+	// Heads of the lists of free blocks spanning multiple pages, at the end of the first page.
+	private static final int LARGE_BLOCKS = CHUNK_SIZE - (MAX_CHUNK_SIZE / CHUNK_SIZE - 1) * INT_SIZE;
+
+	// A memory-mapped file is mapped in segments of 1GB, a segment always contains entire chunks.
+	private static final int MAPPED_SEGMENT_BITS = 30;
+	private static final long MAPPED_SEGMENT_MASK = (1L << MAPPED_SEGMENT_BITS) - 1;
+
 	private final File fLocation;
 	private final boolean fReadOnly;
 	private RandomAccessFile fFile;
@@ -98,16 +122,19 @@ public class Database {
 	private boolean fIsMarkedIncomplete;
 
 	private int fVersion;
+	private final int fChunkSize;
+	private final int fChunkSizeBits;
 	private final Chunk fHeaderChunk;
 	private Chunk[] fChunks;
 	private int fChunksUsed;
 	private int fChunksAllocated;
 	private ChunkCache fCache;
+	private ByteBuffer[] fMappedSegments;
 
 	private long malloced;
 	private long freed;
-	private long cacheHits;
-	private long cacheMisses;
+	private final AtomicLong cacheHits= new AtomicLong();
+	private final AtomicLong cacheMisses= new AtomicLong();
 
 	/**
 	 * Construct a new Database object, creating a backing file if necessary.
@@ -118,30 +145,134 @@ public class Database {
 	 * @throws CoreException
 	 */
 	public Database(File location, ChunkCache cache, int version, boolean openReadOnly) throws CoreException {
+		this(location, cache, version, openReadOnly, false);
+	}
+
+	/**
+	 * Construct a new Database object, creating a backing file if necessary.
+	 * @param location the local file path for the database
+	 * @param cache the cache to be used optimization
+	 * @param version the version number to store in the database (only applicable for new databases)
+	 * @param openReadOnly whether this Database object will ever need writing to
+	 * @param memoryMapped whether the content of the database shall be read from a memory mapping
+	 *     of the file rather than from chunks copied to the heap. The chunk cache is not used
+	 *     for such a database. Supported for read-only databases, only.
+	 * @throws CoreException
+	 */
+	public Database(File location, ChunkCache cache, int version, boolean openReadOnly,
+			boolean memoryMapped) throws CoreException {
+		this(location, cache, version, openReadOnly, memoryMapped, CHUNK_SIZE);
+	}
+
+	/**
+	 * Construct a new Database object, creating a backing file if necessary.
+	 * @param location the local file path for the database
+	 * @param cache the cache to be used optimization
+	 * @param version the version number to store in the database (only applicable for new databases)
+	 * @param openReadOnly whether this Database object will ever need writing to
+	 * @param memoryMapped whether the content of the database shall be read from a memory mapping
+	 *     of the file rather than from chunks copied to the heap. The chunk cache is not used
+	 *     for such a database. Supported for read-only databases, only.
+	 * @param chunkSize the size of the chunks read and cached at once, a power of two between
+	 *     {@link #CHUNK_SIZE} and {@link #MAX_CHUNK_SIZE} (only applicable for new databases)
+	 * @throws CoreException
+	 */
+	public Database(File location, ChunkCache cache, int version, boolean openReadOnly,
+			boolean memoryMapped, int chunkSize) throws CoreException {
+		if (memoryMapped && !openReadOnly)
+			throw new IllegalArgumentException("Only read-only databases can be memory-mapped"); //$NON-NLS-1$
 		try {
 			fLocation = location;
 			fReadOnly= openReadOnly;
 			fCache= cache;
 			openFile();
 
-			int nChunksOnDisk = (int) (fFile.length() / CHUNK_SIZE);
+			final boolean isEmpty= fFile.length() < CHUNK_SIZE;
+			if (!isEmpty) {
+				// The chunk size of an existing database is stored along with its version.
+				final ByteBuffer buf= ByteBuffer.allocate(INT_SIZE);
+				read(buf, VERSION_OFFSET);
+				chunkSize= CHUNK_SIZE << (buf.getInt(0) >>> CHUNK_SIZE_SHIFT);
+			}
+			if (!isValidChunkSize(chunkSize)) {
+				if (isEmpty)
+					throw new IllegalArgumentException("Invalid chunk size " + chunkSize); //$NON-NLS-1$
+				databaseCorruptionDetected();
+			}
+			fChunkSize= chunkSize;
+			fChunkSizeBits= Integer.numberOfTrailingZeros(chunkSize);
+
+			int nChunksOnDisk = (int) (fFile.length() / fChunkSize);
 			fHeaderChunk= new Chunk(this, 0);
 			fHeaderChunk.fLocked= true;		// Never makes it into the cache, needed to satisfy assertions.
 			if (nChunksOnDisk <= 0) {
 				fVersion= version;
 				fChunks= new Chunk[1];
 				fChunksUsed = fChunksAllocated = fChunks.length;
+				if (!openReadOnly) {
+					addSpareHeaderPages();
+				}
 			} else {
 				fHeaderChunk.read();
-				fVersion= fHeaderChunk.getInt(VERSION_OFFSET);
+				fVersion= fHeaderChunk.getInt(VERSION_OFFSET) & VERSION_MASK;
 				fChunks = new Chunk[nChunksOnDisk];	// chunk[0] is unused.
 				fChunksUsed = fChunksAllocated = nChunksOnDisk;
+				if (memoryMapped) {
+					mapFile((long) nChunksOnDisk * fChunkSize);
+				}
 			}
 		} catch (IOException e) {
 			throw new CoreException(new DBStatus(e));
 		}
 	}
 
+	private void mapFile(long size) throws IOException {
+		final FileChannel channel= fFile.getChannel();
+		final int segmentCount= (int) ((size + MAPPED_SEGMENT_MASK) >>> MAPPED_SEGMENT_BITS);
+		final ByteBuffer[] segments= new ByteBuffer[segmentCount];
+		for (int i = 0; i < segmentCount; i++) {
+			final long position= (long) i << MAPPED_SEGMENT_BITS;
+			segments[i]= channel.map(MapMode.READ_ONLY, position, Math.min(size - position, MAPPED_SEGMENT_MASK + 1));
+		}
+		fMappedSegments= segments;
+	}
+
+	/**
+	 * Returns whether the given size can be used as the chunk size of a database.
+	 */
+	public static boolean isValidChunkSize(int chunkSize) {
+		return chunkSize >= CHUNK_SIZE && chunkSize <= MAX_CHUNK_SIZE && Integer.bitCount(chunkSize) == 1;
+	}
+
+	/**
+	 * Returns the size of the chunks this database is read and cached in.
+	 */
+	public int getChunkSize() {
+		return fChunkSize;
+	}
+
+	/**
+	 * Returns the maximum size of a record that can be allocated in this database.
+	 * Records larger than {@link #MAX_MALLOC_SIZE} occupy pages of their own.
+	 */
+	public int getMaxMallocSize() {
+		return fChunkSize - BLOCK_HEADER_SIZE;
+	}
+
+	/**
+	 * Returns the version stored in the header, which also encodes the chunk size.
+	 */
+	private int getEncodedVersion() {
+		return fVersion | (fChunkSizeBits - Integer.numberOfTrailingZeros(CHUNK_SIZE)) << CHUNK_SIZE_SHIFT;
+	}
+
+	/**
+	 * Returns whether the content of this database is read from a memory mapping of the file.
+	 */
+	public boolean isMemoryMapped() {
+		return fMappedSegments != null;
+	}
+
 	private void openFile() throws FileNotFoundException {
 		fFile = new RandomAccessFile(fLocation, fReadOnly ? "r" : "rw"); //$NON-NLS-1$ //$NON-NLS-2$
 	}
@@ -200,10 +331,18 @@ public class Database {
 		return fVersion;
 	}
 
+	/**
+	 * Extracts the version from the first four bytes of a database file, which in addition
+	 * encode the chunk size.
+	 */
+	public static int decodeVersion(int header) {
+		return header & VERSION_MASK;
+	}
+
 	public void setVersion(int version) throws CoreException {
 		assert fExclusiveLock;
-		fHeaderChunk.putInt(VERSION_OFFSET, version);
-		fVersion= version;
+		fVersion= version & VERSION_MASK;
+		fHeaderChunk.putInt(VERSION_OFFSET, getEncodedVersion());
 	}
 
 	/**
@@ -214,15 +353,16 @@ public class Database {
 		assert fExclusiveLock;
 		removeChunksFromCache();
 
-		fVersion= version;
+		fVersion= version & VERSION_MASK;
 		// Clear the first chunk.
-		fHeaderChunk.clear(0, CHUNK_SIZE);
+		fHeaderChunk.clear(0, fChunkSize);
+		addSpareHeaderPages();
 		// Chunks have been removed from the cache, so we may just reset the array of chunks.
 		fChunks = new Chunk[] {null};
 		fChunksUsed = fChunksAllocated = fChunks.length;
 		try {
 			fHeaderChunk.flush();	// Zero out header chunk.
-			fFile.getChannel().truncate(CHUNK_SIZE);	// Truncate database.
+			fFile.getChannel().truncate(fChunkSize);	// Truncate database.
 		} catch (IOException e) {
 			CCorePlugin.log(e);
 		}
@@ -244,8 +384,23 @@ public class Database {
 		}
 	}
 
+	/**
+	 * The house-keeping data fits into the first page, the remaining pages of the first chunk
+	 * are made available for allocation. Must be called for an empty header, only.
+	 */
+	private void addSpareHeaderPages() throws CoreException {
+		final int pages= fChunkSize / CHUNK_SIZE - 1;
+		if (pages > 0) {
+			// The free lists are empty, so the pages form the only free block.
+			final int blocksize= pages == 1 ? CHUNK_SIZE : CHUNK_SIZE + pages;
+			fHeaderChunk.putShort(CHUNK_SIZE, (short) blocksize);
+			fHeaderChunk.putFreeRecPtr(getFreeListOffset(blocksize), CHUNK_SIZE);
+		}
+	}
+
 	private void removeChunksFromCache() {
-		synchronized (fCache) {
+		fCache.lockAll();
+		try {
 			for (int i= 1; i < fChunks.length; i++) {
 				Chunk chunk= fChunks[i];
 				if (chunk != null) {
@@ -253,6 +408,8 @@ public class Database {
 					fChunks[i]= null;
 				}
 			}
+		} finally {
+			fCache.unlockAll();
 		}
 	}
 
@@ -261,29 +418,64 @@ public class Database {
 	 * @throws CoreException
 	 */
 	public Chunk getChunk(long offset) throws CoreException {
-		if (offset < CHUNK_SIZE) {
+		if (offset < fChunkSize) {
 			return fHeaderChunk;
 		}
-		long long_index = offset / CHUNK_SIZE;
+		long long_index = offset >>> fChunkSizeBits;
 		assert long_index < Integer.MAX_VALUE;
 
-		synchronized (fCache) {
+		if (fMappedSegments != null) {
+			return getMappedChunk((int) long_index);
+		}
+		final int index = (int) long_index;
+		// The lock of the segment protects the slot of the chunk in fChunks.
+		final ChunkCache.Segment segment= fCache.getSegment(this, index);
+		segment.lock();
+		try {
 			assert fLocked;
-			final int index = (int) long_index;
 			if (index < 0 || index >= fChunks.length) {
 				databaseCorruptionDetected();
 			}
 			Chunk chunk= fChunks[index];
 			if (chunk == null) {
-				cacheMisses++;
+				cacheMisses.incrementAndGet();
 				chunk = fChunks[index] = new Chunk(this, index);
 				chunk.read();
 			} else {
-				cacheHits++;
+				cacheHits.incrementAndGet();
 			}
-			fCache.add(chunk, fExclusiveLock);
+			segment.add(chunk, fExclusiveLock);
 			return chunk;
+		} finally {
+			segment.unlock();
+		}
+	}
+
+	/**
+	 * Returns a chunk of a memory-mapped database. Such chunks are views of the mapping that are
+	 * kept for the lifetime of the database. They are not managed by the chunk cache, such that
+	 * no lock is needed to obtain them. Concurrent readers may create more than one view of
+	 * a chunk, which does no harm.
+	 */
+	private Chunk getMappedChunk(final int index) throws CoreException {
+		assert fLocked;
+		final Chunk[] chunks= fChunks;
+		if (index < 0 || index >= chunks.length) {
+			databaseCorruptionDetected();
+		}
+		Chunk chunk= chunks[index];
+		if (chunk == null) {
+			cacheMisses.incrementAndGet();
+			final long position= (long) index << fChunkSizeBits;
+			final ByteBuffer view= fMappedSegments[(int) (position >>> MAPPED_SEGMENT_BITS)].duplicate();
+			final int idx= (int) (position & MAPPED_SEGMENT_MASK);
+			view.position(idx);
+			view.limit(idx + fChunkSize);
+			chunk= chunks[index]= new MappedChunk(this, index, view.slice());
+		} else {
+			cacheHits.incrementAndGet();
 		}
+		return chunk;
 	}
 
 	private void databaseCorruptionDetected() throws CoreException {
@@ -293,11 +485,15 @@ public class Database {
 	}
 
 	/**
-	 * Allocate a block out of the database.
+	 * Allocate a block out of the database. Blocks larger than {@link #MAX_MALLOC_SIZE} are
+	 * supported up to {@link #getMaxMallocSize()}.
 	 */
 	public long malloc(final int datasize) throws CoreException {
 		assert fExclusiveLock;
-		assert datasize >= 0 && datasize <= MAX_MALLOC_SIZE;
+		assert datasize >= 0 && datasize <= getMaxMallocSize();
+		if (datasize > MAX_MALLOC_SIZE) {
+			return mallocLarge(datasize);
+		}
 
 		int needDeltas= (datasize + BLOCK_HEADER_SIZE + BLOCK_SIZE_DELTA - 1) / BLOCK_SIZE_DELTA;
 		if (needDeltas < MIN_BLOCK_DELTAS) {
@@ -316,8 +512,7 @@ public class Database {
 		// Get the block.
 		Chunk chunk;
 		if (freeblock == 0) {
-			// Allocate a new chunk.
-			freeblock= createNewChunk();
+			freeblock= allocatePages(1);
 			useDeltas = MAX_BLOCK_DELTAS;
 			chunk = getChunk(freeblock);
 		} else {
@@ -343,9 +538,58 @@ public class Database {
 		return freeblock + BLOCK_HEADER_SIZE;
 	}
 
+	/**
+	 * Allocates a block spanning multiple consecutive pages within one chunk, such that
+	 * the block can be accessed via a single chunk.
+	 */
+	private long mallocLarge(final int datasize) throws CoreException {
+		final int pages= (datasize + BLOCK_HEADER_SIZE + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		final long block= allocatePages(pages);
+		final Chunk chunk= getChunk(block);
+		chunk.putShort(block, (short) -(CHUNK_SIZE + pages));
+		chunk.clear(block + BLOCK_HEADER_SIZE, pages * CHUNK_SIZE - BLOCK_HEADER_SIZE);
+		malloced += pages * CHUNK_SIZE;
+		return block + BLOCK_HEADER_SIZE;
+	}
+
+	/**
+	 * Removes the given number of consecutive pages within one chunk from the free blocks,
+	 * or allocates a new chunk if there are not enough free pages. The pages not needed for
+	 * the request are kept as a free block.
+	 * @return the offset of the first page.
+	 */
+	private long allocatePages(final int pages) throws CoreException {
+		final int maxPages= fChunkSize / CHUNK_SIZE;
+		for (int n= Math.max(pages, 2); n <= maxPages; n++) {
+			final long block= getFirstBlock(CHUNK_SIZE + n);
+			if (block != 0) {
+				final Chunk chunk= getChunk(block);
+				removeBlock(chunk, CHUNK_SIZE + n, block);
+				addFreePages(chunk, block + pages * CHUNK_SIZE, block + n * CHUNK_SIZE);
+				return block;
+			}
+		}
+		final long block= createNewChunk();
+		addFreePages(getChunk(block), block + pages * CHUNK_SIZE, block + fChunkSize);
+		return block;
+	}
+
+	/**
+	 * Adds the consecutive pages between the two offsets of the chunk as a free block.
+	 */
+	private void addFreePages(Chunk chunk, long from, long to) throws CoreException {
+		final int pages= (int) ((to - from) / CHUNK_SIZE);
+		if (pages == 1) {
+			addBlock(chunk, CHUNK_SIZE, from);
+		} else if (pages > 1) {
+			addBlock(chunk, CHUNK_SIZE + pages, from);
+		}
+	}
+
 	private long createNewChunk() throws CoreException {
 		assert fExclusiveLock;
-		synchronized (fCache) {
+		fCache.lockAll();
+		try {
 			final int newChunkIndex = fChunksUsed; // fChunks.length;
 
 			final Chunk chunk = new Chunk(this, newChunkIndex);
@@ -363,7 +607,7 @@ public class Database {
 			fChunks[newChunkIndex] = chunk;
 
 			fCache.add(chunk, true);
-			long address = (long) newChunkIndex * CHUNK_SIZE;
+			long address = (long) newChunkIndex << fChunkSizeBits;
 
 			/*
 			 * Non-dense pointers are at most 31 bits dense pointers are at most 35 bits Check the sizes here
@@ -378,6 +622,8 @@ public class Database {
 								CCorePlugin.getResourceString("pdom.DatabaseTooLarge"), bindings), null)); //$NON-NLS-1$
 			}
 			return address;
+		} finally {
+			fCache.unlockAll();
 		}
 	}
 
@@ -386,7 +632,8 @@ public class Database {
 	 */
 	private long createNewChunks(int numChunks) throws CoreException {
 		assert fExclusiveLock;
-		synchronized (fCache) {
+		fCache.lockAll();
+		try {
 			final int oldLen= fChunks.length;
 			Chunk[] newchunks = new Chunk[oldLen + numChunks];
 			System.arraycopy(fChunks, 0, newchunks, 0, oldLen);
@@ -400,18 +647,30 @@ public class Database {
 			fCache.add(chunk, true);
 			fChunksAllocated=oldLen + numChunks;
 			fChunksUsed=oldLen + numChunks;
-			return (long) (oldLen + numChunks - 1) * CHUNK_SIZE;
+			return (long) (oldLen + numChunks - 1) << fChunkSizeBits;
+		} finally {
+			fCache.unlockAll();
 		}
 	}
 
+	/**
+	 * Returns the offset of the head of the list of free blocks of the given size. The size of
+	 * a block spanning multiple pages is encoded as {@code CHUNK_SIZE + pages}.
+	 */
+	private static int getFreeListOffset(int blocksize) {
+		if (blocksize > CHUNK_SIZE)
+			return LARGE_BLOCKS + (blocksize - CHUNK_SIZE - 2) * INT_SIZE;
+		return (blocksize/BLOCK_SIZE_DELTA - MIN_BLOCK_DELTAS + 1) * INT_SIZE;
+	}
+
 	private long getFirstBlock(int blocksize) throws CoreException {
 		assert fLocked;
-		return fHeaderChunk.getFreeRecPtr((blocksize/BLOCK_SIZE_DELTA - MIN_BLOCK_DELTAS + 1) * INT_SIZE);
+		return fHeaderChunk.getFreeRecPtr(getFreeListOffset(blocksize));
 	}
 
 	private void setFirstBlock(int blocksize, long block) throws CoreException {
 		assert fExclusiveLock;
-		fHeaderChunk.putFreeRecPtr((blocksize/BLOCK_SIZE_DELTA - MIN_BLOCK_DELTAS + 1) * INT_SIZE, block);
+		fHeaderChunk.putFreeRecPtr(getFreeListOffset(blocksize), block);
 	}
 
 	private void removeBlock(Chunk chunk, int blocksize, long block) throws CoreException {
@@ -458,6 +717,13 @@ public class Database {
 			throw new CoreException(new Status(IStatus.ERROR, CCorePlugin.PLUGIN_ID, 0,
 					"Already freed record " + offset, new Exception())); //$NON-NLS-1$
 		}
+		if (blocksize > CHUNK_SIZE) {
+			// A block spanning multiple pages.
+			final int pages= blocksize - CHUNK_SIZE;
+			addBlock(chunk, blocksize, block);
+			freed += pages * CHUNK_SIZE;
+			return;
+		}
 		addBlock(chunk, blocksize, block);
 		freed += blocksize;
 	}
@@ -560,7 +826,7 @@ public class Database {
 			bytelen= 2 * len;
 		}
 
-		if (bytelen > ShortString.MAX_BYTE_LENGTH) {
+		if (bytelen > ShortString.getMaxByteLength(this)) {
 			return new LongString(this, chars, useBytes);
 		} else {
 			return new ShortString(this, chars, useBytes);
@@ -578,7 +844,7 @@ public class Database {
 	public IString getString(long offset) throws CoreException {
 		final int l = getInt(offset);
 		int bytelen= l < 0 ? -l : 2 * l;
-		if (bytelen > ShortString.MAX_BYTE_LENGTH) {
+		if (bytelen > ShortString.getMaxByteLength(this)) {
 			return new LongString(this, offset);
 		}
 		return new ShortString(this, offset);
@@ -588,10 +854,10 @@ public class Database {
 	 * For debugging purposes, only.
 	 */
 	public void reportFreeBlocks() throws CoreException {
-		System.out.println("Allocated size: " + fChunksUsed * CHUNK_SIZE); //$NON-NLS-1$
+		System.out.println("Allocated size: " + (long) fChunksUsed * fChunkSize); //$NON-NLS-1$
 		System.out.println("malloc'ed: " + malloced); //$NON-NLS-1$
 		System.out.println("free'd: " + freed); //$NON-NLS-1$
-		System.out.println("wasted: " + (fChunksUsed * CHUNK_SIZE - (malloced - freed))); //$NON-NLS-1$
+		System.out.println("wasted: " + ((long) fChunksUsed * fChunkSize - (malloced - freed))); //$NON-NLS-1$
 		System.out.println("Free blocks"); //$NON-NLS-1$
 		for (int bs = MIN_BLOCK_DELTAS*BLOCK_SIZE_DELTA; bs <= CHUNK_SIZE; bs += BLOCK_SIZE_DELTA) {
 			int count = 0;
@@ -603,6 +869,16 @@ public class Database {
 			if (count != 0)
 				System.out.println("Block size: " + bs + "=" + count); //$NON-NLS-1$ //$NON-NLS-2$
 		}
+		for (int pages = 2; pages <= fChunkSize / CHUNK_SIZE; pages++) {
+			int count = 0;
+			long block = getFirstBlock(CHUNK_SIZE + pages);
+			while (block != 0) {
+				++count;
+				block = getFreeRecPtr(block + BLOCK_NEXT_OFFSET);
+			}
+			if (count != 0)
+				System.out.println("Pages: " + pages + "=" + count); //$NON-NLS-1$ //$NON-NLS-2$
+		}
 	}
 
 	/**
@@ -617,10 +893,12 @@ public class Database {
 		removeChunksFromCache();
 
 		// Chunks have been removed from the cache, so we are fine.
-		fHeaderChunk.clear(0, CHUNK_SIZE);
+		fHeaderChunk.clear(0, fChunkSize);
 		fHeaderChunk.fDirty= false;
 		fChunks= new Chunk[] { null };
 		fChunksUsed = fChunksAllocated = fChunks.length;
+		// The mapping is released when the buffers are garbage collected.
+		fMappedSegments= null;
 		try {
 			fFile.close();
 		} catch (IOException e) {
@@ -636,7 +914,8 @@ public class Database {
 	}
 
 	/**
-	 * Called from any thread via the cache, protected by {@link #fCache}.
+	 * Called from any thread via the cache, protected by the lock of the segment of the cache
+	 * the chunk is assigned to.
 	 */
 	void releaseChunk(final Chunk chunk) {
 		if (!chunk.fLocked) {
@@ -669,7 +948,8 @@ public class Database {
 		if (fExclusiveLock) {
 			try {
 				ArrayList<Chunk> dirtyChunks= new ArrayList<Chunk>();
-				synchronized (fCache) {
+				fCache.lockAll();
+				try {
 					for (int i= 1; i < fChunksUsed; i++) {
 						Chunk chunk= fChunks[i];
 						if (chunk != null) {
@@ -695,6 +975,8 @@ public class Database {
 							}
 						}
 					}
+				} finally {
+					fCache.unlockAll();
 				}
 				// Also handles header chunk.
 				flushAndUnlockChunks(dirtyChunks, flush);
@@ -717,13 +999,16 @@ public class Database {
 
 		// Be careful as other readers may access chunks concurrently.
 		ArrayList<Chunk> dirtyChunks= new ArrayList<Chunk>();
-		synchronized (fCache) {
+		fCache.lockAll();
+		try {
 			for (int i= 1; i < fChunksUsed ; i++) {
 				Chunk chunk= fChunks[i];
 				if (chunk != null && chunk.fDirty) {
 					dirtyChunks.add(chunk);
 				}
 			}
+		} finally {
+			fCache.unlockAll();
 		}
 
 		// Also handles header chunk.
@@ -731,7 +1016,7 @@ public class Database {
 	}
 
 	private void flushAndUnlockChunks(final ArrayList<Chunk> dirtyChunks, boolean isComplete) throws CoreException {
-		assert !Thread.holdsLock(fCache);
+		assert !fCache.isLockedByCurrentThread();
 		synchronized (fHeaderChunk) {
 			final boolean haveDirtyChunks = !dirtyChunks.isEmpty();
 			if (haveDirtyChunks || fHeaderChunk.fDirty) {
@@ -745,19 +1030,22 @@ public class Database {
 				}
 
 				// Only after the chunks are flushed we may unlock and release them.
-				synchronized (fCache) {
+				fCache.lockAll();
+				try {
 					for (Chunk chunk : dirtyChunks) {
 						chunk.fLocked= false;
 						if (chunk.fCacheIndex < 0) {
 							fChunks[chunk.fSequenceNumber]= null;
 						}
 					}
+				} finally {
+					fCache.unlockAll();
 				}
 			}
 
 			if (isComplete) {
 				if (fHeaderChunk.fDirty || fIsMarkedIncomplete) {
-					fHeaderChunk.putInt(VERSION_OFFSET, fVersion);
+					fHeaderChunk.putInt(VERSION_OFFSET, getEncodedVersion());
 					fHeaderChunk.flush();
 					fIsMarkedIncomplete= false;
 				}
@@ -769,7 +1057,9 @@ public class Database {
 		if (!fIsMarkedIncomplete) {
 			fIsMarkedIncomplete= true;
 			try {
-				final ByteBuffer buf= ByteBuffer.wrap(new byte[4]);
+				// Keep the chunk size, such that the database can still be opened.
+				final ByteBuffer buf= ByteBuffer.allocate(INT_SIZE);
+				buf.putInt(0, getEncodedVersion() & ~VERSION_MASK);
 				fFile.getChannel().write(buf, 0);
 			} catch (IOException e) {
 				throw new CoreException(new DBStatus(e));
@@ -778,15 +1068,16 @@ public class Database {
 	}
 
 	public void resetCacheCounters() {
-		cacheHits= cacheMisses= 0;
+		cacheHits.set(0);
+		cacheMisses.set(0);
 	}
 
 	public long getCacheHits() {
-		return cacheHits;
+		return cacheHits.get();
 	}
 
 	public long getCacheMisses() {
-		return cacheMisses;
+		return cacheMisses.get();
 	}
 
 	public long getSizeBytes() {
@@ -0,0 +1,307 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.pdom.db;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.ibm.icu.text.MessageFormat;
+
+/**
+ * Compressed representation of the content of a database file, split into blocks of
+ * {@link Database#CHUNK_SIZE} bytes. A snapshot contains all blocks that are not zero, a delta
+ * contains the blocks that differ from a base snapshot. Both are written and read as a stream,
+ * a delta is applied by merging it with the stream of its base snapshot.
+ * <p>
+ * Every block carries a CRC-32 checksum, the stream ends with a checksum of the entire content.
+ * A delta in addition records the checksum of the content of its base, such that it cannot be
+ * applied to a different base.
+ * <pre>
+ * int magic, int format, int block size, int block count, boolean has base,
+ * { int block index, int block checksum, byte[block size] content }*,
+ * int -1, [long base checksum], long content checksum
+ * </pre>
+ */
+public final class DatabaseDelta {
+	private static final int MAGIC= 0x43445444;
+	private static final int FORMAT= 1;
+	private static final int BLOCK_SIZE= Database.CHUNK_SIZE;
+	private static final int END= -1;
+	private static final int BUFFER_SIZE= 64 * 1024;
+
+	private DatabaseDelta() {
+	}
+
+	/**
+	 * Reads a snapshot or a delta block by block.
+	 */
+	private static class BlockReader {
+		private final DataInputStream fIn;
+		final int fBlockCount;
+		final boolean fHasBase;
+		long fBaseChecksum;
+		private int fNextIndex;
+		private final CRC32 fBlockChecksum= new CRC32();
+
+		BlockReader(InputStream in) throws IOException {
+			fIn= new DataInputStream(new BufferedInputStream(new InflaterInputStream(in), BUFFER_SIZE));
+			if (fIn.readInt() != MAGIC || fIn.readInt() != FORMAT || fIn.readInt() != BLOCK_SIZE) {
+				throw new IOException(Messages.getString("DatabaseDelta.InvalidFormat")); //$NON-NLS-1$
+			}
+			fBlockCount= fIn.readInt();
+			fHasBase= fIn.readBoolean();
+			fNextIndex= readIndex(-1);
+		}
+
+		private int readIndex(int previous) throws IOException {
+			int index= fIn.readInt();
+			if (index != END && (index <= previous || index >= fBlockCount)) {
+				throw new IOException(Messages.getString("DatabaseDelta.InvalidFormat")); //$NON-NLS-1$
+			}
+			return index;
+		}
+
+		/**
+		 * Reads the block with the given index, if it is contained in the stream.
+		 * @return whether the block was read into the buffer.
+		 */
+		boolean readBlock(int index, byte[] buffer) throws IOException {
+			if (fNextIndex != index)
+				return false;
+
+			final int checksum= fIn.readInt();
+			fIn.readFully(buffer, 0, BLOCK_SIZE);
+			fBlockChecksum.reset();
+			fBlockChecksum.update(buffer, 0, BLOCK_SIZE);
+			if ((int) fBlockChecksum.getValue() != checksum) {
+				throw new IOException(MessageFormat.format(Messages.getString("DatabaseDelta.ChecksumMismatch"), //$NON-NLS-1$
+						new Object[] { new Integer(index) }));
+			}
+			fNextIndex= readIndex(index);
+			return true;
+		}
+
+		/**
+		 * Reads the end of the stream, after all blocks have been read.
+		 * @return the checksum of the content.
+		 */
+		long readContentChecksum() throws IOException {
+			if (fNextIndex != END) {
+				throw new IOException(Messages.getString("DatabaseDelta.InvalidFormat")); //$NON-NLS-1$
+			}
+			if (fHasBase) {
+				fBaseChecksum= fIn.readLong();
+			}
+			return fIn.readLong();
+		}
+	}
+
+	/**
+	 * Writes blocks of content.
+	 */
+	private static class BlockWriter {
+		private final DataOutputStream fOut;
+		private final DeflaterOutputStream fDeflater;
+		private final boolean fHasBase;
+		private final CRC32 fBlockChecksum= new CRC32();
+
+		BlockWriter(OutputStream out, int blockCount, boolean hasBase) throws IOException {
+			fDeflater= new DeflaterOutputStream(out, new Deflater(), BUFFER_SIZE);
+			fOut= new DataOutputStream(new BufferedOutputStream(fDeflater, BUFFER_SIZE));
+			fHasBase= hasBase;
+			fOut.writeInt(MAGIC);
+			fOut.writeInt(FORMAT);
+			fOut.writeInt(BLOCK_SIZE);
+			fOut.writeInt(blockCount);
+			fOut.writeBoolean(hasBase);
+		}
+
+		void writeBlock(int index, byte[] block) throws IOException {
+			fBlockChecksum.reset();
+			fBlockChecksum.update(block, 0, BLOCK_SIZE);
+			fOut.writeInt(index);
+			fOut.writeInt((int) fBlockChecksum.getValue());
+			fOut.write(block, 0, BLOCK_SIZE);
+		}
+
+		/**
+		 * Terminates the stream, the underlying stream is not closed.
+		 */
+		void finish(long baseChecksum, long contentChecksum) throws IOException {
+			fOut.writeInt(END);
+			if (fHasBase) {
+				fOut.writeLong(baseChecksum);
+			}
+			fOut.writeLong(contentChecksum);
+			fOut.flush();
+			fDeflater.finish();
+		}
+	}
+
+	/**
+	 * Writes a snapshot of the database file, or a delta to the given base snapshot.
+	 * The database must not be modified while it is written.
+	 * @param database the database file.
+	 * @param baseSnapshot a stream with the snapshot the delta is computed for, or
+	 *     <code>null</code> to write a snapshot. The stream is read to its end but not closed.
+	 * @param out the stream to write to, it is not closed.
+	 * @return the checksum of the content of the database.
+	 */
+	public static long write(File database, InputStream baseSnapshot, OutputStream out) throws IOException {
+		final int blockCount= (int) ((database.length() + BLOCK_SIZE - 1) / BLOCK_SIZE);
+		final BlockReader base= baseSnapshot == null ? null : new BlockReader(baseSnapshot);
+		if (base != null && base.fHasBase) {
+			throw new IOException(Messages.getString("DatabaseDelta.InvalidFormat")); //$NON-NLS-1$
+		}
+
+		final byte[] block= new byte[BLOCK_SIZE];
+		final byte[] baseBlock= new byte[BLOCK_SIZE];
+		final CRC32 baseChecksum= new CRC32();
+		final CRC32 contentChecksum= new CRC32();
+		final BlockWriter writer= new BlockWriter(out, blockCount, base != null);
+		final InputStream in= new BufferedInputStream(new FileInputStream(database), BUFFER_SIZE);
+		try {
+			final int maxCount= base == null ? blockCount : Math.max(blockCount, base.fBlockCount);
+			for (int i = 0; i < maxCount; i++) {
+				// Blocks missing in the base are zero.
+				boolean inBase= false;
+				if (base != null && i < base.fBlockCount) {
+					inBase= true;
+					if (!base.readBlock(i, baseBlock)) {
+						Arrays.fill(baseBlock, (byte) 0);
+					}
+					baseChecksum.update(baseBlock, 0, BLOCK_SIZE);
+				}
+				if (i < blockCount) {
+					readBlock(in, block);
+					contentChecksum.update(block, 0, BLOCK_SIZE);
+					if (inBase ? !Arrays.equals(block, baseBlock) : !isZero(block)) {
+						writer.writeBlock(i, block);
+					}
+				}
+			}
+		} finally {
+			in.close();
+		}
+		if (base != null && base.readContentChecksum() != baseChecksum.getValue()) {
+			throw new IOException(Messages.getString("DatabaseDelta.ContentMismatch")); //$NON-NLS-1$
+		}
+		writer.finish(baseChecksum.getValue(), contentChecksum.getValue());
+		return contentChecksum.getValue();
+	}
+
+	/**
+	 * Restores the content of a database from a snapshot or from a delta and its base snapshot.
+	 * Optionally a snapshot of the result is written, it can serve as the base for the next delta.
+	 * The streams are not closed.
+	 * @param delta a stream with a delta or a snapshot.
+	 * @param baseSnapshot the base snapshot of the delta, or <code>null</code> for a snapshot.
+	 * @param database the stream to write the content of the database to.
+	 * @param snapshot a stream to write the snapshot of the result to, or <code>null</code>.
+	 * @return the checksum of the content of the database.
+	 * @throws IOException when reading or writing fails, or when the checksums do not match.
+	 */
+	public static long apply(InputStream delta, InputStream baseSnapshot, OutputStream database,
+			OutputStream snapshot) throws IOException {
+		final BlockReader reader= new BlockReader(delta);
+		final BlockReader base;
+		if (reader.fHasBase) {
+			if (baseSnapshot == null) {
+				throw new IOException(Messages.getString("DatabaseDelta.BaseMismatch")); //$NON-NLS-1$
+			}
+			base= new BlockReader(baseSnapshot);
+			if (base.fHasBase) {
+				throw new IOException(Messages.getString("DatabaseDelta.InvalidFormat")); //$NON-NLS-1$
+			}
+		} else {
+			base= null;
+		}
+
+		final byte[] block= new byte[BLOCK_SIZE];
+		final CRC32 baseChecksum= new CRC32();
+		final CRC32 contentChecksum= new CRC32();
+		final BlockWriter writer= snapshot == null ? null : new BlockWriter(snapshot, reader.fBlockCount, false);
+		final OutputStream out= new BufferedOutputStream(database, BUFFER_SIZE);
+		final int maxCount= base == null ? reader.fBlockCount : Math.max(reader.fBlockCount, base.fBlockCount);
+		for (int i = 0; i < maxCount; i++) {
+			// Blocks contained neither in the delta nor in the base are zero.
+			boolean inBase= false;
+			if (base != null && i < base.fBlockCount) {
+				inBase= base.readBlock(i, block);
+				if (!inBase) {
+					Arrays.fill(block, (byte) 0);
+				}
+				baseChecksum.update(block, 0, BLOCK_SIZE);
+			}
+			if (i < reader.fBlockCount) {
+				if (!reader.readBlock(i, block) && !inBase) {
+					Arrays.fill(block, (byte) 0);
+				}
+				contentChecksum.update(block, 0, BLOCK_SIZE);
+				out.write(block, 0, BLOCK_SIZE);
+				if (writer != null && !isZero(block)) {
+					writer.writeBlock(i, block);
+				}
+			}
+		}
+		out.flush();
+
+		if (base != null && (base.readContentChecksum() != baseChecksum.getValue())) {
+			throw new IOException(Messages.getString("DatabaseDelta.ContentMismatch")); //$NON-NLS-1$
+		}
+		if (reader.readContentChecksum() != contentChecksum.getValue()) {
+			throw new IOException(Messages.getString("DatabaseDelta.ContentMismatch")); //$NON-NLS-1$
+		}
+		if (base != null && reader.fBaseChecksum != baseChecksum.getValue()) {
+			throw new IOException(Messages.getString("DatabaseDelta.BaseMismatch")); //$NON-NLS-1$
+		}
+		if (writer != null) {
+			writer.finish(0, contentChecksum.getValue());
+		}
+		return contentChecksum.getValue();
+	}
+
+	private static void readBlock(InputStream in, byte[] block) throws IOException {
+		int pos= 0;
+		while (pos < BLOCK_SIZE) {
+			int read= in.read(block, pos, BLOCK_SIZE - pos);
+			if (read < 0) {
+				if (pos == 0)
+					throw new EOFException();
+				// The last block of the file is padded with zeros.
+				Arrays.fill(block, pos, BLOCK_SIZE, (byte) 0);
+				return;
+			}
+			pos+= read;
+		}
+	}
+
+	private static boolean isZero(byte[] block) {
+		for (byte b : block) {
+			if (b != 0)
+				return false;
+		}
+		return true;
+	}
+}
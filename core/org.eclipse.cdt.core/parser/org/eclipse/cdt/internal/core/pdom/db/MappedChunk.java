@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core.pdom.db;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Provides read-only access to a piece of a memory-mapped database. The content is read
+ * directly from the mapping, no copy of it is kept on the heap.
+ * <p>
+ * Mapped chunks are never locked, the methods modifying the content must not be called.
+ */
+final class MappedChunk extends Chunk {
+	private final ByteBuffer fView;
+
+	/**
+	 * @param view a big-endian buffer of the chunk size of the database, starting at
+	 *     the beginning of the chunk.
+	 */
+	MappedChunk(Database db, int sequenceNumber, ByteBuffer view) {
+		super(db, sequenceNumber, null);
+		fView= view;
+	}
+
+	@Override
+	void read() {
+		// The content is read on demand from the mapping.
+	}
+
+	@Override
+	void flush() {
+		assert !fDirty;
+	}
+
+	@Override
+	public byte getByte(final long offset) {
+		return fView.get(recPtrToIndex(offset));
+	}
+
+	@Override
+	public byte[] getBytes(final long offset, final int length) {
+		final byte[] bytes = new byte[length];
+		get(offset, bytes, 0, length);
+		return bytes;
+	}
+
+	@Override
+	public int getInt(final long offset) {
+		return fView.getInt(recPtrToIndex(offset));
+	}
+
+	@Override
+	public long getRecPtr(final long offset) {
+		return expandToRecPtr(fView.getInt(recPtrToIndex(offset)));
+	}
+
+	@Override
+	public long getFreeRecPtr(final long offset) {
+		return expandToFreeRecPtr(fView.getInt(recPtrToIndex(offset)));
+	}
+
+	@Override
+	public int get3ByteUnsignedInt(final long offset) {
+		int idx= recPtrToIndex(offset);
+		return ((fView.get(idx) & 0xff) << 16) |
+			((fView.get(++idx) & 0xff) <<  8) |
+			((fView.get(++idx) & 0xff) <<  0);
+	}
+
+	@Override
+	public short getShort(final long offset) {
+		return fView.getShort(recPtrToIndex(offset));
+	}
+
+	@Override
+	public long getLong(final long offset) {
+		return fView.getLong(recPtrToIndex(offset));
+	}
+
+	@Override
+	public char getChar(final long offset) {
+		return fView.getChar(recPtrToIndex(offset));
+	}
+
+	@Override
+	public void getChars(final long offset, final char[] result, int start, int len) {
+		// The view is shared between threads, use a duplicate for relative access.
+		final ByteBuffer buf= fView.duplicate();
+		buf.position(recPtrToIndex(offset));
+		buf.asCharBuffer().get(result, start, len);
+	}
+
+	@Override
+	public void getCharsFromBytes(final long offset, final char[] result, int start, int len) {
+		final int pos = recPtrToIndex(offset);
+		for (int i = 0; i < len; i++) {
+			result[start + i] =  (char) (fView.get(pos + i) & 0xff);
+		}
+	}
+
+	@Override
+	public void get(final long offset, byte[] data, int dataPos, int len) {
+		final ByteBuffer buf= fView.duplicate();
+		buf.position(recPtrToIndex(offset));
+		buf.get(data, dataPos, len);
+	}
+}
@@ -30,6 +30,14 @@ public class ShortString implements IString {
 	private static final int CHARS = 4;
 	
 	public static final int MAX_BYTE_LENGTH = Database.MAX_MALLOC_SIZE - CHARS;
+
+	/**
+	 * Returns the maximum length in bytes of a short string in the given database, which
+	 * depends on its chunk size.
+	 */
+	public static int getMaxByteLength(Database db) {
+		return db.getMaxMallocSize() - CHARS;
+	}
 	
 	public ShortString(Database db, long offset) {
 		this.db = db;
@@ -361,7 +361,7 @@ public abstract class PDOMLinkage extends PDOMNamedNode implements IIndexLinkage
 		getMacroIndex().accept(visitor);
 		PDOMMacroContainer container= visitor.getMacroContainer();
 		if (container != null) {
-			fPDOM.putCachedResult(key, container);
+			fPDOM.putCachedResult(getLinkageID(), key, container, true);
 		}
 		return container;
 	}
@@ -372,14 +372,14 @@ public abstract class PDOMLinkage extends PDOMNamedNode implements IIndexLinkage
 		if (result == null) {
 			result= new PDOMMacroContainer(this, name);
 			getMacroIndex().insert(result.getRecord());
-			fPDOM.putCachedResult(key, result);
+			fPDOM.putCachedResult(getLinkageID(), key, result, true);
 		}
 		return result;
 	}
 
 	public void removeMacroContainer (PDOMMacroContainer container) throws CoreException {
 		String key= fPDOM.createKeyForCache(record, container.getNameCharArray());
-		fPDOM.putCachedResult(key, null);
+		fPDOM.removeCachedResult(key);
 		getMacroIndex().delete(container.getRecord());
 	}
 
@@ -421,7 +421,7 @@ public abstract class PDOMLinkage extends PDOMNamedNode implements IIndexLinkage
 		CharArrayMap<PDOMBinding[]> map= cached == null ? null : cached.get();
 		if (map == null) {
 			map= new CharArrayMap<PDOMBinding[]>();
-			pdom.putCachedResult(key, new SoftReference<CharArrayMap<?>>(map));
+			pdom.putCachedResult(getLinkageID(), key, new SoftReference<CharArrayMap<?>>(map), true);
 		}
 		return map;
 	}
@@ -453,14 +453,15 @@ public abstract class PDOMLinkage extends PDOMNamedNode implements IIndexLinkage
 			} else {
 				db.putByte(offset, TypeMarshalBuffer.INDIRECT_TYPE);
 				long chainOffset = offset + 1;
+				final int maxMallocSize= db.getMaxMallocSize();
 				buf.putInt(len);
 				int lenSize = buf.getPosition() - len;
 				int bufferPos = 0;
 				while (bufferPos < len) {
 					int chunkLength = bufferPos == 0 ? len + lenSize : len - bufferPos;
 					boolean chainingRequired = false;
-					if (chunkLength > Database.MAX_MALLOC_SIZE) {
-						chunkLength = Database.MAX_MALLOC_SIZE;
+					if (chunkLength > maxMallocSize) {
+						chunkLength = maxMallocSize;
 						chainingRequired = true;
 					}
 					long ptr = db.malloc(chunkLength);
@@ -497,12 +498,13 @@ public abstract class PDOMLinkage extends PDOMNamedNode implements IIndexLinkage
 		}
 
 		byte[] data= new byte[len];
+		final int maxMallocSize= db.getMaxMallocSize();
 		int bufferPos = 0;
 		while (bufferPos < len) {
 			int chunkLength = len + pos - bufferPos;
 			long chunkPtr = ptr + pos;
-			if (chunkLength > Database.MAX_MALLOC_SIZE) {
-				chunkLength = Database.MAX_MALLOC_SIZE;
+			if (chunkLength > maxMallocSize) {
+				chunkLength = maxMallocSize;
 				ptr= db.getRecPtr(chunkPtr);
 				chunkPtr += Database.PTR_SIZE;
 				chunkLength -= Database.PTR_SIZE;
@@ -529,10 +531,11 @@ public abstract class PDOMLinkage extends PDOMNamedNode implements IIndexLinkage
 			}
 			
 			len += ptr - chunkPtr;
+			final int maxMallocSize= db.getMaxMallocSize();
 			while (len > 0) {
 				int chunkLength = len;
-				if (chunkLength > Database.MAX_MALLOC_SIZE) {
-					chunkLength = Database.MAX_MALLOC_SIZE;
+				if (chunkLength > maxMallocSize) {
+					chunkLength = maxMallocSize;
 					ptr= db.getRecPtr(ptr);
 					chunkLength -= Database.PTR_SIZE;
 				}
@@ -102,7 +102,8 @@ class PDOMCEnumeration extends PDOMBinding implements IEnumeration, IIndexType,
 		if (result == null && create) {
 			// there is no cache, build it:
 			result= loadEnumerators();
-			pdom.putCachedResult(key, new SoftReference<List<PDOMCEnumerator>>(result));
+			pdom.putCachedResult(getLinkage().getLinkageID(), key,
+					new SoftReference<List<PDOMCEnumerator>>(result), true);
 		}
 		return result;
 	}
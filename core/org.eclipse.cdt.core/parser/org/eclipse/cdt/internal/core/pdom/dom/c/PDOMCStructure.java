@@ -212,7 +212,7 @@ public class PDOMCStructure extends PDOMBinding implements ICompositeType, ICCom
 			}
 		}
 		if (result != null) {
-			pdom.putCachedResult(key, result);
+			pdom.putCachedResult(getLinkage().getLinkageID(), key, result, true);
 		}
 		return result;
 	}
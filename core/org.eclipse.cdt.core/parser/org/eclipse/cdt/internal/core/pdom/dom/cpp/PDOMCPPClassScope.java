@@ -249,7 +249,8 @@ class PDOMCPPClassScope implements ICPPClassScope, IIndexScope {
 			IPDOMVisitor visitor= new PopulateMap(map);
 			visitor.visit(ct);
 			ct.acceptUncached(visitor);
-			pdom.putCachedResult(key, new SoftReference<CharArrayMap<?>>(map));
+			pdom.putCachedResult(ct.getLinkage().getLinkageID(), key,
+					new SoftReference<CharArrayMap<?>>(map), true);
 		}
 		return map;
 	}
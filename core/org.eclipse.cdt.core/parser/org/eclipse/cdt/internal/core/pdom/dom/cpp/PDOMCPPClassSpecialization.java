@@ -263,7 +263,7 @@ class PDOMCPPClassSpecialization extends PDOMCPPSpecialization implements
 			}
 			Collections.reverse(list);
 			bases = list.toArray(new ICPPBase[list.size()]);
-			getPDOM().putCachedResult(key, bases);
+			getPDOM().putCachedResult(getLinkage().getLinkageID(), key, bases, true);
 			return bases;
 		} catch (CoreException e) {
 			CCorePlugin.log(e);
@@ -314,7 +314,7 @@ class PDOMCPPClassType extends PDOMCPPBinding implements IPDOMCPPClassType, IPDO
 			}
 			Collections.reverse(list);
 			bases = list.toArray(new ICPPBase[list.size()]);
-			getPDOM().putCachedResult(key, bases);
+			getPDOM().putCachedResult(getLinkage().getLinkageID(), key, bases, true);
 			return bases;
 		} catch (CoreException e) {
 			CCorePlugin.log(e);
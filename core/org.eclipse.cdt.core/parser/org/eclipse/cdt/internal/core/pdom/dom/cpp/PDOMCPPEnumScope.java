@@ -146,7 +146,8 @@ class PDOMCPPEnumScope implements ICPPScope, IIndexScope {
 			// there is no cache, build it:
 			map= new CharArrayMap<IPDOMCPPEnumerator>();
 			enumeration.loadEnumerators(map);
-			pdom.putCachedResult(key, new SoftReference<CharArrayMap<?>>(map));
+			pdom.putCachedResult(enumeration.getLinkage().getLinkageID(), key,
+					new SoftReference<CharArrayMap<?>>(map), true);
 		}
 		return map;
 	}
@@ -818,7 +818,7 @@ class PDOMCPPLinkage extends PDOMLinkage implements IIndexCPPBindingConstants {
 			} else {
 				result= nslist.toArray(new PDOMCPPNamespace[nslist.size()]);
 			}
-			getPDOM().putCachedResult(key, result, true);
+			getPDOM().putCachedResult(getLinkageID(), key, result, true);
 		}
 		return result;
 	}
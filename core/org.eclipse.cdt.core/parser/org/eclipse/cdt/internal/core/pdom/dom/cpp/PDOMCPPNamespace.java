@@ -231,7 +231,7 @@ class PDOMCPPNamespace extends PDOMCPPBinding
 				IndexFilter.CPP_DECLARED_OR_IMPLICIT_NO_INSTANCE, false, false, true);
 		getIndex().accept(visitor);
 		result = visitor.getBindings();
-		pdom.putCachedResult(key, result);
+		pdom.putCachedResult(getLinkage().getLinkageID(), key, result, true);
 		return result;
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2009 Wind River Systems, Inc. and others.
+ * Copyright (c) 2008, 2014 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,14 +10,11 @@
  *******************************************************************************/ 
 package org.eclipse.cdt.internal.core.pdom.dom.cpp;
 
-import java.util.HashMap;
-
 import org.eclipse.cdt.core.CCorePlugin;
-import org.eclipse.cdt.core.dom.ast.DOMException;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateArgument;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPTemplateInstance;
+import org.eclipse.cdt.internal.core.dom.parser.cpp.CPPInstanceMap;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ICPPDeferredClassInstance;
-import org.eclipse.cdt.internal.core.index.IndexCPPSignatureUtil;
 import org.eclipse.cdt.internal.core.pdom.PDOM;
 import org.eclipse.cdt.internal.core.pdom.dom.NamedNodeCollector;
 import org.eclipse.cdt.internal.core.pdom.dom.PDOMBinding;
@@ -47,32 +44,19 @@ public class PDOMInstanceCache {
 		return newCache;
 	}
 	
-	private final HashMap<String, ICPPTemplateInstance> fMap;
+	private final CPPInstanceMap fMap;
 	private ICPPDeferredClassInstance fDeferredInstance;
 
 	public PDOMInstanceCache() {
-		fMap= new HashMap<String, ICPPTemplateInstance>();
+		fMap= new CPPInstanceMap();
 	}
 	
-	synchronized public final void addInstance(ICPPTemplateArgument[] arguments, ICPPTemplateInstance instance) {
-		try {
-			String key= IndexCPPSignatureUtil.getTemplateArgString(arguments, true);
-			fMap.put(key, instance);
-		} catch (CoreException e) {
-			CCorePlugin.log(e);
-		} catch (DOMException e) {
-		}
+	public final void addInstance(ICPPTemplateArgument[] arguments, ICPPTemplateInstance instance) {
+		fMap.putIfAbsent(arguments, instance);
 	}
 
-	synchronized public final ICPPTemplateInstance getInstance(ICPPTemplateArgument[] arguments) {		
-		try {
-			String key= IndexCPPSignatureUtil.getTemplateArgString(arguments, true);
-			return fMap.get(key);
-		} catch (CoreException e) {
-			CCorePlugin.log(e);
-		} catch (DOMException e) {
-		}
-		return null;
+	public final ICPPTemplateInstance getInstance(ICPPTemplateArgument[] arguments) {
+		return fMap.get(arguments);
 	}
 	
 	private void populate(PDOMBinding binding) throws CoreException {
@@ -94,8 +78,8 @@ public class PDOMInstanceCache {
 		}
 	}
 
-	synchronized public ICPPTemplateInstance[] getAllInstances() {
-		return fMap.values().toArray(new ICPPTemplateInstance[fMap.size()]);
+	public ICPPTemplateInstance[] getAllInstances() {
+		return fMap.getAll();
 	}
 
 	public ICPPDeferredClassInstance getDeferredInstance() {
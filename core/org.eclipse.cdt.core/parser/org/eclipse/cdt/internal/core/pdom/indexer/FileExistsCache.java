@@ -16,6 +16,7 @@ import java.lang.ref.SoftReference;
 import java.net.URI;
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -48,7 +49,7 @@ public final class FileExistsCache {
 
 	public FileExistsCache(boolean caseInsensitive) {
 		fCaseInSensitive= caseInsensitive;
-		fCache= new SoftReference<Map<String, Content>>(new HashMap<String, Content>());	// before running out of memory the entire map will be thrown away.
+		fCache= new SoftReference<Map<String, Content>>(createMap());	// before running out of memory the entire map will be thrown away.
 	}
 	
 	public boolean isFile(String path) {
@@ -129,12 +130,20 @@ public final class FileExistsCache {
 		return false;
 	}
 
-	private Map<String, Content> getExistsCache() {
+	private synchronized Map<String, Content> getExistsCache() {
 		Map<String, Content> cache= fCache.get();
 		if (cache == null) {
-			cache= new HashMap<String, Content>();
+			cache= createMap();
 			fCache= new SoftReference<Map<String, Content>>(cache); // before running out of memory the entire map will be thrown away.
 		}
 		return cache;
 	}
+
+	/**
+	 * The cache may be used by multiple parser threads of the indexer. Concurrent updates of
+	 * the bit set of an entry may get lost, which only causes the file system to be queried again.
+	 */
+	private static Map<String, Content> createMap() {
+		return Collections.synchronizedMap(new HashMap<String, Content>());
+	}
 }
@@ -67,10 +67,12 @@ public class IndexerPreferences {
 	public static final String KEY_REINDEX_ON_INDEXER_CHANGE = "reindexOnIndexerChange"; //$NON-NLS-1$
 	public static final String KEY_INDEX_ALL_HEADER_VERSIONS= "indexAllHeaderVersions"; //$NON-NLS-1$
 	public static final String KEY_INDEX_ALL_VERSIONS_SPECIFIC_HEADERS= "indexAllVersionsSpecificHeaders"; //$NON-NLS-1$
+	public static final String KEY_PARSER_THREADS= "parserThreads"; //$NON-NLS-1$
 
 	private static final String DEFAULT_INDEX_IMPORT_LOCATION = ".settings/cdt-index.zip"; //$NON-NLS-1$
 	private static final int DEFAULT_UPDATE_POLICY= 0;
 	public static final int DEFAULT_FILE_SIZE_LIMIT = 8;
+	public static final int DEFAULT_PARSER_THREADS = 1;
 
 	private static final String QUALIFIER = CCorePlugin.PLUGIN_ID;
 	private static final String INDEXER_NODE = "indexer"; //$NON-NLS-1$
@@ -333,6 +335,7 @@ public class IndexerPreferences {
 		prefs.putBoolean(KEY_SKIP_MACRO_REFERENCES, false);
 		prefs.put(KEY_INDEX_IMPORT_LOCATION, DEFAULT_INDEX_IMPORT_LOCATION);
 		prefs.putBoolean(KEY_INDEX_ALL_HEADER_VERSIONS, false);
+		prefs.putInt(KEY_PARSER_THREADS, DEFAULT_PARSER_THREADS);
 	}
 
 	public static void setDefaultIndexerId(String defaultId) {
@@ -397,6 +400,34 @@ public class IndexerPreferences {
 		}
 	}
 
+	/**
+	 * Returns the number of threads the indexer uses for parsing source files.
+	 */
+	public static int getParserThreadCount() {
+		// no support for project specific thread counts
+		String val= Platform.getPreferencesService().get(KEY_PARSER_THREADS, null, getInstancePreferencesArray());
+		if (val != null) {
+			try {
+				int result= Integer.parseInt(val);
+				if (result > 0)
+					return result;
+			} catch (NumberFormatException e) {
+				CCorePlugin.log(e);
+			}
+		}
+		return DEFAULT_PARSER_THREADS;
+	}
+
+	/**
+	 * Sets the number of threads the indexer uses for parsing source files. A value
+	 * greater than one enables parallel parsing, the index is still written by a single thread.
+	 */
+	public static void setParserThreadCount(int count) {
+		if (count < 1)
+			throw new IllegalArgumentException();
+		getInstancePreferences().putInt(KEY_PARSER_THREADS, count);
+	}
+
 	public static int getUpdatePolicy(IProject project) {
 		// no support for project specific policies
 		Preferences[] prefs= getInstancePreferencesArray();
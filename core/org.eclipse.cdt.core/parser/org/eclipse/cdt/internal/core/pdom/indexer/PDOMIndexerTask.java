@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2013 Wind River Systems, Inc. and others.
+ * Copyright (c) 2006, 2014 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -31,7 +31,10 @@ import org.eclipse.cdt.internal.core.index.IWritableIndex;
 import org.eclipse.cdt.internal.core.index.IWritableIndexManager;
 import org.eclipse.cdt.internal.core.model.CProject;
 import org.eclipse.cdt.internal.core.pdom.AbstractIndexerTask;
+import org.eclipse.cdt.internal.core.pdom.HeaderContentCache;
 import org.eclipse.cdt.internal.core.pdom.ITodoTaskUpdater;
+import org.eclipse.cdt.internal.core.pdom.IndexerMetrics;
+import org.eclipse.cdt.internal.core.pdom.IndexerMetrics.Phase;
 import org.eclipse.cdt.internal.core.pdom.IndexerProgress;
 import org.eclipse.cdt.internal.core.pdom.db.ChunkCache;
 import org.eclipse.core.resources.IResource;
@@ -62,10 +65,12 @@ public abstract class PDOMIndexerTask extends AbstractIndexerTask implements IPD
 		setShowScannerProblems(checkDebugOption(TRACE_SCANNER_PROBLEMS, TRUE));
 		setShowSyntaxProblems(checkDebugOption(TRACE_SYNTAX_PROBLEMS, TRUE));
 		setShowProblems(checkDebugOption(TRACE_PROBLEMS, TRUE));
+		setCollectPreprocessorTimes(checkDebugOption(TRACE_STATISTICS, TRUE));
 		final long limit = getIntProperty(IndexerPreferences.KEY_SKIP_FILES_LARGER_THAN_MB, 0);
 		setFileSizeLimit(limit * 1024 * 1024);
 		setIndexAllHeaderVersions(checkProperty(IndexerPreferences.KEY_INDEX_ALL_HEADER_VERSIONS));
 		setHeadersToIndexAllVersions(getStringSet(IndexerPreferences.KEY_INDEX_ALL_VERSIONS_SPECIFIC_HEADERS));
+		setParserThreadCount(IndexerPreferences.getParserThreadCount());
 		if (checkProperty(IndexerPreferences.KEY_SKIP_ALL_REFERENCES)) {
 			setSkipReferences(SKIP_ALL_REFERENCES);
 		} else {
@@ -279,6 +284,19 @@ public abstract class PDOMIndexerTask extends AbstractIndexerTask implements IPD
 					+ fStatistics.fParsingTime + " parser, "    //$NON-NLS-1$
 					+ fStatistics.fResolutionTime + " resolution, "    //$NON-NLS-1$
 					+ fStatistics.fAddToIndexTime + " index update.");    //$NON-NLS-1$
+			final IndexerMetrics metrics= getMetrics();
+			System.out.println(ident + " Phases: "     //$NON-NLS-1$
+					+ metrics.getTime(Phase.FILE_CONTENT_LOOKUP) / 1000000 + " file lookup, "    //$NON-NLS-1$
+					+ metrics.getTime(Phase.PREPROCESSING) / 1000000 + " preprocessor, "    //$NON-NLS-1$
+					+ metrics.getTime(Phase.PARSING) / 1000000 + " parser, "    //$NON-NLS-1$
+					+ metrics.getAmbiguityResolutionTime() + " ambiguities, "    //$NON-NLS-1$
+					+ metrics.getSymbolCollectionTime() + " symbol collection, "    //$NON-NLS-1$
+					+ metrics.getNameResolutionTime() + " resolution, "    //$NON-NLS-1$
+					+ metrics.getLockWaitTime() + " lock wait, "    //$NON-NLS-1$
+					+ metrics.getIndexWriteTime() + " index update.");    //$NON-NLS-1$
+			for (IndexerMetrics.FileMetrics file : metrics.getSlowestFiles()) {
+				System.out.println(ident + "  Slow: " + file); //$NON-NLS-1$
+			}
 			System.out.println(ident + " Errors: "    //$NON-NLS-1$
 					+ fStatistics.fErrorCount + " internal, "    //$NON-NLS-1$
 					+ fStatistics.fUnresolvedIncludesCount + " include, "     //$NON-NLS-1$
@@ -305,6 +323,12 @@ public abstract class PDOMIndexerTask extends AbstractIndexerTask implements IPD
 					+ hits + " hits, "      //$NON-NLS-1$
 					+ misses + "(" + nfPercent.format(missPct) + ") misses.");      //$NON-NLS-1$ //$NON-NLS-2$
 
+			final HeaderContentCache headerCache= getHeaderContentCache();
+			System.out.println(ident + " Header cache["    //$NON-NLS-1$
+					+ headerCache.getSize() / 1024 + "K chars]: "    //$NON-NLS-1$
+					+ headerCache.getHitCount() + " hits, "      //$NON-NLS-1$
+					+ headerCache.getMissCount() + " misses.");      //$NON-NLS-1$
+
 			if ("true".equals(System.getProperty("SHOW_COMPRESSED_INDEXER_INFO"))) {    //$NON-NLS-1$ //$NON-NLS-2$
 				Calendar cal = Calendar.getInstance();
 				NumberFormat twoDigits= NumberFormat.getNumberInstance();
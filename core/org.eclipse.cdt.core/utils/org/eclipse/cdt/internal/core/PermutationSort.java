@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.core;
+
+/**
+ * Stable sorting of permutations, for data kept in parallel primitive arrays. The positions
+ * are sorted without boxing them.
+ */
+public final class PermutationSort {
+	/**
+	 * Compares the elements at two positions.
+	 */
+	public interface IPositionComparator {
+		int compare(int position1, int position2);
+	}
+
+	private PermutationSort() {
+	}
+
+	/**
+	 * Returns the identity permutation of the given length.
+	 */
+	public static int[] identity(int length) {
+		int[] result= new int[length];
+		for (int i= 0; i < length; i++) {
+			result[i]= i;
+		}
+		return result;
+	}
+
+	/**
+	 * Compares two longs as unsigned values.
+	 */
+	public static int compareUnsigned(long a, long b) {
+		a^= Long.MIN_VALUE;
+		b^= Long.MIN_VALUE;
+		return a < b ? -1 : a == b ? 0 : 1;
+	}
+
+	/**
+	 * Sorts the permutation by the unsigned values at its positions.
+	 */
+	public static void sortUnsigned(int[] order, final long[] values) {
+		sort(order, new IPositionComparator() {
+			@Override
+			public int compare(int position1, int position2) {
+				return compareUnsigned(values[position1], values[position2]);
+			}
+		});
+	}
+
+	/**
+	 * Sorts the permutation with the given comparator. Equal elements keep their order, such
+	 * that the sort is stable for an identity permutation.
+	 */
+	public static void sort(int[] order, IPositionComparator comparator) {
+		// Bottom-up merge sort.
+		int[] src= order;
+		int[] dst= new int[order.length];
+		for (int width= 1; width < order.length; width*= 2) {
+			for (int lo= 0; lo < order.length; lo+= 2 * width) {
+				final int mid= Math.min(lo + width, order.length);
+				final int hi= Math.min(lo + 2 * width, order.length);
+				int i= lo, j= mid, k= lo;
+				while (i < mid && j < hi) {
+					if (comparator.compare(src[j], src[i]) < 0) {
+						dst[k++]= src[j++];
+					} else {
+						dst[k++]= src[i++];
+					}
+				}
+				while (i < mid) {
+					dst[k++]= src[i++];
+				}
+				while (j < hi) {
+					dst[k++]= src[j++];
+				}
+			}
+			int[] tmp= src;
+			src= dst;
+			dst= tmp;
+		}
+		if (src != order) {
+			System.arraycopy(src, 0, order, 0, order.length);
+		}
+	}
+}
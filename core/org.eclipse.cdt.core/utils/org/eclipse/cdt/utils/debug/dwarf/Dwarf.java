@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 QNX Software Systems and others.
+ * Copyright (c) 2000, 2014 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -243,9 +243,11 @@ public class Dwarf {
 
 	int read_4_bytes(ByteBuffer in) throws IOException {
 		try {
-			byte[] bytes = new byte[4];
-			in.get(bytes);
-			return read_4_bytes(bytes);
+			// Read the bytes directly, allocating an array per value is costly for large sections.
+			final int b0 = in.get() & 0xff, b1 = in.get() & 0xff, b2 = in.get() & 0xff, b3 = in.get() & 0xff;
+			if (isLE)
+				return (b3 << 24) | (b2 << 16) | (b1 << 8) | b0;
+			return (b0 << 24) | (b1 << 16) | (b2 << 8) | b3;
 		} catch (Exception e) {
 			throw new IOException(CCorePlugin.getResourceString("Util.exception.missingBytes")); //$NON-NLS-1$
 		}
@@ -269,9 +271,11 @@ public class Dwarf {
 
 	long read_8_bytes(ByteBuffer in) throws IOException {
 		try {
-			byte[] bytes = new byte[8];
-			in.get(bytes);
-			return read_8_bytes(bytes);
+			final long low = read_4_bytes(in) & 0xffffffffL;
+			final long high = read_4_bytes(in) & 0xffffffffL;
+			if (isLE)
+				return (high << 32) | low;
+			return (low << 32) | high;
 		} catch (Exception e) {
 			throw new IOException(CCorePlugin.getResourceString("Util.exception.missingBytes")); //$NON-NLS-1$
 		}
@@ -303,9 +307,10 @@ public class Dwarf {
 
 	short read_2_bytes(ByteBuffer in) throws IOException {
 		try {
-			byte[] bytes = new byte[2];
-			in.get(bytes);
-			return read_2_bytes(bytes);
+			final int b0 = in.get() & 0xff, b1 = in.get() & 0xff;
+			if (isLE)
+				return (short) ((b1 << 8) + b0);
+			return (short) ((b0 << 8) + b1);
 		} catch (Exception e) {
 			throw new IOException(CCorePlugin.getResourceString("Util.exception.missingBytes")); //$NON-NLS-1$
 		}
@@ -371,17 +376,7 @@ public class Dwarf {
 		if (data != null) {
 			try {
 				while (data.hasRemaining()) {
-					CompilationUnitHeader header = new CompilationUnitHeader();
-					InitialLengthValue sectionLength = readInitialLengthField(data);
-					header.length = sectionLength.length;
-					header.offsetSize = sectionLength.offsetSize;
-
-					header.version = read_2_bytes(data);
-					if (header.offsetSize == 8)
-						header.abbreviationOffset = (int)read_8_bytes(data);
-					else
-						header.abbreviationOffset = read_4_bytes(data);
-					header.addressSize = data.get();
+					CompilationUnitHeader header = readCompilationUnitHeader(data);
 
 					if (printEnabled) {
 						System.out.println("Compilation Unit @ " + Long.toHexString(data.position())); //$NON-NLS-1$
@@ -407,6 +402,25 @@ public class Dwarf {
 		}
 	}
 
+	/**
+	 * Reads the header of a compilation unit in the .debug_info section.
+	 * @param data - byte buffer positioned at the start of the compilation unit
+	 */
+	CompilationUnitHeader readCompilationUnitHeader(ByteBuffer data) throws IOException {
+		CompilationUnitHeader header = new CompilationUnitHeader();
+		InitialLengthValue sectionLength = readInitialLengthField(data);
+		header.length = sectionLength.length;
+		header.offsetSize = sectionLength.offsetSize;
+
+		header.version = read_2_bytes(data);
+		if (header.offsetSize == 8)
+			header.abbreviationOffset = (int)read_8_bytes(data);
+		else
+			header.abbreviationOffset = read_4_bytes(data);
+		header.addressSize = data.get();
+		return header;
+	}
+
 	/**
 	 *  
 	 */
@@ -489,22 +503,30 @@ public class Dwarf {
 			long code = read_unsigned_leb128(in);
 			AbbreviationEntry entry = abbrevs.get(new Long(code));
 			if (entry != null) {
-				int len = entry.attributes.size();
-				List<AttributeValue> list = new ArrayList<AttributeValue>(len);
-				try {
-					for (int i = 0; i < len; i++) {
-						Attribute attr = entry.attributes.get(i);
-						Object obj = readAttribute((int) attr.form, in, header);
-						list.add(new AttributeValue(attr, obj));
-					}
-				} catch (IOException e) {
-					//break;
-				}
+				List<AttributeValue> list = readAttributes(entry, in, header);
 				processDebugInfoEntry(requestor, entry, list);
 			}
 		}
 	}
 
+	/**
+	 * Reads the attribute values of a debugging information entry.
+	 */
+	List<AttributeValue> readAttributes(AbbreviationEntry entry, ByteBuffer in, CompilationUnitHeader header) {
+		int len = entry.attributes.size();
+		List<AttributeValue> list = new ArrayList<AttributeValue>(len);
+		try {
+			for (int i = 0; i < len; i++) {
+				Attribute attr = entry.attributes.get(i);
+				Object obj = readAttribute((int) attr.form, in, header);
+				list.add(new AttributeValue(attr, obj));
+			}
+		} catch (IOException e) {
+			//break;
+		}
+		return list;
+	}
+
 	Object readAttribute(int form, ByteBuffer in, CompilationUnitHeader header) throws IOException {
 		Object obj = null;
 		switch (form) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2013 Nokia and others.
+ * Copyright (c) 2007, 2014 Nokia and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,14 +14,20 @@
 package org.eclipse.cdt.utils.debug.dwarf;
 
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.cdt.core.CCorePlugin;
 import org.eclipse.cdt.core.ISymbolReader;
+import org.eclipse.cdt.internal.core.PermutationSort;
 import org.eclipse.cdt.utils.coff.Coff.SectionHeader;
 import org.eclipse.cdt.utils.coff.PE;
 import org.eclipse.cdt.utils.debug.IDebugEntryRequestor;
@@ -49,8 +55,21 @@ public class DwarfReader extends Dwarf implements ISymbolReader {
 	private final Collection<String>	m_fileCollection = new HashSet<String>();
 	private String[] 	m_fileNames = null;
 	private boolean		m_parsed = false;
-	private final ArrayList<Integer>	m_parsedLineTableOffsets = new ArrayList<Integer>();
+	private final Set<Integer>	m_parsedLineTableOffsets = new HashSet<Integer>();
 	private long			m_parsedLineTableSize = 0;
+
+	/** Offsets of the compilation units in the .debug_info section, computed on demand. */
+	private long[]		fUnitOffsets;
+	/** Address ranges of the compilation units sorted by start address, computed on demand. */
+	private long[]		fRangeStarts;
+	private long[]		fRangeEnds;
+	private int[]		fRangeUnits;
+	/** Source files of the compilation units that have been decoded for an address lookup. */
+	private String[]	fUnitSourceFiles;
+	/** Location of the .debug_aranges section of an ELF file, mapped on the first address lookup. */
+	private String		fArangesFile;
+	private long		fArangesOffset;
+	private long		fArangesSize;
 		
 	public DwarfReader(String file) throws IOException {
 		super(file);
@@ -80,6 +99,12 @@ public class DwarfReader extends Dwarf implements ISymbolReader {
 		//
 		for (Section section : sections) {
 			String name = section.toString();
+			if (name.equals(DWARF_DEBUG_ARANGES)) {
+				// Only needed for address lookups, don't map it for collecting the source files.
+				fArangesFile = exe.getFilename();
+				fArangesOffset = section.sh_offset;
+				fArangesSize = section.sh_size;
+			}
 			for (String element : DWARF_SectionsToParse) {
 				if (name.equals(element)) {
 					// catch out of memory exceptions which might happen trying to
@@ -406,20 +431,279 @@ public class DwarfReader extends Dwarf implements ISymbolReader {
 	 * The file names are stored in member "m_fileCollection".
 	 */
 	private void getSourceFilesFromDebugInfoSection() {
-		// This will parse the data in .debug_info section which
-		// will call this->processCompileUnit() to get source files.
-		parse(null);
+		// Only the entry of the CU itself is needed, the remaining entries of a CU are skipped.
+		long[] units = getCompileUnitOffsets();
+		for (int i = 0; i < units.length; i++) {
+			List<AttributeValue> list = readCompileUnitEntry(i);
+			if (list != null)
+				processCompileUnit(null, list);
+		}
+	}
+
+	/**
+	 * Returns the offsets of the compilation units in the .debug_info section. Only the
+	 * headers of the compilation units are read.
+	 */
+	private long[] getCompileUnitOffsets() {
+		if (fUnitOffsets == null) {
+			long[] offsets = new long[16];
+			int count = 0;
+			ByteBuffer data = dwarfSections.get(DWARF_DEBUG_INFO);
+			if (data != null) {
+				try {
+					int offset = 0;
+					while (offset < data.limit()) {
+						data.position(offset);
+						InitialLengthValue length = readInitialLengthField(data);
+						if (length.length <= 0)
+							break;
+						if (count == offsets.length)
+							offsets = Arrays.copyOf(offsets, count * 2);
+						offsets[count++] = offset;
+						offset = data.position() + (int) length.length;
+					}
+				} catch (IOException e) {
+					CCorePlugin.log(e);
+				}
+			}
+			fUnitOffsets = Arrays.copyOf(offsets, count);
+		}
+		return fUnitOffsets;
+	}
+
+	/**
+	 * Decodes the first debugging information entry of the compilation unit with the given
+	 * index, which describes the compilation unit. Returns <code>null</code> if the entry is
+	 * not a compilation unit.
+	 */
+	private List<AttributeValue> readCompileUnitEntry(int unit) {
+		ByteBuffer data = dwarfSections.get(DWARF_DEBUG_INFO);
+		if (data == null)
+			return null;
+		try {
+			data.position((int) fUnitOffsets[unit]);
+			CompilationUnitHeader header = readCompilationUnitHeader(data);
+			Map<Long, AbbreviationEntry> abbrevs = parseDebugAbbreviation(header);
+			ByteBuffer entryBuffer = data.slice();
+			entryBuffer.limit(Math.min(entryBuffer.capacity(),
+					((int) header.length) - (header.offsetSize == 8 ? 11 : 7)));
+			long code = read_unsigned_leb128(entryBuffer);
+			AbbreviationEntry entry = abbrevs.get(new Long(code));
+			if (entry == null || entry.tag != DwarfConstants.DW_TAG_compile_unit)
+				return null;
+			return readAttributes(entry, entryBuffer, header);
+		} catch (IOException e) {
+			return null;
+		} catch (RuntimeException e) {
+			// Malformed data, e.g. an offset beyond the end of the section.
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the primary source file of the compilation unit containing the given address,
+	 * or <code>null</code> if the address is not covered by the debug information. Only the
+	 * compilation unit found is decoded.
+	 * @since 5.7
+	 */
+	public String getSourceFile(long address) {
+		if (fRangeStarts == null)
+			buildAddressRangeIndex();
+
+		// Find the last range starting at or before the address.
+		final long key = address ^ Long.MIN_VALUE;
+		int low = 0;
+		int high = fRangeStarts.length - 1;
+		while (low <= high) {
+			final int mid = (low + high) >>> 1;
+			if ((fRangeStarts[mid] ^ Long.MIN_VALUE) <= key) {
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		if (high < 0 || (address ^ Long.MIN_VALUE) >= (fRangeEnds[high] ^ Long.MIN_VALUE))
+			return null;
+
+		final int unit = fRangeUnits[high];
+		if (fUnitSourceFiles[unit] == null) {
+			String file = ""; //$NON-NLS-1$
+			List<AttributeValue> list = readCompileUnitEntry(unit);
+			if (list != null) {
+				String name = (String) getAttribute(list, DwarfConstants.DW_AT_name);
+				String compDir = (String) getAttribute(list, DwarfConstants.DW_AT_comp_dir);
+				String fullName = getFullName(compDir == null ? "" : compDir, name); //$NON-NLS-1$
+				if (fullName != null)
+					file = fullName;
+			}
+			fUnitSourceFiles[unit] = file;
+		}
+		return fUnitSourceFiles[unit].length() == 0 ? null : fUnitSourceFiles[unit];
+	}
+
+	private static Object getAttribute(List<AttributeValue> list, int name) {
+		for (AttributeValue av : list) {
+			if (av.attribute.name == name)
+				return av.value;
+		}
+		return null;
+	}
+
+	/**
+	 * Builds the index of address ranges from the .debug_aranges section. Without that section,
+	 * the ranges are taken from the low and high pc of the compilation units.
+	 */
+	private void buildAddressRangeIndex() {
+		final long[] units = getCompileUnitOffsets();
+		fUnitSourceFiles = new String[units.length];
+		RangeList ranges = new RangeList();
+		ByteBuffer data = getArangesSection();
+		if (data != null) {
+			try {
+				int offset = 0;
+				while (offset < data.limit()) {
+					data.position(offset);
+					InitialLengthValue length = readInitialLengthField(data);
+					if (length.length <= 0)
+						break;
+					final int next = data.position() + (int) length.length;
+					read_2_bytes(data); // version
+					long infoOffset = length.offsetSize == 8 ? read_8_bytes(data) : read_4_bytes(data) & 0xffffffffL;
+					int addressSize = data.get();
+					data.get(); // segment size
+					final int unit = Arrays.binarySearch(units, infoOffset);
+					if (unit >= 0 && (addressSize == 4 || addressSize == 8)) {
+						// The tuples are aligned at twice the address size.
+						int tuples = data.position() - offset;
+						tuples = offset + ((tuples + 2 * addressSize - 1) / (2 * addressSize)) * 2 * addressSize;
+						data.position(tuples);
+						while (data.position() + 2 * addressSize <= next) {
+							long start = readUnsigned(data, addressSize);
+							long size = readUnsigned(data, addressSize);
+							if (start == 0 && size == 0)
+								break;
+							ranges.add(start, start + size, unit);
+						}
+					}
+					offset = next;
+				}
+			} catch (IOException e) {
+				CCorePlugin.log(e);
+			}
+		} else {
+			for (int i = 0; i < units.length; i++) {
+				List<AttributeValue> list = readCompileUnitEntry(i);
+				if (list == null)
+					continue;
+				Object lowPC = null;
+				Object highPC = null;
+				boolean highIsOffset = false;
+				for (AttributeValue av : list) {
+					if (av.attribute.name == DwarfConstants.DW_AT_low_pc) {
+						lowPC = av.value;
+					} else if (av.attribute.name == DwarfConstants.DW_AT_high_pc) {
+						highPC = av.value;
+						// Since DWARF 4 the high pc may be an offset from the low pc.
+						highIsOffset = av.attribute.form != DwarfConstants.DW_FORM_addr;
+					}
+				}
+				if (lowPC instanceof Number && highPC instanceof Number) {
+					long start = ((Number) lowPC).longValue();
+					long end = ((Number) highPC).longValue();
+					if (highIsOffset)
+						end += start;
+					ranges.add(start, end, i);
+				}
+			}
+		}
+		ranges.sort();
+		fRangeStarts = ranges.fStarts;
+		fRangeEnds = ranges.fEnds;
+		fRangeUnits = ranges.fUnits;
+	}
+
+	/**
+	 * Returns the .debug_aranges section, or <code>null</code> if there is none.
+	 */
+	private ByteBuffer getArangesSection() {
+		ByteBuffer data = dwarfSections.get(DWARF_DEBUG_ARANGES);
+		if (data == null && fArangesFile != null) {
+			RandomAccessFile file = null;
+			try {
+				file = new RandomAccessFile(fArangesFile, "r"); //$NON-NLS-1$
+				data = file.getChannel().map(MapMode.READ_ONLY, fArangesOffset, fArangesSize).asReadOnlyBuffer();
+				dwarfSections.put(DWARF_DEBUG_ARANGES, data);
+			} catch (IOException e) {
+				CCorePlugin.log(e);
+			} finally {
+				fArangesFile = null;
+				if (file != null) {
+					try {
+						file.close();
+					} catch (IOException e) {
+					}
+				}
+			}
+		}
+		return data;
+	}
+
+	private long readUnsigned(ByteBuffer data, int size) throws IOException {
+		return size == 8 ? read_8_bytes(data) : read_4_bytes(data) & 0xffffffffL;
+	}
+
+	/**
+	 * Address ranges in primitive arrays.
+	 */
+	private static class RangeList {
+		long[] fStarts = new long[16];
+		long[] fEnds = new long[16];
+		int[] fUnits = new int[16];
+		int fCount;
+
+		void add(long start, long end, int unit) {
+			if (fCount == fStarts.length) {
+				fStarts = Arrays.copyOf(fStarts, fCount * 2);
+				fEnds = Arrays.copyOf(fEnds, fCount * 2);
+				fUnits = Arrays.copyOf(fUnits, fCount * 2);
+			}
+			fStarts[fCount] = start;
+			fEnds[fCount] = end;
+			fUnits[fCount] = unit;
+			fCount++;
+		}
+
+		void sort() {
+			int[] src = PermutationSort.identity(fCount);
+			PermutationSort.sortUnsigned(src, fStarts);
+			long[] starts = new long[fCount];
+			long[] ends = new long[fCount];
+			int[] units = new int[fCount];
+			for (int i = 0; i < fCount; i++) {
+				starts[i] = fStarts[src[i]];
+				ends[i] = fEnds[src[i]];
+				units[i] = fUnits[src[i]];
+			}
+			fStarts = starts;
+			fEnds = ends;
+			fUnits = units;
+		}
 	}
 
 	private void addSourceFile(String dir, String name)
+	{
+		String fullName = getFullName(dir, name);
+		if (fullName != null)
+			m_fileCollection.add(fullName);
+	}
+
+	private static String getFullName(String dir, String name)
 	{
 		if (name == null || name.length() == 0)
-			return;
+			return null;
 		
 		if (name.charAt(0) == '<')	//  don't count the entry "<internal>" from GCCE compiler
-			return;
-		
-		String fullName = name;
+			return null;
 		
 		IPath dirPa = new Path(dir);
 		IPath pa = new Path(name);
@@ -430,10 +714,7 @@ public class DwarfReader extends Dwarf implements ISymbolReader {
 
 		// This convert the path to canonical path (but not necessarily absolute, which
 		// is different from java.io.File.getCanonicalPath()).
-		fullName = pa.toOSString();
-		
-		if (!m_fileCollection.contains(fullName))
-			m_fileCollection.add(fullName);					
+		return pa.toOSString();
 	}
 	
 	/**
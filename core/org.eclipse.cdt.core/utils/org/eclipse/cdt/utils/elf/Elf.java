@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 QNX Software Systems and others.
+ * Copyright (c) 2000, 2014 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,7 +18,9 @@ import static org.eclipse.cdt.internal.core.ByteUtils.makeInt;
 import static org.eclipse.cdt.internal.core.ByteUtils.makeLong;
 
 import java.io.IOException;
+import java.math.BigInteger;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.channels.FileChannel.MapMode;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -55,6 +57,8 @@ public class Elf {
 	private Symbol[] dynsym_symbols;
 	private Section dynsym_sym;
 	private boolean sections_mapped; // Have sections been mapped? Used to clean up properly in Elf.Dispose.
+	private ElfSymbolIndex fSymbolIndex;
+	private Section fSymbolIndexSection;
 
 	protected String EMPTY_STRING = ""; //$NON-NLS-1$
 
@@ -318,7 +322,8 @@ public class Elf {
 		 */
 		public ByteBuffer mapSectionData() throws IOException {
 			sections_mapped = true;
-			return efile.getChannel().map(MapMode.READ_ONLY, sh_offset, sh_size).load().asReadOnlyBuffer();
+			// Don't load the mapping, the pages are read when accessed.
+			return efile.getChannel().map(MapMode.READ_ONLY, sh_offset, sh_size).asReadOnlyBuffer();
 		}
 
 		public byte[] loadSectionData() throws IOException {
@@ -1051,44 +1056,71 @@ public class Elf {
 		return sections;
 	}
 
-	private Symbol[] loadSymbolsBySection(Section section) throws IOException {
-		int numSyms = 1;
-		if (section.sh_entsize != 0) {
-			numSyms = (int)section.sh_size / (int)section.sh_entsize;
+	/**
+	 * Returns the contents of a region of the file, with the byte order of the elf file. The
+	 * region is read into the heap, mapping it would keep the file locked until the mapping
+	 * is garbage collected.
+	 */
+	private ByteBuffer readRegion(long offset, long size) throws IOException {
+		if (size < 0 || size > Integer.MAX_VALUE)
+			throw new IOException("Invalid region size " + size); //$NON-NLS-1$
+		byte[] data= new byte[(int) size];
+		efile.seek(offset);
+		efile.readFully(data);
+		final ByteBuffer buffer= ByteBuffer.wrap(data);
+		final boolean isle= ehdr.e_ident[ELFhdr.EI_DATA] == ELFhdr.ELFDATA2LSB;
+		buffer.order(isle ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+		return buffer;
+	}
+
+	private IAddress createAddress(long value, boolean is64) {
+		if (!is64)
+			return new Addr32(value & 0xffffffffL);
+		BigInteger v= BigInteger.valueOf(value & Long.MAX_VALUE);
+		return new Addr64(value < 0 ? v.setBit(63) : v);
+	}
+
+	private boolean is64Bit() throws IOException {
+		switch (ehdr.e_ident[ELFhdr.EI_CLASS]) {
+			case ELFhdr.ELFCLASS32 :
+				return false;
+			case ELFhdr.ELFCLASS64 :
+				return true;
+			case ELFhdr.ELFCLASSNONE :
+			default :
+				throw new IOException("Unknown ELF class " + ehdr.e_ident[ELFhdr.EI_CLASS]); //$NON-NLS-1$
 		}
+	}
+
+	private Symbol[] loadSymbolsBySection(Section section) throws IOException {
+		final boolean is64= is64Bit();
+		final int entsize= (int) section.sh_entsize;
+		if (entsize == 0 || entsize < (is64 ? 24 : 16))
+			return new Symbol[0];
+		// Read the entire table at once instead of seeking to every field.
+		final ByteBuffer table= readRegion(section.sh_offset, section.sh_size);
+		final int numSyms = table.limit() / entsize;
 		ArrayList<Symbol> symList = new ArrayList<Symbol>(numSyms);
-		long offset = section.sh_offset;
-		for (int c = 0; c < numSyms; offset += section.sh_entsize, c++) {
-			efile.seek(offset);
+		for (int c = 0; c < numSyms; c++) {
+			final int pos= c * entsize;
 			Symbol symbol = new Symbol(section);
-			switch (ehdr.e_ident[ELFhdr.EI_CLASS]) {
-				case ELFhdr.ELFCLASS32 : {
-					byte[] addrArray = new byte[ELF32_ADDR_SIZE];
-
-					symbol.st_name = efile.readIntE();
-					efile.readFullyE(addrArray);
-					symbol.st_value = new Addr32(addrArray);
-					symbol.st_size = efile.readIntE();
-					symbol.st_info = efile.readByte();
-					symbol.st_other = efile.readByte();
-					symbol.st_shndx = efile.readShortE();
-				}
-					break;
-				case ELFhdr.ELFCLASS64 : {
-					byte[] addrArray = new byte[ELF64_ADDR_SIZE];
-
-					symbol.st_name = efile.readIntE();
-					symbol.st_info = efile.readByte();
-					symbol.st_other = efile.readByte();
-					symbol.st_shndx = efile.readShortE();
-					efile.readFullyE(addrArray);
-					symbol.st_value = new Addr64(addrArray);
-					symbol.st_size = readUnsignedLong(efile);
+			symbol.st_name = table.getInt(pos) & 0xffffffffL;
+			if (is64) {
+				symbol.st_info = table.get(pos + 4);
+				symbol.st_other = table.get(pos + 5);
+				symbol.st_shndx = table.getShort(pos + 6);
+				symbol.st_value = createAddress(table.getLong(pos + 8), true);
+				symbol.st_size = table.getLong(pos + 16);
+				if (symbol.st_size < 0) {
+					throw new IOException("Maximal file offset is " + Long.toHexString(Long.MAX_VALUE) + //$NON-NLS-1$
+							" given offset is " + Long.toHexString(symbol.st_size)); //$NON-NLS-1$
 				}
-					break;
-				case ELFhdr.ELFCLASSNONE :
-				default :
-					throw new IOException("Unknown ELF class " + ehdr.e_ident[ELFhdr.EI_CLASS]); //$NON-NLS-1$
+			} else {
+				symbol.st_value = createAddress(table.getInt(pos + 4), false);
+				symbol.st_size = table.getInt(pos + 8) & 0xffffffffL;
+				symbol.st_info = table.get(pos + 12);
+				symbol.st_other = table.get(pos + 13);
+				symbol.st_shndx = table.getShort(pos + 14);
 			}
 			if (symbol.st_info == 0)
 				continue;
@@ -1099,6 +1131,59 @@ public class Elf {
 		return results;
 	}
 
+	/**
+	 * Returns an index of the symbols of the symbol table, or of the dynamic symbol table in case
+	 * there is no symbol table. In contrast to {@link #loadSymbols()} the index does not create
+	 * an object per symbol, which makes it suitable for binaries with many symbols.
+	 * @since 5.7
+	 */
+	public ElfSymbolIndex getSymbolIndex() throws IOException {
+		if (fSymbolIndex == null) {
+			Section[] section = getSections(Section.SHT_SYMTAB);
+			if (section.length > 0) {
+				fSymbolIndexSection= section[0];
+				fSymbolIndex= createSymbolIndex(section[0]);
+			}
+			if (fSymbolIndex == null || fSymbolIndex.size() == 0) {
+				section = getSections(Section.SHT_DYNSYM);
+				if (section.length > 0) {
+					fSymbolIndexSection= section[0];
+					fSymbolIndex= createSymbolIndex(section[0]);
+				}
+			}
+			if (fSymbolIndex == null) {
+				fSymbolIndex= new ElfSymbolIndex(ByteBuffer.allocate(0), 0, false, null);
+			}
+		}
+		return fSymbolIndex;
+	}
+
+	private ElfSymbolIndex createSymbolIndex(Section symtab) throws IOException {
+		byte[] strings= null;
+		if (symtab.sh_link > 0 && symtab.sh_link < sections.length) {
+			final Section strtab= sections[(int) symtab.sh_link];
+			final ByteBuffer buffer= readRegion(strtab.sh_offset, strtab.sh_size);
+			strings= new byte[buffer.limit()];
+			buffer.get(strings);
+		}
+		return new ElfSymbolIndex(readRegion(symtab.sh_offset, symtab.sh_size),
+				(int) symtab.sh_entsize, is64Bit(), strings);
+	}
+
+	/**
+	 * Creates the symbol object for the symbol at the given position of the symbol index.
+	 */
+	Symbol createIndexedSymbol(int i) throws IOException {
+		final ElfSymbolIndex index= getSymbolIndex();
+		final Symbol symbol= new Symbol(fSymbolIndexSection);
+		symbol.st_info= (short) ((index.getBind(i) << 4) | index.getType(i));
+		symbol.st_shndx= index.getSectionIndex(i);
+		symbol.st_value= createAddress(index.getValue(i), is64Bit());
+		symbol.st_size= index.getSize(i);
+		symbol.name= index.getName(i);
+		return symbol;
+	}
+
 	public void loadSymbols() throws IOException {
 		if (symbols == null) {
 			Section section[] = getSections(Section.SHT_SYMTAB);
@@ -1143,6 +1228,17 @@ public class Elf {
 
 	/* return the address of the function that address is in */
 	public Symbol getSymbol(IAddress vma) {
+		if (fSymbolIndex != null || efile != null) {
+			// Binary search on the symbol index, only the symbol found is created.
+			try {
+				final ElfSymbolIndex index= getSymbolIndex();
+				final int i= index.findByAddress(vma.getValue().longValue());
+				return i < 0 ? null : createIndexedSymbol(i);
+			} catch (IOException e) {
+				return null;
+			}
+		}
+		// The file has been disposed, use the symbols loaded before.
 		if (symbols == null) {
 			return null;
 		}
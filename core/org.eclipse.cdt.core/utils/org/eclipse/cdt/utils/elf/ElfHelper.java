@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 QNX Software Systems and others.
+ * Copyright (c) 2000, 2014 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -187,43 +187,32 @@ public class ElfHelper {
 	}
 
 	public Elf.Symbol[] getLocalFunctions() throws IOException {
-		Vector<Symbol> v = new Vector<Symbol>();
-
-		loadSymbols();
-		loadSections();
-
-		for (int i = 0; i < symbols.length; i++) {
-			if ( symbols[i].st_type() == Elf.Symbol.STT_FUNC) {
-				int idx = symbols[i].st_shndx;
-				if (idx < Elf.Symbol.SHN_HIPROC && idx > Elf.Symbol.SHN_LOPROC) {
-					String name = symbols[i].toString();
-					if (name != null && name.trim().length() > 0)
-						v.add(symbols[i]);
-				} else if (idx >= 0 && sections[idx].sh_type != Elf.Section.SHT_NULL) {
-					v.add(symbols[i]);
-				}
-			}
-		}
-
-		Elf.Symbol[] ret = v.toArray(new Elf.Symbol[v.size()]);
-		return ret;
+		return getDefinedSymbols(Elf.Symbol.STT_FUNC);
 	}
 
 	public Elf.Symbol[] getLocalObjects() throws IOException {
+		return getDefinedSymbols(Elf.Symbol.STT_OBJECT);
+	}
+
+	/**
+	 * Returns the defined symbols of the given type. Uses the symbol index of the elf file,
+	 * such that objects are created only for the symbols returned.
+	 */
+	private Elf.Symbol[] getDefinedSymbols(int type) throws IOException {
 		Vector<Symbol> v = new Vector<Symbol>();
 
-		loadSymbols();
+		final ElfSymbolIndex index = elf.getSymbolIndex();
 		loadSections();
 
-		for (int i = 0; i < symbols.length; i++) {
-			if ( symbols[i].st_type() == Elf.Symbol.STT_OBJECT) {
-				int idx = symbols[i].st_shndx;
+		for (int i = 0; i < index.size(); i++) {
+			if (index.getType(i) == type) {
+				int idx = index.getSectionIndex(i);
 				if (idx < Elf.Symbol.SHN_HIPROC && idx > Elf.Symbol.SHN_LOPROC) {
-					String name = symbols[i].toString();
+					String name = index.getName(i);
 					if (name != null && name.trim().length() > 0)
-						v.add(symbols[i]);
+						v.add(elf.createIndexedSymbol(i));
 				} else if (idx >= 0 && sections[idx].sh_type != Elf.Section.SHT_NULL) {
-					v.add(symbols[i]);
+					v.add(elf.createIndexedSymbol(i));
 				}
 			}
 		}
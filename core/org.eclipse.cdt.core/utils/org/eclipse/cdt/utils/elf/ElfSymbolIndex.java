@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Eclipse CDT project and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eclipse CDT project - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.utils.elf;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import org.eclipse.cdt.internal.core.PermutationSort;
+
+/**
+ * Compact index of the symbols of a symbol table of an elf file. The symbols are kept in
+ * primitive arrays sorted by address, the names are decoded from the string table on demand.
+ * Symbols are referenced by their position in the index. Lookups by address use binary search,
+ * for lookups by name an order of the symbols by name is computed on first use.
+ *
+ * @since 5.7
+ * @noextend This class is not intended to be subclassed by clients.
+ * @noinstantiate This class is not intended to be instantiated by clients.
+ */
+public final class ElfSymbolIndex {
+	private static final Charset CHARSET= Charset.forName("ISO-8859-1"); //$NON-NLS-1$
+
+	private final long[] fValues;
+	private final long[] fSizes;
+	private final int[] fNames;
+	private final byte[] fInfo;
+	private final short[] fSectionIndex;
+	private final byte[] fStrings;
+	private volatile int[] fByName;
+
+	/**
+	 * Reads the symbols from the contents of a symbol table. The byte order of the buffer
+	 * has to be set according to the elf file.
+	 */
+	ElfSymbolIndex(ByteBuffer symtab, int entrySize, boolean is64, byte[] strings) {
+		final int count= entrySize == 0 ? 0 : symtab.limit() / entrySize;
+		long[] values= new long[count];
+		long[] sizes= new long[count];
+		int[] names= new int[count];
+		byte[] info= new byte[count];
+		short[] sectionIndex= new short[count];
+		int n= 0;
+		for (int i= 0; i < count; i++) {
+			final int pos= i * entrySize;
+			final byte stInfo;
+			if (is64) {
+				stInfo= symtab.get(pos + 4);
+				if (stInfo == 0)
+					continue;
+				values[n]= symtab.getLong(pos + 8);
+				sizes[n]= symtab.getLong(pos + 16);
+				sectionIndex[n]= symtab.getShort(pos + 6);
+			} else {
+				stInfo= symtab.get(pos + 12);
+				if (stInfo == 0)
+					continue;
+				values[n]= symtab.getInt(pos + 4) & 0xffffffffL;
+				sizes[n]= symtab.getInt(pos + 8) & 0xffffffffL;
+				sectionIndex[n]= symtab.getShort(pos + 14);
+			}
+			names[n]= symtab.getInt(pos);
+			info[n]= stInfo;
+			n++;
+		}
+
+		// Sort by address.
+		int[] order= PermutationSort.identity(n);
+		PermutationSort.sortUnsigned(order, values);
+		fValues= new long[n];
+		fSizes= new long[n];
+		fNames= new int[n];
+		fInfo= new byte[n];
+		fSectionIndex= new short[n];
+		for (int i= 0; i < n; i++) {
+			final int j= order[i];
+			fValues[i]= values[j];
+			fSizes[i]= sizes[j];
+			fNames[i]= names[j];
+			fInfo[i]= info[j];
+			fSectionIndex[i]= sectionIndex[j];
+		}
+		fStrings= strings;
+	}
+
+	/**
+	 * Returns the number of symbols in the index.
+	 */
+	public int size() {
+		return fValues.length;
+	}
+
+	/**
+	 * Returns the value (address) of the symbol at the given position. Addresses are unsigned.
+	 */
+	public long getValue(int i) {
+		return fValues[i];
+	}
+
+	public long getSize(int i) {
+		return fSizes[i];
+	}
+
+	/**
+	 * Returns the type of the symbol, one of the <code>Elf.Symbol.STT_...</code> constants.
+	 */
+	public int getType(int i) {
+		return fInfo[i] & 0xf;
+	}
+
+	/**
+	 * Returns the binding of the symbol, one of the <code>Elf.Symbol.STB_...</code> constants.
+	 */
+	public int getBind(int i) {
+		return (fInfo[i] >> 4) & 0xf;
+	}
+
+	/**
+	 * Returns the index of the section the symbol is defined in.
+	 */
+	public short getSectionIndex(int i) {
+		return fSectionIndex[i];
+	}
+
+	public String getName(int i) {
+		final int start= fNames[i];
+		if (fStrings == null || start < 0 || start >= fStrings.length)
+			return ""; //$NON-NLS-1$
+		int end= start;
+		while (end < fStrings.length && fStrings[end] != 0) {
+			end++;
+		}
+		return new String(fStrings, start, end - start, CHARSET);
+	}
+
+	/**
+	 * Returns the position of the last symbol with an address less than or equal to the given
+	 * one, or <code>-1</code> if there is no such symbol. Addresses are compared as unsigned
+	 * values.
+	 */
+	public int findByAddress(long address) {
+		int low= 0;
+		int high= fValues.length - 1;
+		while (low <= high) {
+			final int mid= (low + high) >>> 1;
+			if (PermutationSort.compareUnsigned(fValues[mid], address) <= 0) {
+				low= mid + 1;
+			} else {
+				high= mid - 1;
+			}
+		}
+		return high;
+	}
+
+	/**
+	 * Returns the position of the symbol with the given name, or <code>-1</code>. In case there
+	 * are multiple symbols with the same name the one with the lowest address is returned.
+	 */
+	public int findByName(String name) {
+		final byte[] key= name.getBytes(CHARSET);
+		final int[] byName= getByName();
+		int low= 0;
+		int high= byName.length - 1;
+		while (low <= high) {
+			final int mid= (low + high) >>> 1;
+			if (compareName(fNames[byName[mid]], key) < 0) {
+				low= mid + 1;
+			} else {
+				high= mid - 1;
+			}
+		}
+		if (low < byName.length && compareName(fNames[byName[low]], key) == 0)
+			return byName[low];
+		return -1;
+	}
+
+	private int[] getByName() {
+		int[] result= fByName;
+		if (result == null) {
+			result= PermutationSort.identity(fValues.length);
+			// Stable, symbols with equal names stay ordered by address.
+			PermutationSort.sort(result, new PermutationSort.IPositionComparator() {
+				@Override
+				public int compare(int position1, int position2) {
+					return compareNames(fNames[position1], fNames[position2]);
+				}
+			});
+			fByName= result;
+		}
+		return result;
+	}
+
+	private int charAt(int offset) {
+		return fStrings != null && offset >= 0 && offset < fStrings.length ? fStrings[offset] & 0xff : 0;
+	}
+
+	/**
+	 * Compares the name at the given offset of the string table with the given name.
+	 */
+	private int compareName(int offset, byte[] name) {
+		for (int i= 0; ; i++) {
+			final int c1= charAt(offset + i);
+			final int c2= i < name.length ? name[i] & 0xff : 0;
+			if (c1 != c2)
+				return c1 - c2;
+			if (c1 == 0)
+				return 0;
+		}
+	}
+
+	private int compareNames(int offset1, int offset2) {
+		if (offset1 == offset2)
+			return 0;
+		for (int i= 0; ; i++) {
+			final int c1= charAt(offset1 + i);
+			final int c2= charAt(offset2 + i);
+			if (c1 != c2)
+				return c1 - c2;
+			if (c1 == 0)
+				return 0;
+		}
+	}
+}
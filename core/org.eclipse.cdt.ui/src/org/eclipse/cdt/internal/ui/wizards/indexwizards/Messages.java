@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2010 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007, 2014 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -30,6 +30,7 @@ public class Messages extends NLS {
 	public static String TeamProjectIndexExportWizardPage_labelProjectTable;
 	public static String TeamProjectIndexExportWizardPage_noProjectError;
 	public static String TeamProjectIndexExportWizardPage_resourceSnapshotButton;
+	public static String TeamProjectIndexExportWizardPage_chunkDeltaButton;
 	public static String TeamProjectIndexExportWizardPage_selectAll;
 	public static String TeamProjectIndexExportWizardPage_title;
 	public static String TeamProjectIndexExportWizardPage_variableButton;
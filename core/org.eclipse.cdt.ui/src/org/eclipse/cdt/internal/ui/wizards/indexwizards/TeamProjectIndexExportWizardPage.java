@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2010 Wind River Systems, Inc. and others.
+ * Copyright (c) 2007, 2014 Wind River Systems, Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -65,6 +65,7 @@ public class TeamProjectIndexExportWizardPage extends WizardPage implements List
 	private CheckboxTableViewer fProjectViewer;
     private Text fDestinationField;
     private Button fResourceSnapshotButton;
+    private Button fChunkDeltaButton;
 
     /**
      *	Create an instance of this class
@@ -291,6 +292,13 @@ public class TeamProjectIndexExportWizardPage extends WizardPage implements List
         fResourceSnapshotButton.setLayoutData(gd= new GridData());
         gd.grabExcessHorizontalSpace= true;
         gd.horizontalAlignment= GridData.FILL;
+
+        fChunkDeltaButton = new Button(resourceSnapshotDestinationGroup, SWT.CHECK);
+        fChunkDeltaButton.setText(Messages.TeamProjectIndexExportWizardPage_chunkDeltaButton);
+        fChunkDeltaButton.setFont(font);
+        fChunkDeltaButton.setLayoutData(gd= new GridData());
+        gd.grabExcessHorizontalSpace= true;
+        gd.horizontalAlignment= GridData.FILL;
     }
 
 	protected void onInsertVariable() {
@@ -327,7 +335,14 @@ public class TeamProjectIndexExportWizardPage extends WizardPage implements List
     	final String dest= getDestinationValue();
     	final MultiStatus status= new MultiStatus(CUIPlugin.PLUGIN_ID, 
     			0, Messages.TeamProjectIndexExportWizardPage_errorExporting, null); 
-    	final boolean exportResourceSnapshot = fResourceSnapshotButton.getSelection();
+    	int options= 0;
+    	if (fResourceSnapshotButton.getSelection()) {
+    		options |= TeamPDOMExportOperation.EXPORT_OPTION_RESOURCE_SNAPSHOT;
+    	}
+    	if (fChunkDeltaButton.getSelection()) {
+    		options |= TeamPDOMExportOperation.EXPORT_OPTION_CHUNK_DELTA;
+    	}
+    	final int exportOptions= options;
 
     	IRunnableWithProgress op= new IRunnableWithProgress() {
 			@Override
@@ -336,9 +351,7 @@ public class TeamProjectIndexExportWizardPage extends WizardPage implements List
 				for (ICProject project : projects) {
 					TeamPDOMExportOperation op= new TeamPDOMExportOperation(project);
 					op.setTargetLocation(dest);
-					if (exportResourceSnapshot) {
-						op.setOptions(TeamPDOMExportOperation.EXPORT_OPTION_RESOURCE_SNAPSHOT);
-					}
+					op.setOptions(exportOptions);
 					try {
 						op.run(new SubProgressMonitor(monitor, 1));
 					} catch (CoreException e) {